@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.api.model.subscription;
+
+/**
+ * Revision of a page of the subscriptions of a tenant, which holds the subscriptions with IDs greater than
+ * {@link #getAfter()} and not greater than {@link #getLast()}. A subscriber compares the revision with the revision of
+ * the subscriptions it holds in the same range, to find the pages which changed.
+ */
+public class SubscriptionRevision {
+
+    private int after;
+    private int last;
+    private int count;
+    private String revision;
+
+    public SubscriptionRevision() {
+
+    }
+
+    public SubscriptionRevision(int after, int last, int count, String revision) {
+
+        this.after = after;
+        this.last = last;
+        this.count = count;
+        this.revision = revision;
+    }
+
+    public int getAfter() {
+
+        return after;
+    }
+
+    public void setAfter(int after) {
+
+        this.after = after;
+    }
+
+    public int getLast() {
+
+        return last;
+    }
+
+    public void setLast(int last) {
+
+        this.last = last;
+    }
+
+    public int getCount() {
+
+        return count;
+    }
+
+    public void setCount(int count) {
+
+        this.count = count;
+    }
+
+    public String getRevision() {
+
+        return revision;
+    }
+
+    public void setRevision(String revision) {
+
+        this.revision = revision;
+    }
+
+    @Override
+    public String toString() {
+
+        return "SubscriptionRevision{" +
+                "after=" + after +
+                ", last=" + last +
+                ", count=" + count +
+                ", revision='" + revision + '\'' +
+                '}';
+    }
+}
@@ -25,6 +25,14 @@ public class Constants {
     public static final String RESPONSE_METRIC_NAME = "apim:response";
     public static final String FAULTY_METRIC_NAME = "apim:faulty";
 
+    // Events are published on the threads serving the requests when the queue size is not positive
+    public static final String EVENT_QUEUE_SIZE = "publisher.queue.size";
+    public static final String EVENT_QUEUE_WORKER_COUNT = "publisher.queue.worker.count";
+    public static final String EVENT_QUEUE_BATCH_SIZE = "publisher.queue.batch.size";
+    public static final int DEFAULT_EVENT_QUEUE_SIZE = 10000;
+    public static final int DEFAULT_EVENT_QUEUE_WORKER_COUNT = 1;
+    public static final int DEFAULT_EVENT_QUEUE_BATCH_SIZE = 100;
+
     public static final String ANONYMOUS_VALUE = "anonymous";
     public static final String UNKNOWN_VALUE = "UNKNOWN";
     public static final int UNKNOWN_INT_VALUE = -1;
@@ -40,10 +40,32 @@ public abstract class AbstractRequestDataPublisher implements RequestDataPublish
             };
     private static final Log log = LogFactory.getLog(AbstractRequestDataPublisher.class);
 
+    /**
+     * Hands the event off to the queue of the analytics publisher, to be written to the reporters by its workers. The
+     * event is written to the reporters on the calling thread if events are not queued.
+     *
+     * @param analyticsEvent analytics event
+     */
     @Override
     public void publish(Event analyticsEvent) {
 
-        Map<String, Object> dataMap = OBJECT_MAPPER.convertValue(analyticsEvent, MAP_TYPE_REFERENCE);
+        AnalyticsEventQueue eventQueue = AnalyticsDataPublisher.getInstance().getEventQueue();
+        if (eventQueue != null) {
+            if (!eventQueue.offer(this, analyticsEvent) && log.isDebugEnabled()) {
+                log.debug("Analytics event queue is full. Event will be dropped.");
+            }
+            return;
+        }
+        report(analyticsEvent);
+    }
+
+    /**
+     * Writes the event to the event builders of the reporters and reports it.
+     *
+     * @param analyticsEvent analytics event
+     */
+    void report(Event analyticsEvent) {
+
         List<CounterMetric> multipleCounterMetrics = this.getMultipleCounterMetrics();
         if (multipleCounterMetrics == null) {
             log.error("All the counterMetrics are invalid. Event will be dropped.");
@@ -54,26 +76,20 @@ public abstract class AbstractRequestDataPublisher implements RequestDataPublish
             if (counterMetric == null) {
                 log.error("counterMetric cannot be null.");
             } else {
-                String counterMetricClassName = counterMetric.getClass().toString().
-                        replaceAll("[\r\n]", "").split(" ")[1];
-                boolean caughtException = false;
                 MetricEventBuilder builder = counterMetric.getEventBuilder();
-                for (Map.Entry<String, Object> entry : dataMap.entrySet()) {
-                    try {
-                        builder.addAttribute(entry.getKey(), entry.getValue());
-                    } catch (MetricReportingException e) {
-                        caughtException = true;
-                        log.error("Error adding data to the event stream. counterMetric: " + counterMetricClassName
-                                , e);
-                        break;
-                    }
+                try {
+                    AnalyticsEventWriter.write(analyticsEvent, builder);
+                } catch (MetricReportingException e) {
+                    String counterMetricClassName = counterMetric.getClass().toString().
+                            replaceAll("[\r\n]", "").split(" ")[1];
+                    log.error("Error adding data to the event stream. counterMetric: " + counterMetricClassName
+                            , e);
+                    continue;
                 }
-                if (!caughtException) {
-                    try {
-                        counterMetric.incrementCount(builder);
-                    } catch (MetricReportingException e) {
-                        log.error("Error occurred when publishing event.", e);
-                    }
+                try {
+                    counterMetric.incrementCount(builder);
+                } catch (MetricReportingException e) {
+                    log.error("Error occurred when publishing event.", e);
                 }
             }
         }
@@ -43,6 +43,7 @@ public class AnalyticsDataPublisher {
 
     private List<CounterMetric> successMetricReporters;
     private List<CounterMetric> faultyMetricReporters;
+    private volatile AnalyticsEventQueue eventQueue;
 
     private AnalyticsDataPublisher() {
 
@@ -147,6 +148,51 @@ public class AnalyticsDataPublisher {
         } catch (MetricCreationException e) {
             log.error("Error while creating the metric reporter", e);
         }
+        initializeEventQueue(configs);
+    }
+
+    private void initializeEventQueue(Map<String, String> configs) {
+
+        AnalyticsEventQueue previousEventQueue = this.eventQueue;
+        int queueSize = getIntConfig(configs, Constants.EVENT_QUEUE_SIZE, Constants.DEFAULT_EVENT_QUEUE_SIZE);
+        if (queueSize > 0) {
+            AnalyticsEventQueue newEventQueue = new AnalyticsEventQueue(queueSize,
+                    getIntConfig(configs, Constants.EVENT_QUEUE_WORKER_COUNT,
+                            Constants.DEFAULT_EVENT_QUEUE_WORKER_COUNT),
+                    getIntConfig(configs, Constants.EVENT_QUEUE_BATCH_SIZE, Constants.DEFAULT_EVENT_QUEUE_BATCH_SIZE));
+            newEventQueue.start();
+            this.eventQueue = newEventQueue;
+        } else {
+            this.eventQueue = null;
+        }
+        if (previousEventQueue != null) {
+            previousEventQueue.stop();
+        }
+    }
+
+    private static int getIntConfig(Map<String, String> configs, String key, int defaultValue) {
+
+        String value = configs.get(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value " + value + " configured for " + key + ". Using the default value "
+                    + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return queue of the events to be published by the background workers, or null if the events are published on
+     * the threads serving the requests. The depth of the queue and the number of dropped events are available through
+     * the queue.
+     */
+    public AnalyticsEventQueue getEventQueue() {
+
+        return eventQueue;
     }
 
     public List<CounterMetric> getSuccessMetricReporters() throws MetricCreationException {
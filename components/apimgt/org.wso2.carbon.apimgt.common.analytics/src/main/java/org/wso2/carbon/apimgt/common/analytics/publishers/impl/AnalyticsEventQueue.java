@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.common.analytics.publishers.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue of the analytics events to be published, so that the events are written to the reporters by
+ * background worker threads instead of the threads which serve the requests. Events are dropped when the queue is
+ * full, instead of blocking the requests.
+ */
+public class AnalyticsEventQueue {
+
+    private static final Log log = LogFactory.getLog(AnalyticsEventQueue.class);
+    private static final long DROPPED_EVENTS_LOG_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final long POLL_INTERVAL = 500;
+    private static final long DRAIN_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private final BlockingQueue<QueuedEvent> queue;
+    private final int batchSize;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile long lastLoggedDroppedCount;
+    private long lastDroppedEventsLogTime;
+
+    /**
+     * @param queueSize   maximum number of events waiting to be published
+     * @param workerCount number of threads publishing the events
+     * @param batchSize   maximum number of events taken from the queue at once by a worker
+     */
+    AnalyticsEventQueue(int queueSize, int workerCount, int batchSize) {
+
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = Math.max(batchSize, 1);
+        for (int i = 0; i < Math.max(workerCount, 1); i++) {
+            Thread worker = new Thread(this::publishEvents, "AnalyticsEventPublisher-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+    }
+
+    void start() {
+
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Stops accepting events and waits for the workers to publish the events which are still in the queue. Workers
+     * which have not drained the queue within the drain timeout are interrupted, and the remaining events are dropped.
+     */
+    void stop() {
+
+        running = false;
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT;
+        try {
+            for (Thread worker : workers) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining > 0) {
+                    worker.join(remaining);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Thread worker : workers) {
+            if (worker.isAlive()) {
+                worker.interrupt();
+            }
+        }
+        int remainingEvents = queue.size();
+        if (remainingEvents > 0) {
+            droppedCount.addAndGet(remainingEvents);
+            queue.clear();
+            log.warn(remainingEvents + " analytics events were dropped as the event queue was not drained within "
+                    + DRAIN_TIMEOUT + " ms when stopping the queue.");
+        }
+    }
+
+    /**
+     * Adds an event to be published, without waiting for space in the queue.
+     *
+     * @param publisher publisher which writes the event to its reporters
+     * @param event     analytics event
+     * @return false if the queue is full or stopped, and the event is dropped
+     */
+    boolean offer(AbstractRequestDataPublisher publisher, Event event) {
+
+        if (running && queue.offer(new QueuedEvent(publisher, event))) {
+            return true;
+        }
+        droppedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return number of events waiting to be published
+     */
+    public int getQueueDepth() {
+
+        return queue.size();
+    }
+
+    /**
+     * @return number of events published by the workers since the queue was created
+     */
+    public long getPublishedCount() {
+
+        return publishedCount.get();
+    }
+
+    /**
+     * @return number of events dropped as the queue was full or stopped since the queue was created
+     */
+    public long getDroppedCount() {
+
+        return droppedCount.get();
+    }
+
+    private void publishEvents() {
+
+        List<QueuedEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            QueuedEvent next;
+            try {
+                next = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (next == null) {
+                continue;
+            }
+            batch.add(next);
+            queue.drainTo(batch, batchSize - 1);
+            for (QueuedEvent queuedEvent : batch) {
+                try {
+                    queuedEvent.publisher.report(queuedEvent.event);
+                } catch (RuntimeException e) {
+                    log.error("Error occurred when publishing analytics event.", e);
+                }
+            }
+            publishedCount.addAndGet(batch.size());
+            batch.clear();
+            logDroppedEvents();
+        }
+    }
+
+    private void logDroppedEvents() {
+
+        long dropped = droppedCount.get();
+        if (dropped == lastLoggedDroppedCount) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (dropped != lastLoggedDroppedCount && now - lastDroppedEventsLogTime >= DROPPED_EVENTS_LOG_INTERVAL) {
+                log.warn((dropped - lastLoggedDroppedCount) + " analytics events were dropped as the event queue "
+                        + "was full. Queue depth: " + queue.size() + ", published events: " + publishedCount.get()
+                        + ", dropped events: " + dropped);
+                lastLoggedDroppedCount = dropped;
+                lastDroppedEventsLogTime = now;
+            }
+        }
+    }
+
+    private static final class QueuedEvent {
+
+        private final AbstractRequestDataPublisher publisher;
+        private final Event event;
+
+        private QueuedEvent(AbstractRequestDataPublisher publisher, Event event) {
+
+            this.publisher = publisher;
+            this.event = event;
+        }
+    }
+}
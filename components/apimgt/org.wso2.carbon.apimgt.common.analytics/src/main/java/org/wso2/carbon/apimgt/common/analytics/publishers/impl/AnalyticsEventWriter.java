@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.common.analytics.publishers.impl;
+
+import org.wso2.am.analytics.publisher.exception.MetricReportingException;
+import org.wso2.am.analytics.publisher.reporter.MetricEventBuilder;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.API;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Application;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Error;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Event;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.ExtendedAPI;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Latencies;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.MetaInfo;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Operation;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.OperationPolicy;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Target;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.URITemplate;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.enums.FaultSubCategory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.wso2.carbon.apimgt.common.analytics.publishers.impl.AbstractRequestDataPublisher.MAP_TYPE_REFERENCE;
+import static org.wso2.carbon.apimgt.common.analytics.publishers.impl.AbstractRequestDataPublisher.OBJECT_MAPPER;
+
+/**
+ * Writes the attributes of an analytics event to the event builder of a reporter, with the same names and values as
+ * the JSON representation of the event, without converting the event to a map through reflection.
+ * <p>
+ * Attributes of subclasses of the event DTOs which are not known here are still converted through Jackson.
+ */
+final class AnalyticsEventWriter {
+
+    private AnalyticsEventWriter() {
+
+    }
+
+    static void write(Event event, MetricEventBuilder builder) throws MetricReportingException {
+
+        writeApi(event.getApi(), builder);
+        Operation operation = event.getOperation();
+        if (operation != null && !writeConverted(operation, Operation.class, builder)) {
+            builder.addAttribute("apiMethod", operation.getApiMethod());
+            builder.addAttribute("apiResourceTemplate", operation.getApiResourceTemplate());
+        }
+        Target target = event.getTarget();
+        if (target != null && !writeConverted(target, Target.class, builder)) {
+            builder.addAttribute("targetResponseCode", target.getTargetResponseCode());
+            builder.addAttribute("responseCacheHit", target.isResponseCacheHit());
+            builder.addAttribute("destination", target.getDestination());
+        }
+        Application application = event.getApplication();
+        if (application != null && !writeConverted(application, Application.class, builder)) {
+            builder.addAttribute("keyType", application.getKeyType());
+            builder.addAttribute("applicationId", application.getApplicationId());
+            builder.addAttribute("applicationName", application.getApplicationName());
+            builder.addAttribute("applicationOwner", application.getApplicationOwner());
+        }
+        Latencies latencies = event.getLatencies();
+        if (latencies != null && !writeConverted(latencies, Latencies.class, builder)) {
+            builder.addAttribute("responseLatency", latencies.getResponseLatency());
+            builder.addAttribute("backendLatency", latencies.getBackendLatency());
+            builder.addAttribute("requestMediationLatency", latencies.getRequestMediationLatency());
+            builder.addAttribute("responseMediationLatency", latencies.getResponseMediationLatency());
+        }
+        MetaInfo metaInfo = event.getMetaInfo();
+        if (metaInfo != null && !writeConverted(metaInfo, MetaInfo.class, builder)) {
+            builder.addAttribute("correlationId", metaInfo.getCorrelationId());
+            builder.addAttribute("regionId", metaInfo.getRegionId());
+            builder.addAttribute("gatewayType", metaInfo.getGatewayType());
+        }
+        Error error = event.getError();
+        if (error != null && !writeConverted(error, Error.class, builder)) {
+            builder.addAttribute("errorCode", error.getErrorCode());
+            builder.addAttribute("errorMessage", toValue(error.getErrorMessage()));
+        }
+        builder.addAttribute("proxyResponseCode", event.getProxyResponseCode());
+        builder.addAttribute("requestTimestamp", event.getRequestTimestamp());
+        builder.addAttribute("userAgentHeader", event.getUserAgentHeader());
+        builder.addAttribute("userName", event.getUserName());
+        builder.addAttribute("userIp", event.getUserIp());
+        builder.addAttribute("errorType", event.getErrorType());
+        builder.addAttribute("properties", toValue(event.getProperties()));
+    }
+
+    private static void writeApi(API api, MetricEventBuilder builder) throws MetricReportingException {
+
+        if (api == null || (api.getClass() != ExtendedAPI.class && writeConverted(api, API.class, builder))) {
+            return;
+        }
+        builder.addAttribute("apiId", api.getApiId());
+        builder.addAttribute("apiType", api.getApiType());
+        builder.addAttribute("apiName", api.getApiName());
+        builder.addAttribute("apiVersion", api.getApiVersion());
+        builder.addAttribute("apiCreator", api.getApiCreator());
+        builder.addAttribute("apiCreatorTenantDomain", api.getApiCreatorTenantDomain());
+        builder.addAttribute("uriTemplates", toUriTemplateValues(api.getUriTemplates()));
+        builder.addAttribute("apiPolicies", toPolicyValues(api.getApiPolicies()));
+        if (api instanceof ExtendedAPI) {
+            builder.addAttribute("organizationId", ((ExtendedAPI) api).getOrganizationId());
+            builder.addAttribute("apiContext", ((ExtendedAPI) api).getApiContext());
+        }
+    }
+
+    /**
+     * Writes the attributes of a subclass of a DTO, whose properties are not known, converting it through Jackson.
+     *
+     * @return false if the DTO is of the given class, and has to be written by the caller
+     */
+    private static boolean writeConverted(Object value, Class<?> type, MetricEventBuilder builder)
+            throws MetricReportingException {
+
+        if (value.getClass() == type) {
+            return false;
+        }
+        Map<String, Object> attributes = OBJECT_MAPPER.convertValue(value, MAP_TYPE_REFERENCE);
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            builder.addAttribute(attribute.getKey(), attribute.getValue());
+        }
+        return true;
+    }
+
+    private static List<Map<String, Object>> toUriTemplateValues(List<URITemplate> uriTemplates) {
+
+        if (uriTemplates == null) {
+            return null;
+        }
+        List<Map<String, Object>> values = new ArrayList<>(uriTemplates.size());
+        for (URITemplate uriTemplate : uriTemplates) {
+            if (uriTemplate == null || uriTemplate.getClass() != URITemplate.class) {
+                values.add(uriTemplate != null ? OBJECT_MAPPER.convertValue(uriTemplate, MAP_TYPE_REFERENCE) : null);
+                continue;
+            }
+            Map<String, Object> value = new LinkedHashMap<>();
+            value.put("operationPolicies", toPolicyValues(uriTemplate.getOperationPolicies()));
+            value.put("httpVerb", uriTemplate.getHttpVerb());
+            value.put("uriTemplate", uriTemplate.getUriTemplate());
+            value.put("resourceURI", uriTemplate.getResourceURI());
+            value.put("resourceSandboxURI", uriTemplate.getResourceSandboxURI());
+            value.put("authScheme", uriTemplate.getAuthScheme());
+            values.add(value);
+        }
+        return values;
+    }
+
+    private static List<Map<String, Object>> toPolicyValues(List<OperationPolicy> policies) {
+
+        if (policies == null) {
+            return null;
+        }
+        List<Map<String, Object>> values = new ArrayList<>(policies.size());
+        for (OperationPolicy policy : policies) {
+            if (policy == null || policy.getClass() != OperationPolicy.class) {
+                values.add(policy != null ? OBJECT_MAPPER.convertValue(policy, MAP_TYPE_REFERENCE) : null);
+                continue;
+            }
+            Map<String, Object> value = new LinkedHashMap<>();
+            value.put("policyId", policy.getPolicyId());
+            value.put("policyName", policy.getPolicyName());
+            value.put("policyVersion", policy.getPolicyVersion());
+            value.put("direction", policy.getDirection());
+            value.put("order", policy.getOrder());
+            values.add(value);
+        }
+        return values;
+    }
+
+    private static Object toValue(FaultSubCategory errorMessage) {
+
+        if (errorMessage instanceof Enum) {
+            return ((Enum<?>) errorMessage).name();
+        }
+        return errorMessage != null ? OBJECT_MAPPER.convertValue(errorMessage, Object.class) : null;
+    }
+
+    /**
+     * Copies the custom properties of the event. Only values other than strings, numbers and booleans are converted
+     * through Jackson.
+     */
+    private static Map<String, Object> toValue(Map<String, Object> properties) {
+
+        if (properties == null) {
+            return null;
+        }
+        Map<String, Object> values = new LinkedHashMap<>(properties.size());
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            Object value = property.getValue();
+            if (value != null && !(value instanceof String) && !(value instanceof Number)
+                    && !(value instanceof Boolean)) {
+                value = OBJECT_MAPPER.convertValue(value, Object.class);
+            }
+            values.put(property.getKey(), value);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.common.analytics.publishers.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.am.analytics.publisher.reporter.CounterMetric;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Event;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AnalyticsEventQueueTest {
+
+    @Test
+    public void testQueuedEventsArePublishedWhenStopped() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountingPublisher publisher = new CountingPublisher(release);
+        AnalyticsEventQueue eventQueue = new AnalyticsEventQueue(100, 1, 10);
+        eventQueue.start();
+        for (int i = 0; i < 50; i++) {
+            Assert.assertTrue(eventQueue.offer(publisher, new Event()));
+        }
+        Thread stopper = new Thread(eventQueue::stop);
+        stopper.start();
+        release.countDown();
+        stopper.join(TimeUnit.SECONDS.toMillis(20));
+
+        Assert.assertFalse(stopper.isAlive());
+        Assert.assertEquals(50, publisher.reported.get());
+        Assert.assertEquals(50, eventQueue.getPublishedCount());
+        Assert.assertEquals(0, eventQueue.getQueueDepth());
+        Assert.assertEquals(0, eventQueue.getDroppedCount());
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenFullOrStopped() {
+
+        CountingPublisher publisher = new CountingPublisher(new CountDownLatch(0));
+        AnalyticsEventQueue eventQueue = new AnalyticsEventQueue(2, 1, 10);
+        Assert.assertTrue(eventQueue.offer(publisher, new Event()));
+        Assert.assertTrue(eventQueue.offer(publisher, new Event()));
+        Assert.assertFalse(eventQueue.offer(publisher, new Event()));
+        Assert.assertEquals(2, eventQueue.getQueueDepth());
+        Assert.assertEquals(1, eventQueue.getDroppedCount());
+
+        eventQueue.start();
+        eventQueue.stop();
+        Assert.assertFalse(eventQueue.offer(publisher, new Event()));
+        Assert.assertEquals(2, publisher.reported.get());
+        Assert.assertEquals(2, eventQueue.getDroppedCount());
+    }
+
+    /**
+     * Publisher which counts the reported events, after waiting for the test to release it.
+     */
+    private static class CountingPublisher extends AbstractRequestDataPublisher {
+
+        private final CountDownLatch release;
+        private final AtomicInteger reported = new AtomicInteger();
+
+        CountingPublisher(CountDownLatch release) {
+
+            this.release = release;
+        }
+
+        @Override
+        void report(Event analyticsEvent) {
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reported.incrementAndGet();
+        }
+
+        @Override
+        public CounterMetric getCounterMetric() {
+
+            return null;
+        }
+
+        @Override
+        public List<CounterMetric> getMultipleCounterMetrics() {
+
+            return null;
+        }
+    }
+}
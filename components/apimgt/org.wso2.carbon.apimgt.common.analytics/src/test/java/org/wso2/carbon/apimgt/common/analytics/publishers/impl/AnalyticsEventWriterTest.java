@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.common.analytics.publishers.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.am.analytics.publisher.exception.MetricReportingException;
+import org.wso2.am.analytics.publisher.reporter.MetricEventBuilder;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.API;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Application;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Error;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Event;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.ExtendedAPI;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Latencies;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.MetaInfo;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Operation;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.OperationPolicy;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.Target;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.URITemplate;
+import org.wso2.carbon.apimgt.common.analytics.publishers.dto.enums.FaultSubCategories;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AnalyticsEventWriterTest {
+
+    @Test
+    public void testApiEventMatchesJsonRepresentation() throws Exception {
+
+        Event event = createEvent(populate(new API()));
+        assertParity(event);
+    }
+
+    @Test
+    public void testExtendedApiEventMatchesJsonRepresentation() throws Exception {
+
+        ExtendedAPI api = populate(new ExtendedAPI());
+        api.setOrganizationId("carbon.super");
+        api.setApiContext("/pizzashack/1.0.0");
+        Event event = createEvent(api);
+        Map<String, Object> attributes = assertParity(event);
+        Assert.assertEquals("/pizzashack/1.0.0", attributes.get("apiContext"));
+    }
+
+    @Test
+    public void testErrorEventMatchesJsonRepresentation() throws Exception {
+
+        Event event = createEvent(populate(new API()));
+        event.setTarget(null);
+        event.setLatencies(null);
+        Error error = new Error();
+        error.setErrorCode(900800);
+        error.setErrorMessage(FaultSubCategories.Throttling.API_LEVEL_LIMIT_EXCEEDED);
+        event.setError(error);
+        event.setErrorType("THROTTLED");
+        Map<String, Object> attributes = assertParity(event);
+        Assert.assertEquals("API_LEVEL_LIMIT_EXCEEDED", attributes.get("errorMessage"));
+        Assert.assertFalse(attributes.containsKey("targetResponseCode"));
+    }
+
+    @Test
+    public void testCustomPropertiesMatchJsonRepresentation() throws Exception {
+
+        Event event = createEvent(populate(new API()));
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("string", "value");
+        properties.put("integer", 1);
+        properties.put("long", 1L);
+        properties.put("largeLong", Long.MAX_VALUE);
+        properties.put("double", 1.5d);
+        properties.put("float", 1.5f);
+        properties.put("boolean", true);
+        properties.put("null", null);
+        properties.put("list", new ArrayList<>(Collections.singletonList("item")));
+        properties.put("map", Collections.singletonMap("key", 2L));
+        properties.put("operation", event.getOperation());
+        event.setProperties(properties);
+        assertParity(event);
+    }
+
+    @Test
+    public void testSubclassOfDtoMatchesJsonRepresentation() throws Exception {
+
+        Event event = createEvent(populate(new API()));
+        event.setMetaInfo(new CustomMetaInfo());
+        Map<String, Object> attributes = assertParity(event);
+        Assert.assertEquals("custom", attributes.get("customAttribute"));
+    }
+
+    private static Map<String, Object> assertParity(Event event) throws MetricReportingException {
+
+        Map<String, Object> expected =
+                AbstractRequestDataPublisher.OBJECT_MAPPER.convertValue(event,
+                        AbstractRequestDataPublisher.MAP_TYPE_REFERENCE);
+        RecordingEventBuilder builder = new RecordingEventBuilder();
+        AnalyticsEventWriter.write(event, builder);
+        Assert.assertEquals(expected, builder.attributes);
+        return builder.attributes;
+    }
+
+    private static <T extends API> T populate(T api) {
+
+        api.setApiId("6f4d1b2a-0c3e-4a8b-9d7e-5f1a2b3c4d5e");
+        api.setApiType("HTTP");
+        api.setApiName("PizzaShackAPI");
+        api.setApiVersion("1.0.0");
+        api.setApiCreator("admin");
+        api.setApiCreatorTenantDomain("carbon.super");
+        OperationPolicy policy = new OperationPolicy();
+        policy.setPolicyId("policy-id");
+        policy.setPolicyName("addHeader");
+        policy.setPolicyVersion("v1");
+        policy.setDirection("request");
+        policy.setOrder(1);
+        URITemplate uriTemplate = new URITemplate();
+        uriTemplate.setHttpVerb("GET");
+        uriTemplate.setUriTemplate("/menu");
+        uriTemplate.setAuthScheme("Any");
+        uriTemplate.setOperationPolicies(new ArrayList<>(Collections.singletonList(policy)));
+        List<URITemplate> uriTemplates = new ArrayList<>();
+        uriTemplates.add(uriTemplate);
+        api.setUriTemplates(uriTemplates);
+        api.setApiPolicies(new ArrayList<>(Collections.singletonList(policy)));
+        return api;
+    }
+
+    private static Event createEvent(API api) {
+
+        Event event = new Event();
+        event.setApi(api);
+        Operation operation = new Operation();
+        operation.setApiMethod("GET");
+        operation.setApiResourceTemplate("/menu");
+        event.setOperation(operation);
+        Target target = new Target();
+        target.setTargetResponseCode(200);
+        target.setResponseCacheHit(false);
+        target.setDestination("https://localhost:9443/am/sample/pizzashack/v1/api/");
+        event.setTarget(target);
+        Application application = new Application();
+        application.setKeyType("PRODUCTION");
+        application.setApplicationId("application-id");
+        application.setApplicationName("DefaultApplication");
+        application.setApplicationOwner("admin");
+        event.setApplication(application);
+        Latencies latencies = new Latencies();
+        latencies.setResponseLatency(25L);
+        latencies.setBackendLatency(20L);
+        latencies.setRequestMediationLatency(3L);
+        latencies.setResponseMediationLatency(2L);
+        event.setLatencies(latencies);
+        MetaInfo metaInfo = new MetaInfo();
+        metaInfo.setCorrelationId("correlation-id");
+        metaInfo.setRegionId("default");
+        metaInfo.setGatewayType("SYNAPSE");
+        event.setMetaInfo(metaInfo);
+        event.setProxyResponseCode(200);
+        event.setRequestTimestamp("2024-01-01T00:00:00.000Z");
+        event.setUserAgentHeader("curl/8.0.1");
+        event.setUserName("admin@carbon.super");
+        event.setUserIp("127.0.0.1");
+        return event;
+    }
+
+    /**
+     * Subclass of a DTO, whose attributes are written through Jackson.
+     */
+    public static class CustomMetaInfo extends MetaInfo {
+
+        public String getCustomAttribute() {
+
+            return "custom";
+        }
+    }
+
+    /**
+     * Event builder which records the attributes added to it.
+     */
+    private static class RecordingEventBuilder implements MetricEventBuilder {
+
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        @Override
+        public Map<String, Object> build() {
+
+            return attributes;
+        }
+
+        @Override
+        public boolean validate() {
+
+            return true;
+        }
+
+        @Override
+        public MetricEventBuilder addAttribute(String key, Object value) {
+
+            attributes.put(key, value);
+            return this;
+        }
+    }
+}
@@ -44,6 +44,7 @@ public class JWTConfigurationDto {
     private Certificate publicCert;
     private PrivateKey privateKey;
     private long ttl;
+    private boolean signedTokenCacheEnabled;
 
     private boolean useKid;
 
@@ -68,6 +69,7 @@ public class JWTConfigurationDto {
         this.tokenIssuerDtoMap = jwtConfigurationDto.tokenIssuerDtoMap;
         this.jwtExcludedClaims = jwtConfigurationDto.jwtExcludedClaims;
         this.ttl = jwtConfigurationDto.ttl;
+        this.signedTokenCacheEnabled = jwtConfigurationDto.signedTokenCacheEnabled;
     }
 
     public JWTConfigurationDto() {
@@ -200,4 +202,14 @@ public class JWTConfigurationDto {
     public void setUseSHA256Hash(boolean useSHA256Hash) {
         this.useSHA256Hash = useSHA256Hash;
     }
+
+    public boolean isSignedTokenCacheEnabled() {
+
+        return signedTokenCacheEnabled;
+    }
+
+    public void setSignedTokenCacheEnabled(boolean signedTokenCacheEnabled) {
+
+        this.signedTokenCacheEnabled = signedTokenCacheEnabled;
+    }
 }
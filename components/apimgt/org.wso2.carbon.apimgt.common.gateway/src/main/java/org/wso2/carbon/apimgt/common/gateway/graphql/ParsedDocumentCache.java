@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.common.gateway.graphql;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of the parsed and validated documents of the GraphQL queries of an API, keyed by the query.
+ * Only the documents which were parsed and validated without errors are cached, so a cached document can be used
+ * without parsing and validating the query again. A cache must only be used with the schema it was populated for.
+ */
+public class ParsedDocumentCache implements PreparsedDocumentProvider {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final Map<String, PreparsedDocumentEntry> documents;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    public ParsedDocumentCache() {
+
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries maximum number of documents to keep
+     */
+    public ParsedDocumentCache(int maxEntries) {
+
+        this.documents = new LinkedHashMap<String, PreparsedDocumentEntry>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparsedDocumentEntry> eldest) {
+
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param query GraphQL query
+     * @return the cached document of the query, or null if the query is not cached
+     */
+    public PreparsedDocumentEntry get(String query) {
+
+        PreparsedDocumentEntry entry = null;
+        if (query != null) {
+            synchronized (documents) {
+                entry = documents.get(query);
+            }
+        }
+        if (entry != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the document of the query, unless it has parsing or validation errors.
+     *
+     * @param query GraphQL query
+     * @param entry parsed and validated document of the query
+     */
+    public void put(String query, PreparsedDocumentEntry entry) {
+
+        if (query == null || entry == null || entry.hasErrors()) {
+            return;
+        }
+        synchronized (documents) {
+            documents.put(query, entry);
+        }
+    }
+
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput,
+                                              Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+
+        String query = executionInput.getQuery();
+        PreparsedDocumentEntry entry = get(query);
+        if (entry == null) {
+            entry = parseAndValidate.apply(executionInput);
+            put(query, entry);
+        }
+        return entry;
+    }
+
+    public int size() {
+
+        synchronized (documents) {
+            return documents.size();
+        }
+    }
+
+    public long getHitCount() {
+
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+
+        return missCount.sum();
+    }
+}
@@ -24,23 +24,44 @@ import graphql.GraphQLError;
 import graphql.analysis.FieldComplexityCalculator;
 import graphql.analysis.MaxQueryComplexityInstrumentation;
 import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.Instrumentation;
 import graphql.schema.GraphQLSchema;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.simple.parser.ParseException;
 import org.wso2.carbon.apimgt.common.gateway.dto.QueryAnalyzerResponseDTO;
+
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class contains methods using for Graphql query depth and complexity analysis.
+ * <p>
+ * The GraphQL runtimes used for the analysis are built once for each depth and complexity limitation and reused
+ * across requests, and the queries analysed without errors are not parsed and validated again.
  */
 public class QueryAnalyzer {
 
     private static final Log log = LogFactory.getLog(QueryAnalyzer.class);
+    // Number of cached runtimes above which the cached runtimes are dropped, to bound the memory used for them
+    private static final int MAX_CACHED_RUNTIMES = 100;
     private final GraphQLSchema schema;
+    private final ParsedDocumentCache documentCache;
+    private final Map<Integer, GraphQL> depthRuntimes = new ConcurrentHashMap<>();
+    private final Map<String, GraphQL> complexityRuntimes = new ConcurrentHashMap<>();
 
     public QueryAnalyzer(GraphQLSchema schema) {
+        this(schema, new ParsedDocumentCache());
+    }
+
+    /**
+     * @param schema        GraphQL schema of the API
+     * @param documentCache cache of the parsed and validated documents of the queries of the schema
+     */
+    public QueryAnalyzer(GraphQLSchema schema, ParsedDocumentCache documentCache) {
         this.schema = schema;
+        this.documentCache = documentCache;
     }
 
     /**
@@ -59,9 +80,11 @@ public class QueryAnalyzer {
 
         // If maxQueryDepth is a positive value, perform the depth limitation check. Otherwise, bypass the check.
         if (maxQueryDepth > 0) {
-            MaxQueryDepthInstrumentation maxQueryDepthInstrumentation =
-                    new MaxQueryDepthInstrumentation(maxQueryDepth);
-            GraphQL runtime = GraphQL.newGraphQL(schema).instrumentation(maxQueryDepthInstrumentation).build();
+            GraphQL runtime = depthRuntimes.get(maxQueryDepth);
+            if (runtime == null) {
+                runtime = buildRuntime(new MaxQueryDepthInstrumentation(maxQueryDepth));
+                cacheRuntime(depthRuntimes, maxQueryDepth, runtime);
+            }
 
             ExecutionResult executionResult = runtime.execute(payload);
             List<GraphQLError> errors = executionResult.getErrors();
@@ -107,33 +130,39 @@ public class QueryAnalyzer {
         // If maxQueryComplexity is a positive value, perform the complexity limitation check.
         // Otherwise, bypass the check.
         if (maxQueryComplexity > 0) {
-            MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation =
-                    new MaxQueryComplexityInstrumentation(maxQueryComplexity, fieldComplexityCalculator);
-            GraphQL runtime = GraphQL.newGraphQL(schema).instrumentation(maxQueryComplexityInstrumentation).build();
+            GraphQL runtime = buildRuntime(
+                    new MaxQueryComplexityInstrumentation(maxQueryComplexity, fieldComplexityCalculator));
+            return analyseQueryComplexity(runtime, payload);
+        }
 
-            ExecutionResult executionResult = runtime.execute(payload);
-            List<GraphQLError> errors = executionResult.getErrors();
-            if (errors.size() > 0) {
-                for (GraphQLError error : errors) {
-                    queryAnalyzerResponseDTO.addErrorToList((error.getMessage()));
-                }
-                // TODO: https://github.com/wso2/carbon-apimgt/issues/8147
-                queryAnalyzerResponseDTO.getErrorList().removeIf(s -> s.contains("non-nullable"));
-                if (queryAnalyzerResponseDTO.getErrorList().size() == 0) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Maximum query complexity was not exceeded");
-                    }
-                    queryAnalyzerResponseDTO.setSuccess(true);
-                } else {
-                    log.error(queryAnalyzerResponseDTO.getErrorList());
-                    queryAnalyzerResponseDTO.getErrorList().clear();
-                    queryAnalyzerResponseDTO.addErrorToList("maximum query complexity exceeded");
+        queryAnalyzerResponseDTO.setSuccess(true);
+        return queryAnalyzerResponseDTO;
+    }
+
+    private QueryAnalyzerResponseDTO analyseQueryComplexity(GraphQL runtime, String payload) {
+
+        QueryAnalyzerResponseDTO queryAnalyzerResponseDTO = new QueryAnalyzerResponseDTO();
+        ExecutionResult executionResult = runtime.execute(payload);
+        List<GraphQLError> errors = executionResult.getErrors();
+        if (errors.size() > 0) {
+            for (GraphQLError error : errors) {
+                queryAnalyzerResponseDTO.addErrorToList((error.getMessage()));
+            }
+            // TODO: https://github.com/wso2/carbon-apimgt/issues/8147
+            queryAnalyzerResponseDTO.getErrorList().removeIf(s -> s.contains("non-nullable"));
+            if (queryAnalyzerResponseDTO.getErrorList().size() == 0) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Maximum query complexity was not exceeded");
                 }
-                queryAnalyzerResponseDTO.setSuccess(false);
-                return queryAnalyzerResponseDTO;
+                queryAnalyzerResponseDTO.setSuccess(true);
+            } else {
+                log.error(queryAnalyzerResponseDTO.getErrorList());
+                queryAnalyzerResponseDTO.getErrorList().clear();
+                queryAnalyzerResponseDTO.addErrorToList("maximum query complexity exceeded");
             }
+            queryAnalyzerResponseDTO.setSuccess(false);
+            return queryAnalyzerResponseDTO;
         }
-
         queryAnalyzerResponseDTO.setSuccess(true);
         return queryAnalyzerResponseDTO;
     }
@@ -147,12 +176,44 @@ public class QueryAnalyzer {
      */
     public QueryAnalyzerResponseDTO analyseQueryMutationComplexity(String payload, int maxQueryComplexity,
                                                                    String complexityInfoJson) throws ParseException {
-        FieldComplexityCalculatorImpl fieldComplexityCalculator = new FieldComplexityCalculatorImpl();
-        fieldComplexityCalculator.parseAccessControlPolicy(complexityInfoJson);
-        return analyseQueryComplexity(maxQueryComplexity, payload, fieldComplexityCalculator);
+
+        if (maxQueryComplexity <= 0) {
+            return analyseQueryComplexity(maxQueryComplexity, payload, null);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Analyzing query complexity for " + payload + " and max complexity: " + maxQueryComplexity);
+        }
+        String runtimeKey = maxQueryComplexity + ":" + complexityInfoJson;
+        GraphQL runtime = complexityRuntimes.get(runtimeKey);
+        if (runtime == null) {
+            FieldComplexityCalculatorImpl fieldComplexityCalculator = new FieldComplexityCalculatorImpl();
+            fieldComplexityCalculator.parseAccessControlPolicy(complexityInfoJson);
+            runtime = buildRuntime(
+                    new MaxQueryComplexityInstrumentation(maxQueryComplexity, fieldComplexityCalculator));
+            cacheRuntime(complexityRuntimes, runtimeKey, runtime);
+        }
+        return analyseQueryComplexity(runtime, payload);
+    }
+
+    private GraphQL buildRuntime(Instrumentation instrumentation) {
+
+        return GraphQL.newGraphQL(schema).instrumentation(instrumentation).preparsedDocumentProvider(documentCache)
+                .build();
+    }
+
+    private static <K> void cacheRuntime(Map<K, GraphQL> runtimes, K key, GraphQL runtime) {
+
+        if (runtimes.size() >= MAX_CACHED_RUNTIMES) {
+            runtimes.clear();
+        }
+        runtimes.put(key, runtime);
     }
 
     public GraphQLSchema getSchema() {
         return schema;
     }
+
+    public ParsedDocumentCache getDocumentCache() {
+        return documentCache;
+    }
 }
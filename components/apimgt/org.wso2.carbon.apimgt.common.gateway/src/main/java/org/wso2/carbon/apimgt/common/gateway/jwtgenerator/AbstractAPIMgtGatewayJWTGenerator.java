@@ -31,25 +31,38 @@ import org.wso2.carbon.apimgt.common.gateway.exception.JWTGeneratorException;
 import org.wso2.carbon.apimgt.common.gateway.util.JWTUtil;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract class for jwt generation.
+ * <p>
+ * When the signed token cache is enabled, a signed token is reused for the tokens generated with the same header and
+ * claims, except the issued and expiry times, until less than a quarter of its validity period remains.
  */
 public abstract class AbstractAPIMgtGatewayJWTGenerator {
     private static final Log log = LogFactory.getLog(AbstractAPIMgtGatewayJWTGenerator.class);
     public static final String NONE = "NONE";
     public static final String SHA256_WITH_RSA = "SHA256withRSA";
     public static final String API_GATEWAY_ID = "wso2.org/products/am";
+    // Number of cached signed tokens above which the expired tokens are dropped, and new tokens are not cached
+    private static final int MAX_CACHED_SIGNED_TOKENS = 10000;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     protected JWTConfigurationDto jwtConfigurationDto;
 
     private static volatile long ttl = -1L;
@@ -59,6 +72,9 @@ public abstract class AbstractAPIMgtGatewayJWTGenerator {
 
     private boolean useSHA256Hash = false;
 
+    private volatile JWTHeader cachedJWTHeader;
+    private final Map<String, SignedToken> signedTokens = new ConcurrentHashMap<>();
+
     public AbstractAPIMgtGatewayJWTGenerator() {
     }
 
@@ -79,18 +95,86 @@ public abstract class AbstractAPIMgtGatewayJWTGenerator {
 
     public String generateToken(JWTInfoDto jwtInfoDto) throws JWTGeneratorException {
 
+        if (jwtConfigurationDto != null && jwtConfigurationDto.isSignedTokenCacheEnabled()) {
+            return generateCachedToken(jwtInfoDto);
+        }
+        return generateToken(buildHeader(), buildBody(jwtInfoDto));
+    }
+
+    /**
+     * Returns the signed token cached for the header and claims of the token, or generates and caches the token.
+     */
+    private String generateCachedToken(JWTInfoDto jwtInfoDto) throws JWTGeneratorException {
+
         String jwtHeader = buildHeader();
-        String jwtBody = buildBody(jwtInfoDto);
+        Map<String, Object> claims = populateClaims(jwtInfoDto);
+        String fingerprint = getFingerprint(jwtHeader, claims);
+        long currentTime = System.currentTimeMillis();
+        SignedToken signedToken = signedTokens.get(fingerprint);
+        if (signedToken != null && currentTime < signedToken.reuseUntil) {
+            return signedToken.token;
+        }
+        String token = generateToken(jwtHeader, buildBody(claims));
+        try {
+            long issuedTime = TimeUnit.SECONDS.toMillis(Long.parseLong(String.valueOf(
+                    claims.get(JWTConstants.ISSUED_TIME))));
+            long expiryTime = TimeUnit.SECONDS.toMillis(Long.parseLong(String.valueOf(
+                    claims.get(JWTConstants.EXPIRY_TIME))));
+            cacheSignedToken(fingerprint, new SignedToken(token, expiryTime - (expiryTime - issuedTime) / 4),
+                    currentTime);
+        } catch (NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Signed token is not cached since its issued or expiry time is not valid");
+            }
+        }
+        return token;
+    }
+
+    private void cacheSignedToken(String fingerprint, SignedToken signedToken, long currentTime) {
+
+        if (signedTokens.size() >= MAX_CACHED_SIGNED_TOKENS) {
+            signedTokens.values().removeIf(token -> currentTime >= token.reuseUntil);
+            if (signedTokens.size() >= MAX_CACHED_SIGNED_TOKENS) {
+                return;
+            }
+        }
+        signedTokens.put(fingerprint, signedToken);
+    }
+
+    /**
+     * Computes the fingerprint of the header and the claims of a token, excluding the issued and expiry times.
+     */
+    private static String getFingerprint(String jwtHeader, Map<String, Object> claims) throws JWTGeneratorException {
+
+        StringBuilder content = new StringBuilder(String.valueOf(jwtHeader));
+        for (Map.Entry<String, Object> claimEntry : new TreeMap<>(claims).entrySet()) {
+            String claimName = claimEntry.getKey();
+            if (JWTConstants.ISSUED_TIME.equals(claimName) || JWTConstants.EXPIRY_TIME.equals(claimName)) {
+                continue;
+            }
+            Object claimValue = claimEntry.getValue();
+            content.append('\n').append(claimName).append('=');
+            if (claimValue != null) {
+                content.append(claimValue.getClass().getName()).append(':').append(claimValue instanceof Object[]
+                        ? Arrays.deepToString((Object[]) claimValue) : claimValue);
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(
+                    digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new JWTGeneratorException("Error while computing the fingerprint of the JWT claims", e);
+        }
+    }
+
+    private String generateToken(String jwtHeader, String jwtBody) throws JWTGeneratorException {
+
         String base64UrlEncodedHeader = "";
         if (jwtHeader != null) {
             base64UrlEncodedHeader = encode(jwtHeader.getBytes(Charset.defaultCharset()));
         }
-        String base64UrlEncodedBody = "";
-        try {
-            base64UrlEncodedBody = encode(jwtBody.getBytes("UTF-8"));
-        } catch (UnsupportedEncodingException e) {
-            log.debug("Error in encoding jwt body", e);
-        }
+        String base64UrlEncodedBody = encode(jwtBody.getBytes(StandardCharsets.UTF_8));
         if (SHA256_WITH_RSA.equals(signatureAlgorithm)) {
             String assertion = base64UrlEncodedHeader + '.' + base64UrlEncodedBody;
 
@@ -109,8 +193,16 @@ public abstract class AbstractAPIMgtGatewayJWTGenerator {
     }
 
     public String buildHeader() throws JWTGeneratorException {
+
+        // The header only changes with the certificate, so it is reused until a different certificate is set
+        Certificate publicCert = jwtConfigurationDto.getPublicCert();
+        JWTHeader cachedHeader = cachedJWTHeader;
+        if (cachedHeader != null && cachedHeader.publicCert == publicCert
+                && Objects.equals(cachedHeader.signatureAlgorithm, signatureAlgorithm)) {
+            return cachedHeader.header;
+        }
         String jwtHeader = null;
-        X509Certificate x509Certificate = (X509Certificate) jwtConfigurationDto.getPublicCert();
+        X509Certificate x509Certificate = (X509Certificate) publicCert;
 
         try {
             if (NONE.equals(signatureAlgorithm)) {
@@ -127,6 +219,9 @@ public abstract class AbstractAPIMgtGatewayJWTGenerator {
         } catch (JSONException e) {
             throw new JWTGeneratorException("Encountered an error while generating JWT header json object", e);
         }
+        if (jwtHeader != null) {
+            cachedJWTHeader = new JWTHeader(publicCert, signatureAlgorithm, jwtHeader);
+        }
         return jwtHeader;
     }
 
@@ -159,7 +254,17 @@ public abstract class AbstractAPIMgtGatewayJWTGenerator {
 
     public String buildBody(JWTInfoDto jwtInfoDto) {
 
-        JWTClaimsSet.Builder jwtClaimSetBuilder = new JWTClaimsSet.Builder();
+        return buildBody(populateClaims(jwtInfoDto));
+    }
+
+    /**
+     * Populates the standard claims and the custom claims of the token. The standard claims take precedence.
+     *
+     * @param jwtInfoDto information of the token
+     * @return claims of the token
+     */
+    protected Map<String, Object> populateClaims(JWTInfoDto jwtInfoDto) {
+
         Map<String, Object> claims = populateStandardClaims(jwtInfoDto);
         Map<String, Object> customClaims = populateCustomClaims(jwtInfoDto);
         for (Map.Entry<String, Object> claimEntry : customClaims.entrySet()) {
@@ -171,7 +276,19 @@ public abstract class AbstractAPIMgtGatewayJWTGenerator {
                 }
             }
         }
-        ObjectMapper mapper = new ObjectMapper();
+        return claims;
+    }
+
+    /**
+     * Builds the body of the token with the given claims and a new JWT ID.
+     *
+     * @param claims claims of the token
+     * @return body of the token
+     */
+    protected String buildBody(Map<String, Object> claims) {
+
+        JWTClaimsSet.Builder jwtClaimSetBuilder = new JWTClaimsSet.Builder();
+        ObjectMapper mapper = OBJECT_MAPPER;
         for (Map.Entry<String, Object> claimEntry : claims.entrySet()) {
             Object claimVal = claimEntry.getValue();
             if (claimVal instanceof String && claimEntry.toString().contains("{")) {
@@ -227,5 +344,32 @@ public abstract class AbstractAPIMgtGatewayJWTGenerator {
     public abstract Map<String, Object> populateStandardClaims(JWTInfoDto jwtInfoDto);
 
     public abstract Map<String, Object> populateCustomClaims(JWTInfoDto jwtInfoDto);
+
+    private static final class JWTHeader {
+
+        private final Certificate publicCert;
+        private final String signatureAlgorithm;
+        private final String header;
+
+        private JWTHeader(Certificate publicCert, String signatureAlgorithm, String header) {
+
+            this.publicCert = publicCert;
+            this.signatureAlgorithm = signatureAlgorithm;
+            this.header = header;
+        }
+    }
+
+    private static final class SignedToken {
+
+        private final String token;
+        // Time until which the token is reused, in milliseconds
+        private final long reuseUntil;
+
+        private SignedToken(String token, long reuseUntil) {
+
+            this.token = token;
+            this.reuseUntil = reuseUntil;
+        }
+    }
 }
 
@@ -39,6 +39,7 @@ public class QueryAnalyzerTestCase {
             + "schema_with_subscriptions.graphql";
     private QueryAnalyzer queryAnalyzer;
     private FieldComplexityCalculatorImpl fieldComplexityCalculator;
+    private String complexityPolicy;
 
     @Before
     public void setup() throws Exception {
@@ -48,7 +49,7 @@ public class QueryAnalyzerTestCase {
         TypeDefinitionRegistry registry = schemaParser.parse(schemaString);
         GraphQLSchema graphQLSchema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
         queryAnalyzer = new QueryAnalyzer(graphQLSchema);
-        String complexityPolicy = "{\"complexity\":{\"Subscription\":{\"liftStatusChange\":3},"
+        complexityPolicy = "{\"complexity\":{\"Subscription\":{\"liftStatusChange\":3},"
                 + "\"Lift\":{\"night\":1,\"name\":1,\"elevationGain\":1,\"id\":1,\"capacity\":1}}}";
         fieldComplexityCalculator = new FieldComplexityCalculatorImpl();
         fieldComplexityCalculator.parseAccessControlPolicy(complexityPolicy);
@@ -121,4 +122,33 @@ public class QueryAnalyzerTestCase {
         Assert.assertTrue(queryAnalyzerResponseDTO.isSuccess());
         Assert.assertTrue(queryAnalyzerResponseDTO.getErrorList().isEmpty());
     }
+
+    @Test
+    public void testRepeatedQueriesAreNotParsedAgain() throws Exception {
+        String payload = "subscription {\n" +
+                "  liftStatusChange {\n" +
+                "    name\n" +
+                "    id\n" +
+                "    night\n" +
+                "  }\n" +
+                "}\n";
+        ParsedDocumentCache documentCache = queryAnalyzer.getDocumentCache();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(queryAnalyzer.analyseQueryDepth(3, payload).isSuccess());
+            Assert.assertFalse(queryAnalyzer.analyseQueryDepth(1, payload).isSuccess());
+            QueryAnalyzerResponseDTO responseDTO = queryAnalyzer.analyseQueryMutationComplexity(payload, 4,
+                    complexityPolicy);
+            Assert.assertFalse(responseDTO.isSuccess());
+            Assert.assertTrue(responseDTO.getErrorList().toString().contains("maximum query complexity exceeded"));
+            Assert.assertTrue(queryAnalyzer.analyseQueryMutationComplexity(payload, 10, complexityPolicy)
+                    .isSuccess());
+        }
+        Assert.assertEquals(1, documentCache.size());
+        Assert.assertEquals(1, documentCache.getMissCount());
+        Assert.assertEquals(11, documentCache.getHitCount());
+
+        // Queries with syntax errors are not cached
+        Assert.assertFalse(queryAnalyzer.analyseQueryDepth(3, "subscription {").isSuccess());
+        Assert.assertEquals(1, documentCache.size());
+    }
 }
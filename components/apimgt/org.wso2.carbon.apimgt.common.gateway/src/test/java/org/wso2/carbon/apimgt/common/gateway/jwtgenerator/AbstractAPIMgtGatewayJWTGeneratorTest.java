@@ -20,8 +20,14 @@ package org.wso2.carbon.apimgt.common.gateway.jwtgenerator;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.wso2.carbon.apimgt.common.gateway.dto.JWTConfigurationDto;
+import org.wso2.carbon.apimgt.common.gateway.dto.JWTInfoDto;
+import org.wso2.carbon.apimgt.common.gateway.dto.JWTValidationInfo;
 import org.wso2.carbon.apimgt.common.gateway.exception.JWTGeneratorException;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class AbstractAPIMgtGatewayJWTGeneratorTest {
 
     @Test
@@ -37,4 +43,38 @@ public class AbstractAPIMgtGatewayJWTGeneratorTest {
             Assert.fail("JWTGeneratorException thrown");
         }
     }
+
+    @Test
+    public void testSignedTokenIsReusedForSameClaims() throws Exception {
+        AbstractAPIMgtGatewayJWTGenerator apiMgtGatewayJWTGenerator = new APIMgtGatewayJWTGeneratorImpl();
+        JWTConfigurationDto jwtConfigurationDto = new JWTConfigurationDto();
+        jwtConfigurationDto.setSignatureAlgorithm(AbstractAPIMgtGatewayJWTGenerator.NONE);
+        jwtConfigurationDto.setTtl(900);
+        apiMgtGatewayJWTGenerator.setJWTConfigurationDto(jwtConfigurationDto);
+
+        // Tokens are generated with a new JWT ID unless the signed token cache is enabled
+        Assert.assertNotEquals(apiMgtGatewayJWTGenerator.generateToken(getJWTInfoDto("admin")),
+                apiMgtGatewayJWTGenerator.generateToken(getJWTInfoDto("admin")));
+
+        jwtConfigurationDto.setSignedTokenCacheEnabled(true);
+        String token = apiMgtGatewayJWTGenerator.generateToken(getJWTInfoDto("admin"));
+        Assert.assertEquals(token, apiMgtGatewayJWTGenerator.generateToken(getJWTInfoDto("admin")));
+        Assert.assertNotEquals(token, apiMgtGatewayJWTGenerator.generateToken(getJWTInfoDto("user")));
+        Assert.assertTrue(token.endsWith("."));
+    }
+
+    private static JWTInfoDto getJWTInfoDto(String subscriber) {
+        JWTValidationInfo jwtValidationInfo = new JWTValidationInfo();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("azp", "client-id");
+        jwtValidationInfo.setClaims(claims);
+        JWTInfoDto jwtInfoDto = new JWTInfoDto();
+        jwtInfoDto.setSubscriber(subscriber);
+        jwtInfoDto.setApiName("PizzaShackAPI");
+        jwtInfoDto.setApiContext("/pizzashack/1.0.0");
+        jwtInfoDto.setVersion("1.0.0");
+        jwtInfoDto.setApplicationName("DefaultApplication");
+        jwtInfoDto.setJwtValidationInfo(jwtValidationInfo);
+        return jwtInfoDto;
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway;
+
+import org.wso2.carbon.apimgt.gateway.listeners.ArtifactsRetrieverThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Deploys the artifacts retrieved from the storage while they are still being retrieved. The artifacts are prepared
+ * for deployment (parsed, and their schemas built) in parallel, while the prepared artifacts are deployed one at a
+ * time, in the order in which they were retrieved, on the thread which adds the artifacts.
+ * <p>
+ * At most a bounded number of artifacts are kept prepared but not deployed, so that the artifacts are not all held
+ * in memory at once.
+ *
+ * @param <T> type of the artifacts prepared for deployment
+ */
+class ArtifactDeploymentPipeline<T> implements Consumer<String>, AutoCloseable {
+
+    private static final int MAX_PENDING_ARTIFACTS_PER_THREAD = 4;
+
+    private final Function<String, T> preparer;
+    private final Consumer<T> deployer;
+    private final ExecutorService executorService;
+    private final int maxPendingArtifacts;
+    private final Deque<Future<T>> pendingArtifacts = new ArrayDeque<>();
+
+    /**
+     * @param threadCount number of threads preparing the artifacts. Artifacts are prepared on the thread which adds
+     *                    them when the count is less than two.
+     * @param preparer    prepares an artifact for deployment
+     * @param deployer    deploys a prepared artifact
+     */
+    ArtifactDeploymentPipeline(int threadCount, Function<String, T> preparer, Consumer<T> deployer) {
+
+        this.preparer = preparer;
+        this.deployer = deployer;
+        if (threadCount > 1) {
+            this.executorService = Executors.newFixedThreadPool(threadCount, new ArtifactsRetrieverThreadFactory());
+            this.maxPendingArtifacts = threadCount * MAX_PENDING_ARTIFACTS_PER_THREAD;
+        } else {
+            this.executorService = null;
+            this.maxPendingArtifacts = 0;
+        }
+    }
+
+    /**
+     * Adds a retrieved artifact to be prepared, and deploys the artifacts which are already prepared. Waits for the
+     * oldest artifact to be prepared when too many artifacts are pending.
+     *
+     * @param artifact retrieved artifact
+     */
+    @Override
+    public void accept(String artifact) {
+
+        if (executorService == null) {
+            deployer.accept(preparer.apply(artifact));
+            return;
+        }
+        pendingArtifacts.add(executorService.submit(() -> preparer.apply(artifact)));
+        while (!pendingArtifacts.isEmpty()
+                && (pendingArtifacts.size() > maxPendingArtifacts || pendingArtifacts.peek().isDone())) {
+            deployer.accept(getPreparedArtifact(pendingArtifacts.poll()));
+        }
+    }
+
+    /**
+     * Waits for the pending artifacts to be prepared and deploys them.
+     */
+    void deployPendingArtifacts() {
+
+        while (!pendingArtifacts.isEmpty()) {
+            deployer.accept(getPreparedArtifact(pendingArtifacts.poll()));
+        }
+    }
+
+    int getPendingArtifactCount() {
+
+        return pendingArtifacts.size();
+    }
+
+    @Override
+    public void close() {
+
+        if (executorService != null) {
+            pendingArtifacts.clear();
+            executorService.shutdownNow();
+        }
+    }
+
+    private static <T> T getPreparedArtifact(Future<T> preparedArtifact) {
+
+        try {
+            return preparedArtifact.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while preparing the artifacts for deployment", e);
+        } catch (ExecutionException e) {
+            // Failures of the preparation are propagated as if the artifact was prepared on the calling thread
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Error while preparing the artifacts for deployment", cause);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Local snapshot of the runtime artifacts of the APIs deployed in the gateway for a tenant, so that a restarted
+ * gateway only has to retrieve the artifacts of the APIs whose deployed revisions changed since the snapshot was
+ * taken. The artifacts are kept together with the revisions reported by the control plane when they were retrieved.
+ * <p>
+ * The snapshot is stored in a length prefixed binary format, which is read through a memory mapped buffer. A
+ * snapshot is only loaded if it was written with the same format version, for the same tenant and gateway labels.
+ * The snapshot file can only be read and written by the owner of the gateway process.
+ */
+public class GatewayArtifactSnapshot {
+
+    private static final Log log = LogFactory.getLog(GatewayArtifactSnapshot.class);
+
+    static final int MAGIC = 0x41504D53;
+    // Snapshots of version 1 could contain the endpoint credentials of the APIs
+    static final int FORMAT_VERSION = 2;
+    private static final Set<PosixFilePermission> OWNER_ONLY_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+
+    private final String tenantDomain;
+    private final String gatewayLabels;
+    private final long createdTime;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates an empty snapshot to add the deployed artifacts to.
+     *
+     * @param tenantDomain  tenant domain of the APIs
+     * @param gatewayLabels labels subscribed by the gateway
+     */
+    public GatewayArtifactSnapshot(String tenantDomain, String gatewayLabels) {
+
+        this(tenantDomain, gatewayLabels, System.currentTimeMillis(), new HashMap<>());
+    }
+
+    private GatewayArtifactSnapshot(String tenantDomain, String gatewayLabels, long createdTime,
+                                    Map<String, Entry> entries) {
+
+        this.tenantDomain = tenantDomain;
+        this.gatewayLabels = gatewayLabels;
+        this.createdTime = createdTime;
+        this.entries = entries;
+    }
+
+    /**
+     * Adds an artifact of an API. An API can have more than one artifact when it is deployed in more than one of the
+     * labels of the gateway.
+     *
+     * @param apiId    UUID of the API
+     * @param revision revisions of the API reported by the control plane
+     * @param artifact runtime artifact of the API
+     */
+    public synchronized void add(String apiId, String revision, String artifact) {
+
+        if (apiId == null || revision == null || artifact == null) {
+            return;
+        }
+        Entry entry = entries.get(apiId);
+        if (entry == null || !entry.revision.equals(revision)) {
+            entry = new Entry(revision);
+            entries.put(apiId, entry);
+        }
+        entry.artifacts.add(artifact);
+    }
+
+    /**
+     * @param revisions revisions of the APIs currently deployed in the control plane, by the UUIDs of the APIs
+     * @return UUIDs of the APIs whose artifacts are not in the snapshot, or were taken for a different revision
+     */
+    public synchronized Set<String> getChangedAPIs(Map<String, String> revisions) {
+
+        Set<String> changedAPIs = new LinkedHashSet<>();
+        for (Map.Entry<String, String> revision : revisions.entrySet()) {
+            Entry entry = entries.get(revision.getKey());
+            if (entry == null || !entry.revision.equals(revision.getValue())) {
+                changedAPIs.add(revision.getKey());
+            }
+        }
+        return changedAPIs;
+    }
+
+    /**
+     * @param revisions revisions of the APIs currently deployed in the control plane, by the UUIDs of the APIs
+     * @return artifacts of the snapshot which are still deployed with the same revisions in the control plane
+     */
+    public synchronized List<String> getUnchangedArtifacts(Map<String, String> revisions) {
+
+        List<String> artifacts = new ArrayList<>();
+        for (Map.Entry<String, String> revision : revisions.entrySet()) {
+            Entry entry = entries.get(revision.getKey());
+            if (entry != null && entry.revision.equals(revision.getValue())) {
+                artifacts.addAll(entry.artifacts);
+            }
+        }
+        return artifacts;
+    }
+
+    public synchronized int size() {
+
+        return entries.size();
+    }
+
+    public long getCreatedTime() {
+
+        return createdTime;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, which then replaces the given file.
+     *
+     * @param file snapshot file
+     * @throws IOException if the snapshot could not be written
+     */
+    public synchronized void write(Path file) throws IOException {
+
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(temporaryFile);
+        if (temporaryFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(temporaryFile, PosixFilePermissions.asFileAttribute(OWNER_ONLY_PERMISSIONS));
+        }
+        try (DataOutputStream outputStream = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(FORMAT_VERSION);
+            writeString(outputStream, tenantDomain);
+            writeString(outputStream, gatewayLabels);
+            outputStream.writeLong(createdTime);
+            outputStream.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writeString(outputStream, entry.getKey());
+                writeString(outputStream, entry.getValue().revision);
+                outputStream.writeInt(entry.getValue().artifacts.size());
+                for (String artifact : entry.getValue().artifacts) {
+                    writeString(outputStream, artifact);
+                }
+            }
+        }
+        try {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Loads a snapshot written for the tenant and gateway labels.
+     *
+     * @param file          snapshot file
+     * @param tenantDomain  tenant domain of the APIs
+     * @param gatewayLabels labels subscribed by the gateway
+     * @return the snapshot, or null if there is no usable snapshot
+     */
+    public static GatewayArtifactSnapshot load(Path file, String tenantDomain, String gatewayLabels) {
+
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                log.info("Ignoring the gateway artifact snapshot " + file + " written in an unknown format");
+                return null;
+            }
+            String snapshotTenantDomain = readString(buffer);
+            String snapshotGatewayLabels = readString(buffer);
+            if (!Objects.equals(tenantDomain, snapshotTenantDomain)
+                    || !Objects.equals(gatewayLabels, snapshotGatewayLabels)) {
+                log.info("Ignoring the gateway artifact snapshot " + file + " taken for different gateway labels");
+                return null;
+            }
+            long createdTime = buffer.getLong();
+            int entryCount = buffer.getInt();
+            Map<String, Entry> entries = new HashMap<>();
+            for (int i = 0; i < entryCount; i++) {
+                String apiId = readString(buffer);
+                Entry entry = new Entry(readString(buffer));
+                int artifactCount = buffer.getInt();
+                for (int j = 0; j < artifactCount; j++) {
+                    entry.artifacts.add(readString(buffer));
+                }
+                entries.put(apiId, entry);
+            }
+            return new GatewayArtifactSnapshot(tenantDomain, gatewayLabels, createdTime, entries);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Ignoring the gateway artifact snapshot " + file + " as it could not be read", e);
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream outputStream, String value) throws IOException {
+
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Entry {
+
+        private final String revision;
+        private final List<String> artifacts = new ArrayList<>(1);
+
+        private Entry(String revision) {
+
+            this.revision = revision;
+        }
+    }
+}
@@ -54,12 +54,31 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
     private ThrottleDataHolder dataHolder;
     private String gatewayId;
     private static final String SYNC_MODE_MSG_PART_DELIMITER = "___";
+    /**
+     * Number of monitors used to serialize the syncing of throttle params of caller contexts. Caller contexts are
+     * mapped to a monitor by the hash of their id, instead of locking on the interned id.
+     */
+    private static final int CALLER_LOCK_STRIPES = 1024;
+    private static final long LOCAL_HIT_COUNTER_CLEANUP_INTERVAL = 60000;
+    private final Object[] callerLocks = new Object[CALLER_LOCK_STRIPES];
+    /**
+     * callerContextId to hits served in sync mode which are not yet added to the distributed counter
+     */
+    private final ConcurrentHashMap<String, StripedLocalHitCounter> localHitCounters = new ConcurrentHashMap<>();
+    private boolean isStripedLocalCountersEnabled;
+    private long localCounterFlushInterval;
+    private long localCounterFlushThreshold;
 
     public HybridThrottleProcessor() {
-        redisPool = ServiceReferenceHolder.getInstance().getRedisPool();
-        RedisConfig redisConfig = org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder.getInstance()
-                .getAPIManagerConfigurationService().getAPIManagerConfiguration().getRedisConfig();
-        gatewayId = redisConfig.getGatewayId();
+        this(ServiceReferenceHolder.getInstance().getRedisPool(),
+                org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder.getInstance()
+                        .getAPIManagerConfigurationService().getAPIManagerConfiguration().getRedisConfig());
+
+        if (isStripedLocalCountersEnabled) {
+            ScheduledExecutorService localHitCounterCleanupExecutor = Executors.newScheduledThreadPool(1);
+            localHitCounterCleanupExecutor.scheduleAtFixedRate(new LocalHitCounterCleanupTask(),
+                    LOCAL_HIT_COUNTER_CLEANUP_INTERVAL, LOCAL_HIT_COUNTER_CLEANUP_INTERVAL, TimeUnit.MILLISECONDS);
+        }
 
         ScheduledExecutorService syncModeInitChannelSubscriptionExecutor = Executors.newScheduledThreadPool(1);
         syncModeInitChannelSubscriptionExecutor.scheduleAtFixedRate(new SyncModeInitChannelSubscription(), 0, 1,
@@ -71,6 +90,20 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
                 gatewayCountCheckingFrequency, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Creates the processor without starting the tasks which subscribe to Redis.
+     */
+    HybridThrottleProcessor(JedisPool redisPool, RedisConfig redisConfig) {
+        for (int i = 0; i < CALLER_LOCK_STRIPES; i++) {
+            callerLocks[i] = new Object();
+        }
+        this.redisPool = redisPool;
+        gatewayId = redisConfig.getGatewayId();
+        isStripedLocalCountersEnabled = redisConfig.isStripedLocalCountersEnabled();
+        localCounterFlushInterval = redisConfig.getLocalCounterFlushInterval();
+        localCounterFlushThreshold = redisConfig.getLocalCounterFlushThreshold();
+    }
+
     private class SyncModeInitChannelSubscription implements Runnable {
         private static final int initialRedisConnectionRetryInterval = 5000;
         long redisConnectionRetryInterval = initialRedisConnectionRetryInterval;
@@ -139,10 +172,11 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
                                 log.trace("Running forced syncing tasks for callerContext: " + callerContext.getId()
                                         + " message:" + syncModeInitMsg);
                             }
-                            synchronized (callerContext.getId().intern()) {
+                            synchronized (getCallerLock(callerContext.getId())) {
                                 if (SharedParamManager.lockSharedKeys(callerContext.getId(), gatewayId)) {
                                     long syncingStartTime = System.currentTimeMillis();
                                     syncThrottleWindowParams(callerContext, false);
+                                    drainLocalHits(callerContext);
                                     syncThrottleCounterParams(callerContext, false,
                                             new RequestContext(System.currentTimeMillis()));
                                     SharedParamManager.releaseSharedKeys(callerContext.getId());
@@ -204,6 +238,19 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
         }
     }
 
+    /**
+     * This task is used to remove the striped local counters of caller contexts whose time window is over.
+     */
+    private class LocalHitCounterCleanupTask implements Runnable {
+
+        @Override public void run() {
+            long discardedHits = evictExpiredLocalHitCounters(System.currentTimeMillis());
+            if (log.isDebugEnabled()) {
+                log.debug("Removed expired striped local counters. Discarded pending hits: " + discardedHits);
+            }
+        }
+    }
+
     /**
      * This task is used to count the number of gateways subscribed to the channel in Redis.
      */
@@ -283,10 +330,11 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
                 if (log.isTraceEnabled()) {
                     log.trace("DataHolder is not null so running syncing tasks");
                 }
-                synchronized (callerContext.getId().intern()) {
+                synchronized (getCallerLock(callerContext.getId())) {
                     if (SharedParamManager.lockSharedKeys(callerContext.getId(), gatewayId)) {
                         long syncingStartTime = System.currentTimeMillis();
                         syncThrottleWindowParams(callerContext, true);
+                        drainLocalHits(callerContext);
                         syncThrottleCounterParams(callerContext, false, requestContext);
                         SharedParamManager.releaseSharedKeys(callerContext.getId());
                         long timeNow = System.currentTimeMillis();
@@ -340,11 +388,16 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
         int maxRequest = configuration.getMaximumRequestPerUnitTime();
         boolean localCounterResettingDone = true;
         if (maxRequest != 0) {
-            if (callerContext.isThrottleParamSyncingModeSync()) {
+            if (callerContext.isThrottleParamSyncingModeSync() && isStripedLocalCountersEnabled) {
+                if (log.isTraceEnabled()) {
+                    log.trace("Going to run throttle param syncing in sync mode with striped local counters");
+                }
+                syncThrottleParamsWithStripedCounter(callerContext, requestContext);
+            } else if (callerContext.isThrottleParamSyncingModeSync()) {
                 if (log.isTraceEnabled()) {
                     log.trace("Going to run throttle param syncing in sync mode");
                 }
-                synchronized (callerContext.getId().intern()) {
+                synchronized (getCallerLock(callerContext.getId())) {
                     if (SharedParamManager.lockSharedKeys(callerContext.getId(), gatewayId)) {
                         long syncingStartTime = System.currentTimeMillis();
                         syncThrottleWindowParams(callerContext, true);
@@ -479,6 +532,7 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
 
                         callerContext.setNextAccessTime(0);
                         canAccess = true;
+                        discardLocalHits(callerContext);
 
                         callerContext.setIsThrottleParamSyncingModeSync(false); // as this is the first access
                         syncModeNotifiedMap.remove(callerContext.getId());
@@ -559,10 +613,11 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
             if (log.isTraceEnabled()) {
                 log.trace("Going to run throttle param syncing");
             }
-            synchronized (callerContext.getId().intern()) {
+            synchronized (getCallerLock(callerContext.getId())) {
                 if (SharedParamManager.lockSharedKeys(callerContext.getId(), gatewayId)) {
                     long syncingStartTime = System.currentTimeMillis();
                     syncThrottleWindowParams(callerContext, true);
+                    drainLocalHits(callerContext);
                     // add piled items and new request item to shared-counter (increments before allowing the request)
                     syncThrottleCounterParams(callerContext, true, requestContext);
                     SharedParamManager.releaseSharedKeys(callerContext.getId());
@@ -605,6 +660,7 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
                     // Removes and sends the current state to others  (clustered env)
                     //remove previous callercontext instance
                     throttleContext.removeCallerContext(callerContext.getId());
+                    discardLocalHits(callerContext);
                     callerContext.setGlobalCounter(0);// can access the system   and this is same as first access
                     callerContext.setLocalCounter(1);
                     callerContext.setLocalHits(0);
@@ -653,6 +709,7 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
                         throttleContext.removeCallerContext(callerContext.getId());
                     }
                     // reset the states so that, this is the first access
+                    discardLocalHits(callerContext);
                     callerContext.setNextAccessTime(0);
                     canAccess = true;
                     callerContext.setLocalHits(0);
@@ -697,6 +754,124 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
         return canAccess;
     }
 
+    /**
+     * Counts the request in the striped local counter of the caller context and, if this thread is elected as the
+     * flusher, adds the pending hits of all threads to the distributed counter in a single sync. Other threads serve
+     * the request without waiting on the caller lock or Redis.
+     */
+    private void syncThrottleParamsWithStripedCounter(CallerContext callerContext, RequestContext requestContext) {
+        String callerId = callerContext.getId();
+        StripedLocalHitCounter localHitCounter = getLocalHitCounter(callerContext, requestContext);
+        localHitCounter.increment();
+        while (localHitCounter.isRetired()) {
+            // the counter was evicted concurrently, hence its pending hits are moved to the counter replacing it
+            long pendingHits = localHitCounter.drain();
+            localHitCounter = getLocalHitCounter(callerContext, requestContext);
+            localHitCounter.add(pendingHits);
+        }
+        long currentTime = System.currentTimeMillis();
+        if (!localHitCounter.tryStartFlush(currentTime, localCounterFlushInterval, localCounterFlushThreshold)) {
+            return;
+        }
+        try {
+            synchronized (getCallerLock(callerId)) {
+                if (SharedParamManager.lockSharedKeys(callerId, gatewayId)) {
+                    syncThrottleWindowParams(callerContext, true);
+                    drainLocalHits(callerContext);
+                    syncThrottleCounterParams(callerContext, false, requestContext);
+                    SharedParamManager.releaseSharedKeys(callerId);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Flushed striped local counter in " + (System.currentTimeMillis() - currentTime)
+                                + " ms for callerContext: " + callerId);
+                    }
+                } else if (log.isWarnEnabled()) {
+                    // pending hits are kept in the striped counter and added in the next flush
+                    log.warn("Current time : " + currentTime + " Failed to lock shared keys, hence skipped flushing "
+                            + "striped local counter. key=" + callerId);
+                }
+            }
+        } finally {
+            localHitCounter.endFlush(currentTime);
+        }
+    }
+
+    private StripedLocalHitCounter getLocalHitCounter(CallerContext callerContext, RequestContext requestContext) {
+        StripedLocalHitCounter localHitCounter = localHitCounters.get(callerContext.getId());
+        if (localHitCounter == null) {
+            localHitCounter = localHitCounters.computeIfAbsent(callerContext.getId(),
+                    k -> new StripedLocalHitCounter(requestContext.getRequestTime(),
+                            callerContext.getNextTimeWindow()));
+        }
+        if (localHitCounter.getExpiryTime() != callerContext.getNextTimeWindow()) {
+            localHitCounter.setExpiryTime(callerContext.getNextTimeWindow());
+        }
+        return localHitCounter;
+    }
+
+    /**
+     * Discards the hits pending in the striped local counter of the caller context when its time window is reset, as
+     * they were served in the previous time window.
+     */
+    private void discardLocalHits(CallerContext callerContext) {
+        StripedLocalHitCounter localHitCounter = localHitCounters.get(callerContext.getId());
+        if (localHitCounter != null) {
+            localHitCounter.drain();
+        }
+    }
+
+    /**
+     * Removes the striped local counters of the caller contexts whose time window is over, as the caller contexts
+     * themselves are cleaned up once their time window is over. Hits pending in the removed counters were served in
+     * the time window which is over, hence they are discarded.
+     *
+     * @param currentTime current time in milliseconds
+     * @return number of pending hits discarded with the removed counters
+     */
+    long evictExpiredLocalHitCounters(long currentTime) {
+        long discardedHits = 0;
+        for (Map.Entry<String, StripedLocalHitCounter> entry : localHitCounters.entrySet()) {
+            StripedLocalHitCounter localHitCounter = entry.getValue();
+            if (localHitCounter.isExpired(currentTime)) {
+                localHitCounter.retire();
+                localHitCounters.remove(entry.getKey(), localHitCounter);
+                discardedHits += localHitCounter.drain();
+            }
+        }
+        return discardedHits;
+    }
+
+    int getLocalHitCounterCount() {
+        return localHitCounters.size();
+    }
+
+    long getPendingLocalHits(String callerContextId) {
+        StripedLocalHitCounter localHitCounter = localHitCounters.get(callerContextId);
+        return localHitCounter != null ? localHitCounter.getPendingHits() : 0;
+    }
+
+    /**
+     * Moves the hits pending in the striped local counter of the caller context into its local counter, so that the
+     * following counter sync adds them to the distributed counter. Must be called holding the caller lock.
+     */
+    private void drainLocalHits(CallerContext callerContext) {
+        if (!isStripedLocalCountersEnabled) {
+            return;
+        }
+        StripedLocalHitCounter localHitCounter = localHitCounters.get(callerContext.getId());
+        if (localHitCounter != null) {
+            long pendingHits = localHitCounter.drain();
+            if (pendingHits > 0) {
+                callerContext.setLocalCounter(callerContext.getLocalCounter() + pendingHits);
+            }
+        }
+    }
+
+    private Object getCallerLock(String callerContextId) {
+        int hash = callerContextId.hashCode();
+        hash ^= (hash >>> 16);
+        return callerLocks[hash & (CALLER_LOCK_STRIPES - 1)];
+    }
+
     /**
      * Set the throttle param sync mode for the callerContext
      */
@@ -746,7 +921,7 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
         if (log.isTraceEnabled()) {
             log.trace("When running syncing throttle counter params: isInvocationFlow = " + isInvocationFlow);
         }
-        synchronized (callerContext.getId().intern()) {
+        synchronized (getCallerLock(callerContext.getId())) {
             long syncingStartTime = System.currentTimeMillis();
             if (log.isTraceEnabled()) {
                 log.trace("When running syncing throttle counter params: next time window = "
@@ -806,7 +981,7 @@ public class HybridThrottleProcessor implements DistributedThrottleProcessor {
      */
     @Override
     public void syncThrottleWindowParams(CallerContext callerContext, boolean isInvocationFlow) {
-        synchronized (callerContext.getId().intern()) {
+        synchronized (getCallerLock(callerContext.getId())) {
             long syncingStartTime = System.currentTimeMillis();
             if (log.isTraceEnabled()) {
                 log.trace("When running syncing throttle window params: isInvocationFlow = " + isInvocationFlow);
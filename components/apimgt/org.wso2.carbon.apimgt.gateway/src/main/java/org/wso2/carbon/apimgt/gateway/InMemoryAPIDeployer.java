@@ -26,6 +26,7 @@ import graphql.schema.idl.UnExecutableSchemaGenerator;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.MessageContext;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -41,9 +42,12 @@ import org.wso2.carbon.apimgt.api.model.API;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
 import org.wso2.carbon.apimgt.api.model.APIProductIdentifier;
 import org.wso2.carbon.apimgt.common.gateway.constants.JWTConstants;
+import org.wso2.carbon.apimgt.gateway.internal.APIDeploymentProgress;
 import org.wso2.carbon.apimgt.gateway.internal.DataHolder;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.gateway.service.APIGatewayAdmin;
+import org.wso2.carbon.apimgt.gateway.threatprotection.AnalyzerHolder;
+import org.wso2.carbon.apimgt.gateway.threatprotection.XMLSchemaRegistry;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.GatewayArtifactSynchronizerProperties;
 import org.wso2.carbon.apimgt.impl.dto.GatewayCleanupSkipList;
@@ -54,10 +58,12 @@ import org.wso2.carbon.apimgt.impl.notifier.events.DeployAPIInGatewayEvent;
 import org.wso2.carbon.apimgt.impl.utils.GatewayUtils;
 import org.wso2.carbon.apimgt.keymgt.SubscriptionDataHolder;
 import org.wso2.carbon.apimgt.keymgt.model.SubscriptionDataStore;
+import org.wso2.carbon.base.CarbonBaseUtils;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
@@ -65,6 +71,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * This class contains the methods used to retrieve artifacts from a storage and deploy and undeploy the API in gateway.
@@ -72,6 +80,10 @@ import java.util.UUID;
 public class InMemoryAPIDeployer {
 
     private static final Log log = LogFactory.getLog(InMemoryAPIDeployer.class);
+    private static final String ARTIFACT_SNAPSHOT_DIRECTORY = "gateway-artifact-snapshots";
+    private static final String ARTIFACT_SNAPSHOT_FILE_EXTENSION = ".snapshot";
+    // Maximum number of changed APIs retrieved one at a time on top of the artifacts of an artifact snapshot
+    private static final int MAX_CHANGED_SNAPSHOT_APIS = 20;
     ArtifactRetriever artifactRetriever;
     GatewayArtifactSynchronizerProperties gatewayArtifactSynchronizerProperties;
 
@@ -104,6 +116,7 @@ public class InMemoryAPIDeployer {
                 addDeployedCertificatesToAPIAssociation(gatewayAPIDTO);
                 addDeployedGraphqlQLToAPI(gatewayAPIDTO);
                 DataHolder.getInstance().addKeyManagerToAPIMapping(apiId, gatewayAPIDTO.getKeyManagers());
+                DataHolder.getInstance().removeResourceRouteIndex(apiId);
                 DataHolder.getInstance().addAPIMetaData(gatewayEvent);
                 DataHolder.getInstance().markAPIAsDeployed(gatewayAPIDTO);
                 if (log.isDebugEnabled()) {
@@ -141,6 +154,7 @@ public class InMemoryAPIDeployer {
                 addDeployedCertificatesToAPIAssociation(gatewayAPIDTO);
                 addDeployedGraphqlQLToAPI(gatewayAPIDTO);
                 DataHolder.getInstance().addKeyManagerToAPIMapping(apiId, gatewayAPIDTO.getKeyManagers());
+                DataHolder.getInstance().removeResourceRouteIndex(apiId);
                 DataHolder.getInstance().markAPIAsDeployed(gatewayAPIDTO);
                 if (log.isDebugEnabled()) {
                     log.debug("API with " + apiId + " is deployed in gateway with the labels " + String.join(",",
@@ -216,8 +230,9 @@ public class InMemoryAPIDeployer {
         }
         if (gatewayArtifactSynchronizerProperties.isRetrieveFromStorageEnabled()) {
             if (artifactRetriever != null) {
+                APIDeploymentProgress deploymentProgress = DataHolder.getInstance().getAPIDeploymentProgress();
+                deploymentProgress.start();
                 try {
-                    int errorCount = 0;
                     String labelString = String.join("|", assignedGatewayLabels);
                     String encodedString = Base64.encodeBase64URLSafeString(labelString.getBytes());
 
@@ -227,50 +242,79 @@ public class InMemoryAPIDeployer {
                     PrivilegedCarbonContext.startTenantFlow();
                     PrivilegedCarbonContext.getThreadLocalCarbonContext()
                             .setTenantDomain(tenantDomain, true);
-                    List<String> gatewayRuntimeArtifacts = ServiceReferenceHolder.getInstance().getArtifactRetriever()
-                            .retrieveAllArtifacts(encodedString, tenantDomain);
-                    if (gatewayRuntimeArtifacts.isEmpty()) {
-                        return true;
-                    }
                     if (redeployChangedAPIs) {
                         DataHolder dataHolder = DataHolder.getInstance();
                         apiMap = dataHolder.getTenantAPIMap().get(tenantDomain);
                     }
-                    for (String runtimeArtifact : gatewayRuntimeArtifacts) {
-                        GatewayAPIDTO gatewayAPIDTO = null;
-                        try {
-                            if (StringUtils.isNotEmpty(runtimeArtifact)) {
-                                gatewayAPIDTO = new Gson().fromJson(runtimeArtifact, GatewayAPIDTO.class);
-                                if (redeployChangedAPIs && apiMap != null) {
-                                    org.wso2.carbon.apimgt.keymgt.model.entity.API api =
-                                            apiMap.get(gatewayAPIDTO.getApiContext());
-                                    // Here, we redeploy APIs only if there is a new revision deployed in the
-                                    // Control Plane and not synced with the gateway due to connection issues.
-                                    if (api != null && api.getRevisionId() != null &&
-                                            (!api.getRevisionId().equalsIgnoreCase(gatewayAPIDTO.getRevision()))) {
-                                        DeployAPIInGatewayEvent deployAPIInGatewayEvent =
-                                                new DeployAPIInGatewayEvent(UUID.randomUUID().toString(),
-                                                        System.currentTimeMillis(),
-                                                        APIConstants.EventType.REMOVE_API_FROM_GATEWAY.name(),
-                                                        tenantDomain, api.getApiId(), api.getUuid(),
-                                                        assignedGatewayLabels, api.getName(), api.getVersion(),
-                                                        api.getApiProvider(), api.getApiType(), api.getContext());
-                                        unDeployAPI(deployAPIInGatewayEvent);
-                                        deployAPIFromDTO(gatewayAPIDTO, apiGatewayAdmin);
-                                    } else {
-                                        if (log.isDebugEnabled()) {
-                                            log.debug("API " + gatewayAPIDTO.getName() + " is already deployed");
-                                        }
-                                    }
-                                } else {
-                                    deployAPIFromDTO(gatewayAPIDTO, apiGatewayAdmin);
+                    Map<String, org.wso2.carbon.apimgt.keymgt.model.entity.API> deployedAPIMap = apiMap;
+                    AtomicInteger artifactCount = new AtomicInteger();
+                    AtomicInteger errorCount = new AtomicInteger();
+                    Gson gson = new Gson();
+                    ArtifactSource artifactSource = artifactConsumer -> artifactRetriever
+                            .retrieveAllArtifacts(encodedString, tenantDomain, artifactConsumer);
+                    // When snapshots are enabled, only the artifacts of the APIs whose revisions changed since the
+                    // snapshot was taken are retrieved, and a new snapshot is taken from the deployed artifacts.
+                    Path snapshotFile = null;
+                    Map<String, String> revisions = null;
+                    GatewayArtifactSnapshot newSnapshot = null;
+                    if (!redeployChangedAPIs && gatewayArtifactSynchronizerProperties.isArtifactSnapshotEnabled()) {
+                        snapshotFile = getArtifactSnapshotFile(tenantDomain);
+                        revisions = retrieveArtifactRevisions(encodedString, tenantDomain);
+                        if (revisions != null) {
+                            newSnapshot = new GatewayArtifactSnapshot(tenantDomain, labelString);
+                            GatewayArtifactSnapshot snapshot =
+                                    GatewayArtifactSnapshot.load(snapshotFile, tenantDomain, labelString);
+                            if (snapshot != null) {
+                                Set<String> changedAPIs = snapshot.getChangedAPIs(revisions);
+                                // Retrieving the APIs one by one costs more than retrieving all of them at once
+                                if (changedAPIs.size() <= Math.min(MAX_CHANGED_SNAPSHOT_APIS,
+                                        revisions.size() / 2)) {
+                                    artifactSource = getSnapshotArtifactSource(snapshot, revisions, changedAPIs,
+                                            encodedString);
                                 }
                             }
-                        } catch (AxisFault axisFault) {
-                            log.error("Error in deploying " + gatewayAPIDTO.getName() + " to the Gateway ", axisFault);
-                            errorCount++;
                         }
                     }
+                    Map<String, String> snapshotRevisions = revisions;
+                    GatewayArtifactSnapshot deployedSnapshot = newSnapshot;
+                    // Artifacts are parsed in parallel while being retrieved, but deployed one at a time on this
+                    // thread, which holds the tenant flow and the message context required by the deployment.
+                    try (ArtifactDeploymentPipeline<PreparedAPI> deploymentPipeline = new ArtifactDeploymentPipeline<>(
+                            gatewayArtifactSynchronizerProperties.getDeploymentThreadCount(),
+                            runtimeArtifact -> prepareAPI(runtimeArtifact, gson),
+                            preparedAPI -> {
+                                if (preparedAPI != null) {
+                                    if (deployPreparedAPI(preparedAPI, apiGatewayAdmin, deployedAPIMap,
+                                            assignedGatewayLabels, tenantDomain)) {
+                                        deploymentProgress.apiDeployed();
+                                        // Artifacts carrying endpoint credentials are not kept on the disk, hence
+                                        // they are retrieved again on restart
+                                        if (deployedSnapshot != null
+                                                && ArrayUtils.isEmpty(preparedAPI.gatewayAPIDTO
+                                                .getCredentialsToBeAdd())) {
+                                            String apiId = preparedAPI.gatewayAPIDTO.getApiId();
+                                            deployedSnapshot.add(apiId, snapshotRevisions.get(apiId),
+                                                    preparedAPI.runtimeArtifact);
+                                        }
+                                    } else {
+                                        errorCount.incrementAndGet();
+                                        deploymentProgress.apiDeploymentFailed();
+                                    }
+                                }
+                            })) {
+                        artifactSource.retrieveArtifacts(runtimeArtifact -> {
+                            artifactCount.incrementAndGet();
+                            deploymentProgress.artifactRetrieved();
+                            deploymentPipeline.accept(runtimeArtifact);
+                        });
+                        deploymentPipeline.deployPendingArtifacts();
+                    }
+                    if (newSnapshot != null && errorCount.get() == 0) {
+                        writeArtifactSnapshot(newSnapshot, snapshotFile);
+                    }
+                    if (artifactCount.get() == 0) {
+                        return true;
+                    }
                     // reload dynamic profiles to avoid delays in loading certs in mutual ssl enabled APIs upon
                     // server restart
                     DynamicProfileReloaderHolder.getInstance().reloadAllHandlers();
@@ -279,7 +323,7 @@ public class InMemoryAPIDeployer {
                     }
                     result = true;
                     //Setting the result to false only if all the API deployments are failed
-                    if (gatewayRuntimeArtifacts.size() == errorCount) {
+                    if (artifactCount.get() == errorCount.get()) {
                         return false;
                     }
                 } catch (AxisFault e) {
@@ -287,6 +331,7 @@ public class InMemoryAPIDeployer {
                     log.error(msg, e);
                     return false;
                 } finally {
+                    deploymentProgress.complete();
                     MessageContext.destroyCurrentMessageContext();
                     PrivilegedCarbonContext.endTenantFlow();
                 }
@@ -299,14 +344,143 @@ public class InMemoryAPIDeployer {
         return result;
     }
 
-    private void deployAPIFromDTO(GatewayAPIDTO gatewayAPIDTO, APIGatewayAdmin apiGatewayAdmin) throws AxisFault {
+    private Map<String, String> retrieveArtifactRevisions(String encodedGatewayLabels, String tenantDomain) {
+
+        try {
+            return artifactRetriever.retrieveArtifactRevisions(encodedGatewayLabels, tenantDomain);
+        } catch (ArtifactSynchronizerException e) {
+            log.warn("Unable to retrieve the deployed revisions of the APIs. All the artifacts will be retrieved.",
+                    e);
+            return null;
+        }
+    }
+
+    /**
+     * Reuses the artifacts of the unchanged APIs from the snapshot, and retrieves the artifacts of the changed APIs.
+     */
+    private ArtifactSource getSnapshotArtifactSource(GatewayArtifactSnapshot snapshot, Map<String, String> revisions,
+                                                     Set<String> changedAPIs, String encodedGatewayLabels) {
+
+        return artifactConsumer -> {
+            List<String> unchangedArtifacts = snapshot.getUnchangedArtifacts(revisions);
+            log.info("Deploying " + unchangedArtifacts.size() + " API artifacts from the artifact snapshot and "
+                    + "retrieving the artifacts of " + changedAPIs.size() + " changed APIs");
+            unchangedArtifacts.forEach(artifactConsumer);
+            for (String apiId : changedAPIs) {
+                artifactRetriever.retrieveDeployedArtifacts(apiId, encodedGatewayLabels, runtimeArtifact -> {
+                    if (StringUtils.isNotEmpty(runtimeArtifact)) {
+                        artifactConsumer.accept(runtimeArtifact);
+                    }
+                });
+            }
+        };
+    }
+
+    private Path getArtifactSnapshotFile(String tenantDomain) {
+
+        String snapshotDirectory = gatewayArtifactSynchronizerProperties.getArtifactSnapshotDirectory();
+        if (StringUtils.isEmpty(snapshotDirectory)) {
+            snapshotDirectory = Paths.get(CarbonBaseUtils.getCarbonHome(), "repository", "data",
+                    ARTIFACT_SNAPSHOT_DIRECTORY).toString();
+        }
+        return Paths.get(snapshotDirectory, tenantDomain + ARTIFACT_SNAPSHOT_FILE_EXTENSION);
+    }
+
+    private void writeArtifactSnapshot(GatewayArtifactSnapshot snapshot, Path snapshotFile) {
+
+        try {
+            snapshot.write(snapshotFile);
+            if (log.isDebugEnabled()) {
+                log.debug("Artifact snapshot of " + snapshot.size() + " APIs written to " + snapshotFile);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to write the artifact snapshot " + snapshotFile, e);
+        }
+    }
+
+    /**
+     * Parses a retrieved artifact and builds its GraphQL schema, if any. This does not depend on the deployed APIs, so
+     * the artifacts can be prepared in parallel.
+     *
+     * @param runtimeArtifact retrieved artifact
+     * @param gson            Gson instance used to parse the artifact
+     * @return the prepared API, or null if the artifact is empty
+     */
+    private static PreparedAPI prepareAPI(String runtimeArtifact, Gson gson) {
+
+        if (StringUtils.isEmpty(runtimeArtifact)) {
+            return null;
+        }
+        GatewayAPIDTO gatewayAPIDTO = gson.fromJson(runtimeArtifact, GatewayAPIDTO.class);
+        GraphQLSchemaDTO graphQLSchemaDTO = null;
+        if (gatewayAPIDTO.getGraphQLSchema() != null) {
+            try {
+                graphQLSchemaDTO = buildGraphQLSchemaDTO(gatewayAPIDTO.getGraphQLSchema());
+            } catch (RuntimeException e) {
+                // The schema is built again once the API is deployed, which reports the error
+                if (log.isDebugEnabled()) {
+                    log.debug("Error while building the GraphQL schema of API " + gatewayAPIDTO.getName(), e);
+                }
+            }
+        }
+        return new PreparedAPI(runtimeArtifact, gatewayAPIDTO, graphQLSchemaDTO);
+    }
+
+    /**
+     * Deploys a prepared API, redeploying it only if its revision is changed when redeploying changed APIs.
+     *
+     * @return false if the API could not be deployed
+     */
+    private boolean deployPreparedAPI(PreparedAPI preparedAPI, APIGatewayAdmin apiGatewayAdmin,
+                                      Map<String, org.wso2.carbon.apimgt.keymgt.model.entity.API> apiMap,
+                                      Set<String> assignedGatewayLabels, String tenantDomain) {
+
+        GatewayAPIDTO gatewayAPIDTO = preparedAPI.gatewayAPIDTO;
+        try {
+            if (apiMap != null) {
+                org.wso2.carbon.apimgt.keymgt.model.entity.API api = apiMap.get(gatewayAPIDTO.getApiContext());
+                // Here, we redeploy APIs only if there is a new revision deployed in the
+                // Control Plane and not synced with the gateway due to connection issues.
+                if (api != null && api.getRevisionId() != null &&
+                        (!api.getRevisionId().equalsIgnoreCase(gatewayAPIDTO.getRevision()))) {
+                    DeployAPIInGatewayEvent deployAPIInGatewayEvent =
+                            new DeployAPIInGatewayEvent(UUID.randomUUID().toString(),
+                                    System.currentTimeMillis(),
+                                    APIConstants.EventType.REMOVE_API_FROM_GATEWAY.name(),
+                                    tenantDomain, api.getApiId(), api.getUuid(),
+                                    assignedGatewayLabels, api.getName(), api.getVersion(),
+                                    api.getApiProvider(), api.getApiType(), api.getContext());
+                    unDeployAPI(deployAPIInGatewayEvent);
+                    deployAPIFromDTO(gatewayAPIDTO, apiGatewayAdmin, preparedAPI.graphQLSchemaDTO);
+                } else {
+                    if (log.isDebugEnabled()) {
+                        log.debug("API " + gatewayAPIDTO.getName() + " is already deployed");
+                    }
+                }
+            } else {
+                deployAPIFromDTO(gatewayAPIDTO, apiGatewayAdmin, preparedAPI.graphQLSchemaDTO);
+            }
+            return true;
+        } catch (AxisFault | ArtifactSynchronizerException e) {
+            log.error("Error in deploying " + gatewayAPIDTO.getName() + " to the Gateway ", e);
+            return false;
+        }
+    }
+
+    private void deployAPIFromDTO(GatewayAPIDTO gatewayAPIDTO, APIGatewayAdmin apiGatewayAdmin,
+                                  GraphQLSchemaDTO graphQLSchemaDTO) throws AxisFault {
         log.info("Deploying synapse artifacts of API ID: " + gatewayAPIDTO.getApiId() +
                 " and Context: " + gatewayAPIDTO.getApiContext());
         apiGatewayAdmin.deployAPI(gatewayAPIDTO);
         addDeployedCertificatesToAPIAssociation(gatewayAPIDTO);
-        addDeployedGraphqlQLToAPI(gatewayAPIDTO);
+        if (graphQLSchemaDTO != null) {
+            DataHolder.getInstance().addApiToGraphQLSchemaDTO(gatewayAPIDTO.getApiId(), graphQLSchemaDTO);
+        } else {
+            addDeployedGraphqlQLToAPI(gatewayAPIDTO);
+        }
         DataHolder.getInstance().addKeyManagerToAPIMapping(gatewayAPIDTO.getApiId(),
                 gatewayAPIDTO.getKeyManagers());
+        DataHolder.getInstance().removeResourceRouteIndex(gatewayAPIDTO.getApiId());
         DataHolder.getInstance().markAPIAsDeployed(gatewayAPIDTO);
     }
 
@@ -340,6 +514,7 @@ public class InMemoryAPIDeployer {
                                         .addStringToList(gatewayEvent.getUuid().concat(
                                                 "_graphQL"), gatewayAPIDTO.getLocalEntriesToBeRemove()));
                         DataHolder.getInstance().getApiToGraphQLSchemaDTOMap().remove(gatewayEvent.getUuid());
+                        DataHolder.getInstance().removeGraphQLQueryAnalyzerForAPI(gatewayEvent.getUuid());
                     }
                     if (APIConstants.APITransportType.WS.toString().equalsIgnoreCase(gatewayEvent.getApiType())) {
                         org.wso2.carbon.apimgt.gateway.utils.GatewayUtils.setWebsocketEndpointsToBeRemoved(
@@ -357,6 +532,15 @@ public class InMemoryAPIDeployer {
                 apiGatewayAdmin.unDeployAPI(gatewayAPIDTO);
                 DataHolder.getInstance().getApiToCertificatesMap().remove(gatewayEvent.getUuid());
                 DataHolder.getInstance().removeKeyManagerToAPIMapping(gatewayAPIDTO.getApiId());
+                DataHolder.getInstance().removeResourceRouteIndex(gatewayAPIDTO.getApiId());
+                XMLSchemaRegistry.removeAPISchemas(gatewayAPIDTO.getApiId());
+                AnalyzerHolder.removeAnalyzers(gatewayEvent.getContext());
+                if (gatewayEvent.getContext() != null && gatewayEvent.getVersion() != null
+                        && gatewayEvent.getContext().endsWith("/" + gatewayEvent.getVersion())) {
+                    // Analyzers of the default version of the API are held by the context without the version
+                    AnalyzerHolder.removeAnalyzers(gatewayEvent.getContext().substring(0,
+                            gatewayEvent.getContext().length() - gatewayEvent.getVersion().length() - 1));
+                }
             }
     }
 
@@ -438,14 +622,19 @@ public class InMemoryAPIDeployer {
 
         if (gatewayAPIDTO != null && gatewayAPIDTO.getGraphQLSchema() != null) {
             String apiId = gatewayAPIDTO.getApiId();
-            SchemaParser schemaParser = new SchemaParser();
-            TypeDefinitionRegistry registry = schemaParser.parse(gatewayAPIDTO.getGraphQLSchema());
-            GraphQLSchema schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
-            GraphQLSchemaDTO schemaDTO = new GraphQLSchemaDTO(schema, registry);
+            GraphQLSchemaDTO schemaDTO = buildGraphQLSchemaDTO(gatewayAPIDTO.getGraphQLSchema());
             DataHolder.getInstance().addApiToGraphQLSchemaDTO(apiId, schemaDTO);
         }
     }
 
+    private static GraphQLSchemaDTO buildGraphQLSchemaDTO(String graphQLSchema) {
+
+        SchemaParser schemaParser = new SchemaParser();
+        TypeDefinitionRegistry registry = schemaParser.parse(graphQLSchema);
+        GraphQLSchema schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
+        return new GraphQLSchemaDTO(schema, registry);
+    }
+
     private void setClientCertificatesToRemoveIntoGatewayDTO(GatewayAPIDTO gatewayDTO) {
 
         if (gatewayDTO != null) {
@@ -547,4 +736,29 @@ public class InMemoryAPIDeployer {
             }
         }
     }
+
+    /**
+     * API artifact parsed and prepared for deployment.
+     */
+    private static final class PreparedAPI {
+
+        private final String runtimeArtifact;
+        private final GatewayAPIDTO gatewayAPIDTO;
+        private final GraphQLSchemaDTO graphQLSchemaDTO;
+
+        private PreparedAPI(String runtimeArtifact, GatewayAPIDTO gatewayAPIDTO, GraphQLSchemaDTO graphQLSchemaDTO) {
+
+            this.runtimeArtifact = runtimeArtifact;
+            this.gatewayAPIDTO = gatewayAPIDTO;
+            this.graphQLSchemaDTO = graphQLSchemaDTO;
+        }
+    }
+
+    /**
+     * Source of the artifacts to deploy, which passes each artifact to the consumer as it is retrieved.
+     */
+    private interface ArtifactSource {
+
+        void retrieveArtifacts(Consumer<String> artifactConsumer) throws ArtifactSynchronizerException;
+    }
 }
@@ -36,12 +36,28 @@ public class RedisBaseDistributedCountManager implements DistributedCounterManag
     private static final Log log = LogFactory.getLog(RedisBaseDistributedCountManager.class);
     JedisPool redisPool;
     long keyLockRetrievalTimeout;
+    RedisCounterBatcher counterBatcher;
 
     public RedisBaseDistributedCountManager(JedisPool redisPool) {
         this.redisPool = redisPool;
         RedisConfig redisConfig = org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder.
                 getInstance().getAPIManagerConfigurationService().getAPIManagerConfiguration().getRedisConfig();
         keyLockRetrievalTimeout = redisConfig.getKeyLockRetrievalTimeout();
+        if (redisConfig.isCounterBatchingEnabled()) {
+            counterBatcher = new RedisCounterBatcher(redisPool, redisConfig.getCounterBatchWindow(),
+                    redisConfig.getCounterMaxBatchSize(), redisConfig.getCounterMaxPendingUpdates(),
+                    redisConfig.getCounterBatchTimeout(), redisConfig.getConnectionTimeout());
+            counterBatcher.registerMetrics();
+        }
+    }
+
+    /**
+     * Stops the batching of counter updates, if enabled. Updates issued afterwards are applied per key.
+     */
+    public void shutdown() {
+        if (counterBatcher != null) {
+            counterBatcher.shutdown();
+        }
     }
 
     @Override
@@ -111,6 +127,16 @@ public class RedisBaseDistributedCountManager implements DistributedCounterManag
         long startTime = 0;
         try {
             startTime = System.currentTimeMillis();
+            if (counterBatcher != null) {
+                Long incrementedValue = counterBatcher.incrementBy(key, value);
+                if (incrementedValue != null) {
+                    if (log.isTraceEnabled()) {
+                        log.trace(String.format("Key %s is increased by %s to %s in a batch", key, value,
+                                incrementedValue));
+                    }
+                    return incrementedValue;
+                }
+            }
             try (Jedis jedis = redisPool.getResource()) {
 
                 Transaction transaction = jedis.multi();
@@ -186,6 +212,12 @@ public class RedisBaseDistributedCountManager implements DistributedCounterManag
         long startTime = 0;
         try {
             startTime = System.currentTimeMillis();
+            if (counterBatcher != null) {
+                Long incrementedValue = counterBatcher.incrementBy(key, value);
+                if (incrementedValue != null) {
+                    return incrementedValue;
+                }
+            }
 
             try (Jedis jedis = redisPool.getResource()) {
                 long incrementedValue = 0;
@@ -385,6 +417,16 @@ public class RedisBaseDistributedCountManager implements DistributedCounterManag
         long startTime = 0;
         try {
             startTime = System.currentTimeMillis();
+            if (counterBatcher != null) {
+                Long expireSetResponse = counterBatcher.expireAt(key, expiryTimeStamp);
+                if (expireSetResponse != null) {
+                    if (log.isTraceEnabled()) {
+                        log.trace("Expire timeout of key:" + key + " was updated in a batch. status:"
+                                + expireSetResponse);
+                    }
+                    return;
+                }
+            }
             try (Jedis jedis = redisPool.getResource()) {
                 Transaction transaction = jedis.multi();
                 Response<Long> expireSetResponse = transaction.pexpireAt(key, expiryTimeStamp);
@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.metrics.manager.Gauge;
+import org.wso2.carbon.metrics.manager.Level;
+import org.wso2.carbon.metrics.manager.MetricManager;
+import org.wso2.carbon.metrics.manager.Timer;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the counter increments and expiry updates issued by the throttle processors of all caller contexts and
+ * applies them to Redis in batches, so that concurrent syncs share a single round-trip instead of doing one
+ * transaction per key.
+ * <p>
+ * A batch is applied by a Lua script which runs each update with {@code redis.pcall}, hence the updates of a batch
+ * succeed or fail independently. If the script cannot be run at all, e.g. scripting is disabled on the server, the
+ * updates of the batch are applied with one call per key. If the connection fails while a batch is in flight, it is
+ * unknown which updates were applied, hence the updates are failed and counted as dropped instead of being retried
+ * and counted twice.
+ * <p>
+ * If Redis rejects a batch because its keys belong to different hash slots, as with Redis Cluster, the batches are
+ * split by hash slot from then on and each hash slot is applied by its own script call.
+ * <p>
+ * Callers wait for the result of their update. If an update is not picked by the flusher within the batch timeout,
+ * or the pending update queue is full, {@code null} is returned and the caller is expected to apply the update itself.
+ * If an update is picked but its batch does not complete within the flush timeout, the update is failed, as it may
+ * already be applied.
+ */
+class RedisCounterBatcher {
+
+    private static final Log log = LogFactory.getLog(RedisCounterBatcher.class);
+
+    static final String INCREMENT = "i";
+    static final String EXPIRE = "e";
+
+    static final String BATCH_UPDATE_SCRIPT =
+            "local results = {} "
+                    + "for i = 1, #KEYS do "
+                    + "  if ARGV[2 * i - 1] == 'i' then "
+                    + "    results[i] = redis.pcall('INCRBY', KEYS[i], ARGV[2 * i]) "
+                    + "  else "
+                    + "    results[i] = redis.pcall('PEXPIREAT', KEYS[i], ARGV[2 * i]) "
+                    + "  end "
+                    + "end "
+                    + "return results";
+
+    private static final int PENDING = 0;
+    private static final int SENT = 1;
+    private static final int CANCELLED = 2;
+
+    private final JedisPool redisPool;
+    private final long batchWindow;
+    private final int maxBatchSize;
+    private final long batchTimeout;
+    private final long flushTimeout;
+    private final BlockingQueue<CounterUpdate> pendingUpdates;
+    private final Thread flusher;
+    private volatile boolean running = true;
+    private volatile String scriptSha;
+    private volatile boolean slotBatching;
+    private volatile Timer flushTimer;
+
+    private final LongAdder flushedBatches = new LongAdder();
+    private final LongAdder flushedUpdates = new LongAdder();
+    private final LongAdder fallbackBatches = new LongAdder();
+    private final LongAdder droppedUpdates = new LongAdder();
+    private final LongAdder rejectedUpdates = new LongAdder();
+    private final LongAdder totalFlushLatency = new LongAdder();
+    private final AtomicLong maxFlushLatency = new AtomicLong();
+    private final AtomicLong largestBatchSize = new AtomicLong();
+
+    /**
+     * @param redisPool          pool of the Redis connections
+     * @param batchWindow        time in milliseconds the flusher waits for more updates after picking the first update
+     *                           of a batch. With 0, a batch holds the updates queued while the previous batch was in
+     *                           flight
+     * @param maxBatchSize       maximum number of updates applied in a single batch
+     * @param maxPendingUpdates  maximum number of updates waiting to be flushed
+     * @param batchTimeout       time in milliseconds a caller waits for its update to be picked by the flusher
+     * @param flushTimeout       time in milliseconds a caller waits for the batch of its update to be applied, once
+     *                           the update is picked by the flusher. At least the batch timeout
+     */
+    RedisCounterBatcher(JedisPool redisPool, long batchWindow, int maxBatchSize, int maxPendingUpdates,
+                        long batchTimeout, long flushTimeout) {
+
+        this.redisPool = redisPool;
+        this.batchWindow = Math.max(0, batchWindow);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.batchTimeout = batchTimeout;
+        this.flushTimeout = Math.max(batchTimeout, flushTimeout);
+        this.pendingUpdates = new ArrayBlockingQueue<>(Math.max(1, maxPendingUpdates));
+        this.flusher = new Thread(this::runFlusher, "RedisCounterBatchFlusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Increments the counter of the given key.
+     *
+     * @return the incremented value, or null if the update was not applied by the batcher
+     */
+    Long incrementBy(String key, long value) {
+
+        return submit(new CounterUpdate(INCREMENT, key, value));
+    }
+
+    /**
+     * Sets the expiry time of the given key.
+     *
+     * @return the reply of the PEXPIREAT command, or null if the update was not applied by the batcher
+     */
+    Long expireAt(String key, long expiryTimeStamp) {
+
+        return submit(new CounterUpdate(EXPIRE, key, expiryTimeStamp));
+    }
+
+    /**
+     * Registers the counters of the batcher with the gateway metrics.
+     */
+    void registerMetrics() {
+
+        registerGauge("PENDING_UPDATES", this::getPendingUpdateCount);
+        registerGauge("FLUSHED_BATCHES", this::getFlushedBatchCount);
+        registerGauge("FLUSHED_UPDATES", this::getFlushedUpdateCount);
+        registerGauge("LARGEST_BATCH_SIZE", this::getLargestBatchSize);
+        registerGauge("FALLBACK_BATCHES", this::getFallbackBatchCount);
+        registerGauge("DROPPED_UPDATES", this::getDroppedUpdateCount);
+        registerGauge("REJECTED_UPDATES", this::getRejectedUpdateCount);
+        flushTimer = MetricManager.timer(Level.INFO, MetricManager.name(APIConstants.METRICS_PREFIX,
+                getClass().getSimpleName(), "FLUSH_LATENCY"));
+    }
+
+    private <T> void registerGauge(String name, Gauge<T> gauge) {
+
+        MetricManager.gauge(Level.INFO, MetricManager.name(APIConstants.METRICS_PREFIX, getClass().getSimpleName(),
+                name), gauge);
+    }
+
+    void shutdown() {
+
+        running = false;
+        flusher.interrupt();
+    }
+
+    private Long submit(CounterUpdate update) {
+
+        if (!running || !pendingUpdates.offer(update)) {
+            rejectedUpdates.increment();
+            return null;
+        }
+        try {
+            if (!update.done.await(batchTimeout, TimeUnit.MILLISECONDS)) {
+                if (update.state.compareAndSet(PENDING, CANCELLED)) {
+                    rejectedUpdates.increment();
+                    return null;
+                }
+                // The update is already in flight, hence it is not applied by the caller to avoid applying it twice.
+                if (!update.done.await(flushTimeout, TimeUnit.MILLISECONDS)) {
+                    droppedUpdates.increment();
+                    throw new JedisException("Timed out waiting for the counter update of key " + update.key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (update.state.compareAndSet(PENDING, CANCELLED)) {
+                return null;
+            }
+            throw new JedisException("Interrupted while waiting for the counter update of key " + update.key, e);
+        }
+        if (update.error != null) {
+            throw update.error;
+        }
+        if (update.result == null) {
+            rejectedUpdates.increment();
+        }
+        return update.result;
+    }
+
+    private void runFlusher() {
+
+        List<CounterUpdate> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                CounterUpdate first = pendingUpdates.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                if (batchWindow > 0) {
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindow);
+                    while (batch.size() < maxBatchSize) {
+                        CounterUpdate next = pendingUpdates.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                }
+                pendingUpdates.drainTo(batch, maxBatchSize - batch.size());
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failUpdates(batch, new JedisException("Redis counter batch flusher was interrupted"));
+                break;
+            } catch (RuntimeException e) {
+                log.error("Error while flushing batch of " + batch.size() + " counter updates to Redis", e);
+                failUpdates(batch, new JedisException("Error while flushing counter updates to Redis", e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void flush(List<CounterUpdate> batch) {
+
+        List<CounterUpdate> claimed = new ArrayList<>(batch.size());
+        for (CounterUpdate update : batch) {
+            if (update.state.compareAndSet(PENDING, SENT)) {
+                claimed.add(update);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        try (Jedis jedis = redisPool.getResource()) {
+            if (slotBatching) {
+                applyPerSlot(jedis, claimed);
+            } else {
+                try {
+                    applyBatch(jedis, claimed);
+                } catch (JedisDataException e) {
+                    if (e.getMessage() == null || !e.getMessage().startsWith("CROSSSLOT")) {
+                        throw e;
+                    }
+                    log.info("Redis rejected a batch of counter updates of keys in different hash slots. Counter "
+                            + "updates are batched per hash slot from now on");
+                    slotBatching = true;
+                    applyPerSlot(jedis, claimed);
+                }
+            }
+        } catch (JedisException e) {
+            log.error("Failed to apply batch of " + claimed.size() + " counter updates to Redis. Updates are dropped",
+                    e);
+            for (CounterUpdate update : claimed) {
+                if (!update.isResolved()) {
+                    complete(update, e);
+                }
+            }
+        } finally {
+            recordFlush(claimed.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            for (CounterUpdate update : claimed) {
+                update.done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Applies the updates with a single script call, or per key if the script cannot be run.
+     *
+     * @throws JedisDataException if Redis rejects the batch as its keys belong to different hash slots
+     */
+    private void applyBatch(Jedis jedis, List<CounterUpdate> updates) {
+
+        List<Object> results = null;
+        try {
+            results = runBatchScript(jedis, updates);
+        } catch (JedisConnectionException e) {
+            throw e;
+        } catch (JedisDataException e) {
+            if (!slotBatching && e.getMessage() != null && e.getMessage().startsWith("CROSSSLOT")) {
+                throw e;
+            }
+            log.warn("Failed to apply batch of " + updates.size() + " counter updates with a Lua script. "
+                    + "Applying the updates per key. " + e.getMessage());
+            fallbackBatches.increment();
+        }
+        if (results == null) {
+            applyPerKey(jedis, updates);
+        } else if (results.size() == updates.size()) {
+            for (int i = 0; i < updates.size(); i++) {
+                complete(updates.get(i), results.get(i));
+            }
+        } else {
+            JedisException error = new JedisDataException("Unexpected number of replies for batch of "
+                    + updates.size() + " counter updates : " + results.size());
+            for (CounterUpdate update : updates) {
+                complete(update, error);
+            }
+        }
+    }
+
+    private void applyPerSlot(Jedis jedis, List<CounterUpdate> updates) {
+
+        Map<Integer, List<CounterUpdate>> updatesBySlot = new LinkedHashMap<>();
+        for (CounterUpdate update : updates) {
+            updatesBySlot.computeIfAbsent(JedisClusterCRC16.getSlot(update.key), slot -> new ArrayList<>())
+                    .add(update);
+        }
+        for (List<CounterUpdate> slotUpdates : updatesBySlot.values()) {
+            applyBatch(jedis, slotUpdates);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> runBatchScript(Jedis jedis, List<CounterUpdate> updates) {
+
+        List<String> keys = new ArrayList<>(updates.size());
+        List<String> args = new ArrayList<>(updates.size() * 2);
+        for (CounterUpdate update : updates) {
+            keys.add(update.key);
+            args.add(update.type);
+            args.add(String.valueOf(update.value));
+        }
+        String sha = scriptSha;
+        if (sha != null) {
+            try {
+                return (List<Object>) jedis.evalsha(sha, keys, args);
+            } catch (JedisDataException e) {
+                if (e.getMessage() == null || !e.getMessage().startsWith("NOSCRIPT")) {
+                    throw e;
+                }
+            }
+        }
+        scriptSha = jedis.scriptLoad(BATCH_UPDATE_SCRIPT);
+        return (List<Object>) jedis.evalsha(scriptSha, keys, args);
+    }
+
+    private void applyPerKey(Jedis jedis, List<CounterUpdate> updates) {
+
+        for (CounterUpdate update : updates) {
+            try {
+                if (INCREMENT.equals(update.type)) {
+                    complete(update, jedis.incrBy(update.key, update.value));
+                } else {
+                    complete(update, jedis.pexpireAt(update.key, update.value));
+                }
+            } catch (JedisConnectionException e) {
+                throw e;
+            } catch (JedisDataException e) {
+                complete(update, e);
+            }
+        }
+    }
+
+    private void complete(CounterUpdate update, Object result) {
+
+        if (result instanceof Long) {
+            update.result = (Long) result;
+        } else if (result instanceof JedisException) {
+            update.error = (JedisException) result;
+            droppedUpdates.increment();
+        } else {
+            update.error = new JedisDataException("Unexpected reply for the counter update of key " + update.key
+                    + " : " + result);
+            droppedUpdates.increment();
+        }
+    }
+
+    private void failUpdates(List<CounterUpdate> updates, JedisException error) {
+
+        for (CounterUpdate update : updates) {
+            if (update.done.getCount() == 0) {
+                continue;
+            }
+            // Updates which were not sent are released without a result, so that the callers apply them.
+            if (!update.state.compareAndSet(PENDING, CANCELLED)) {
+                update.error = error;
+                droppedUpdates.increment();
+            }
+            update.done.countDown();
+        }
+    }
+
+    private void recordFlush(int batchSize, long latency) {
+
+        flushedBatches.increment();
+        flushedUpdates.add(batchSize);
+        totalFlushLatency.add(latency);
+        Timer timer = flushTimer;
+        if (timer != null) {
+            timer.update(latency, TimeUnit.MILLISECONDS);
+        }
+        maxFlushLatency.accumulateAndGet(latency, Math::max);
+        largestBatchSize.accumulateAndGet(batchSize, Math::max);
+        if (log.isDebugEnabled()) {
+            log.debug("Flushed batch of " + batchSize + " counter updates to Redis in " + latency + " ms");
+        }
+    }
+
+    int getPendingUpdateCount() {
+
+        return pendingUpdates.size();
+    }
+
+    long getFlushedBatchCount() {
+
+        return flushedBatches.sum();
+    }
+
+    long getFlushedUpdateCount() {
+
+        return flushedUpdates.sum();
+    }
+
+    long getLargestBatchSize() {
+
+        return largestBatchSize.get();
+    }
+
+    long getTotalFlushLatency() {
+
+        return totalFlushLatency.sum();
+    }
+
+    long getMaxFlushLatency() {
+
+        return maxFlushLatency.get();
+    }
+
+    long getFallbackBatchCount() {
+
+        return fallbackBatches.sum();
+    }
+
+    long getDroppedUpdateCount() {
+
+        return droppedUpdates.sum();
+    }
+
+    long getRejectedUpdateCount() {
+
+        return rejectedUpdates.sum();
+    }
+
+    boolean isSlotBatching() {
+
+        return slotBatching;
+    }
+
+    static final class CounterUpdate {
+
+        private final String type;
+        private final String key;
+        private final long value;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Long result;
+        private volatile JedisException error;
+
+        CounterUpdate(String type, String key, long value) {
+
+            this.type = type;
+            this.key = key;
+            this.value = value;
+        }
+
+        private boolean isResolved() {
+
+            return result != null || error != null;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped counter of the requests served by this node for a caller context which are not yet added to the
+ * distributed counter. Worker threads only increment the counter, and a single flusher at a time, elected through
+ * {@link #tryStartFlush(long, long, long)}, drains the pending hits into the distributed counter.
+ * <p>
+ * The counter only grows, and draining moves the drained mark, so hits added while the counter is drained are kept
+ * for the next drain. A counter is retired when it is removed, and hits which reach a retired counter must be drained
+ * by the thread which added them.
+ * <p>
+ * Throttle decisions are taken on the distributed counter, which only includes the hits of a gateway up to its last
+ * drain. A counter is drained at least every flush interval or every flush threshold hits, whichever comes first, so
+ * fewer than the flush threshold hits, and no more than the hits served in one flush interval, are missing from the
+ * distributed counter per gateway. Hence a limit can be exceeded by up to the requests served in one drain interval:
+ * fewer than the number of gateways times the flush threshold, and no more than the requests the gateways serve in
+ * one flush interval, plus the requests served while a drain is in progress. A flush which fails to lock the shared
+ * keys leaves the hits for the next drain, which extends the bound by another drain interval.
+ */
+class StripedLocalHitCounter {
+
+    private final LongAdder hits = new LongAdder();
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+    private volatile long drainedHits;
+    private volatile long lastFlushTime;
+    private volatile long expiryTime;
+    private volatile boolean retired;
+
+    /**
+     * @param creationTime time in milliseconds at which the counter is created
+     * @param expiryTime   end of the time window of the caller context, after which the counter can be removed
+     */
+    StripedLocalHitCounter(long creationTime, long expiryTime) {
+
+        this.lastFlushTime = creationTime;
+        this.expiryTime = expiryTime;
+    }
+
+    void increment() {
+
+        hits.increment();
+    }
+
+    void add(long count) {
+
+        hits.add(count);
+    }
+
+    long getPendingHits() {
+
+        return hits.sum() - drainedHits;
+    }
+
+    /**
+     * Elects the calling thread as the flusher of this counter if the flush interval has elapsed since the last
+     * flush or the pending hits reached the flush threshold, and no other thread is flushing.
+     *
+     * @param currentTime    current time in milliseconds
+     * @param flushInterval  interval in milliseconds between two flushes
+     * @param flushThreshold number of pending hits which triggers a flush before the interval elapses
+     * @return true if the calling thread must flush the counter and call {@link #endFlush(long)} afterwards
+     */
+    boolean tryStartFlush(long currentTime, long flushInterval, long flushThreshold) {
+
+        if (currentTime - lastFlushTime < flushInterval && getPendingHits() < flushThreshold) {
+            return false;
+        }
+        return flushing.compareAndSet(false, true);
+    }
+
+    /**
+     * Drains the pending hits. Hits added concurrently are either returned or kept for the next drain.
+     *
+     * @return number of hits drained from the counter
+     */
+    synchronized long drain() {
+
+        long total = hits.sum();
+        long pendingHits = total - drainedHits;
+        drainedHits = total;
+        return pendingHits;
+    }
+
+    void endFlush(long currentTime) {
+
+        lastFlushTime = currentTime;
+        flushing.set(false);
+    }
+
+    long getExpiryTime() {
+
+        return expiryTime;
+    }
+
+    void setExpiryTime(long expiryTime) {
+
+        this.expiryTime = expiryTime;
+    }
+
+    boolean isExpired(long currentTime) {
+
+        return currentTime > expiryTime;
+    }
+
+    void retire() {
+
+        retired = true;
+    }
+
+    boolean isRetired() {
+
+        return retired;
+    }
+}
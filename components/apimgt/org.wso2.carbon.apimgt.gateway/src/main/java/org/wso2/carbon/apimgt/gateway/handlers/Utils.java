@@ -367,8 +367,7 @@ public class Utils {
      * @param key Access token which should be removed from the cache
      */
     public static void removeCacheEntryFromGatewayCache(String key) {
-        Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER).getCache(APIConstants.GATEWAY_TOKEN_CACHE_NAME)
-                .remove(key);
+        CacheProvider.getGatewayTokenCache().remove(key);
     }
 
     /**
@@ -388,8 +387,7 @@ public class Utils {
      * @param tenantDomain Tenant domain of the token
      */
     public static void putInvalidTokenEntryIntoInvalidTokenCache(String cachedToken, String tenantDomain) {
-        Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER).getCache(APIConstants
-                .GATEWAY_INVALID_TOKEN_CACHE_NAME).put(cachedToken, tenantDomain);
+        CacheProvider.getInvalidTokenCache().put(cachedToken, tenantDomain);
     }
 
     /**
@@ -399,8 +397,7 @@ public class Utils {
      * @return Tenant domain
      */
     public static String getCachedTenantDomain(String token) {
-        return (String) Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER)
-                .getCache(APIConstants.GATEWAY_TOKEN_CACHE_NAME).get(token);
+        return (String) CacheProvider.getGatewayTokenCache().get(token);
     }
 
     /**
@@ -17,6 +17,7 @@
  */
 package org.wso2.carbon.apimgt.gateway.handlers.graphQL;
 
+import graphql.execution.preparsed.PreparsedDocumentEntry;
 import graphql.language.Definition;
 import graphql.language.Document;
 import graphql.language.OperationDefinition;
@@ -24,6 +25,7 @@ import graphql.parser.InvalidSyntaxException;
 import graphql.parser.Parser;
 import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLSchema;
 import graphql.schema.GraphQLType;
 import graphql.validation.Validator;
 import org.apache.axiom.om.OMElement;
@@ -38,6 +40,7 @@ import org.apache.synapse.rest.AbstractHandler;
 import org.apache.synapse.transport.passthru.util.RelayUtils;
 import org.wso2.carbon.apimgt.common.gateway.constants.GraphQLConstants;
 import org.wso2.carbon.apimgt.api.gateway.GraphQLSchemaDTO;
+import org.wso2.carbon.apimgt.common.gateway.graphql.ParsedDocumentCache;
 import org.wso2.carbon.apimgt.common.gateway.graphql.QueryValidator;
 import org.wso2.carbon.apimgt.gateway.handlers.Utils;
 import org.wso2.carbon.apimgt.common.gateway.graphql.GraphQLProcessorUtil;
@@ -67,6 +70,7 @@ public class GraphQLAPIHandler extends AbstractHandler {
     private GraphQLSchemaDTO graphQLSchemaDTO;
     private String apiUUID;
     private QueryValidator queryValidator;
+    private volatile DocumentCacheHolder documentCacheHolder;
 
     public GraphQLAPIHandler() {
 
@@ -92,7 +96,6 @@ public class GraphQLAPIHandler extends AbstractHandler {
                 return true;
             }
             String payload;
-            Parser parser = new Parser();
             org.apache.axis2.context.MessageContext axis2MC = ((Axis2MessageContext) messageContext).
                     getAxis2MessageContext();
             String requestPath = messageContext.getProperty(REST_SUB_REQUEST_PATH).toString();
@@ -120,10 +123,23 @@ public class GraphQLAPIHandler extends AbstractHandler {
                 return false;
             }
 
-            // Validate payload with graphQLSchema
-            Document document = parser.parseDocument(payload);
+            // Validate payload with graphQLSchema, unless the same payload was validated before
+            graphQLSchemaDTO = DataHolder.getInstance().getApiToGraphQLSchemaDTOMap().get(apiUUID);
+            ParsedDocumentCache documentCache = getDocumentCache(graphQLSchemaDTO.getGraphQLSchema());
+            PreparsedDocumentEntry documentEntry = documentCache.get(payload);
+            Document document;
+            boolean isValid = true;
+            if (documentEntry != null) {
+                document = documentEntry.getDocument();
+            } else {
+                document = new Parser().parseDocument(payload);
+                isValid = validatePayloadWithSchema(messageContext, document);
+                if (isValid) {
+                    documentCache.put(payload, new PreparsedDocumentEntry(document));
+                }
+            }
 
-            if (validatePayloadWithSchema(messageContext, document)) {
+            if (isValid) {
                 supportForBasicAndAuthentication(messageContext);
 
                 // Extract the operation type and operations from the payload
@@ -266,8 +282,6 @@ public class GraphQLAPIHandler extends AbstractHandler {
     private boolean validatePayloadWithSchema(MessageContext messageContext, Document document) {
 
         String validationErrorMessage;
-        // Get GraphQL schema data from gateway internal data holder
-        graphQLSchemaDTO = DataHolder.getInstance().getApiToGraphQLSchemaDTOMap().get(apiUUID);
         validationErrorMessage = queryValidator.validatePayload(graphQLSchemaDTO.getGraphQLSchema(), document);
         if (validationErrorMessage != null) {
             handleFailure(messageContext, validationErrorMessage);
@@ -276,6 +290,23 @@ public class GraphQLAPIHandler extends AbstractHandler {
         return true;
     }
 
+    /**
+     * Returns the cache of the validated documents of the schema. The cache is replaced when the schema of the API
+     * is updated, so that documents validated against the previous schema are not used.
+     *
+     * @param schema GraphQL schema of the API
+     * @return cache of the documents validated against the schema
+     */
+    private ParsedDocumentCache getDocumentCache(GraphQLSchema schema) {
+
+        DocumentCacheHolder holder = documentCacheHolder;
+        if (holder == null || holder.schema != schema) {
+            holder = new DocumentCacheHolder(schema, new ParsedDocumentCache());
+            documentCacheHolder = holder;
+        }
+        return holder.documentCache;
+    }
+
     /**
      * This method handle the failure
      *
@@ -297,6 +328,16 @@ public class GraphQLAPIHandler extends AbstractHandler {
     public boolean handleResponse(MessageContext messageContext) {
         return true;
     }
-}
 
+    private static final class DocumentCacheHolder {
+
+        private final GraphQLSchema schema;
+        private final ParsedDocumentCache documentCache;
 
+        private DocumentCacheHolder(GraphQLSchema schema, ParsedDocumentCache documentCache) {
+
+            this.schema = schema;
+            this.documentCache = documentCache;
+        }
+    }
+}
@@ -36,6 +36,7 @@ import org.wso2.carbon.apimgt.gateway.MethodStats;
 import org.wso2.carbon.apimgt.gateway.handlers.Utils;
 import org.wso2.carbon.apimgt.gateway.handlers.security.keys.APIKeyDataStore;
 import org.wso2.carbon.apimgt.gateway.handlers.security.keys.WSAPIKeyDataStore;
+import org.wso2.carbon.apimgt.gateway.internal.DataHolder;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
 import org.wso2.carbon.apimgt.impl.APIConstants;
@@ -54,10 +55,12 @@ import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.cache.Cache;
@@ -82,6 +85,8 @@ public class APIKeyValidator {
 
     private ArrayList<URITemplate> uriTemplates = null;
 
+    private static volatile TokenValidationCoalescer<APIKeyValidationInfoDTO> tokenValidationCoalescer;
+
     public APIKeyValidator() {
 
         this.dataStore = new WSAPIKeyDataStore();
@@ -164,6 +169,12 @@ public class APIKeyValidator {
                         getGatewayTokenCache().remove(apiKey);
                         // Put into invalid token cache
                         getInvalidTokenCache().put(apiKey, cachedToken);
+                    } else if (getTokenValidationCoalescer().isRefreshAheadEnabled()) {
+                        String tenantDomain = getTenantDomain();
+                        String versionToValidate = prefixedVersion;
+                        getTokenValidationCoalescer().refreshAheadIfDue(tenantDomain + ":" + cacheKey,
+                                () -> revalidateKey(context, versionToValidate, apiKey, authenticationScheme,
+                                        matchingResource, httpVerb, tenantDomain, keyManagers, cacheKey));
                     }
                     return info;
                 }
@@ -182,7 +193,23 @@ public class APIKeyValidator {
         }
 
         String tenantDomain = getTenantDomain();
-        APIKeyValidationInfoDTO info = doGetKeyValidationInfo(context, prefixedVersion, apiKey, authenticationScheme,
+        String versionToValidate = prefixedVersion;
+        // Requests which arrive with the same token while it is validated wait for that validation
+        return getTokenValidationCoalescer().validate(tenantDomain + ":" + cacheKey,
+                () -> validateAndCacheKey(context, versionToValidate, apiKey, authenticationScheme, matchingResource,
+                        httpVerb, tenantDomain, keyManagers, cacheKey));
+    }
+
+    /**
+     * Validates the key through the key data store and adds the validation result to the token caches.
+     */
+    private APIKeyValidationInfoDTO validateAndCacheKey(String context, String apiVersion, String apiKey,
+                                                        String authenticationScheme, String matchingResource,
+                                                        String httpVerb, String tenantDomain,
+                                                        List<String> keyManagers, String cacheKey)
+            throws APISecurityException {
+
+        APIKeyValidationInfoDTO info = doGetKeyValidationInfo(context, apiVersion, apiKey, authenticationScheme,
                 matchingResource, httpVerb, tenantDomain, keyManagers);
         if (info != null) {
             if (gatewayKeyCacheEnabled) {
@@ -228,6 +255,43 @@ public class APIKeyValidator {
         }
     }
 
+    /**
+     * Validates the key again on a background thread, ahead of the expiry of its cached validation result.
+     */
+    private APIKeyValidationInfoDTO revalidateKey(String context, String apiVersion, String apiKey,
+                                                  String authenticationScheme, String matchingResource,
+                                                  String httpVerb, String tenantDomain, List<String> keyManagers,
+                                                  String cacheKey) throws APISecurityException {
+
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+            APIKeyValidationInfoDTO info = validateAndCacheKey(context, apiVersion, apiKey, authenticationScheme,
+                    matchingResource, httpVerb, tenantDomain, keyManagers, cacheKey);
+            if (info.getValidationStatus() == APIConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS) {
+                // Stop serving the cached result, since the token is no longer valid
+                getGatewayKeyCache().remove(cacheKey);
+                getGatewayTokenCache().remove(apiKey);
+            }
+            return info;
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    protected TokenValidationCoalescer<APIKeyValidationInfoDTO> getTokenValidationCoalescer() {
+
+        if (tokenValidationCoalescer == null) {
+            synchronized (APIKeyValidator.class) {
+                if (tokenValidationCoalescer == null) {
+                    tokenValidationCoalescer =
+                            GatewayUtils.createTokenValidationCoalescer(APIKeyValidator.class.getSimpleName());
+                }
+            }
+        }
+        return tokenValidationCoalescer;
+    }
+
     protected void endTenantFlow() {
         PrivilegedCarbonContext.endTenantFlow();
     }
@@ -339,6 +403,14 @@ public class APIKeyValidator {
         }
         synCtx.setProperty(RESTConstants.REST_SUB_REQUEST_PATH, requestPath);
 
+        ResourceRouteIndex resourceRouteIndex = getResourceRouteIndex(synCtx, apiContext, apiVersion);
+        if (resourceRouteIndex != null) {
+            List<VerbInfoDTO> indexedVerbInfoList = findMatchingVerbFromIndex(synCtx, resourceRouteIndex,
+                    httpMethod, requestPath, resourceArray);
+            if (indexedVerbInfoList != null) {
+                return indexedVerbInfoList;
+            }
+        }
 
         //This function is used by more than one handler. If on one execution of this function, it has found and placed
         //the matching verb in the cache, the same can be re-used from all handlers since all handlers share the same
@@ -435,31 +507,7 @@ public class APIKeyValidator {
             }
         }
 
-        String apiCacheKey = APIUtil.getAPIInfoDTOCacheKey(apiContext, apiVersion);
-        APIInfoDTO apiInfoDTO = null;
-
-        if (isGatewayAPIResourceValidationEnabled) {
-            apiInfoDTO = (APIInfoDTO) getResourceCache().get(apiCacheKey);
-        }
-
-        //Cache miss
-        if (apiInfoDTO == null) {
-            if (log.isDebugEnabled()) {
-                log.debug("Could not find API object in cache for key: " + apiCacheKey);
-            }
-
-            String apiType = (String) synCtx.getProperty(APIMgtGatewayConstants.API_TYPE);
-
-            if (APIConstants.ApiTypes.PRODUCT_API.name().equalsIgnoreCase(apiType)) {
-                apiInfoDTO = doGetAPIProductInfo(synCtx, apiContext, apiVersion);
-            } else {
-                apiInfoDTO = doGetAPIInfo(synCtx, apiContext, apiVersion);
-            }
-
-            if (isGatewayAPIResourceValidationEnabled) {
-                getResourceCache().put(apiCacheKey, apiInfoDTO);
-            }
-        }
+        APIInfoDTO apiInfoDTO = getAPIInfo(synCtx, apiContext, apiVersion);
         if (apiInfoDTO.getResources() != null) {
             for (ResourceInfoDTO resourceInfoDTO : apiInfoDTO.getResources()) {
                 Set<VerbInfoDTO> verbDTOList = resourceInfoDTO.getHttpVerbs();
@@ -492,6 +540,127 @@ public class APIKeyValidator {
         return verbInfoList;
     }
 
+    private APIInfoDTO getAPIInfo(MessageContext synCtx, String apiContext, String apiVersion)
+            throws APISecurityException {
+
+        String apiCacheKey = APIUtil.getAPIInfoDTOCacheKey(apiContext, apiVersion);
+        APIInfoDTO apiInfoDTO = null;
+
+        if (isGatewayAPIResourceValidationEnabled) {
+            apiInfoDTO = (APIInfoDTO) getResourceCache().get(apiCacheKey);
+        }
+
+        //Cache miss
+        if (apiInfoDTO == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Could not find API object in cache for key: " + apiCacheKey);
+            }
+
+            String apiType = (String) synCtx.getProperty(APIMgtGatewayConstants.API_TYPE);
+
+            if (APIConstants.ApiTypes.PRODUCT_API.name().equalsIgnoreCase(apiType)) {
+                apiInfoDTO = doGetAPIProductInfo(synCtx, apiContext, apiVersion);
+            } else {
+                apiInfoDTO = doGetAPIInfo(synCtx, apiContext, apiVersion);
+            }
+
+            if (isGatewayAPIResourceValidationEnabled) {
+                getResourceCache().put(apiCacheKey, apiInfoDTO);
+            }
+        }
+        return apiInfoDTO;
+    }
+
+    /**
+     * Returns the compiled resource index of the API of the request. The index is compiled on the first request
+     * after the API is deployed, from the API information held in the resource cache, and dropped when the API is
+     * redeployed or undeployed or its resource cache is invalidated. An index compiled while the index of the API is
+     * dropped is used for the request but not kept.
+     *
+     * @param synCtx     message context of the request
+     * @param apiContext API context
+     * @param apiVersion API version
+     * @return compiled resource index, or null if the API can not be resolved from the message context or the index
+     * was compiled for another context or version of the API
+     * @throws APISecurityException if an error occurs while retrieving the URI templates of the API
+     */
+    private ResourceRouteIndex getResourceRouteIndex(MessageContext synCtx, String apiContext, String apiVersion)
+            throws APISecurityException {
+
+        if (!isGatewayAPIResourceValidationEnabled) {
+            return null;
+        }
+        String apiUUID = (String) synCtx.getProperty(APIMgtGatewayConstants.API_UUID_PROPERTY);
+        if (apiUUID == null) {
+            return null;
+        }
+        ResourceRouteIndex resourceRouteIndex = DataHolder.getInstance().getResourceRouteIndex(apiUUID);
+        if (resourceRouteIndex == null) {
+            API selectedApi = Utils.getSelectedAPI(synCtx);
+            if (selectedApi == null) {
+                return null;
+            }
+            long generation = DataHolder.getInstance().getResourceRouteIndexGeneration(apiUUID, apiContext,
+                    apiVersion);
+            resourceRouteIndex = ResourceRouteIndex.compile(getAPIInfo(synCtx, apiContext, apiVersion),
+                    getResourceTemplates(selectedApi));
+            DataHolder.getInstance().addResourceRouteIndex(apiUUID, resourceRouteIndex, generation);
+            if (log.isDebugEnabled()) {
+                log.debug("Compiled resource index for API: " + apiUUID);
+            }
+        }
+        // Request keys are built from the context and version of the request, same as the resource cache keys.
+        if (!Objects.equals(apiContext, resourceRouteIndex.getApiContext())
+                || !Objects.equals(apiVersion, resourceRouteIndex.getApiVersion())) {
+            return null;
+        }
+        return resourceRouteIndex;
+    }
+
+    private Set<String> getResourceTemplates(API api) {
+
+        Set<String> resourceTemplates = new HashSet<>();
+        for (Resource resource : api.getResources()) {
+            if (resource.getDispatcherHelper() != null) {
+                resourceTemplates.add(resource.getDispatcherHelper().getString());
+            }
+        }
+        return resourceTemplates;
+    }
+
+    private List<VerbInfoDTO> findMatchingVerbFromIndex(MessageContext synCtx, ResourceRouteIndex resourceRouteIndex,
+                                                        String httpMethod, String requestPath,
+                                                        List<String> resourceArray) {
+
+        List<VerbInfoDTO> verbInfoList = new ArrayList<>();
+        if (resourceArray != null) {
+            for (String resourceString : resourceArray) {
+                ResourceRouteIndex.Route route = resourceRouteIndex.getRoute(httpMethod, resourceString);
+                if (route == null) {
+                    return null;
+                }
+                verbInfoList.add(route.getVerbInfo());
+            }
+            return verbInfoList;
+        }
+        if (RESTConstants.METHOD_OPTIONS.equals(httpMethod)) {
+            // OPTIONS requests are dispatched against the resources of all methods by Synapse.
+            return null;
+        }
+        ResourceRouteIndex.Route route = resourceRouteIndex.match(httpMethod, requestPath);
+        if (route == null) {
+            return null;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Selected Resource from resource index: " + route.getUriTemplate());
+        }
+        synCtx.setProperty(APIConstants.API_ELECTED_RESOURCE, route.getUriTemplate());
+        synCtx.setProperty(APIConstants.API_RESOURCE_CACHE_KEY, route.getRequestKey());
+        synCtx.setProperty(APIConstants.REST_METHOD, httpMethod);
+        verbInfoList.add(route.getVerbInfo());
+        return verbInfoList;
+    }
+
     private String getRequestPath(MessageContext synCtx, String apiContext, String apiVersion, String fullRequestPath) {
         String requestPath;
         String versionStrategy = (String) synCtx.getProperty(RESTConstants.SYNAPSE_REST_API_VERSION_STRATEGY);
@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.security;
+
+import org.wso2.carbon.apimgt.impl.dto.APIInfoDTO;
+import org.wso2.carbon.apimgt.impl.dto.ResourceInfoDTO;
+import org.wso2.carbon.apimgt.impl.dto.VerbInfoDTO;
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, per API compiled index of the resources of an API. The index is built once from the URI templates of
+ * a deployed API and is used by {@link APIKeyValidator#findMatchingVerb} to resolve the matching
+ * {@link VerbInfoDTO} of a request without building resource cache keys or looking up the resource cache.
+ * <p>
+ * Resources are indexed per HTTP method in two forms,
+ * <ul>
+ * <li>by the URI template string, used when the resource has already been elected for the request</li>
+ * <li>by a path segment trie with literal, path parameter and trailing wildcard nodes, used to elect the resource
+ * from the request path</li>
+ * </ul>
+ * The trie only answers when exactly one template of the API can match the request path. Whenever the match is
+ * ambiguous, or the template uses URI template features which are not compiled into the trie, {@code null} is
+ * returned so that the caller falls back to the Synapse dispatchers and keeps their precedence rules.
+ * <p>
+ * The elected resource and the request key of a route are the same strings the Synapse dispatchers and the resource
+ * cache based lookup produce. Hence templates are only compiled into the trie if the deployed Synapse API has a
+ * resource of the same template, and an elected resource only resolves a route if it equals the template.
+ */
+public final class ResourceRouteIndex {
+
+    /**
+     * Marker returned internally when more than one template can match a request path.
+     */
+    private static final Route AMBIGUOUS = new Route(null, null, null);
+
+    private static final String[] EMPTY_LITERALS = new String[0];
+    private static final Node[] EMPTY_NODES = new Node[0];
+
+    private final String apiContext;
+    private final String apiVersion;
+    private final Map<String, Map<String, Route>> routesByMethod;
+    private final Map<String, Node> trieByMethod;
+
+    private ResourceRouteIndex(String apiContext, String apiVersion, Map<String, Map<String, Route>> routesByMethod,
+                               Map<String, Node> trieByMethod) {
+
+        this.apiContext = apiContext;
+        this.apiVersion = apiVersion;
+        this.routesByMethod = routesByMethod;
+        this.trieByMethod = trieByMethod;
+    }
+
+    /**
+     * Compiles the resources of the given API into a route index.
+     *
+     * @param apiInfoDTO        API information with the resources and verbs of the API
+     * @param resourceTemplates URI templates of the resources of the deployed Synapse API
+     * @return compiled route index
+     */
+    public static ResourceRouteIndex compile(APIInfoDTO apiInfoDTO, Collection<String> resourceTemplates) {
+
+        String apiContext = apiInfoDTO.getContext();
+        String apiVersion = apiInfoDTO.getVersion();
+        Map<String, Map<String, Route>> routesByMethod = new HashMap<>();
+        Map<String, Node> trieByMethod = new HashMap<>();
+        if (apiInfoDTO.getResources() != null) {
+            for (ResourceInfoDTO resourceInfoDTO : apiInfoDTO.getResources()) {
+                String urlPattern = resourceInfoDTO.getUrlPattern();
+                if (urlPattern == null || resourceInfoDTO.getHttpVerbs() == null) {
+                    continue;
+                }
+                urlPattern = urlPattern.trim();
+                for (VerbInfoDTO verbInfoDTO : resourceInfoDTO.getHttpVerbs()) {
+                    String httpMethod = verbInfoDTO.getHttpVerb();
+                    if (httpMethod == null) {
+                        continue;
+                    }
+                    String requestKey = APIUtil.getResourceInfoDTOCacheKey(apiContext, apiVersion, urlPattern,
+                            httpMethod);
+                    verbInfoDTO.setRequestKey(requestKey);
+                    Route route = new Route(urlPattern, verbInfoDTO, requestKey);
+
+                    routesByMethod.computeIfAbsent(httpMethod, k -> new HashMap<>()).putIfAbsent(urlPattern, route);
+                    Node root = trieByMethod.computeIfAbsent(httpMethod, k -> new Node());
+                    if (resourceTemplates.contains(urlPattern)) {
+                        insert(root, urlPattern, route);
+                    } else {
+                        // Synapse elects this resource by a template string which differs from the URI template.
+                        root.unsupported = true;
+                    }
+                }
+            }
+        }
+        for (Node root : trieByMethod.values()) {
+            root.freeze();
+        }
+        return new ResourceRouteIndex(apiContext, apiVersion, routesByMethod, trieByMethod);
+    }
+
+    /**
+     * Returns the route of an already elected resource.
+     *
+     * @param httpMethod     HTTP method of the request
+     * @param resourceString URI template of the elected resource
+     * @return matching route or null if the API has no resource of exactly the given template for the given method
+     */
+    public Route getRoute(String httpMethod, String resourceString) {
+
+        Map<String, Route> routes = routesByMethod.get(httpMethod);
+        if (routes == null || resourceString == null) {
+            return null;
+        }
+        return routes.get(resourceString);
+    }
+
+    /**
+     * Elects the resource of a request by matching the request path against the compiled templates.
+     *
+     * @param httpMethod  HTTP method of the request
+     * @param requestPath request path relative to the API context and version
+     * @return the matching route, or null if no template or more than one template can match the path
+     */
+    public Route match(String httpMethod, String requestPath) {
+
+        Node root = trieByMethod.get(httpMethod);
+        if (root == null || root.unsupported || requestPath == null) {
+            return null;
+        }
+        int end = requestPath.length();
+        int queryIndex = requestPath.indexOf('?');
+        if (queryIndex >= 0) {
+            end = queryIndex;
+        }
+        int fragmentIndex = requestPath.indexOf('#');
+        if (fragmentIndex >= 0 && fragmentIndex < end) {
+            end = fragmentIndex;
+        }
+        // Encoded characters are decoded by the Synapse dispatchers, hence leave such paths to them.
+        int encodedIndex = requestPath.indexOf('%');
+        if (encodedIndex >= 0 && encodedIndex < end) {
+            return null;
+        }
+        Route route = match(root, requestPath, 0, end);
+        return route == AMBIGUOUS ? null : route;
+    }
+
+    public String getApiContext() {
+
+        return apiContext;
+    }
+
+    public String getApiVersion() {
+
+        return apiVersion;
+    }
+
+    private static Route match(Node node, String path, int position, int end) {
+
+        while (position < end && path.charAt(position) == '/') {
+            position++;
+        }
+        Route result = node.wildcardRoute;
+        if (position >= end) {
+            return merge(result, node.route);
+        }
+        int segmentEnd = path.indexOf('/', position);
+        if (segmentEnd < 0 || segmentEnd > end) {
+            segmentEnd = end;
+        }
+        int segmentLength = segmentEnd - position;
+        for (int i = 0; i < node.literals.length && result != AMBIGUOUS; i++) {
+            String literal = node.literals[i];
+            Node child = node.literalChildren[i];
+            if (literal.length() == segmentLength && path.regionMatches(position, literal, 0, segmentLength)) {
+                result = merge(result, match(child, path, segmentEnd, end));
+            } else if (child.wildcardRoute != null && literal.length() < segmentLength
+                    && path.startsWith(literal, position)) {
+                // URL mappings such as '/foo/*' are prefix matched by Synapse, hence '/foobar' may match as well.
+                result = AMBIGUOUS;
+            }
+        }
+        Node paramChild = node.paramChild;
+        if (paramChild != null && result != AMBIGUOUS) {
+            result = merge(result, match(paramChild, path, segmentEnd, end));
+            if (paramChild.route != null && segmentEnd < end) {
+                // A trailing path parameter may span the remaining segments of the path.
+                result = merge(result, AMBIGUOUS);
+            }
+        }
+        return result;
+    }
+
+    private static Route merge(Route current, Route candidate) {
+
+        if (current == null) {
+            return candidate;
+        }
+        if (candidate == null || current == candidate) {
+            return current;
+        }
+        return AMBIGUOUS;
+    }
+
+    private static void insert(Node root, String urlPattern, Route route) {
+
+        if (urlPattern.indexOf('?') >= 0 || urlPattern.indexOf('#') >= 0 || urlPattern.indexOf('%') >= 0) {
+            root.unsupported = true;
+            return;
+        }
+        String[] segments = urlPattern.split("/");
+        Node node = root;
+        int last = segments.length - 1;
+        while (last >= 0 && segments[last].isEmpty()) {
+            last--;
+        }
+        for (int i = 0; i <= last; i++) {
+            String segment = segments[i];
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if ("*".equals(segment) && i == last) {
+                if (node.wildcardRoute == null) {
+                    node.wildcardRoute = route;
+                }
+                return;
+            }
+            if (isPathParameter(segment)) {
+                if (node.paramChild == null) {
+                    node.paramChild = new Node();
+                }
+                node = node.paramChild;
+            } else if (segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0 || segment.indexOf('*') >= 0) {
+                // Templates with expressions other than simple path parameters are left to the Synapse dispatchers.
+                root.unsupported = true;
+                return;
+            } else {
+                node = node.getOrCreateLiteralChild(segment);
+            }
+        }
+        if (node.route == null) {
+            node.route = route;
+        }
+    }
+
+    private static boolean isPathParameter(String segment) {
+
+        if (segment.length() < 3 || segment.charAt(0) != '{' || segment.charAt(segment.length() - 1) != '}') {
+            return false;
+        }
+        for (int i = 1; i < segment.length() - 1; i++) {
+            char c = segment.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resource of an API matched for a HTTP method.
+     */
+    public static final class Route {
+
+        private final String uriTemplate;
+        private final VerbInfoDTO verbInfo;
+        private final String requestKey;
+
+        private Route(String uriTemplate, VerbInfoDTO verbInfo, String requestKey) {
+
+            this.uriTemplate = uriTemplate;
+            this.verbInfo = verbInfo;
+            this.requestKey = requestKey;
+        }
+
+        public String getUriTemplate() {
+
+            return uriTemplate;
+        }
+
+        public VerbInfoDTO getVerbInfo() {
+
+            return verbInfo;
+        }
+
+        public String getRequestKey() {
+
+            return requestKey;
+        }
+    }
+
+    private static final class Node {
+
+        private List<String> literalList = new ArrayList<>();
+        private List<Node> literalNodeList = new ArrayList<>();
+        private String[] literals = EMPTY_LITERALS;
+        private Node[] literalChildren = EMPTY_NODES;
+        private Node paramChild;
+        private Route route;
+        private Route wildcardRoute;
+        private boolean unsupported;
+
+        private Node getOrCreateLiteralChild(String literal) {
+
+            int index = literalList.indexOf(literal);
+            if (index >= 0) {
+                return literalNodeList.get(index);
+            }
+            Node child = new Node();
+            literalList.add(literal);
+            literalNodeList.add(child);
+            return child;
+        }
+
+        private void freeze() {
+
+            literals = literalList.toArray(EMPTY_LITERALS);
+            literalChildren = literalNodeList.toArray(EMPTY_NODES);
+            literalList = null;
+            literalNodeList = null;
+            for (Node child : literalChildren) {
+                child.freeze();
+            }
+            if (paramChild != null) {
+                paramChild.freeze();
+            }
+        }
+    }
+}
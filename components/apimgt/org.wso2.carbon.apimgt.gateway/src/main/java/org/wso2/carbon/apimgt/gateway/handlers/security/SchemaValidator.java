@@ -20,6 +20,8 @@ import com.atlassian.oai.validator.OpenApiInteractionValidator;
 import com.atlassian.oai.validator.report.LevelResolver;
 import com.atlassian.oai.validator.report.ValidationReport;
 import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.MessageContext;
@@ -28,9 +30,15 @@ import org.wso2.carbon.apimgt.gateway.APIMgtGatewayConstants;
 import org.wso2.carbon.apimgt.gateway.handlers.security.model.OpenAPIRequest;
 import org.wso2.carbon.apimgt.gateway.handlers.security.model.OpenAPIResponse;
 import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+
+import java.util.Locale;
 
 /**
  * This SchemaValidator handler validates the request/response messages against schema defined in the swagger.
+ * <p>
+ * A handler instance is created for each deployed API revision, so the validator built for the OpenAPI definition of
+ * the API is kept in the handler and shared by all requests and responses, until the API is redeployed.
  */
 public class SchemaValidator extends AbstractHandler {
 
@@ -38,13 +46,36 @@ public class SchemaValidator extends AbstractHandler {
     private static final Log logger = LogFactory.getLog(SchemaValidator.class);
     private static final String HTTP_SC_CODE = "400";
 
+    private volatile OpenAPIValidatorHolder validatorHolder;
+
+    /**
+     * Returns the validator of the provided openAPI, building it if the openAPI was not validated against before.
+     *
+     * @param openAPI openAPI
+     * @return OpenApiInteractionValidator object for the provided swagger.
+     */
+    private OpenApiInteractionValidator getOpenAPIValidator(OpenAPI openAPI) {
+
+        // The OpenAPI object of the API is parsed once per deployment, so it identifies the validator to use
+        OpenAPIValidatorHolder holder = validatorHolder;
+        if (holder == null || holder.openAPI != openAPI) {
+            long startTime = System.currentTimeMillis();
+            holder = new OpenAPIValidatorHolder(openAPI, createOpenAPIValidator(openAPI));
+            validatorHolder = holder;
+            if (logger.isDebugEnabled()) {
+                logger.debug("Time to build the schema validator(ms) : " + (System.currentTimeMillis() - startTime));
+            }
+        }
+        return holder.validator;
+    }
+
     /**
      * Method to generate OpenApiInteractionValidator when the openAPI is provided.
      *
      * @param openAPI openAPI
      * @return OpenApiInteractionValidator object for the provided swagger.
      */
-    private static OpenApiInteractionValidator getOpenAPIValidator(OpenAPI openAPI) {
+    private static OpenApiInteractionValidator createOpenAPIValidator(OpenAPI openAPI) {
 
         return OpenApiInteractionValidator
                 .createFor(openAPI)
@@ -64,7 +95,8 @@ public class SchemaValidator extends AbstractHandler {
         OpenAPI openAPI = (OpenAPI) messageContext.getProperty(APIMgtGatewayConstants.OPEN_API_OBJECT);
         if (openAPI != null) {
             OpenApiInteractionValidator validator = getOpenAPIValidator(openAPI);
-            OpenAPIRequest request = new OpenAPIRequest(messageContext);
+            OpenAPIRequest request = new OpenAPIRequest(messageContext, openAPI,
+                    hasRequestBody(openAPI, messageContext));
 
             ValidationReport validationReport = validator.validateRequest(request);
             messageContext.setProperty(APIMgtGatewayConstants.SCHEMA_VALIDATION_REPORT, validationReport);
@@ -103,4 +135,45 @@ public class SchemaValidator extends AbstractHandler {
         }
         return true;
     }
+
+    /**
+     * Checks whether the elected operation of the request may have a request body to validate. The message is not
+     * built for the operations which do not define a request body, as the validator does not validate their bodies.
+     *
+     * @param openAPI        openAPI
+     * @param messageContext message context of the request
+     * @return false if the elected operation is defined without a request body, true otherwise
+     */
+    private static boolean hasRequestBody(OpenAPI openAPI, MessageContext messageContext) {
+
+        String electedResource = (String) messageContext.getProperty(APIConstants.API_ELECTED_RESOURCE);
+        String httpMethod = (String) messageContext.getProperty(APIMgtGatewayConstants.HTTP_METHOD);
+        if (electedResource == null || httpMethod == null || openAPI.getPaths() == null) {
+            return true;
+        }
+        PathItem pathItem = openAPI.getPaths().get(electedResource);
+        if (pathItem == null) {
+            return true;
+        }
+        Operation operation;
+        try {
+            operation = pathItem.readOperationsMap().get(PathItem.HttpMethod.valueOf(
+                    httpMethod.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+        return operation == null || operation.getRequestBody() != null;
+    }
+
+    private static final class OpenAPIValidatorHolder {
+
+        private final OpenAPI openAPI;
+        private final OpenApiInteractionValidator validator;
+
+        private OpenAPIValidatorHolder(OpenAPI openAPI, OpenApiInteractionValidator validator) {
+
+            this.openAPI = openAPI;
+            this.validator = validator;
+        }
+    }
 }
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.security;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.metrics.manager.Gauge;
+import org.wso2.carbon.metrics.manager.Level;
+import org.wso2.carbon.metrics.manager.MetricManager;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent validations of the same token. When the validation result of a token is not cached, the
+ * first request validates the token and the requests which arrive with the same token in the meantime wait for that
+ * validation and share its result, instead of calling the key manager themselves.
+ * <p>
+ * Optionally, validations are refreshed ahead of the expiry of the cached result. When a token whose result was
+ * cached longer than the refresh ahead time is used, the token is validated again in the background while the cached
+ * result keeps being served, so that hot tokens do not expire from the cache.
+ *
+ * @param <T> type of the validation result
+ */
+public class TokenValidationCoalescer<T> {
+
+    private static final Log log = LogFactory.getLog(TokenValidationCoalescer.class);
+
+    private static final int REFRESH_THREAD_COUNT = 2;
+    private static final int REFRESH_QUEUE_SIZE = 1000;
+    // Number of tracked validation times above which the validations older than the cache expiry are forgotten
+    private static final int MAX_TRACKED_VALIDATIONS = 10000;
+
+    private static volatile Executor defaultRefreshExecutor;
+
+    /**
+     * Validation of a token, which caches its result.
+     *
+     * @param <T> type of the validation result
+     */
+    public interface Validation<T> {
+
+        T validate() throws APISecurityException;
+    }
+
+    private final Map<String, CompletableFuture<T>> inFlightValidations = new ConcurrentHashMap<>();
+    // Time of the last validation of each token, tracked only when refresh ahead is enabled
+    private final Map<String, Long> validationTimes = new ConcurrentHashMap<>();
+    private final long refreshAheadAfter;
+    private final long cacheExpiry;
+    private final Executor refreshExecutor;
+
+    private final LongAdder validationCount = new LongAdder();
+    private final LongAdder coalescedWaitCount = new LongAdder();
+    private final LongAdder refreshAheadCount = new LongAdder();
+    private final LongAdder failedRefreshAheadCount = new LongAdder();
+
+    /**
+     * Creates a coalescer which does not refresh validations ahead of the cache expiry.
+     */
+    public TokenValidationCoalescer() {
+
+        this(-1, -1, null);
+    }
+
+    /**
+     * @param cacheExpiry      expiry time of the cached validation results in milliseconds
+     * @param refreshAheadTime time before the cache expiry within which a used token is validated again, in
+     *                         milliseconds. Refresh ahead is disabled if this is not positive or not less than the
+     *                         cache expiry.
+     * @param refreshExecutor  executor to refresh the validations on, or null to use the default executor
+     */
+    public TokenValidationCoalescer(long cacheExpiry, long refreshAheadTime, Executor refreshExecutor) {
+
+        this.cacheExpiry = cacheExpiry;
+        this.refreshAheadAfter = refreshAheadTime > 0 && refreshAheadTime < cacheExpiry
+                ? cacheExpiry - refreshAheadTime : -1;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * Validates the token, or waits for the validation of the token already in progress.
+     *
+     * @param key        key of the token. Validations with the same key share their results.
+     * @param validation validation of the token
+     * @return the validation result
+     * @throws APISecurityException if the validation failed
+     */
+    public T validate(String key, Validation<T> validation) throws APISecurityException {
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<T> inFlightValidation = inFlightValidations.putIfAbsent(key, future);
+        if (inFlightValidation != null) {
+            coalescedWaitCount.increment();
+            return await(inFlightValidation);
+        }
+        return execute(key, validation, future);
+    }
+
+    /**
+     * Validates the token again in the background if its cached result is about to expire. Should be called when
+     * the cached result of the token is used.
+     *
+     * @param key        key of the token
+     * @param validation validation of the token, which replaces the cached result
+     */
+    public void refreshAheadIfDue(String key, Validation<T> validation) {
+
+        if (!isRefreshAheadEnabled()) {
+            return;
+        }
+        Long validationTime = validationTimes.get(key);
+        long currentTime = System.currentTimeMillis();
+        if (validationTime == null || currentTime - validationTime < refreshAheadAfter) {
+            return;
+        }
+        // Only one of the concurrent requests refreshes the validation. Updating the validation time also makes a
+        // failed refresh not to be retried by every request which uses the token.
+        if (!validationTimes.replace(key, validationTime, currentTime)) {
+            return;
+        }
+        try {
+            getRefreshExecutor().execute(() -> {
+                CompletableFuture<T> future = new CompletableFuture<>();
+                // Skip the refresh if the token is being validated by a request
+                if (inFlightValidations.putIfAbsent(key, future) != null) {
+                    return;
+                }
+                try {
+                    execute(key, validation, future);
+                    refreshAheadCount.increment();
+                } catch (APISecurityException | RuntimeException e) {
+                    failedRefreshAheadCount.increment();
+                    log.error("Error while refreshing the validation of the token ahead of the cache expiry", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            failedRefreshAheadCount.increment();
+            if (log.isDebugEnabled()) {
+                log.debug("Refresh ahead of token validation is skipped since the refresh queue is full");
+            }
+        }
+    }
+
+    private T execute(String key, Validation<T> validation, CompletableFuture<T> future)
+            throws APISecurityException {
+
+        try {
+            validationCount.increment();
+            T result = validation.validate();
+            if (isRefreshAheadEnabled()) {
+                recordValidation(key);
+            }
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightValidations.remove(key, future);
+        }
+    }
+
+    private T await(CompletableFuture<T> inFlightValidation) throws APISecurityException {
+
+        try {
+            return inFlightValidation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APISecurityException(APISecurityConstants.API_AUTH_GENERAL_ERROR,
+                    APISecurityConstants.API_AUTH_GENERAL_ERROR_MESSAGE, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof APISecurityException) {
+                throw (APISecurityException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new APISecurityException(APISecurityConstants.API_AUTH_GENERAL_ERROR,
+                    APISecurityConstants.API_AUTH_GENERAL_ERROR_MESSAGE, cause);
+        }
+    }
+
+    private void recordValidation(String key) {
+
+        long currentTime = System.currentTimeMillis();
+        if (validationTimes.size() >= MAX_TRACKED_VALIDATIONS) {
+            validationTimes.values().removeIf(validationTime -> currentTime - validationTime >= cacheExpiry);
+            if (validationTimes.size() >= MAX_TRACKED_VALIDATIONS && !validationTimes.containsKey(key)) {
+                return;
+            }
+        }
+        validationTimes.put(key, currentTime);
+    }
+
+    private Executor getRefreshExecutor() {
+
+        if (refreshExecutor != null) {
+            return refreshExecutor;
+        }
+        if (defaultRefreshExecutor == null) {
+            synchronized (TokenValidationCoalescer.class) {
+                if (defaultRefreshExecutor == null) {
+                    AtomicInteger threadCount = new AtomicInteger();
+                    defaultRefreshExecutor = new ThreadPoolExecutor(REFRESH_THREAD_COUNT, REFRESH_THREAD_COUNT,
+                            0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(REFRESH_QUEUE_SIZE), runnable -> {
+                        Thread thread = new Thread(runnable,
+                                "TokenValidationRefresher-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return defaultRefreshExecutor;
+    }
+
+    /**
+     * Registers the counters of the coalescer with the gateway metrics.
+     *
+     * @param name name under which the counters are registered
+     */
+    public void registerMetrics(String name) {
+
+        registerGauge(name, "VALIDATIONS", this::getValidationCount);
+        registerGauge(name, "COALESCED_WAITS", this::getCoalescedWaitCount);
+        registerGauge(name, "REFRESH_AHEAD_VALIDATIONS", this::getRefreshAheadCount);
+        registerGauge(name, "FAILED_REFRESH_AHEAD_VALIDATIONS", this::getFailedRefreshAheadCount);
+        registerGauge(name, "IN_FLIGHT_VALIDATIONS", inFlightValidations::size);
+    }
+
+    private static <V> void registerGauge(String name, String metricName, Gauge<V> gauge) {
+
+        MetricManager.gauge(Level.INFO, MetricManager.name(APIConstants.METRICS_PREFIX, name, metricName), gauge);
+    }
+
+    public boolean isRefreshAheadEnabled() {
+
+        return refreshAheadAfter > 0;
+    }
+
+    /**
+     * @return number of validations performed, including the validations refreshed ahead of the cache expiry
+     */
+    public long getValidationCount() {
+
+        return validationCount.sum();
+    }
+
+    /**
+     * @return number of requests which waited for the validation of another request instead of validating the token
+     */
+    public long getCoalescedWaitCount() {
+
+        return coalescedWaitCount.sum();
+    }
+
+    /**
+     * @return number of validations refreshed ahead of the cache expiry
+     */
+    public long getRefreshAheadCount() {
+
+        return refreshAheadCount.sum();
+    }
+
+    /**
+     * @return number of refreshes ahead of the cache expiry which failed or could not be scheduled
+     */
+    public long getFailedRefreshAheadCount() {
+
+        return failedRefreshAheadCount.sum();
+    }
+}
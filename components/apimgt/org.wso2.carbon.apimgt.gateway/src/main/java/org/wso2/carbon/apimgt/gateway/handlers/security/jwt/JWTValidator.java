@@ -20,6 +20,7 @@ import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.util.DateUtils;
 import org.apache.axis2.Constants;
 import org.apache.axis2.util.JavaUtils;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -41,6 +42,7 @@ import org.wso2.carbon.apimgt.gateway.handlers.security.APIKeyValidator;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityConstants;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityException;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
+import org.wso2.carbon.apimgt.gateway.handlers.security.TokenValidationCoalescer;
 import org.wso2.carbon.apimgt.gateway.handlers.streaming.websocket.WebSocketApiConstants;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.gateway.jwt.RevokedJWTDataHolder;
@@ -85,6 +87,7 @@ public class JWTValidator {
     ExtendedJWTConfigurationDto jwtConfigurationDto;
     JWTValidationService jwtValidationService;
     private static volatile long ttl = -1L;
+    private static volatile TokenValidationCoalescer<TokenValidationResult> tokenValidationCoalescer;
 
     public JWTValidator(APIKeyValidator apiKeyValidator, String tenantDomain) throws APIManagementException {
         int tenantId = APIUtil.getTenantIdFromTenantDomain(tenantDomain);
@@ -730,6 +733,12 @@ public class JWTValidator {
                                 APISecurityConstants.API_AUTH_GENERAL_ERROR_MESSAGE, e);
                     }
                     jwtValidationInfo = tempJWTValidationInfo;
+                    if (jwtValidationInfo.isValid() && getTokenValidationCoalescer().isRefreshAheadEnabled()) {
+                        getTokenValidationCoalescer().refreshAheadIfDue(
+                                getTokenValidationKey(signedJWTInfo, tenantDomain),
+                                () -> new TokenValidationResult(getRawToken(signedJWTInfo),
+                                        revalidateToken(signedJWTInfo, jti, tenantDomain)));
+                    }
                 }
             } else if (getInvalidTokenCache().get(jti) != null) {
                 if (log.isDebugEnabled()) {
@@ -744,49 +753,118 @@ public class JWTValidator {
             }
         }
         if (jwtValidationInfo == null) {
+            // Requests which arrive with the same token while it is validated wait for that validation
+            TokenValidationResult tokenValidationResult = getTokenValidationCoalescer().validate(
+                    getTokenValidationKey(signedJWTInfo, tenantDomain),
+                    () -> new TokenValidationResult(getRawToken(signedJWTInfo),
+                            validateAndCacheToken(signedJWTInfo, jti, tenantDomain)));
+            if (tokenValidationResult.isResultOf(getRawToken(signedJWTInfo))) {
+                jwtValidationInfo = tokenValidationResult.getJwtValidationInfo();
+            } else {
+                // A result is never shared with a token other than the one it was validated for
+                jwtValidationInfo = validateAndCacheToken(signedJWTInfo, jti, tenantDomain);
+            }
+            signedJWTInfo.setValidationStatus(jwtValidationInfo.isValid() ?
+                    SignedJWTInfo.ValidationStatus.VALID : SignedJWTInfo.ValidationStatus.INVALID);
+        }
+        return jwtValidationInfo;
+    }
 
-            try {
-                jwtValidationInfo = jwtValidationService.validateJWTToken(signedJWTInfo);
-                signedJWTInfo.setValidationStatus(jwtValidationInfo.isValid() ?
-                        SignedJWTInfo.ValidationStatus.VALID : SignedJWTInfo.ValidationStatus.INVALID);
-
-                if (isGatewayTokenCacheEnabled) {
-                    // Add token to tenant token cache
-                    if (jwtValidationInfo.isValid()) {
-                        getGatewayTokenCache().put(jti, tenantDomain);
-                        getGatewayKeyCache().put(jti, jwtValidationInfo);
-                    } else {
-                        getInvalidTokenCache().put(jti, tenantDomain);
-                    }
+    /**
+     * Validates the token through the JWT validation service and adds the validation result to the token caches.
+     */
+    private JWTValidationInfo validateAndCacheToken(SignedJWTInfo signedJWTInfo, String jti, String tenantDomain)
+            throws APISecurityException {
 
-                    if (!MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
-                        //Add the tenant domain as a reference to the super tenant cache so we know from which tenant
-                        // cache
-                        //to remove the entry when the need occurs to clear this particular cache entry.
-                        try {
-                            // Start super tenant flow
-                            PrivilegedCarbonContext.startTenantFlow();
-                            PrivilegedCarbonContext.getThreadLocalCarbonContext()
-                                    .setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, true);
-                            // Add token to super tenant token cache
-                            if (jwtValidationInfo.isValid()) {
-                                getGatewayTokenCache().put(jti, tenantDomain);
-                            } else {
-                                getInvalidTokenCache().put(jti, tenantDomain);
-                            }
-                        } finally {
-                            PrivilegedCarbonContext.endTenantFlow();
-                        }
+        JWTValidationInfo jwtValidationInfo;
+        try {
+            jwtValidationInfo = jwtValidationService.validateJWTToken(signedJWTInfo);
+            if (isGatewayTokenCacheEnabled) {
+                // Add token to tenant token cache
+                if (jwtValidationInfo.isValid()) {
+                    getGatewayTokenCache().put(jti, tenantDomain);
+                    getGatewayKeyCache().put(jti, jwtValidationInfo);
+                } else {
+                    getInvalidTokenCache().put(jti, tenantDomain);
+                }
 
+                if (!MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
+                    //Add the tenant domain as a reference to the super tenant cache so we know from which tenant
+                    // cache
+                    //to remove the entry when the need occurs to clear this particular cache entry.
+                    try {
+                        // Start super tenant flow
+                        PrivilegedCarbonContext.startTenantFlow();
+                        PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                                .setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, true);
+                        // Add token to super tenant token cache
+                        if (jwtValidationInfo.isValid()) {
+                            getGatewayTokenCache().put(jti, tenantDomain);
+                        } else {
+                            getInvalidTokenCache().put(jti, tenantDomain);
+                        }
+                    } finally {
+                        PrivilegedCarbonContext.endTenantFlow();
                     }
+
                 }
-                return jwtValidationInfo;
-            } catch (APIManagementException e) {
-                throw new APISecurityException(APISecurityConstants.API_AUTH_GENERAL_ERROR,
-                        APISecurityConstants.API_AUTH_GENERAL_ERROR_MESSAGE);
             }
+            return jwtValidationInfo;
+        } catch (APIManagementException e) {
+            throw new APISecurityException(APISecurityConstants.API_AUTH_GENERAL_ERROR,
+                    APISecurityConstants.API_AUTH_GENERAL_ERROR_MESSAGE);
         }
-        return jwtValidationInfo;
+    }
+
+    /**
+     * Validates the token again on a background thread, ahead of the expiry of its cached validation result.
+     */
+    private JWTValidationInfo revalidateToken(SignedJWTInfo signedJWTInfo, String jti, String tenantDomain)
+            throws APISecurityException {
+
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+            JWTValidationInfo jwtValidationInfo = validateAndCacheToken(signedJWTInfo, jti, tenantDomain);
+            if (!jwtValidationInfo.isValid()) {
+                // Stop serving the cached result, since the token is no longer valid
+                getGatewayKeyCache().remove(jti);
+                getGatewayTokenCache().remove(jti);
+            }
+            return jwtValidationInfo;
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private static String getTokenValidationKey(SignedJWTInfo signedJWTInfo, String tenantDomain) {
+
+        // The key is derived from the whole token rather than its jti, since a token with a copied jti and altered
+        // claims or signature must not share the validation of the original token
+        String tokenHash = DigestUtils.sha256Hex(getRawToken(signedJWTInfo));
+        // The validation of a certificate bound token depends on the client certificate of the request
+        String clientCertificateHash = signedJWTInfo.getClientCertificateHash();
+        return clientCertificateHash == null ? tenantDomain + ":" + tokenHash
+                : tenantDomain + ":" + tokenHash + ":" + clientCertificateHash;
+    }
+
+    private static String getRawToken(SignedJWTInfo signedJWTInfo) {
+
+        String token = signedJWTInfo.getToken();
+        return token != null ? token : signedJWTInfo.getSignedJWT().getParsedString();
+    }
+
+    protected TokenValidationCoalescer<TokenValidationResult> getTokenValidationCoalescer() {
+
+        if (tokenValidationCoalescer == null) {
+            synchronized (JWTValidator.class) {
+                if (tokenValidationCoalescer == null) {
+                    tokenValidationCoalescer =
+                            GatewayUtils.createTokenValidationCoalescer(JWTValidator.class.getSimpleName());
+                }
+            }
+        }
+        return tokenValidationCoalescer;
     }
 
     private String getJWTTokenIdentifier(SignedJWTInfo signedJWTInfo) {
@@ -858,4 +936,29 @@ public class JWTValidator {
     private boolean isCNFValidationDisabled(Boolean disableCNFValidation, boolean defaultVal) {
         return JavaUtils.isTrueExplicitly(disableCNFValidation, defaultVal);
     }
+
+    /**
+     * Result of a coalesced token validation, along with the token it was validated for.
+     */
+    protected static final class TokenValidationResult {
+
+        private final String token;
+        private final JWTValidationInfo jwtValidationInfo;
+
+        TokenValidationResult(String token, JWTValidationInfo jwtValidationInfo) {
+
+            this.token = token;
+            this.jwtValidationInfo = jwtValidationInfo;
+        }
+
+        boolean isResultOf(String token) {
+
+            return this.token != null && this.token.equals(token);
+        }
+
+        JWTValidationInfo getJwtValidationInfo() {
+
+            return jwtValidationInfo;
+        }
+    }
 }
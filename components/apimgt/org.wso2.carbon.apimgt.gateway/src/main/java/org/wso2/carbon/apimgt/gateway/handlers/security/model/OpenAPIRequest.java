@@ -65,6 +65,18 @@ public class OpenAPIRequest implements Request {
      */
     public OpenAPIRequest(MessageContext messageContext) {
 
+        this(messageContext, null, true);
+    }
+
+    /**
+     * Build OAI Request from Message Context, using the OpenAPI definition already parsed for the API.
+     *
+     * @param messageContext Synapse message context.
+     * @param openAPI        OpenAPI definition of the API, or null to parse it from the message context.
+     * @param includeBody    whether to build the message to read the request body. The body is left empty otherwise.
+     */
+    public OpenAPIRequest(MessageContext messageContext, OpenAPI openAPI, boolean includeBody) {
+
         org.apache.axis2.context.MessageContext axis2MessageContext = ((Axis2MessageContext)
                 messageContext).getAxis2MessageContext();
         //set HTTP Method
@@ -73,19 +85,23 @@ public class OpenAPIRequest implements Request {
         //Set Request path
         path = SchemaValidationUtils.getRestSubRequestPath(
                 messageContext.getProperty(REST_SUB_REQUEST_PATH).toString());
-        String swagger = messageContext.getProperty(APIMgtGatewayConstants.OPEN_API_STRING).toString();
-        if (swagger != null) {
-            OpenAPIParser openAPIParser = new OpenAPIParser();
-            SwaggerParseResult swaggerParseResult =
-                    openAPIParser.readContents(swagger, new ArrayList<>(), new ParseOptions());
-            OpenAPI openAPI = swaggerParseResult.getOpenAPI();
+        if (openAPI == null) {
+            Object swagger = messageContext.getProperty(APIMgtGatewayConstants.OPEN_API_STRING);
+            if (swagger != null) {
+                OpenAPIParser openAPIParser = new OpenAPIParser();
+                SwaggerParseResult swaggerParseResult =
+                        openAPIParser.readContents(swagger.toString(), new ArrayList<>(), new ParseOptions());
+                openAPI = swaggerParseResult.getOpenAPI();
+            }
+        }
+        if (openAPI != null) {
             validatePath(openAPI);
         }
         //extract transport headers
         Map<String, String> transportHeaders = (Map<String, String>)
                 (axis2MessageContext.getProperty(APIMgtGatewayConstants.TRANSPORT_HEADERS));
         //Set Request body
-        requestBody = SchemaValidationUtils.getMessageContent(messageContext);
+        requestBody = includeBody ? SchemaValidationUtils.getMessageContent(messageContext) : Optional.empty();
         Map<String, Collection<String>> headerMap = transportHeaders.entrySet()
                 .stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, entry -> Collections.singleton(entry.getValue())));
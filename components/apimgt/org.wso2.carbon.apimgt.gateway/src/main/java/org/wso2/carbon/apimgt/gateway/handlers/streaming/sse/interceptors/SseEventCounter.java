@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.streaming.sse.interceptors;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Counts the events of a server sent event stream by matching the bytes of the event delimiter in the response
+ * buffers of the stream, without decoding them. A delimiter which is split across buffers is counted in the buffer
+ * which completes it. The counted events are aggregated, so that they are published once the publish threshold is
+ * reached or the publish interval has elapsed, instead of once per buffer.
+ * <p>
+ * The buffers of a stream are counted by a single thread, while the aggregated events may be drained by another.
+ */
+public class SseEventCounter {
+
+    private final byte[] delimiter;
+    private final int[] fallback;
+    private final int publishThreshold;
+    private final long publishInterval;
+    private int matchedLength;
+    private int pendingEventCount;
+    private long lastPublishedTime;
+
+    /**
+     * @param delimiter        bytes of the event delimiter
+     * @param publishThreshold number of events after which the aggregated events are published
+     * @param publishInterval  time in milliseconds after which the aggregated events are published
+     */
+    public SseEventCounter(byte[] delimiter, int publishThreshold, long publishInterval) {
+
+        if (delimiter.length == 0) {
+            throw new IllegalArgumentException("Event delimiter cannot be empty");
+        }
+        this.delimiter = delimiter.clone();
+        this.fallback = new int[delimiter.length];
+        for (int i = 1, length = 0; i < delimiter.length; i++) {
+            while (length > 0 && delimiter[i] != delimiter[length]) {
+                length = fallback[length - 1];
+            }
+            if (delimiter[i] == delimiter[length]) {
+                length++;
+            }
+            fallback[i] = length;
+        }
+        this.publishThreshold = publishThreshold;
+        this.publishInterval = publishInterval;
+    }
+
+    /**
+     * Counts the delimiters completed by the remaining bytes of the buffer. The position of the buffer is not changed.
+     *
+     * @param buffer response buffer of the stream
+     * @return number of events completed in the buffer
+     */
+    public int count(ByteBuffer buffer) {
+
+        int eventCount = 0;
+        if (buffer.hasArray()) {
+            byte[] bytes = buffer.array();
+            int end = buffer.arrayOffset() + buffer.limit();
+            for (int i = buffer.arrayOffset() + buffer.position(); i < end; i++) {
+                if (match(bytes[i])) {
+                    eventCount++;
+                }
+            }
+        } else {
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                if (match(buffer.get(i))) {
+                    eventCount++;
+                }
+            }
+        }
+        return eventCount;
+    }
+
+    private boolean match(byte b) {
+
+        while (matchedLength > 0 && delimiter[matchedLength] != b) {
+            matchedLength = fallback[matchedLength - 1];
+        }
+        if (delimiter[matchedLength] == b) {
+            matchedLength++;
+        }
+        if (matchedLength == delimiter.length) {
+            // Delimiters do not overlap, as in the events of the stream
+            matchedLength = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds counted events to the events which are not published yet.
+     *
+     * @param eventCount  number of counted events
+     * @param currentTime current time in milliseconds
+     * @return number of events to publish, or 0 if the events are kept until a threshold is reached
+     */
+    public synchronized int addEvents(int eventCount, long currentTime) {
+
+        pendingEventCount += eventCount;
+        if (pendingEventCount >= publishThreshold || currentTime - lastPublishedTime >= publishInterval) {
+            return drainEvents(currentTime);
+        }
+        return 0;
+    }
+
+    /**
+     * Drains the events which are not published yet, if the publish interval has elapsed since they were last
+     * published.
+     *
+     * @param currentTime current time in milliseconds
+     * @return number of events to publish
+     */
+    public synchronized int drainElapsedEvents(long currentTime) {
+
+        if (pendingEventCount > 0 && currentTime - lastPublishedTime >= publishInterval) {
+            return drainEvents(currentTime);
+        }
+        return 0;
+    }
+
+    public synchronized boolean hasPendingEvents() {
+
+        return pendingEventCount > 0;
+    }
+
+    private int drainEvents(long currentTime) {
+
+        int eventCount = pendingEventCount;
+        pendingEventCount = 0;
+        lastPublishedTime = currentTime;
+        return eventCount;
+    }
+}
@@ -20,7 +20,6 @@ package org.wso2.carbon.apimgt.gateway.handlers.streaming.sse.interceptors;
 
 import org.apache.axiom.util.UIDGenerator;
 import org.apache.axis2.context.MessageContext;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.SynapseConstants;
@@ -39,8 +38,12 @@ import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.wso2.carbon.apimgt.gateway.handlers.streaming.sse.SseApiConstants.SSE_ANALYTICS_INFO;
 import static org.wso2.carbon.apimgt.gateway.handlers.streaming.sse.SseApiConstants.SSE_THROTTLE_DTO;
@@ -48,15 +51,24 @@ import static org.wso2.carbon.apimgt.gateway.handlers.streaming.sse.utils.SseUti
 
 /**
  * This is used for handling throttling, and analytics event publishing of sse apis (subset of streaming apis).
+ * The events of a stream are counted on the response buffers as they are received, and are published once the
+ * publish threshold is reached or the publish interval has elapsed.
  */
 public class SseResponseStreamInterceptor extends DefaultStreamInterceptor {
 
     private static final Log log = LogFactory.getLog(SseResponseStreamInterceptor.class);
     private static final String SSE_STREAM_DELIMITER = "\n\n";
+    private static final String SSE_EVENT_STREAM = "sse_event_stream";
     private static final int DEFAULT_NO_OF_THROTTLE_PUBLISHER_EXECUTORS = 100;
+    private static final int DEFAULT_EVENT_PUBLISH_THRESHOLD = 100;
+    private static final long DEFAULT_EVENT_PUBLISH_INTERVAL = 1000;
     private String charset = StandardCharsets.UTF_8.name();
     private ExecutorService throttlePublisherService;
+    private ScheduledExecutorService eventFlushService;
     private int noOfExecutorThreads = DEFAULT_NO_OF_THROTTLE_PUBLISHER_EXECUTORS;
+    private int eventPublishThreshold = DEFAULT_EVENT_PUBLISH_THRESHOLD;
+    private long eventPublishInterval = DEFAULT_EVENT_PUBLISH_INTERVAL;
+    private final Set<EventStream> pendingStreams = ConcurrentHashMap.newKeySet();
 
     public SseResponseStreamInterceptor() {
         throttlePublisherService = Executors.newFixedThreadPool(noOfExecutorThreads);
@@ -70,12 +82,13 @@ public class SseResponseStreamInterceptor extends DefaultStreamInterceptor {
 
     @Override
     public boolean targetResponse(ByteBuffer buffer, MessageContext axis2Ctx) {
-        int eventCount = getEventCount(buffer);
+        EventStream eventStream = getEventStream(axis2Ctx);
+        int eventCount = eventStream.counter.count(buffer);
         if (log.isDebugEnabled()) {
             log.debug("No. of events =" + eventCount);
         }
         if (eventCount > 0) {
-            return handleThrottlingAndAnalytics(eventCount, axis2Ctx);
+            return handleThrottlingAndAnalytics(eventCount, eventStream);
         }
         return true;
     }
@@ -85,21 +98,38 @@ public class SseResponseStreamInterceptor extends DefaultStreamInterceptor {
         this.noOfExecutorThreads = executorThreads;
     }
 
-    private int getEventCount(ByteBuffer stream) {
-        Charset charsetValue = Charset.forName(this.charset);
-        String text = charsetValue.decode(stream).toString();
-        return StringUtils.countMatches(text, SSE_STREAM_DELIMITER);
+    /**
+     * @param eventPublishThreshold number of events of a stream after which they are published
+     */
+    @SuppressWarnings("unused")
+    public void setEventPublishThreshold(int eventPublishThreshold) {
+        this.eventPublishThreshold = eventPublishThreshold;
     }
 
-    private boolean handleThrottlingAndAnalytics(int eventCount, MessageContext axi2Ctx) {
+    /**
+     * @param eventPublishInterval time in milliseconds after which the events of a stream are published
+     */
+    @SuppressWarnings("unused")
+    public void setEventPublishInterval(long eventPublishInterval) {
+        this.eventPublishInterval = eventPublishInterval;
+    }
 
-        Object throttleObject = axi2Ctx.getProperty(SSE_THROTTLE_DTO);
-        if (throttleObject != null) {
-            String messageId = UIDGenerator.generateURNString();
-            ThrottleInfo throttleInfo = (ThrottleInfo) throttleObject;
-            String remoteIP = throttleInfo.getRemoteIp();
-            JSONObject propertiesMap = new JSONObject();
-            Utils.setRemoteIp(propertiesMap, remoteIP);
+    private EventStream getEventStream(MessageContext axis2Ctx) {
+
+        Object eventStream = axis2Ctx.getProperty(SSE_EVENT_STREAM);
+        if (eventStream == null) {
+            byte[] delimiter = SSE_STREAM_DELIMITER.getBytes(Charset.forName(this.charset));
+            eventStream = new EventStream(new SseEventCounter(delimiter, eventPublishThreshold, eventPublishInterval),
+                    axis2Ctx);
+            axis2Ctx.setProperty(SSE_EVENT_STREAM, eventStream);
+        }
+        return (EventStream) eventStream;
+    }
+
+    private boolean handleThrottlingAndAnalytics(int eventCount, EventStream eventStream) {
+
+        ThrottleInfo throttleInfo = eventStream.throttleInfo;
+        if (throttleInfo != null) {
             boolean isThrottled = isThrottled(throttleInfo.getSubscriberTenantDomain(),
                                               throttleInfo.getResourceLevelThrottleKey(),
                                               throttleInfo.getSubscriptionLevelThrottleKey(),
@@ -108,31 +138,79 @@ public class SseResponseStreamInterceptor extends DefaultStreamInterceptor {
                 log.warn("Request is throttled out");
                 return false;
             }
-            throttlePublisherService.execute(
-                    () -> SseUtils.publishNonThrottledEvent(eventCount, messageId, throttleInfo, propertiesMap));
+            int publishedEventCount = eventStream.counter.addEvents(eventCount, System.currentTimeMillis());
+            if (publishedEventCount > 0) {
+                publishEvents(publishedEventCount, eventStream);
+            } else {
+                // The remaining events are published by the flush task if the stream does not reach the threshold
+                pendingStreams.add(eventStream);
+                startEventFlushService();
+            }
+            return true;
+        } else {
+            log.error("Throttle object cannot be null.");
+        }
+        return true;
+    }
+
+    private void publishEvents(int eventCount, EventStream eventStream) {
+
+        throttlePublisherService.execute(() -> {
+            SseUtils.publishNonThrottledEvent(eventCount, UIDGenerator.generateURNString(), eventStream.throttleInfo,
+                    eventStream.properties);
             if (APIUtil.isAnalyticsEnabled()) {
                 try {
-                    publishAnalyticsData(eventCount, axi2Ctx);
+                    publishAnalyticsData(eventCount, eventStream);
                 } catch (AnalyticsException e) {
                     log.error("Error while publishing analytics data", e);
                 }
             }
-            return true;
-        } else {
-            log.error("Throttle object cannot be null.");
+        });
+    }
+
+    private synchronized void startEventFlushService() {
+
+        if (eventFlushService == null) {
+            eventFlushService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SseEventFlushService");
+                thread.setDaemon(true);
+                return thread;
+            });
+            eventFlushService.scheduleWithFixedDelay(this::flushPendingEvents, eventPublishInterval,
+                    eventPublishInterval, TimeUnit.MILLISECONDS);
         }
-        return true;
     }
 
-    private void publishAnalyticsData(int eventCount, MessageContext axi2Ctx) throws AnalyticsException {
+    private void flushPendingEvents() {
 
-        Object responseEventProvider = axi2Ctx.getProperty(SSE_ANALYTICS_INFO);
-        if (responseEventProvider == null) {
+        long currentTime = System.currentTimeMillis();
+        for (EventStream eventStream : pendingStreams) {
+            try {
+                int eventCount = eventStream.counter.drainElapsedEvents(currentTime);
+                if (eventCount > 0) {
+                    publishEvents(eventCount, eventStream);
+                }
+                if (!eventStream.counter.hasPendingEvents()) {
+                    pendingStreams.remove(eventStream);
+                    // Events may have been added after they were drained
+                    if (eventStream.counter.hasPendingEvents()) {
+                        pendingStreams.add(eventStream);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("Error while publishing the pending events of the stream", e);
+            }
+        }
+    }
+
+    private void publishAnalyticsData(int eventCount, EventStream eventStream) throws AnalyticsException {
+
+        SseResponseEventDataProvider provider = eventStream.analyticsEventProvider;
+        if (provider == null) {
             log.error("SSE Analytics event provider is null.");
             return;
         }
-        SseResponseEventDataProvider provider = (SseResponseEventDataProvider) responseEventProvider;
-        provider.setResponseCode((int) axi2Ctx.getProperty(SynapseConstants.HTTP_SC));
+        provider.setResponseCode(eventStream.responseCode);
         GenericRequestDataCollector dataCollector = new GenericRequestDataCollector(provider);
         for (int count = 0; count < eventCount; count++) {
             dataCollector.collectData();
@@ -142,4 +220,27 @@ public class SseResponseStreamInterceptor extends DefaultStreamInterceptor {
     public void setCharset(String charset) {
         this.charset = charset;
     }
+
+    /**
+     * Events counted for a response stream, together with the properties of the stream needed to publish them.
+     */
+    private static final class EventStream {
+
+        private final SseEventCounter counter;
+        private final ThrottleInfo throttleInfo;
+        private final JSONObject properties = new JSONObject();
+        private final SseResponseEventDataProvider analyticsEventProvider;
+        private final int responseCode;
+
+        private EventStream(SseEventCounter counter, MessageContext axis2Ctx) {
+            this.counter = counter;
+            this.throttleInfo = (ThrottleInfo) axis2Ctx.getProperty(SSE_THROTTLE_DTO);
+            if (throttleInfo != null) {
+                Utils.setRemoteIp(properties, throttleInfo.getRemoteIp());
+            }
+            this.analyticsEventProvider = (SseResponseEventDataProvider) axis2Ctx.getProperty(SSE_ANALYTICS_INFO);
+            Object responseCode = axis2Ctx.getProperty(SynapseConstants.HTTP_SC);
+            this.responseCode = responseCode instanceof Integer ? (Integer) responseCode : 0;
+        }
+    }
 }
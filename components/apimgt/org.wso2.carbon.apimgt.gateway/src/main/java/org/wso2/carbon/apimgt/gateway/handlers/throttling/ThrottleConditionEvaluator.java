@@ -39,6 +39,7 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -54,6 +55,15 @@ import java.util.regex.Pattern;
  */
 public class ThrottleConditionEvaluator {
 
+    /**
+     * Maximum number of compiled patterns and parsed IP addresses kept by the evaluator. The caches are cleared once
+     * this limit is reached, which only happens if the conditions keep changing.
+     */
+    private static final int MAX_CACHED_ENTRIES = 10000;
+
+    private final Map<String, Pattern> patternCache = new ConcurrentHashMap<>();
+    private final Map<String, BigInteger> ipAddressCache = new ConcurrentHashMap<>();
+
     private ThrottleConditionEvaluator() {
 
     }
@@ -82,11 +92,18 @@ public class ThrottleConditionEvaluator {
 
         ArrayList<ConditionGroupDTO> matchingConditions = new ArrayList<>(inputConditionGroups.length);
         ConditionGroupDTO defaultGroup = null;
+        RequestAttributes requestAttributes = null;
 
         for (ConditionGroupDTO conditionGroup : inputConditionGroups) {
             if (APIConstants.THROTTLE_POLICY_DEFAULT.equals(conditionGroup.getConditionGroupId())) {
                 defaultGroup = conditionGroup;
-            } else if (isConditionGroupApplicable(synapseContext, authenticationContext, conditionGroup)) {
+                continue;
+            }
+            if (requestAttributes == null) {
+                requestAttributes = new RequestAttributes(((Axis2MessageContext) synapseContext)
+                        .getAxis2MessageContext(), authenticationContext);
+            }
+            if (isConditionGroupApplicable(requestAttributes, conditionGroup)) {
                 matchingConditions.add(conditionGroup);
             }
         }
@@ -99,8 +116,7 @@ public class ThrottleConditionEvaluator {
         return matchingConditions;
     }
 
-    private boolean isConditionGroupApplicable(org.apache.synapse.MessageContext synapseContext,
-                                               AuthenticationContext authenticationContext,
+    private boolean isConditionGroupApplicable(RequestAttributes requestAttributes,
                                                ConditionGroupDTO conditionGroup) {
 
         ConditionDTO[] conditions = conditionGroup.getConditions();
@@ -113,7 +129,7 @@ public class ThrottleConditionEvaluator {
 
         // When multiple conditions have been specified, all the conditions should occur.
         for (ConditionDTO condition : conditions) {
-            evaluationState = evaluationState & isConditionApplicable(synapseContext, authenticationContext, condition);
+            evaluationState = evaluationState & isConditionApplicable(requestAttributes, condition);
 
             // If one of the conditions are false, rest will evaluate to false. So no need to check the rest.
             if (!evaluationState) {
@@ -123,33 +139,28 @@ public class ThrottleConditionEvaluator {
         return evaluationState;
     }
 
-    private boolean isConditionApplicable(org.apache.synapse.MessageContext synapseContext,
-                                          AuthenticationContext authenticationContext,
-                                          ConditionDTO condition) {
-
-        org.apache.axis2.context.MessageContext axis2MessageContext = ((Axis2MessageContext) synapseContext)
-                .getAxis2MessageContext();
+    private boolean isConditionApplicable(RequestAttributes requestAttributes, ConditionDTO condition) {
 
         boolean state = false;
         switch (condition.getConditionType()) {
             case PolicyConstants.IP_RANGE_TYPE: {
-                state = isWithinIP(axis2MessageContext, condition);
+                state = isWithinIP(requestAttributes, condition);
                 break;
             }
             case PolicyConstants.IP_SPECIFIC_TYPE: {
-                state = isMatchingIP(axis2MessageContext, condition);
+                state = isMatchingIP(requestAttributes, condition);
                 break;
             }
             case PolicyConstants.QUERY_PARAMETER_TYPE: {
-                state = isQueryParamPresent(axis2MessageContext, condition);
+                state = isQueryParamPresent(requestAttributes, condition);
                 break;
             }
             case PolicyConstants.JWT_CLAIMS_TYPE: {
-                state = isJWTClaimPresent(authenticationContext, condition);
+                state = isJWTClaimPresent(requestAttributes, condition);
                 break;
             }
             case PolicyConstants.HEADER_TYPE: {
-                state = isHeaderPresent(axis2MessageContext, condition);
+                state = isHeaderPresent(requestAttributes, condition);
                 break;
             }
         }
@@ -161,26 +172,23 @@ public class ThrottleConditionEvaluator {
         return state;
     }
 
-    private boolean isHeaderPresent(MessageContext messageContext, ConditionDTO condition) {
+    private boolean isHeaderPresent(RequestAttributes requestAttributes, ConditionDTO condition) {
 
-        Map<String, String> transportHeaderMap = (Map<String, String>) messageContext
-                .getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        Map<String, String> transportHeaderMap = requestAttributes.getTransportHeaders();
         if (transportHeaderMap != null) {
             String value = transportHeaderMap.get(condition.getConditionName());
             if (value == null) {
                 return false;
             }
-            Pattern pattern = Pattern.compile(condition.getConditionValue());
-            Matcher matcher = pattern.matcher(value);
+            Matcher matcher = getPattern(condition.getConditionValue()).matcher(value);
             return matcher.find();
         }
         return false;
     }
 
-    private boolean isHeaderPresent(MessageContext messageContext, ConditionDto.HeaderConditions condition) {
+    private boolean isHeaderPresent(RequestAttributes requestAttributes, ConditionDto.HeaderConditions condition) {
 
-        Map<String, String> transportHeaderMap = (Map<String, String>) messageContext
-                .getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        Map<String, String> transportHeaderMap = requestAttributes.getTransportHeaders();
         boolean status = true;
         for (Map.Entry<String, String> headerEntry : condition.getValues().entrySet()) {
             if (transportHeaderMap != null) {
@@ -189,8 +197,7 @@ public class ThrottleConditionEvaluator {
                     status = false;
                     break;
                 } else {
-                    Pattern pattern = Pattern.compile(headerEntry.getValue());
-                    Matcher matcher = pattern.matcher(value);
+                    Matcher matcher = getPattern(headerEntry.getValue()).matcher(value);
                     status = status && matcher.find();
                 }
             }
@@ -203,40 +210,38 @@ public class ThrottleConditionEvaluator {
         }
     }
 
-    private boolean isJWTClaimPresent(AuthenticationContext authenticationContext, ConditionDTO condition) {
+    private boolean isJWTClaimPresent(RequestAttributes requestAttributes, ConditionDTO condition) {
 
-        Map<String, String> assertions = JWTUtil.getJWTClaims(authenticationContext.getCallerToken());
+        Map<String, String> assertions = requestAttributes.getJWTClaims();
         if (assertions != null) {
             String value = assertions.get(condition.getConditionName());
             if (value == null) {
                 return false;
             } else {
-                Pattern pattern = Pattern.compile(condition.getConditionValue());
-                Matcher matcher = pattern.matcher(value);
+                Matcher matcher = getPattern(condition.getConditionValue()).matcher(value);
                 return matcher.find();
             }
         }
         return false;
     }
 
-    private boolean isJWTClaimPresent(AuthenticationContext authenticationContext, ConditionDto.JWTClaimConditions
+    private boolean isJWTClaimPresent(RequestAttributes requestAttributes, ConditionDto.JWTClaimConditions
             condition) {
                 
-        if (authenticationContext.getCallerToken() == null) {
+        if (requestAttributes.authenticationContext.getCallerToken() == null) {
             return false;
         }
 
-        Map<String, String> assertions = JWTUtil.getJWTClaims(authenticationContext.getCallerToken());
+        Map<String, String> assertions = requestAttributes.getJWTClaims();
         boolean status = true;
 
         for (Map.Entry<String, String> jwtClaim : condition.getValues().entrySet()) {
-            String value = assertions.get(jwtClaim.getKey());
+            String value = assertions != null ? assertions.get(jwtClaim.getKey()) : null;
             if (value == null) {
                 status = false;
                 break;
             } else {
-                Pattern pattern = Pattern.compile(jwtClaim.getValue());
-                Matcher matcher = pattern.matcher(value);
+                Matcher matcher = getPattern(jwtClaim.getValue()).matcher(value);
                 status = status && matcher.find();
             }
         }
@@ -247,9 +252,10 @@ public class ThrottleConditionEvaluator {
         }
     }
 
-    private boolean isQueryParamPresent(MessageContext messageContext, ConditionDto.QueryParamConditions condition) {
+    private boolean isQueryParamPresent(RequestAttributes requestAttributes,
+                                        ConditionDto.QueryParamConditions condition) {
 
-        Map<String, String> queryParamMap = GatewayUtils.getQueryParams(messageContext);
+        Map<String, String> queryParamMap = requestAttributes.getQueryParams();
         boolean status = true;
 
         for (Map.Entry<String, String> queryParam : condition.getValues().entrySet()) {
@@ -257,8 +263,7 @@ public class ThrottleConditionEvaluator {
                 status = false;
                 break;
             } else {
-                Pattern pattern = Pattern.compile(queryParam.getValue());
-                Matcher matcher = pattern.matcher(queryParamMap.get(queryParam.getKey()));
+                Matcher matcher = getPattern(queryParam.getValue()).matcher(queryParamMap.get(queryParam.getKey()));
                 status = status && matcher.find();
             }
         }
@@ -269,48 +274,47 @@ public class ThrottleConditionEvaluator {
         }
     }
 
-    private boolean isQueryParamPresent(MessageContext messageContext, ConditionDTO condition) {
+    private boolean isQueryParamPresent(RequestAttributes requestAttributes, ConditionDTO condition) {
 
-        Map<String, String> queryParamMap = GatewayUtils.getQueryParams(messageContext);
+        Map<String, String> queryParamMap = requestAttributes.getQueryParams();
 
         if (queryParamMap != null) {
             String value = queryParamMap.get(condition.getConditionName());
             if (value == null) {
                 return false;
             }
-            Pattern pattern = Pattern.compile(condition.getConditionValue());
-            Matcher matcher = pattern.matcher(value);
+            Matcher matcher = getPattern(condition.getConditionValue()).matcher(value);
             return matcher.find();
         }
         return false;
     }
 
-    private boolean isMatchingIP(MessageContext messageContext, ConditionDTO condition) {
+    private boolean isMatchingIP(RequestAttributes requestAttributes, ConditionDTO condition) {
 
-        String currentIpString = GatewayUtils.getIp(messageContext);
+        String currentIpString = requestAttributes.getIp();
         return currentIpString.equals(condition.getConditionValue());
     }
 
-    private boolean isWithinIP(MessageContext messageContext, ConditionDTO condition) {
+    private boolean isWithinIP(RequestAttributes requestAttributes, ConditionDTO condition) {
         // For an IP Range Condition, starting IP is set as a the name, ending IP as the value.
-        BigInteger startIp = APIUtil.ipToBigInteger(condition.getConditionName());
-        BigInteger endIp = APIUtil.ipToBigInteger(condition.getConditionValue());
+        BigInteger startIp = getIpAddressValue(condition.getConditionName());
+        BigInteger endIp = getIpAddressValue(condition.getConditionValue());
 
-        String currentIpString = GatewayUtils.getIp(messageContext);
+        String currentIpString = requestAttributes.getIp();
         if (!currentIpString.isEmpty()) {
-            BigInteger currentIp = APIUtil.ipToBigInteger(currentIpString);
+            BigInteger currentIp = requestAttributes.getIpValue();
 
             return startIp.compareTo(currentIp) <= 0 && endIp.compareTo(currentIp) >= 0;
         }
         return false;
     }
 
-    private boolean isWithinIP(MessageContext messageContext, ConditionDto.IPCondition ipCondition) {
+    private boolean isWithinIP(RequestAttributes requestAttributes, ConditionDto.IPCondition ipCondition) {
 
-        String currentIpString = GatewayUtils.getIp(messageContext);
+        String currentIpString = requestAttributes.getIp();
         boolean status;
         if (StringUtils.isNotEmpty(currentIpString)) {
-            BigInteger currentIp = APIUtil.ipToBigInteger(currentIpString);
+            BigInteger currentIp = requestAttributes.getIpValue();
             status = ipCondition.getStartingIp().compareTo(currentIp) <= 0
                     && ipCondition.getEndingIp().compareTo(currentIp) >= 0;
         } else {
@@ -323,10 +327,9 @@ public class ThrottleConditionEvaluator {
         }
     }
 
-    private boolean isMatchingIP(MessageContext messageContext, ConditionDto.IPCondition ipCondition) {
+    private boolean isMatchingIP(RequestAttributes requestAttributes, ConditionDto.IPCondition ipCondition) {
 
-        String currentIpString = GatewayUtils.getIp(messageContext);
-        BigInteger longValueOfIp = APIUtil.ipToBigInteger(currentIpString);
+        BigInteger longValueOfIp = requestAttributes.getIpValue();
 
         if (ipCondition.isInvert()) {
             return !longValueOfIp.equals(ipCondition.getSpecificIp());
@@ -339,11 +342,11 @@ public class ThrottleConditionEvaluator {
 
         org.apache.axis2.context.MessageContext axis2MessageContext = ((Axis2MessageContext) synCtx)
                 .getAxis2MessageContext();
+        RequestAttributes requestAttributes = new RequestAttributes(axis2MessageContext, authContext);
         String condition = null;
         for (Map.Entry<String, List<ConditionDto>> conditionList : conditionDtoMap.entrySet()) {
             if (!"default".equals(conditionList.getKey())) {
-                boolean pipeLineStatus = isThrottledWithinCondition(axis2MessageContext, authContext, conditionList
-                        .getValue());
+                boolean pipeLineStatus = isThrottledWithinCondition(requestAttributes, conditionList.getValue());
                 if (pipeLineStatus) {
                     condition = conditionList.getKey();
                     break;
@@ -354,8 +357,7 @@ public class ThrottleConditionEvaluator {
             if (conditionDtoMap.containsKey("default")) {
                 List<ConditionDto> conditionDtoList = conditionDtoMap.get("default");
                 if (conditionDtoList != null && !conditionDtoList.isEmpty()) {
-                    boolean pipeLineStatus = isThrottledWithinCondition(axis2MessageContext, authContext,
-                            conditionDtoList);
+                    boolean pipeLineStatus = isThrottledWithinCondition(requestAttributes, conditionDtoList);
                     if (!pipeLineStatus) {
                         condition = "default";
                     }
@@ -367,7 +369,7 @@ public class ThrottleConditionEvaluator {
         return condition;
     }
 
-    private boolean isThrottledWithinCondition(MessageContext axis2MessageContext, AuthenticationContext authContext,
+    private boolean isThrottledWithinCondition(RequestAttributes requestAttributes,
                                                List<ConditionDto> conditionDtoList) {
 
         ThrottleProperties throttleProperties = ServiceReferenceHolder.getInstance().getThrottleProperties();
@@ -375,29 +377,30 @@ public class ThrottleConditionEvaluator {
         for (ConditionDto condition : conditionDtoList) {
             status = true;
             if (condition.getIpCondition() != null) {
-                if (!isMatchingIP(axis2MessageContext, condition.getIpCondition())) {
+                if (!isMatchingIP(requestAttributes, condition.getIpCondition())) {
                     status = false;
                 }
             } else if (condition.getIpRangeCondition() != null) {
-                if (!isWithinIP(axis2MessageContext, condition.getIpRangeCondition())) {
+                if (!isWithinIP(requestAttributes, condition.getIpRangeCondition())) {
                     status = false;
                 }
             }
-            if (condition.getHeaderConditions() != null && throttleProperties.isEnableHeaderConditions() &&
-                    !condition.getHeaderConditions().getValues().isEmpty()) {
-                if (!isHeaderPresent(axis2MessageContext, condition.getHeaderConditions())) {
+            if (status && condition.getHeaderConditions() != null && throttleProperties.isEnableHeaderConditions()
+                    && !condition.getHeaderConditions().getValues().isEmpty()) {
+                if (!isHeaderPresent(requestAttributes, condition.getHeaderConditions())) {
                     status = false;
                 }
             }
-            if (condition.getJwtClaimConditions() != null && throttleProperties.isEnableJwtConditions() &&
-                    !condition.getJwtClaimConditions().getValues().isEmpty()) {
-                if (!isJWTClaimPresent(authContext, condition.getJwtClaimConditions())) {
+            if (status && condition.getJwtClaimConditions() != null && throttleProperties.isEnableJwtConditions()
+                    && !condition.getJwtClaimConditions().getValues().isEmpty()) {
+                if (!isJWTClaimPresent(requestAttributes, condition.getJwtClaimConditions())) {
                     status = false;
                 }
             }
-            if (condition.getQueryParameterConditions() != null && throttleProperties.isEnableQueryParamConditions() &&
-                    !condition.getQueryParameterConditions().getValues().isEmpty()) {
-                if (!isQueryParamPresent(axis2MessageContext, condition.getQueryParameterConditions())) {
+            if (status && condition.getQueryParameterConditions() != null
+                    && throttleProperties.isEnableQueryParamConditions()
+                    && !condition.getQueryParameterConditions().getValues().isEmpty()) {
+                if (!isQueryParamPresent(requestAttributes, condition.getQueryParameterConditions())) {
                     status = false;
                 }
             }
@@ -407,4 +410,95 @@ public class ThrottleConditionEvaluator {
         }
         return status;
     }
+
+    /**
+     * Returns the compiled form of the given regular expression. Condition values are compiled once and reused
+     * across requests instead of being compiled for each evaluation.
+     */
+    private Pattern getPattern(String regex) {
+
+        Pattern pattern = patternCache.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            if (patternCache.size() >= MAX_CACHED_ENTRIES) {
+                patternCache.clear();
+            }
+            patternCache.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    private BigInteger getIpAddressValue(String ipAddress) {
+
+        BigInteger value = ipAddressCache.get(ipAddress);
+        if (value == null) {
+            value = APIUtil.ipToBigInteger(ipAddress);
+            if (ipAddressCache.size() >= MAX_CACHED_ENTRIES) {
+                ipAddressCache.clear();
+            }
+            ipAddressCache.put(ipAddress, value);
+        }
+        return value;
+    }
+
+    /**
+     * Attributes of the request referred by the conditions. Each attribute is extracted from the message context
+     * when it is first needed, and shared by all the conditions evaluated for the request.
+     */
+    private static class RequestAttributes {
+
+        private final MessageContext messageContext;
+        private final AuthenticationContext authenticationContext;
+        private String ip;
+        private BigInteger ipValue;
+        private Map<String, String> queryParams;
+        private boolean queryParamsResolved;
+        private Map<String, String> jwtClaims;
+        private boolean jwtClaimsResolved;
+
+        RequestAttributes(MessageContext messageContext, AuthenticationContext authenticationContext) {
+
+            this.messageContext = messageContext;
+            this.authenticationContext = authenticationContext;
+        }
+
+        Map<String, String> getTransportHeaders() {
+
+            return (Map<String, String>) messageContext.getProperty(MessageContext.TRANSPORT_HEADERS);
+        }
+
+        String getIp() {
+
+            if (ip == null) {
+                ip = GatewayUtils.getIp(messageContext);
+            }
+            return ip;
+        }
+
+        BigInteger getIpValue() {
+
+            if (ipValue == null) {
+                ipValue = APIUtil.ipToBigInteger(getIp());
+            }
+            return ipValue;
+        }
+
+        Map<String, String> getQueryParams() {
+
+            if (!queryParamsResolved) {
+                queryParams = GatewayUtils.getQueryParams(messageContext);
+                queryParamsResolved = true;
+            }
+            return queryParams;
+        }
+
+        Map<String, String> getJWTClaims() {
+
+            if (!jwtClaimsResolved) {
+                jwtClaims = JWTUtil.getJWTClaims(authenticationContext.getCallerToken());
+                jwtClaimsResolved = true;
+            }
+            return jwtClaims;
+        }
+    }
 }
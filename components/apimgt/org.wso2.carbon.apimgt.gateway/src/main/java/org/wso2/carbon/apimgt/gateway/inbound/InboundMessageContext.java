@@ -24,6 +24,7 @@ import org.wso2.carbon.apimgt.api.gateway.GraphQLSchemaDTO;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
 import org.wso2.carbon.apimgt.gateway.dto.GraphQLOperationDTO;
 import org.wso2.carbon.apimgt.gateway.inbound.websocket.Authentication.Authenticator;
+import org.wso2.carbon.apimgt.gateway.inbound.websocket.WebSocketThrottleAccount;
 import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
 import org.wso2.carbon.apimgt.impl.dto.ResourceInfoDTO;
 import org.wso2.carbon.apimgt.impl.jwt.SignedJWTInfo;
@@ -62,6 +63,7 @@ public class InboundMessageContext {
     private ChannelHandlerContext ctx;
     private boolean isJWTToken;
     private Authenticator authenticator;
+    private WebSocketThrottleAccount throttleAccount;
 
     //Graphql Subscription specific connection context information
     private GraphQLSchemaDTO graphQLSchemaDTO;
@@ -262,4 +264,12 @@ public class InboundMessageContext {
     public Authenticator getAuthenticator () {
         return this.authenticator;
     }
+
+    public WebSocketThrottleAccount getThrottleAccount() {
+        return throttleAccount;
+    }
+
+    public void setThrottleAccount(WebSocketThrottleAccount throttleAccount) {
+        this.throttleAccount = throttleAccount;
+    }
 }
@@ -140,6 +140,8 @@ public class InboundWebSocketProcessor {
             }
             if (inboundProcessorResponseDTO.isError()) {
                 publishHandshakeAuthErrorEvent(ctx, inboundProcessorResponseDTO.getErrorMessage());
+            } else {
+                inboundMessageContext.setThrottleAccount(new WebSocketThrottleAccount(inboundMessageContext));
             }
             return inboundProcessorResponseDTO;
         } catch (APISecurityException e) {
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.inbound.websocket;
+
+import org.apache.axiom.util.UIDGenerator;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONObject;
+import org.wso2.carbon.apimgt.gateway.handlers.Utils;
+import org.wso2.carbon.apimgt.gateway.handlers.WebsocketUtil;
+import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.inbound.InboundMessageContext;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleDataPublisher;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
+import org.wso2.carbon.apimgt.impl.dto.VerbInfoDTO;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Throttle accounting of a websocket connection. The throttle keys and tiers of the connection, and the remote IP
+ * properties of its throttle events, are resolved once per connection instead of once per frame.
+ * <p>
+ * Every frame is published to the traffic manager as a throttle event of its own, as it is received. The request
+ * count policies of the traffic manager count the message IDs of the events, so an event cannot stand for several
+ * frames, and publishing the frames later would let a connection exceed its limit until they are published.
+ */
+public class WebSocketThrottleAccount {
+
+    private static final Log log = LogFactory.getLog(WebSocketThrottleAccount.class);
+    private static final String THROTTLE_STREAM_ID = "org.wso2.throttle.request.stream:1.0.0";
+
+    private final APIKeyValidationInfoDTO infoDTO;
+    private final String tenantDomain;
+    private final String apiContext;
+    private final String apiVersion;
+    private final String authorizedUser;
+    private final String applicationLevelThrottleKey;
+    private final String apiLevelThrottleKey;
+    private final String subscriptionLevelThrottleKey;
+    private final JSONObject remoteIpProperties;
+    private final Map<String, ResourceAccount> resourceAccounts = new ConcurrentHashMap<>();
+
+    /**
+     * Resolves the throttle keys of the connection from the key validation information of the handshake.
+     *
+     * @param inboundMessageContext InboundMessageContext of the connection
+     */
+    public WebSocketThrottleAccount(InboundMessageContext inboundMessageContext) {
+
+        infoDTO = inboundMessageContext.getInfoDTO();
+        tenantDomain = inboundMessageContext.getTenantDomain();
+        apiContext = inboundMessageContext.getApiContext();
+        apiVersion = inboundMessageContext.getVersion();
+        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(infoDTO.getSubscriberTenantDomain())) {
+            authorizedUser = infoDTO.getSubscriber() + "@" + infoDTO.getSubscriberTenantDomain();
+        } else {
+            authorizedUser = infoDTO.getSubscriber();
+        }
+        applicationLevelThrottleKey = infoDTO.getApplicationId() + ":" + authorizedUser;
+        apiLevelThrottleKey = apiContext + ":" + apiVersion;
+        subscriptionLevelThrottleKey = infoDTO.getApplicationId() + ":" + apiContext + ":" + apiVersion;
+        String remoteIP = inboundMessageContext.getUserIP();
+        if (log.isDebugEnabled()) {
+            log.debug("Remote IP address : " + remoteIP);
+        }
+        if (remoteIP != null && remoteIP.indexOf(":") > 0) {
+            remoteIP = remoteIP.substring(1, remoteIP.indexOf(":"));
+        }
+        remoteIpProperties = new JSONObject();
+        Utils.setRemoteIp(remoteIpProperties, remoteIP);
+    }
+
+    public APIKeyValidationInfoDTO getInfoDTO() {
+
+        return infoDTO;
+    }
+
+    /**
+     * Checks whether a frame is throttled out by the throttle decisions received from the traffic manager.
+     *
+     * @param verbInfoDTO VerbInfoDTO of the invoked operation, or null for websocket API throttling
+     * @return true if the frame is throttled out
+     */
+    public boolean isThrottled(VerbInfoDTO verbInfoDTO) {
+
+        ResourceAccount resourceAccount = getResourceAccount(verbInfoDTO);
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+            return WebsocketUtil.isThrottled(resourceAccount.throttleKey, subscriptionLevelThrottleKey,
+                    applicationLevelThrottleKey);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Publishes the throttle event of a frame to the traffic manager.
+     *
+     * @param verbInfoDTO VerbInfoDTO of the invoked operation, or null for websocket API throttling
+     * @param messageSize size of the frame
+     */
+    public void publishFrame(VerbInfoDTO verbInfoDTO, int messageSize) {
+
+        ResourceAccount resourceAccount = getResourceAccount(verbInfoDTO);
+        JSONObject jsonObMap = new JSONObject();
+        for (String key : remoteIpProperties.keySet()) {
+            jsonObMap.put(key, remoteIpProperties.get(key));
+        }
+        jsonObMap.put(APIThrottleConstants.MESSAGE_SIZE, messageSize);
+        Object[] objects =
+                new Object[]{UIDGenerator.generateURNString(), applicationLevelThrottleKey,
+                        infoDTO.getApplicationTier(), apiLevelThrottleKey, resourceAccount.apiLevelTier,
+                        subscriptionLevelThrottleKey, infoDTO.getTier(), resourceAccount.throttleKey,
+                        resourceAccount.tier, authorizedUser, apiContext, apiVersion,
+                        infoDTO.getSubscriberTenantDomain(), tenantDomain, infoDTO.getApplicationId(),
+                        infoDTO.getApiName(), jsonObMap.toString()};
+        Event event = new Event(THROTTLE_STREAM_ID, System.currentTimeMillis(), null, null, objects);
+        if (ServiceReferenceHolder.getInstance().getThrottleDataPublisher() == null) {
+            log.error("Cannot publish events to traffic manager because ThrottleDataPublisher "
+                    + "has not been initialised");
+            return;
+        }
+        ThrottleDataPublisher.getDataPublisher().tryPublish(event);
+    }
+
+    private ResourceAccount getResourceAccount(VerbInfoDTO verbInfoDTO) {
+
+        String apiLevelTier = infoDTO.getApiTier() == null && verbInfoDTO == null ? APIConstants.UNLIMITED_TIER
+                : infoDTO.getApiTier();
+        //If API level throttle policy is present then it will apply and no resource level policy will apply for it
+        if (StringUtils.isNotEmpty(apiLevelTier) && verbInfoDTO == null) {
+            return resourceAccounts.computeIfAbsent(apiLevelThrottleKey,
+                    key -> new ResourceAccount(key, apiLevelTier, apiLevelTier));
+        }
+        return resourceAccounts.computeIfAbsent(verbInfoDTO.getRequestKey(),
+                key -> new ResourceAccount(key, verbInfoDTO.getThrottling(), apiLevelTier));
+    }
+
+    /**
+     * Throttle key and tiers of a resource of the connection.
+     */
+    private static final class ResourceAccount {
+
+        private final String throttleKey;
+        private final String tier;
+        private final String apiLevelTier;
+
+        private ResourceAccount(String throttleKey, String tier, String apiLevelTier) {
+
+            this.throttleKey = throttleKey;
+            this.tier = tier;
+            this.apiLevelTier = apiLevelTier;
+        }
+    }
+}
@@ -48,6 +48,7 @@ import org.wso2.carbon.apimgt.gateway.inbound.InboundMessageContext;
 import org.wso2.carbon.apimgt.gateway.inbound.websocket.GraphQLProcessorResponseDTO;
 import org.wso2.carbon.apimgt.gateway.inbound.websocket.InboundProcessorResponseDTO;
 import org.wso2.carbon.apimgt.gateway.inbound.websocket.utils.InboundWebsocketProcessorUtil;
+import org.wso2.carbon.apimgt.gateway.internal.DataHolder;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.VerbInfoDTO;
 
@@ -119,8 +120,10 @@ public class GraphQLRequestProcessor extends RequestProcessor {
                                             .validateScopes(inboundMessageContext, subscriptionOperation, operationId);
                                 }
                                 if (!responseDTO.isError()) {
-                                    QueryAnalyzer queryAnalyzer = new QueryAnalyzer(
-                                            inboundMessageContext.getGraphQLSchemaDTO().getGraphQLSchema());
+                                    QueryAnalyzer queryAnalyzer = DataHolder.getInstance()
+                                            .getGraphQLQueryAnalyzerForAPI(
+                                                    inboundMessageContext.getElectedAPI().getUuid(),
+                                                    inboundMessageContext.getGraphQLSchemaDTO().getGraphQLSchema());
                                     // analyze query depth and complexity
                                     responseDTO = validateQueryDepthAndComplexity(queryAnalyzer,
                                             inboundMessageContext, graphQLSubscriptionPayload, operationId);
@@ -17,19 +17,16 @@
  */
 package org.wso2.carbon.apimgt.gateway.inbound.websocket.utils;
 
-import org.apache.axiom.util.UIDGenerator;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.HttpHeaders;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.api.API;
-import org.json.JSONObject;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.common.gateway.constants.GraphQLConstants;
 import org.wso2.carbon.apimgt.gateway.handlers.DataPublisherUtil;
 import org.wso2.carbon.apimgt.gateway.handlers.Utils;
-import org.wso2.carbon.apimgt.gateway.handlers.WebsocketUtil;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APIKeyValidator;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityConstants;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityException;
@@ -37,14 +34,12 @@ import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
 import org.wso2.carbon.apimgt.gateway.handlers.security.jwt.JWTValidator;
 import org.wso2.carbon.apimgt.gateway.handlers.streaming.websocket.WebSocketApiConstants;
 import org.wso2.carbon.apimgt.gateway.handlers.streaming.websocket.WebSocketApiException;
-import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
 import org.wso2.carbon.apimgt.gateway.inbound.InboundMessageContext;
 import org.wso2.carbon.apimgt.gateway.inbound.websocket.GraphQLProcessorResponseDTO;
 import org.wso2.carbon.apimgt.gateway.inbound.websocket.InboundProcessorResponseDTO;
-import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.inbound.websocket.WebSocketThrottleAccount;
 import org.wso2.carbon.apimgt.gateway.utils.APIMgtGoogleAnalyticsUtils;
 import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
-import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
 import org.wso2.carbon.apimgt.impl.dto.ResourceInfoDTO;
 import org.wso2.carbon.apimgt.impl.dto.VerbInfoDTO;
@@ -203,72 +198,18 @@ public class InboundWebsocketProcessorUtil {
                                                          InboundMessageContext inboundMessageContext,
                                                          InboundProcessorResponseDTO responseDTO) {
 
-        APIKeyValidationInfoDTO infoDTO = inboundMessageContext.getInfoDTO();
-        String applicationLevelTier = infoDTO.getApplicationTier();
-        String apiLevelTier = infoDTO.getApiTier() == null && verbInfoDTO == null ? APIConstants.UNLIMITED_TIER
-                : infoDTO.getApiTier();
-        String subscriptionLevelTier = infoDTO.getTier();
-        String resourceLevelTier;
-        String authorizedUser;
-        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(infoDTO.getSubscriberTenantDomain())) {
-            authorizedUser = infoDTO.getSubscriber() + "@" + infoDTO.getSubscriberTenantDomain();
-        } else {
-            authorizedUser = infoDTO.getSubscriber();
-        }
-        String apiName = infoDTO.getApiName();
-        String apiVersion = inboundMessageContext.getVersion();
-        String appTenant = infoDTO.getSubscriberTenantDomain();
-        String apiTenant = inboundMessageContext.getTenantDomain();
-        String appId = infoDTO.getApplicationId();
-        String applicationLevelThrottleKey = appId + ":" + authorizedUser;
-        String apiLevelThrottleKey = inboundMessageContext.getApiContext() + ":" + apiVersion;
-        String resourceLevelThrottleKey;
-        //If API level throttle policy is present then it will apply and no resource level policy will apply for it
-        if (StringUtils.isNotEmpty(apiLevelTier) && verbInfoDTO == null) {
-            resourceLevelThrottleKey = apiLevelThrottleKey;
-            resourceLevelTier = apiLevelTier;
-        } else {
-            resourceLevelThrottleKey = verbInfoDTO.getRequestKey();
-            resourceLevelTier = verbInfoDTO.getThrottling();
-        }
-        String subscriptionLevelThrottleKey = appId + ":" + inboundMessageContext.getApiContext() + ":" + apiVersion;
-        String messageId = UIDGenerator.generateURNString();
-        String remoteIP = inboundMessageContext.getUserIP();
-        if (log.isDebugEnabled()) {
-            log.debug("Remote IP address : " + remoteIP);
-        }
-        if (remoteIP.indexOf(":") > 0) {
-            remoteIP = remoteIP.substring(1, remoteIP.indexOf(":"));
-        }
-        JSONObject jsonObMap = new JSONObject();
-        Utils.setRemoteIp(jsonObMap, remoteIP);
-        jsonObMap.put(APIThrottleConstants.MESSAGE_SIZE, msgSize);
-        try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
-                    inboundMessageContext.getTenantDomain(), true);
-            boolean isThrottled = WebsocketUtil.isThrottled(resourceLevelThrottleKey, subscriptionLevelThrottleKey,
-                    applicationLevelThrottleKey);
-            if (isThrottled) {
-                responseDTO.setError(true);
-                responseDTO.setErrorCode(WebSocketApiConstants.FrameErrorConstants.THROTTLED_OUT_ERROR);
-                responseDTO.setErrorMessage(WebSocketApiConstants.FrameErrorConstants.THROTTLED_OUT_ERROR_MESSAGE);
-            }
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
+        WebSocketThrottleAccount throttleAccount = inboundMessageContext.getThrottleAccount();
+        // The keys of the connection are resolved again if the token of the connection is validated again
+        if (throttleAccount == null || throttleAccount.getInfoDTO() != inboundMessageContext.getInfoDTO()) {
+            throttleAccount = new WebSocketThrottleAccount(inboundMessageContext);
+            inboundMessageContext.setThrottleAccount(throttleAccount);
         }
-        Object[] objects =
-                new Object[]{messageId, applicationLevelThrottleKey, applicationLevelTier, apiLevelThrottleKey,
-                        apiLevelTier, subscriptionLevelThrottleKey, subscriptionLevelTier, resourceLevelThrottleKey,
-                        resourceLevelTier, authorizedUser, inboundMessageContext.getApiContext(), apiVersion,
-                        appTenant, apiTenant, appId, apiName, jsonObMap.toString()};
-        org.wso2.carbon.databridge.commons.Event event = new org.wso2.carbon.databridge.commons.Event(
-                "org.wso2.throttle.request.stream:1.0.0", System.currentTimeMillis(), null, null, objects);
-        if (ServiceReferenceHolder.getInstance().getThrottleDataPublisher() == null) {
-            log.error("Cannot publish events to traffic manager because ThrottleDataPublisher "
-                    + "has not been initialised");
+        if (throttleAccount.isThrottled(verbInfoDTO)) {
+            responseDTO.setError(true);
+            responseDTO.setErrorCode(WebSocketApiConstants.FrameErrorConstants.THROTTLED_OUT_ERROR);
+            responseDTO.setErrorMessage(WebSocketApiConstants.FrameErrorConstants.THROTTLED_OUT_ERROR_MESSAGE);
         }
-        ServiceReferenceHolder.getInstance().getThrottleDataPublisher().getDataPublisher().tryPublish(event);
+        throttleAccount.publishFrame(verbInfoDTO, msgSize);
         return responseDTO;
     }
 
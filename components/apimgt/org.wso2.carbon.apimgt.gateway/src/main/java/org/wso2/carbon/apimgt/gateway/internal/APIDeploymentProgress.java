@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of the latest deployment of all the APIs of the gateway, reported by the startup health check until all
+ * the APIs are deployed.
+ */
+public class APIDeploymentProgress {
+
+    private final AtomicInteger retrievedCount = new AtomicInteger();
+    private final AtomicInteger deployedCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+    private volatile boolean inProgress;
+
+    /**
+     * Resets the progress at the start of a deployment.
+     */
+    public void start() {
+
+        retrievedCount.set(0);
+        deployedCount.set(0);
+        failedCount.set(0);
+        inProgress = true;
+    }
+
+    public void complete() {
+
+        inProgress = false;
+    }
+
+    public void artifactRetrieved() {
+
+        retrievedCount.incrementAndGet();
+    }
+
+    public void apiDeployed() {
+
+        deployedCount.incrementAndGet();
+    }
+
+    public void apiDeploymentFailed() {
+
+        failedCount.incrementAndGet();
+    }
+
+    public boolean isInProgress() {
+
+        return inProgress;
+    }
+
+    public int getRetrievedCount() {
+
+        return retrievedCount.get();
+    }
+
+    public int getDeployedCount() {
+
+        return deployedCount.get();
+    }
+
+    public int getFailedCount() {
+
+        return failedCount.get();
+    }
+
+    @Override
+    public String toString() {
+
+        return "Deployed " + deployedCount.get() + " of " + retrievedCount.get() + " retrieved APIs, "
+                + failedCount.get() + " failed" + (inProgress ? ", deployment in progress" : "");
+    }
+}
@@ -32,6 +32,8 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.apimgt.common.analytics.AnalyticsCommonConfiguration;
 import org.wso2.carbon.apimgt.common.analytics.AnalyticsServiceReferenceHolder;
+import org.wso2.carbon.apimgt.common.analytics.publishers.impl.AnalyticsDataPublisher;
+import org.wso2.carbon.apimgt.common.analytics.publishers.impl.AnalyticsEventQueue;
 import org.wso2.carbon.apimgt.common.gateway.jwtgenerator.APIMgtGatewayJWTGeneratorImpl;
 import org.wso2.carbon.apimgt.common.gateway.jwtgenerator.APIMgtGatewayUrlSafeJWTGeneratorImpl;
 import org.wso2.carbon.apimgt.common.gateway.jwtgenerator.AbstractAPIMgtGatewayJWTGenerator;
@@ -45,6 +47,7 @@ import org.wso2.carbon.apimgt.gateway.listeners.ServerStartupListener;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerConfigurationService;
 import org.wso2.carbon.apimgt.impl.caching.CacheProvider;
+import org.wso2.carbon.apimgt.impl.caching.NearCache;
 import org.wso2.carbon.apimgt.impl.dto.GatewayArtifactSynchronizerProperties;
 import org.wso2.carbon.apimgt.impl.dto.RedisConfig;
 import org.wso2.carbon.apimgt.impl.gatewayartifactsynchronizer.ArtifactRetriever;
@@ -63,6 +66,8 @@ import org.wso2.carbon.endpoint.service.EndpointAdmin;
 import org.wso2.carbon.localentry.service.LocalEntryAdmin;
 import org.wso2.carbon.mediation.initializer.services.SynapseConfigurationService;
 import org.wso2.carbon.mediation.security.vault.MediationSecurityAdminService;
+import org.wso2.carbon.metrics.manager.Level;
+import org.wso2.carbon.metrics.manager.MetricManager;
 import org.wso2.carbon.rest.api.service.RestApiAdmin;
 import org.wso2.carbon.sequences.services.SequenceAdmin;
 import org.wso2.carbon.utils.Axis2ConfigurationContextObserver;
@@ -72,6 +77,7 @@ import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 
 import java.io.File;
+import java.util.function.ToLongFunction;
 
 @Component(
         name = "org.wso2.carbon.apimgt.handlers",
@@ -82,6 +88,7 @@ public class APIHandlerServiceComponent {
 
     private APIKeyValidatorClientPool clientPool;
     private ServiceRegistration registration;
+    private RedisBaseDistributedCountManager redisBaseDistributedCountManager;
 
     @Activate
     protected void activate(ComponentContext context) {
@@ -130,7 +137,7 @@ public class APIHandlerServiceComponent {
                 ServiceReferenceHolder.getInstance().getAPIManagerConfiguration().getRedisConfig();
         if (redisConfig.isRedisEnabled()) {
             ServiceReferenceHolder.getInstance().setRedisPool(getJedisPool(redisConfig));
-            RedisBaseDistributedCountManager redisBaseDistributedCountManager =
+            redisBaseDistributedCountManager =
                     new RedisBaseDistributedCountManager(ServiceReferenceHolder.getInstance().getRedisPool());
             context.getBundleContext().registerService(DistributedCounterManager.class,
                     redisBaseDistributedCountManager, null);
@@ -164,6 +171,10 @@ public class APIHandlerServiceComponent {
         CacheProvider.createGatewayInternalKeyCache();
         CacheProvider.createGatewayInternalKeyDataCache();
         CacheProvider.createInvalidInternalKeyCache();
+        registerNearCacheMetrics(APIConstants.GATEWAY_KEY_CACHE_NAME);
+        registerNearCacheMetrics(APIConstants.GATEWAY_TOKEN_CACHE_NAME);
+        registerNearCacheMetrics(APIConstants.GATEWAY_INVALID_TOKEN_CACHE_NAME);
+        registerAnalyticsEventQueueMetrics();
     }
 
     @Deactivate
@@ -177,6 +188,9 @@ public class APIHandlerServiceComponent {
             log.debug("Unregistering ThrottleDataService...");
             registration.unregister();
         }
+        if (redisBaseDistributedCountManager != null) {
+            redisBaseDistributedCountManager.shutdown();
+        }
         if (ServiceReferenceHolder.getInstance().getRedisPool() != null &&
                 !ServiceReferenceHolder.getInstance().getRedisPool().isClosed()) {
             ServiceReferenceHolder.getInstance().getRedisPool().destroy();
@@ -478,6 +492,46 @@ public class APIHandlerServiceComponent {
         ServiceReferenceHolder.getInstance().setKeyManagerDataService(null);
     }
 
+    /**
+     * Registers the counters of the near cache kept in front of the cache. The near cache is looked up when the
+     * metrics are read, since it is created with the first tenant cache.
+     */
+    private void registerNearCacheMetrics(String cacheName) {
+
+        registerNearCacheGauge(cacheName, "HITS", NearCache::getHitCount);
+        registerNearCacheGauge(cacheName, "MISSES", NearCache::getMissCount);
+        registerNearCacheGauge(cacheName, "EVICTIONS", NearCache::getEvictionCount);
+    }
+
+    private void registerNearCacheGauge(String cacheName, String metricName, ToLongFunction<NearCache> counter) {
+
+        MetricManager.gauge(Level.INFO, MetricManager.name(APIConstants.METRICS_PREFIX, NearCache.class.getSimpleName(),
+                cacheName, metricName), () -> {
+            NearCache nearCache = CacheProvider.getNearCache(cacheName);
+            return nearCache != null ? counter.applyAsLong(nearCache) : 0L;
+        });
+    }
+
+    /**
+     * Registers the depth and the dropped event count of the analytics event queue. The queue is looked up when the
+     * metrics are read, since it is replaced when the analytics publisher is reconfigured.
+     */
+    private void registerAnalyticsEventQueueMetrics() {
+
+        registerAnalyticsEventQueueGauge("QUEUE_DEPTH", AnalyticsEventQueue::getQueueDepth);
+        registerAnalyticsEventQueueGauge("PUBLISHED_EVENTS", AnalyticsEventQueue::getPublishedCount);
+        registerAnalyticsEventQueueGauge("DROPPED_EVENTS", AnalyticsEventQueue::getDroppedCount);
+    }
+
+    private void registerAnalyticsEventQueueGauge(String metricName, ToLongFunction<AnalyticsEventQueue> counter) {
+
+        MetricManager.gauge(Level.INFO, MetricManager.name(APIConstants.METRICS_PREFIX,
+                AnalyticsEventQueue.class.getSimpleName(), metricName), () -> {
+            AnalyticsEventQueue eventQueue = AnalyticsDataPublisher.getInstance().getEventQueue();
+            return eventQueue != null ? counter.applyAsLong(eventQueue) : 0L;
+        });
+    }
+
     private JedisPool getJedisPool(RedisConfig redisConfig){
 
         JedisPoolConfig jedisPoolConfig = new JedisPoolConfig();
@@ -18,10 +18,13 @@
 
 package org.wso2.carbon.apimgt.gateway.internal;
 
+import graphql.schema.GraphQLSchema;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.api.gateway.GatewayAPIDTO;
 import org.wso2.carbon.apimgt.api.gateway.GraphQLSchemaDTO;
+import org.wso2.carbon.apimgt.common.gateway.graphql.QueryAnalyzer;
+import org.wso2.carbon.apimgt.gateway.handlers.security.ResourceRouteIndex;
 import org.wso2.carbon.apimgt.gateway.webhooks.SubscriptionDataStore;
 import org.wso2.carbon.apimgt.impl.notifier.events.APIEvent;
 import org.wso2.carbon.apimgt.impl.notifier.events.DeployAPIInGatewayEvent;
@@ -32,6 +35,8 @@ import org.wso2.carbon.apimgt.keymgt.model.exception.DataLoadingException;
 import org.wso2.carbon.apimgt.keymgt.model.impl.SubscriptionDataLoaderImpl;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DataHolder {
     private static final Log log  = LogFactory.getLog(DataHolder.class);
@@ -39,10 +44,15 @@ public class DataHolder {
     private Map<String, List<String>> apiToCertificatesMap = new HashMap();
     private Map<String, String> googleAnalyticsConfigMap = new HashMap<>();
     private Map<String, GraphQLSchemaDTO> apiToGraphQLSchemaDTOMap = new HashMap<>();
+    private final Map<String, QueryAnalyzer> apiToGraphQLQueryAnalyzerMap = new ConcurrentHashMap<>();
     private Map<String, List<String>> apiToKeyManagersMap = new HashMap<>();
     private Map<String,Map<String, API>> tenantAPIMap  = new HashMap<>();
+    private Map<String, ResourceRouteIndex> apiToResourceRouteIndexMap = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> apiToResourceRouteIndexGenerationMap = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> contextToResourceRouteIndexGenerationMap = new ConcurrentHashMap<>();
     private boolean isAllApisDeployed = false;
     private boolean isAllGatewayPoliciesDeployed = false;
+    private final APIDeploymentProgress apiDeploymentProgress = new APIDeploymentProgress();
 
     private DataHolder() {
 
@@ -103,6 +113,29 @@ public class DataHolder {
         apiToGraphQLSchemaDTOMap.put(apiId, graphQLSchemaDTO);
     }
 
+    /**
+     * Returns the query analyzer of the GraphQL API. The analyzer is shared by the messages of the API and replaced
+     * when the schema of the API is updated.
+     *
+     * @param apiId  UUID of the API
+     * @param schema current GraphQL schema of the API
+     * @return query analyzer of the schema
+     */
+    public QueryAnalyzer getGraphQLQueryAnalyzerForAPI(String apiId, GraphQLSchema schema) {
+
+        QueryAnalyzer queryAnalyzer = apiToGraphQLQueryAnalyzerMap.get(apiId);
+        if (queryAnalyzer == null || queryAnalyzer.getSchema() != schema) {
+            queryAnalyzer = new QueryAnalyzer(schema);
+            apiToGraphQLQueryAnalyzerMap.put(apiId, queryAnalyzer);
+        }
+        return queryAnalyzer;
+    }
+
+    public void removeGraphQLQueryAnalyzerForAPI(String apiId) {
+
+        apiToGraphQLQueryAnalyzerMap.remove(apiId);
+    }
+
     public boolean isAllApisDeployed() {
 
         return isAllApisDeployed;
@@ -113,6 +146,11 @@ public class DataHolder {
         isAllApisDeployed = allApisDeployed;
     }
 
+    public APIDeploymentProgress getAPIDeploymentProgress() {
+
+        return apiDeploymentProgress;
+    }
+
     public void addKeyManagerToAPIMapping(String uuid, List<String> keyManagers) {
 
         apiToKeyManagersMap.put(uuid, keyManagers);
@@ -126,6 +164,73 @@ public class DataHolder {
         return apiToKeyManagersMap.get(apiUUID);
     }
 
+    public ResourceRouteIndex getResourceRouteIndex(String apiUUID) {
+
+        return apiToResourceRouteIndexMap.get(apiUUID);
+    }
+
+    /**
+     * Returns the generation of the resource index of an API, which changes whenever the index of the API is removed
+     * by the UUID or by the context and version of the API. Generations are kept for the lifetime of the gateway.
+     *
+     * @param apiUUID    UUID of the API
+     * @param apiContext context of the API
+     * @param apiVersion version of the API
+     * @return generation of the resource index of the API
+     */
+    public long getResourceRouteIndexGeneration(String apiUUID, String apiContext, String apiVersion) {
+
+        // Both generations only grow, hence their sum changes whenever either of them changes.
+        return getGeneration(apiToResourceRouteIndexGenerationMap, apiUUID).get()
+                + getGeneration(contextToResourceRouteIndexGenerationMap, apiContext + ":" + apiVersion).get();
+    }
+
+    /**
+     * Adds a resource index compiled from the URI templates retrieved at the given generation. The index is not kept
+     * if the index of the API was removed in the meantime, as it could have been compiled from the templates of the
+     * previous deployment of the API.
+     *
+     * @param apiUUID            UUID of the API
+     * @param resourceRouteIndex compiled resource index
+     * @param generation         generation of the resource index of the API before the URI templates were retrieved
+     */
+    public void addResourceRouteIndex(String apiUUID, ResourceRouteIndex resourceRouteIndex, long generation) {
+
+        apiToResourceRouteIndexMap.put(apiUUID, resourceRouteIndex);
+        if (getResourceRouteIndexGeneration(apiUUID, resourceRouteIndex.getApiContext(),
+                resourceRouteIndex.getApiVersion()) != generation) {
+            apiToResourceRouteIndexMap.remove(apiUUID, resourceRouteIndex);
+        }
+    }
+
+    public void removeResourceRouteIndex(String apiUUID) {
+
+        getGeneration(apiToResourceRouteIndexGenerationMap, apiUUID).incrementAndGet();
+        apiToResourceRouteIndexMap.remove(apiUUID);
+    }
+
+    public void removeResourceRouteIndex(String apiContext, String apiVersion) {
+
+        getGeneration(contextToResourceRouteIndexGenerationMap, apiContext + ":" + apiVersion).incrementAndGet();
+        apiToResourceRouteIndexMap.values().removeIf(resourceRouteIndex ->
+                Objects.equals(apiContext, resourceRouteIndex.getApiContext())
+                        && Objects.equals(apiVersion, resourceRouteIndex.getApiVersion()));
+    }
+
+    /**
+     * Removes the resource indexes of all APIs, as the throttling policies compiled into them have changed.
+     */
+    public void removeAllResourceRouteIndexes() {
+
+        apiToResourceRouteIndexGenerationMap.values().forEach(AtomicLong::incrementAndGet);
+        apiToResourceRouteIndexMap.clear();
+    }
+
+    private static AtomicLong getGeneration(Map<String, AtomicLong> generationMap, String key) {
+
+        return generationMap.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
     public boolean isAllGatewayPoliciesDeployed() {
         return isAllGatewayPoliciesDeployed;
     }
@@ -30,7 +30,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class RevokedJWTDataHolder {
 
     private static final Log log = LogFactory.getLog(RevokedJWTDataHolder.class);
-    private static Map<String, Long> revokedJWTMap = new ConcurrentHashMap<>();
+    private static final RevokedJWTSignatureStore revokedJWTSignatureStore = new RevokedJWTSignatureStore();
     private static final Map<String, Long> revokedConsumerKeyMap = new ConcurrentHashMap<>();
     private static final Map<String, Long> revokedSubjectEntityAppMap = new ConcurrentHashMap<>();
     // User UUID (jwt claim) -> revoked timestamp
@@ -45,7 +45,20 @@ public class RevokedJWTDataHolder {
     public void addRevokedJWTToMap(String key, Long value) {
         if (key != null && value != null) {
             log.debug("Adding revoked JWT key, value pair to the revoked map :" + key + " , " + value);
-            revokedJWTMap.put(key, value);
+            revokedJWTSignatureStore.put(key, value);
+        }
+    }
+
+    /**
+     * Adds the given key,value pairs to the revoke map.
+     * @param revokedJWTs revoked JWT signatures mapped to the expiry times of the tokens.
+     */
+    public void addRevokedJWTsToMap(Map<String, Long> revokedJWTs) {
+        if (revokedJWTs != null && !revokedJWTs.isEmpty()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Adding " + revokedJWTs.size() + " revoked JWT key, value pairs to the revoked map");
+            }
+            revokedJWTSignatureStore.putAll(revokedJWTs);
         }
     }
 
@@ -55,7 +68,7 @@ public class RevokedJWTDataHolder {
      * @return true if it exists and false otherwise.
      */
     public static boolean isJWTTokenSignatureExistsInRevokedMap(String jwtSignature) {
-        return revokedJWTMap.containsKey(jwtSignature);
+        return jwtSignature != null && revokedJWTSignatureStore.contains(jwtSignature);
     }
 
     private RevokedJWTDataHolder() {
@@ -63,11 +76,12 @@ public class RevokedJWTDataHolder {
     }
 
     /**
-     * Fetches the revoke map.
-     * @return
+     * Removes the signatures of the tokens expired before the given time from the revoke map.
+     * @param currentTimestamp current time in milliseconds.
+     * @return number of removed signatures.
      */
-    Map<String, Long> getRevokedJWTMap() {
-        return revokedJWTMap;
+    int removeExpiredJWTsFromMap(long currentTimestamp) {
+        return revokedJWTSignatureStore.removeExpired(currentTimestamp);
     }
 
     /**
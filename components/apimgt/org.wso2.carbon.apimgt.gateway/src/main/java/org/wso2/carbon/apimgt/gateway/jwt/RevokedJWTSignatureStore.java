@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jwt;
+
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Compact set of revoked JWT signatures. Instead of the signatures, a 64 bit digest of each signature is kept
+ * together with the expiry time of the token, in an open addressing hash table made of primitive arrays. A Bloom
+ * filter in front of the table answers most lookups of signatures which are not revoked without probing the table.
+ * <p>
+ * Lookups are lock free in the absence of concurrent modifications. Modifications are serialized, and expired
+ * entries are removed by rebuilding the table with the entries which are still valid.
+ */
+class RevokedJWTSignatureStore {
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int BLOOM_BITS_PER_ENTRY = 10;
+    private static final int BLOOM_HASH_COUNT = 7;
+    // Digest value marking an empty slot of the table
+    private static final long EMPTY = 0L;
+
+    private final StampedLock lock = new StampedLock();
+    private long[] digests;
+    private long[] expiryTimes;
+    private long[] bloomFilter;
+    private int size;
+
+    RevokedJWTSignatureStore() {
+
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Adds a revoked signature, or updates its expiry time if it is already present.
+     *
+     * @param signature  signature of the revoked token
+     * @param expiryTime expiry time of the token in milliseconds
+     */
+    void put(String signature, long expiryTime) {
+
+        long stamp = lock.writeLock();
+        try {
+            ensureCapacity(size + 1);
+            insert(digest(signature), expiryTime);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds the given revoked signatures, resizing the table at most once.
+     *
+     * @param signatures revoked signatures mapped to the expiry times of the tokens
+     */
+    void putAll(Map<String, Long> signatures) {
+
+        long stamp = lock.writeLock();
+        try {
+            ensureCapacity(size + signatures.size());
+            for (Map.Entry<String, Long> entry : signatures.entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    insert(digest(entry.getKey()), entry.getValue());
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    boolean contains(String signature) {
+
+        long digest = digest(signature);
+        long stamp = lock.tryOptimisticRead();
+        boolean found = contains(digest);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                found = contains(digest);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Removes the signatures of the tokens expired before the given time.
+     *
+     * @param currentTime current time in milliseconds
+     * @return number of removed signatures
+     */
+    int removeExpired(long currentTime) {
+
+        long stamp = lock.writeLock();
+        try {
+            int expired = 0;
+            for (int i = 0; i < digests.length; i++) {
+                if (digests[i] != EMPTY && currentTime > expiryTimes[i]) {
+                    expired++;
+                }
+            }
+            if (expired > 0) {
+                rebuild(capacityFor(size - expired), currentTime);
+            }
+            return expired;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+
+        return size;
+    }
+
+    private boolean contains(long digest) {
+
+        long[] bloomFilter = this.bloomFilter;
+        long[] digests = this.digests;
+        if (!mightContain(bloomFilter, digest)) {
+            return false;
+        }
+        int mask = digests.length - 1;
+        // The table is never full, hence the probe always reaches an empty slot.
+        for (int i = slot(digest, mask), probes = 0; probes < digests.length; i = (i + 1) & mask, probes++) {
+            long current = digests[i];
+            if (current == digest) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void insert(long digest, long expiryTime) {
+
+        int mask = digests.length - 1;
+        int i = slot(digest, mask);
+        while (digests[i] != EMPTY && digests[i] != digest) {
+            i = (i + 1) & mask;
+        }
+        if (digests[i] == EMPTY) {
+            size++;
+        }
+        expiryTimes[i] = expiryTime;
+        digests[i] = digest;
+        addToBloomFilter(bloomFilter, digest);
+    }
+
+    private void ensureCapacity(int expectedSize) {
+
+        // Keep the load factor of the table below 0.75
+        if (expectedSize * 4L > digests.length * 3L) {
+            rebuild(capacityFor(expectedSize), Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Moves the entries which expire at or after the given time into newly allocated arrays of the given capacity.
+     */
+    private void rebuild(int capacity, long currentTime) {
+
+        long[] oldDigests = digests;
+        long[] oldExpiryTimes = expiryTimes;
+        allocate(capacity);
+        for (int i = 0; i < oldDigests.length; i++) {
+            if (oldDigests[i] != EMPTY && currentTime <= oldExpiryTimes[i]) {
+                insert(oldDigests[i], oldExpiryTimes[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+
+        long[] newDigests = new long[capacity];
+        expiryTimes = new long[capacity];
+        // The Bloom filter is sized for a table filled up to the load factor.
+        bloomFilter = new long[Math.max(1, (int) ((capacity * 3L / 4 * BLOOM_BITS_PER_ENTRY + 63) >>> 6))];
+        size = 0;
+        digests = newDigests;
+    }
+
+    private static int capacityFor(int expectedSize) {
+
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L < expectedSize * 4L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int slot(long digest, int mask) {
+
+        return (int) (digest ^ (digest >>> 32)) & mask;
+    }
+
+    private static boolean mightContain(long[] bloomFilter, long digest) {
+
+        long bitCount = (long) bloomFilter.length << 6;
+        int hash1 = (int) digest;
+        int hash2 = (int) (digest >>> 32);
+        for (int i = 1; i <= BLOOM_HASH_COUNT; i++) {
+            long bit = ((hash1 + (long) i * hash2) & Long.MAX_VALUE) % bitCount;
+            if ((bloomFilter[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addToBloomFilter(long[] bloomFilter, long digest) {
+
+        long bitCount = (long) bloomFilter.length << 6;
+        int hash1 = (int) digest;
+        int hash2 = (int) (digest >>> 32);
+        for (int i = 1; i <= BLOOM_HASH_COUNT; i++) {
+            long bit = ((hash1 + (long) i * hash2) & Long.MAX_VALUE) % bitCount;
+            bloomFilter[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the signature followed by the MurmurHash3 finalizer.
+     */
+    static long digest(String signature) {
+
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < signature.length(); i++) {
+            hash ^= signature.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1L : hash;
+    }
+}
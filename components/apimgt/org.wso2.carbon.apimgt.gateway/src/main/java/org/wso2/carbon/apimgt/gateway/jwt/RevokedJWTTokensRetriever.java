@@ -40,6 +40,8 @@ import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -112,13 +114,14 @@ public class RevokedJWTTokensRetriever extends TimerTask {
     private void loadRevokedJWTTokens(RevokedEventsDTO revokedEventsDTO) {
 
         if (revokedEventsDTO.getRevokedJWTList() != null && !revokedEventsDTO.getRevokedJWTList().isEmpty()) {
+            Map<String, Long> revokedJWTs = new HashMap<>(revokedEventsDTO.getRevokedJWTList().size());
             for (RevokedJWTTokenDTO revokedJWTToken : revokedEventsDTO.getRevokedJWTList()) {
-                RevokedJWTDataHolder.getInstance().addRevokedJWTToMap(revokedJWTToken.getSignature(),
-                        revokedJWTToken.getExpiryTime());
+                revokedJWTs.put(revokedJWTToken.getSignature(), revokedJWTToken.getExpiryTime());
                 if (log.isDebugEnabled()) {
                     log.debug("JWT signature : " + revokedJWTToken.getSignature() + " added to the revoke map.");
                 }
             }
+            RevokedJWTDataHolder.getInstance().addRevokedJWTsToMap(revokedJWTs);
         } else {
             log.debug("No revoked JWT tokens are retrieved via web service");
         }
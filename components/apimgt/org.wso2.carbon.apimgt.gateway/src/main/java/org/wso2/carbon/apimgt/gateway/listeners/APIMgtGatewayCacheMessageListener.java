@@ -28,6 +28,7 @@ import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.wso2.carbon.apimgt.api.dto.ResourceCacheInvalidationDto;
+import org.wso2.carbon.apimgt.gateway.internal.DataHolder;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 
@@ -108,6 +109,11 @@ public class APIMgtGatewayCacheMessageListener implements MessageListener {
             }
             ServiceReferenceHolder.getInstance().getCacheInvalidationService().invalidateResourceCache(apiContext,
                     apiVersion, resourceCacheInvalidationDtoList.toArray(new ResourceCacheInvalidationDto[0]));
+            if (apiContext.contains(APIConstants.POLICY_CACHE_CONTEXT)) {
+                DataHolder.getInstance().removeAllResourceRouteIndexes();
+            } else {
+                DataHolder.getInstance().removeResourceRouteIndex(apiContext, apiVersion);
+            }
 
     }
 
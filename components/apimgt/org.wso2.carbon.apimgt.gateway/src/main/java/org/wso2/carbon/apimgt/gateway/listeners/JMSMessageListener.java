@@ -28,10 +28,14 @@ import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.gateway.dto.APICondition;
+import org.wso2.carbon.metrics.manager.Level;
+import org.wso2.carbon.metrics.manager.MetricManager;
+import org.wso2.carbon.metrics.manager.Timer;
 
 import java.util.Date;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.jms.JMSException;
 import javax.jms.MapMessage;
@@ -40,26 +44,29 @@ import javax.jms.MessageListener;
 import javax.jms.TextMessage;
 import javax.jms.Topic;
 
+/**
+ * Receives the throttle decisions and blocking conditions published by the traffic manager. Blocking conditions are
+ * applied as they are received. Throttle decisions are collected in a map of the latest decision of each throttle
+ * key, which a single thread swaps for an empty map and applies, so no decision is dropped and only the decisions
+ * superseded by a later decision of the same key are skipped.
+ */
 public class JMSMessageListener implements MessageListener {
 
     private static final Log log = LogFactory.getLog(JMSMessageListener.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String THROTTLE_DECISION_AGE = "THROTTLE_DECISION_AGE";
 
-    // These patterns will be used to determine for which type of keys the throttling condition has occurred.
-    private Pattern apiPattern = Pattern.compile("/.*/(.*):\\1_(condition_(\\d*)|default)");
-    private static final int API_PATTERN_GROUPS = 3;
-    private static final int API_PATTERN_CONDITION_INDEX = 2;
-
-    private Pattern resourcePattern = Pattern.compile("/.*/(.*)/\\1(.*)?:[A-Z]{0,7}_(condition_(\\d*)|default)");
-    public static final int RESOURCE_PATTERN_GROUPS = 4;
-    public static final int RESOURCE_PATTERN_CONDITION_INDEX = 3;
+    private final Object throttleDecisionsLock = new Object();
+    // Latest received decision of each throttle key, which is not yet applied
+    private Map<String, ThrottleMessage> pendingThrottleDecisions = new LinkedHashMap<>();
+    private int receivedThrottleDecisionCount;
 
-    private Pattern productResourcePattern = Pattern.compile("/.*/(.*):[A-Z]{0,5}_(condition_(\\d*)|default)");
-    private static final int PRODUCT_RESOURCE_PATTERN_GROUPS = 3;
-    private static final int PRODUCT_RESOURCE_CONDITION_INDEX = 2;
+    public JMSMessageListener() {
 
-    private Pattern productAPIPattern = Pattern.compile("/.*:.*(condition_(\\d*)|default)");
-    private static final int PRODUCT_API_PATTERN_GROUPS = 2;
-    private static final int PRODUCT_API_CONDITION_INDEX = 1;
+        Thread messageProcessor = new Thread(this::processMessages, "ThrottleDataProcessor");
+        messageProcessor.setDaemon(true);
+        messageProcessor.start();
+    }
 
     public void onMessage(Message message) {
 
@@ -71,18 +78,11 @@ public class JMSMessageListener implements MessageListener {
                 Topic jmsDestination = (Topic) message.getJMSDestination();
                 if (message instanceof TextMessage) {
                     String textMessage = ((TextMessage) message).getText();
-                    JsonNode payloadData = new ObjectMapper().readTree(textMessage).path(APIConstants.EVENT_PAYLOAD).
+                    JsonNode payloadData = objectMapper.readTree(textMessage).path(APIConstants.EVENT_PAYLOAD).
                             path(APIConstants.EVENT_PAYLOAD_DATA);
                     if (APIConstants.TopicNames.TOPIC_THROTTLE_DATA.equalsIgnoreCase(jmsDestination.getTopicName())) {
                         if (payloadData.get(APIConstants.THROTTLE_KEY) != null) {
-                            /*
-                             * This message contains throttle data in map which contains Keys
-                             * throttleKey - Key of particular throttling level
-                             * isThrottled - Whether message has throttled or not
-                             * expiryTimeStamp - When the throttling time window will expires
-                             */
-
-                            handleThrottleUpdateMessage(payloadData);
+                            addThrottleDecision(new ThrottleMessage(payloadData, message.getJMSTimestamp()));
                         } else if (payloadData.get(APIConstants.BLOCKING_CONDITION_KEY) != null) {
                             /*
                              * This message contains blocking condition data
@@ -101,13 +101,80 @@ public class JMSMessageListener implements MessageListener {
             }
         } catch (JMSException e) {
             log.error("JMSException occurred when processing the received message ", e);
-        } catch (ParseException e) {
-            log.error("Error while processing evaluatedConditions", e);
         } catch (JsonProcessingException e) {
             log.error("Error while parsing JMS payload", e);
         }
     }
 
+    private void addThrottleDecision(ThrottleMessage message) {
+
+        String throttleKey = message.payloadData.get(APIConstants.THROTTLE_KEY).asText();
+        synchronized (throttleDecisionsLock) {
+            // A later decision of a throttle key replaces the earlier decision of the key, which is not yet applied
+            pendingThrottleDecisions.remove(throttleKey);
+            pendingThrottleDecisions.put(throttleKey, message);
+            receivedThrottleDecisionCount++;
+            throttleDecisionsLock.notifyAll();
+        }
+    }
+
+    private void processMessages() {
+
+        while (!Thread.currentThread().isInterrupted()) {
+            Map<String, ThrottleMessage> throttleDecisions;
+            int receivedCount;
+            try {
+                synchronized (throttleDecisionsLock) {
+                    while (pendingThrottleDecisions.isEmpty()) {
+                        throttleDecisionsLock.wait();
+                    }
+                    throttleDecisions = pendingThrottleDecisions;
+                    receivedCount = receivedThrottleDecisionCount;
+                    pendingThrottleDecisions = new LinkedHashMap<>();
+                    receivedThrottleDecisionCount = 0;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                applyThrottleDecisions(throttleDecisions);
+                if (log.isDebugEnabled()) {
+                    log.debug("Applied " + throttleDecisions.size() + " throttle decisions of " + receivedCount
+                            + " received decisions");
+                }
+            } catch (Throwable e) {
+                // The thread is kept alive, as the throttle decisions are not applied at all without it
+                log.error("Error while applying " + throttleDecisions.size() + " throttle decisions", e);
+            }
+        }
+    }
+
+    private void applyThrottleDecisions(Map<String, ThrottleMessage> throttleDecisions) {
+
+        Timer timer = MetricManager.timer(Level.INFO, MetricManager.name(APIConstants.METRICS_PREFIX,
+                this.getClass().getSimpleName(), THROTTLE_DECISION_AGE));
+        for (ThrottleMessage message : throttleDecisions.values()) {
+            try {
+                /*
+                 * This message contains throttle data in map which contains Keys
+                 * throttleKey - Key of particular throttling level
+                 * isThrottled - Whether message has throttled or not
+                 * expiryTimeStamp - When the throttling time window will expires
+                 */
+                handleThrottleUpdateMessage(message.payloadData);
+                if (message.publishedTime > 0) {
+                    timer.update(Math.max(0, System.currentTimeMillis() - message.publishedTime),
+                            TimeUnit.MILLISECONDS);
+                }
+            } catch (ParseException e) {
+                log.error("Error while processing evaluatedConditions", e);
+            } catch (RuntimeException e) {
+                log.error("Error while processing the throttle decision " + message.payloadData, e);
+            }
+        }
+    }
+
     private void handleThrottleUpdateMessage(JsonNode msg) throws ParseException {
         String throttleKey = msg.get(APIConstants.AdvancedThrottleConstants.THROTTLE_KEY).asText();
         String throttleState = msg.get(APIConstants.AdvancedThrottleConstants.IS_THROTTLED).asText();
@@ -157,10 +224,7 @@ public class JMSMessageListener implements MessageListener {
         }
     }
 
-    //Synchronized due to blocking data contains or not can updated by multiple threads. Will not be a performance
-    // isssue
-    //as this will not happen more frequently
-    private synchronized void handleBlockingMessage(JsonNode msg) {
+    private void handleBlockingMessage(JsonNode msg) {
         if (log.isDebugEnabled()) {
             log.debug("Received Key -  blockingCondition : " + msg.get(APIConstants.BLOCKING_CONDITION_KEY).asText() +
                     " , " +
@@ -220,41 +284,18 @@ public class JMSMessageListener implements MessageListener {
     }
 
     private APICondition extractAPIorResourceKey(String throttleKey) {
-        Matcher m = resourcePattern.matcher(throttleKey);
-        if (m.matches()) {
-            if (m.groupCount() == RESOURCE_PATTERN_GROUPS) {
-                String condition = m.group(RESOURCE_PATTERN_CONDITION_INDEX);
-                String resourceKey = throttleKey.substring(0, throttleKey.indexOf("_" + condition));
-                return new APICondition(resourceKey, condition);
-            }
-        } else {
-            m = apiPattern.matcher(throttleKey);
-            if (m.matches()) {
-                if (m.groupCount() == API_PATTERN_GROUPS) {
-                    String condition = m.group(API_PATTERN_CONDITION_INDEX);
-                    String resourceKey = throttleKey.substring(0, throttleKey.indexOf("_" + condition));
-                    return new APICondition(resourceKey, condition);
-                }
-            }
-        }
-        // For API Products
-        m = productResourcePattern.matcher(throttleKey);
-        if (m.matches()) {
-            if (m.groupCount() == PRODUCT_RESOURCE_PATTERN_GROUPS) {
-                String condition = m.group(PRODUCT_RESOURCE_CONDITION_INDEX);
-                String resourceKey = throttleKey.substring(0, throttleKey.indexOf("_" + condition));
-                return new APICondition(resourceKey, condition);
-            }
-        } else {
-            m = productAPIPattern.matcher(throttleKey);
-            if (m.matches()) {
-                if (m.groupCount() == PRODUCT_API_PATTERN_GROUPS) {
-                    String condition = m.group(PRODUCT_API_CONDITION_INDEX);
-                    String resourceKey = throttleKey.substring(0, throttleKey.indexOf("_" + condition));
-                    return new APICondition(resourceKey, condition);
-                }
-            }
+        return ThrottleKeyParser.parse(throttleKey);
+    }
+
+    private static final class ThrottleMessage {
+
+        private final JsonNode payloadData;
+        private final long publishedTime;
+
+        private ThrottleMessage(JsonNode payloadData, long publishedTime) {
+
+            this.payloadData = payloadData;
+            this.publishedTime = publishedTime;
         }
-        return null;
     }
 }
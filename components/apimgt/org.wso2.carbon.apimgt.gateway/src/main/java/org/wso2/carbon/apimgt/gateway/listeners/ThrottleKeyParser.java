@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.listeners;
+
+import org.wso2.carbon.apimgt.gateway.dto.APICondition;
+
+/**
+ * Extracts the API or resource key and the condition of a throttle key received from the traffic manager. The
+ * throttle key ends with the condition, which is either default or condition_{id}, and is in one of the following
+ * forms, which are checked in order.
+ * <ul>
+ * <li>Resource: /{context}/{version}/{version}{resource}:{method}_{condition}</li>
+ * <li>API: /{context}/{version}:{version}_{condition}</li>
+ * <li>API Product resource: /{context}/{resource}:{method}_{condition}</li>
+ * <li>API Product: /{context}:{...}{condition}</li>
+ * </ul>
+ * The throttle key is parsed by its separators, with the same result as matching it against the regular expressions
+ * of these forms.
+ */
+public final class ThrottleKeyParser {
+
+    private static final String DEFAULT_CONDITION = "default";
+    private static final String CONDITION_PREFIX = "condition_";
+    private static final int MAX_RESOURCE_METHOD_LENGTH = 7;
+    private static final int MAX_PRODUCT_RESOURCE_METHOD_LENGTH = 5;
+
+    private ThrottleKeyParser() {
+
+    }
+
+    /**
+     * @param throttleKey throttle key received from the traffic manager
+     * @return the API or resource key and the condition, or null if the throttle key is not in a known form
+     */
+    public static APICondition parse(String throttleKey) {
+
+        if (throttleKey == null || !throttleKey.startsWith("/") || hasLineTerminator(throttleKey)) {
+            return null;
+        }
+        int conditionIndex = getConditionIndex(throttleKey);
+        if (conditionIndex < 0) {
+            return null;
+        }
+        String condition = throttleKey.substring(conditionIndex);
+        if (conditionIndex > 0 && throttleKey.charAt(conditionIndex - 1) == '_') {
+            int separatorIndex = conditionIndex - 1;
+            int methodIndex = separatorIndex;
+            while (methodIndex > 0 && isUpperCaseLetter(throttleKey.charAt(methodIndex - 1))) {
+                methodIndex--;
+            }
+            int methodLength = separatorIndex - methodIndex;
+            int colonIndex = methodIndex - 1;
+            boolean hasMethod = colonIndex > 0 && throttleKey.charAt(colonIndex) == ':';
+            if (hasMethod && methodLength <= MAX_RESOURCE_METHOD_LENGTH && isResourceKey(throttleKey, colonIndex)) {
+                return toAPICondition(throttleKey, condition);
+            }
+            if (isAPIKey(throttleKey, separatorIndex)) {
+                return toAPICondition(throttleKey, condition);
+            }
+            if (hasMethod && methodLength <= MAX_PRODUCT_RESOURCE_METHOD_LENGTH) {
+                int slashIndex = throttleKey.indexOf('/', 1);
+                if (slashIndex >= 0 && slashIndex < colonIndex) {
+                    return toAPICondition(throttleKey, condition);
+                }
+            }
+        }
+        if (conditionIndex > 0 && throttleKey.lastIndexOf(':', conditionIndex - 1) > 0) {
+            return toAPICondition(throttleKey, condition);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of the condition at the end of the throttle key, or -1 if it does not end with a condition.
+     */
+    private static int getConditionIndex(String throttleKey) {
+
+        if (throttleKey.endsWith(DEFAULT_CONDITION)) {
+            return throttleKey.length() - DEFAULT_CONDITION.length();
+        }
+        int idIndex = throttleKey.length();
+        while (idIndex > 0 && isDigit(throttleKey.charAt(idIndex - 1))) {
+            idIndex--;
+        }
+        int conditionIndex = idIndex - CONDITION_PREFIX.length();
+        return conditionIndex >= 0 && throttleKey.startsWith(CONDITION_PREFIX, conditionIndex) ? conditionIndex : -1;
+    }
+
+    /**
+     * Checks whether the throttle key up to the method separator is /{context}/{version}/{version}{resource}.
+     */
+    private static boolean isResourceKey(String throttleKey, int colonIndex) {
+
+        for (int versionEnd = throttleKey.indexOf('/', 2); versionEnd >= 0 && versionEnd < colonIndex;
+             versionEnd = throttleKey.indexOf('/', versionEnd + 1)) {
+            for (int versionStart = throttleKey.indexOf('/', 1); versionStart >= 0 && versionStart < versionEnd;
+                 versionStart = throttleKey.indexOf('/', versionStart + 1)) {
+                int versionLength = versionEnd - versionStart - 1;
+                if (versionEnd + 1 + versionLength <= colonIndex
+                        && throttleKey.regionMatches(versionEnd + 1, throttleKey, versionStart + 1, versionLength)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the throttle key up to the condition separator is /{context}/{version}:{version}.
+     */
+    private static boolean isAPIKey(String throttleKey, int separatorIndex) {
+
+        for (int versionStart = throttleKey.indexOf('/', 1); versionStart >= 0 && versionStart < separatorIndex;
+             versionStart = throttleKey.indexOf('/', versionStart + 1)) {
+            int length = separatorIndex - versionStart - 1;
+            int versionLength = length / 2;
+            if (length % 2 == 1 && throttleKey.charAt(versionStart + 1 + versionLength) == ':'
+                    && throttleKey.regionMatches(versionStart + 1, throttleKey, versionStart + 2 + versionLength,
+                    versionLength)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static APICondition toAPICondition(String throttleKey, String condition) {
+
+        int conditionIndex = throttleKey.indexOf("_" + condition);
+        if (conditionIndex < 0) {
+            return null;
+        }
+        return new APICondition(throttleKey.substring(0, conditionIndex), condition);
+    }
+
+    private static boolean hasLineTerminator(String throttleKey) {
+
+        for (int i = 0; i < throttleKey.length(); i++) {
+            char c = throttleKey.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isUpperCaseLetter(char c) {
+
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isDigit(char c) {
+
+        return c >= '0' && c <= '9';
+    }
+}
@@ -35,7 +35,6 @@ import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 
 import javax.xml.stream.XMLStreamException;
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
@@ -82,14 +81,12 @@ public class JsonSchemaValidator extends AbstractMediator {
                 (ThreatProtectorConstants.APPLICATION_JSON.equals(contentType) ||
                         ThreatProtectorConstants.TEXT_JSON.equals(contentType))) {
             JSONConfig jsonConfig = configureSchemaProperties(messageContext);
-            APIMThreatAnalyzer apimThreatAnalyzer = AnalyzerHolder.getAnalyzer(contentType);
-            apimThreatAnalyzer.configure(jsonConfig);
+            APIMThreatAnalyzer apimThreatAnalyzer = AnalyzerHolder.getAnalyzer(apiContext, jsonConfig);
             try {
                 inputStreams = GatewayUtils.cloneRequestMessage(messageContext);
                 if (inputStreams != null) {
                     InputStream inputStreamJson = inputStreams.get(ThreatProtectorConstants.JSON);
-                    BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStreamJson);
-                    apimThreatAnalyzer.analyze(bufferedInputStream, apiContext);
+                    apimThreatAnalyzer.analyze(inputStreamJson, apiContext);
                     isValid = true;
                 }
             } catch (APIMThreatAnalyzerException e) {
@@ -102,9 +99,6 @@ public class JsonSchemaValidator extends AbstractMediator {
                 logger.error(message, e);
                 isValid = GatewayUtils.handleThreat(messageContext, ThreatProtectorConstants.HTTP_SC_CODE,
                         message + e.getMessage());
-            } finally {
-                // return analyzer to the pool
-                AnalyzerHolder.returnObject(apimThreatAnalyzer);
             }
         } else {
             if (log.isDebugEnabled()) {
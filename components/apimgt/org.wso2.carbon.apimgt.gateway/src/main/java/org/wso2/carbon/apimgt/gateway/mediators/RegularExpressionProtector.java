@@ -18,9 +18,7 @@
 
 package org.wso2.carbon.apimgt.gateway.mediators;
 
-import com.google.re2j.Pattern;
 import org.apache.axiom.om.OMElement;
-import org.apache.axiom.soap.SOAPBody;
 import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -32,28 +30,34 @@ import org.apache.synapse.mediators.AbstractMediator;
 import org.apache.synapse.rest.RESTUtils;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
 import org.wso2.carbon.apimgt.gateway.APIMgtGatewayConstants;
+import org.wso2.carbon.apimgt.gateway.threatprotection.ThreatPatternScanner;
 import org.wso2.carbon.apimgt.gateway.threatprotection.utils.ThreatProtectorConstants;
 import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
  * This mediator would protect the backend resources from the threat vulnerabilities by matching the
- * special key words in the request headers, query/path parameters and body.
+ * special key words in the request headers, query/path parameters and body. The request body is decoded from the
+ * raw payload and scanned, without building the message.
  */
 public class RegularExpressionProtector extends AbstractMediator {
 
     private static final Log logger = LogFactory.getLog(RegularExpressionProtector.class);
     private Boolean enabledCheckBody = true;
     private String threatType = null;
-    private Pattern pattern = null;
+    private ThreatPatternScanner scanner = null;
     private Boolean enabledCheckHeaders;
     private Boolean enabledCheckPathParam;
 
@@ -76,14 +80,33 @@ public class RegularExpressionProtector extends AbstractMediator {
         if (messageProperty != null) {
             enabledCheckBody = Boolean.valueOf(messageProperty.toString());
         }
-        if (isContentAware() && isPayloadSizeExceeded(messageContext)) {
-            return true;
+        org.apache.axis2.context.MessageContext axis2MC = ((Axis2MessageContext) messageContext)
+                .getAxis2MessageContext();
+        Map<String, InputStream> inputStreams = null;
+        try {
+            if (enabledCheckBody && axis2MC.getProperty(ThreatProtectorConstants.CONTENT_TYPE) != null) {
+                try {
+                    inputStreams = GatewayUtils.cloneRequestMessage(messageContext);
+                } catch (IOException e) {
+                    logger.error("Error occurred while reading the request payload.", e);
+                    GatewayUtils.handleThreat(messageContext, ThreatProtectorConstants.HTTP_SC_CODE, e.getMessage());
+                    return true;
+                }
+                if (isPayloadSizeExceeded(messageContext, inputStreams)) {
+                    return true;
+                }
+            }
+            return scanRequest(messageContext, inputStreams);
+        } finally {
+            GatewayUtils.setOriginalInputStream(inputStreams, axis2MC);
         }
+    }
 
-        messageProperty = messageContext.getProperty(APIMgtGatewayConstants.REGEX_PATTERN);
+    private boolean scanRequest(MessageContext messageContext, Map<String, InputStream> inputStreams) {
+        Object messageProperty = messageContext.getProperty(APIMgtGatewayConstants.REGEX_PATTERN);
         if (messageProperty != null) {
-            if (pattern == null) {
-                pattern = Pattern.compile(messageProperty.toString(), Pattern.CASE_INSENSITIVE);
+            if (scanner == null) {
+                scanner = new ThreatPatternScanner(messageProperty.toString());
             }
         } else {
             GatewayUtils.handleThreat(messageContext, APIMgtGatewayConstants.HTTP_SC_CODE,
@@ -103,7 +126,7 @@ public class RegularExpressionProtector extends AbstractMediator {
         if (messageProperty != null) {
             threatType = String.valueOf(messageProperty);
         }
-        if (isRequestBodyVulnerable(messageContext) || isRequestHeadersVulnerable(messageContext) ||
+        if (isRequestBodyVulnerable(messageContext, inputStreams) || isRequestHeadersVulnerable(messageContext) ||
                 isRequestPathVulnerable(messageContext)) {
             return true;
         }
@@ -147,9 +170,10 @@ public class RegularExpressionProtector extends AbstractMediator {
      *
      * @param messageContext contains the message properties of the relevant API request which was
      *                       enabled the regexValidator message mediation in flow.
+     * @param inputStreams   copies of the request payload
      * @return true if the payload size has exceeded the defined value in system property
      */
-    private boolean isPayloadSizeExceeded(MessageContext messageContext) {
+    private boolean isPayloadSizeExceeded(MessageContext messageContext, Map<String, InputStream> inputStreams) {
         // payloadSizeLimit is in KB
         Integer payloadSizeLimit = Integer.getInteger(APIMgtGatewayConstants.PAYLOAD_SIZE_LIMIT_FOR_REGEX_TREAT_PROTECTOR);
         if (payloadSizeLimit == null) {
@@ -162,14 +186,12 @@ public class RegularExpressionProtector extends AbstractMediator {
         String contentLength = (String) headers.get(HttpHeaders.CONTENT_LENGTH);
         if (contentLength != null) {
             requestPayloadSize = Integer.parseInt(contentLength);
-        } else {  //When chunking is enabled
-            SOAPEnvelope env = messageContext.getEnvelope();
-            if (env != null) {
-                SOAPBody soapbody = env.getBody();
-                if (soapbody != null) {
-                    byte[] size = soapbody.toString().getBytes(Charset.defaultCharset());
-                    requestPayloadSize = size.length;
-                }
+        } else if (inputStreams != null && inputStreams.get(ThreatProtectorConstants.ORIGINAL) != null) {
+            //When chunking is enabled, the payload is already read to a byte array
+            try {
+                requestPayloadSize = inputStreams.get(ThreatProtectorConstants.ORIGINAL).available();
+            } catch (IOException e) {
+                logger.error("Error occurred while reading the request payload size.", e);
             }
         }
         if (requestPayloadSize > payloadSizeLimit * 1024) {
@@ -182,44 +204,93 @@ public class RegularExpressionProtector extends AbstractMediator {
     }
 
     /**
-     * This method checks whether the request body contains matching vulnerable key words.
+     * This method checks whether the request body contains matching vulnerable key words. The raw payload read from
+     * the pass-through pipe is decoded according to its content type before it is scanned. When the payload has
+     * already been read, as the message has been built, the JSON payload or the built message is scanned instead.
      *
      * @param messageContext contains the message properties of the relevant API request which was
      *                       enabled the regexValidator message mediation in flow.
+     * @param inputStreams   copies of the request payload
      */
-    private boolean isRequestBodyVulnerable(MessageContext messageContext) {
-        SOAPEnvelope soapEnvelope;
-        SOAPBody soapBody;
-        OMElement omElement;
+    private boolean isRequestBodyVulnerable(MessageContext messageContext, Map<String, InputStream> inputStreams) {
         org.apache.axis2.context.MessageContext axis2MC = ((Axis2MessageContext)
                 messageContext).getAxis2MessageContext();
-        if (enabledCheckBody) {
-            soapEnvelope = axis2MC.getEnvelope();
-            if (soapEnvelope == null) {
-                return false;
-            }
-            soapBody = soapEnvelope.getBody();
-            if (soapBody == null) {
-                return false;
-            }
-            omElement = soapBody.getFirstElement();
-            if (omElement == null) {
-                return false;
+        if (!enabledCheckBody || scanner == null) {
+            return false;
+        }
+        try {
+            boolean vulnerable;
+            if (inputStreams != null && inputStreams.get(ThreatProtectorConstants.ORIGINAL) != null) {
+                vulnerable = scanner.find(inputStreams.get(ThreatProtectorConstants.XML), getContentType(axis2MC),
+                        getCharset(axis2MC));
+            } else if (inputStreams != null && inputStreams.get(ThreatProtectorConstants.JSON) != null) {
+                vulnerable = scanner.find(inputStreams.get(ThreatProtectorConstants.JSON),
+                        ThreatProtectorConstants.APPLICATION_JSON, StandardCharsets.UTF_8);
+            } else {
+                vulnerable = isBuiltMessageVulnerable(axis2MC);
             }
-            String payload = omElement.toString();
-            if (pattern != null && payload != null && pattern.matcher(payload).find()) {
+            if (vulnerable) {
                 if (logger.isDebugEnabled()) {
-                    logger.debug(String.format("Threat detected in request payload [ %s ] by regex [ %s ]))",
-                            payload, pattern));
+                    logger.debug(String.format("Threat detected in request payload by regex [ %s ]", scanner));
                 }
                 GatewayUtils.handleThreat(messageContext, APIMgtGatewayConstants.HTTP_SC_CODE,
                         threatType + " " + APIMgtGatewayConstants.PAYLOAD_THREAT_MSG);
                 return true;
             }
+        } catch (IOException e) {
+            logger.error("Error occurred while reading the request payload.", e);
+            GatewayUtils.handleThreat(messageContext, ThreatProtectorConstants.HTTP_SC_CODE, e.getMessage());
+            return true;
         }
         return false;
     }
 
+    /**
+     * Scans the first element of the body of a message which has already been built.
+     */
+    private boolean isBuiltMessageVulnerable(org.apache.axis2.context.MessageContext axis2MC) {
+        SOAPEnvelope soapEnvelope = axis2MC.getEnvelope();
+        if (soapEnvelope == null || soapEnvelope.getBody() == null) {
+            return false;
+        }
+        OMElement omElement = soapEnvelope.getBody().getFirstElement();
+        return omElement != null && scanner.find(omElement.toString());
+    }
+
+    /**
+     * Returns the content type header of the request, or the content type of the message if the header is not given.
+     */
+    private static String getContentType(org.apache.axis2.context.MessageContext axis2MC) {
+        Map headers = (Map) axis2MC.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        Object contentType = headers != null ? headers.get(HttpHeaders.CONTENT_TYPE) : null;
+        if (contentType == null) {
+            contentType = axis2MC.getProperty(ThreatProtectorConstants.CONTENT_TYPE);
+        }
+        return contentType != null ? contentType.toString() : null;
+    }
+
+    /**
+     * Returns the charset of the request payload given in the content type header, or UTF-8 if it is not given.
+     */
+    private static Charset getCharset(org.apache.axis2.context.MessageContext axis2MC) {
+        Map headers = (Map) axis2MC.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        Object contentType = headers != null ? headers.get(HttpHeaders.CONTENT_TYPE) : null;
+        if (contentType != null) {
+            String contentTypeValue = contentType.toString();
+            int charsetIndex = contentTypeValue.toLowerCase(Locale.ENGLISH).indexOf("charset=");
+            if (charsetIndex >= 0) {
+                String charset = contentTypeValue.substring(charsetIndex + "charset=".length()).split(";")[0]
+                        .trim().replace("\"", "");
+                try {
+                    return Charset.forName(charset);
+                } catch (IllegalArgumentException e) {
+                    logger.debug("Unsupported charset " + charset + " in the content type of the request", e);
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
     /**
      * This method checks whether the request path contains matching vulnerable keywords.
      *
@@ -245,10 +316,10 @@ public class RegularExpressionProtector extends AbstractMediator {
                         message + e.getMessage());
                 return true;
             }
-            if (pattern != null && parameter != null && pattern.matcher(parameter).find()) {
+            if (scanner != null && parameter != null && scanner.find(parameter)) {
                 if (logger.isDebugEnabled()) {
                     logger.debug(String.format("Threat detected in query parameters [ %s ] by regex [ %s ]",
-                            queryParams, pattern));
+                            queryParams, scanner));
                 }
                 GatewayUtils.handleThreat(messageContext, APIMgtGatewayConstants.HTTP_SC_CODE,
                         threatType + " " + APIMgtGatewayConstants.QPARAM_THREAT_MSG);
@@ -270,10 +341,10 @@ public class RegularExpressionProtector extends AbstractMediator {
                 messageContext).getAxis2MessageContext();
         if (enabledCheckHeaders) {
             Map transportHeaders = (Map) axis2MC.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
-            if (pattern != null && transportHeaders != null && pattern.matcher(transportHeaders.toString()).find()) {
+            if (scanner != null && transportHeaders != null && scanner.find(transportHeaders.toString())) {
                 if (logger.isDebugEnabled()) {
                     logger.debug(String.format("Threat detected in Transport headers [ %s ] by regex [ %s ]",
-                            transportHeaders, pattern));
+                            transportHeaders, scanner));
                 }
                 GatewayUtils.handleThreat(messageContext, APIMgtGatewayConstants.HTTP_SC_CODE,
                         threatType + " " + APIMgtGatewayConstants.HTTP_HEADER_THREAT_MSG);
@@ -284,16 +355,15 @@ public class RegularExpressionProtector extends AbstractMediator {
     }
 
     /**
-     * This method checks the status of the {enabledCheckBody} property which comes from the custom sequence.
-     * If a client ask to check the message body,Method returns true else It will return false.
      * If the {isContentAware} method returns false, The request message payload wont be build.
-     * Building a payload will directly affect to the performance.
+     * Building a payload will directly affect to the performance, so the request body is scanned from the raw
+     * payload when the {enabledCheckBody} property is set.
      *
-     * @return If enabledCheckBody is true,The method returns true else it returns false
+     * @return isContentAware method always returns false to avoid build the message.
      */
     @Override
     public boolean isContentAware() {
-        return enabledCheckBody;
+        return false;
     }
 
 }
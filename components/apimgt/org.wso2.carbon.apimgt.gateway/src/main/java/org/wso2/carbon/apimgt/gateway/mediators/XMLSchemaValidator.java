@@ -27,6 +27,7 @@ import org.apache.synapse.transport.passthru.util.RelayUtils;
 import org.wso2.carbon.apimgt.gateway.APIMgtGatewayConstants;
 import org.wso2.carbon.apimgt.gateway.threatprotection.APIMThreatAnalyzerException;
 import org.wso2.carbon.apimgt.gateway.threatprotection.AnalyzerHolder;
+import org.wso2.carbon.apimgt.gateway.threatprotection.XMLSchemaRegistry;
 import org.wso2.carbon.apimgt.gateway.threatprotection.analyzer.APIMThreatAnalyzer;
 import org.wso2.carbon.apimgt.gateway.threatprotection.configuration.XMLConfig;
 import org.wso2.carbon.apimgt.gateway.threatprotection.utils.ThreatExceptionHandler;
@@ -35,17 +36,12 @@ import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.xml.sax.SAXException;
 
-import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.transform.Source;
-import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
-import java.io.BufferedInputStream;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stax.StAXSource;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
 import java.util.Map;
 
 /**
@@ -54,6 +50,12 @@ import java.util.Map;
  */
 public class XMLSchemaValidator extends AbstractMediator {
     private static final Log logger = LogFactory.getLog(XMLSchemaValidator.class);
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
 
     /**
      * This mediate method validates the xml request message.
@@ -71,7 +73,6 @@ public class XMLSchemaValidator extends AbstractMediator {
         Map<String, InputStream> inputStreams = null;
         Boolean xmlValidationStatus;
         Boolean schemaValidationStatus;
-        APIMThreatAnalyzer apimThreatAnalyzer = null;
         String apiContext;
         String requestMethod;
         String contentType;
@@ -97,8 +98,7 @@ public class XMLSchemaValidator extends AbstractMediator {
                         xmlValidationStatus = Boolean.valueOf(messageProperty.toString());
                         if (xmlValidationStatus.equals(true)) {
                             XMLConfig xmlConfig = configureSchemaProperties(messageContext);
-                            apimThreatAnalyzer = AnalyzerHolder.getAnalyzer(contentType);
-                            apimThreatAnalyzer.configure(xmlConfig);
+                            APIMThreatAnalyzer apimThreatAnalyzer = AnalyzerHolder.getAnalyzer(apiContext, xmlConfig);
                             inputStreamXml = inputStreams.get(ThreatProtectorConstants.XML);
                             apimThreatAnalyzer.analyze(inputStreamXml, apiContext);
                         }
@@ -108,8 +108,7 @@ public class XMLSchemaValidator extends AbstractMediator {
                         schemaValidationStatus = Boolean.valueOf(messageProperty.toString());
                         if (schemaValidationStatus.equals(true)) {
                             inputStreamSchema = inputStreams.get(ThreatProtectorConstants.SCHEMA);
-                            BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStreamSchema);
-                            validateSchema(messageContext, bufferedInputStream);
+                            validateSchema(messageContext, inputStreamSchema);
                         }
                     }
                 }
@@ -121,9 +120,6 @@ public class XMLSchemaValidator extends AbstractMediator {
             } catch (IOException e) {
                 logger.error(APIMgtGatewayConstants.BAD_REQUEST, e);
                 GatewayUtils.handleThreat(messageContext, ThreatProtectorConstants.HTTP_SC_CODE, e.getMessage());
-            }finally {
-                //return analyzer to the pool
-                AnalyzerHolder.returnObject(apimThreatAnalyzer);
             }
         } else {
             if (log.isDebugEnabled()) {
@@ -254,36 +250,39 @@ public class XMLSchemaValidator extends AbstractMediator {
     }
 
     /**
-     * This method validates the request payload xml with the relevant xsd.
+     * This method validates the request payload xml with the relevant xsd. The xsd is compiled once for the API and
+     * reused, and the payload is streamed to the validator through a StAX reader.
      *
-     * @param messageContext      This message context contains the request message properties of the relevant
-     *                            API which was enabled the XML_Validator message mediation in flow.
-     * @param bufferedInputStream Buffered input stream to be validated.
+     * @param messageContext This message context contains the request message properties of the relevant
+     *                       API which was enabled the XML_Validator message mediation in flow.
+     * @param inputStream    Input stream of the payload to be validated.
      * @throws APIMThreatAnalyzerException Exception might be occurred while parsing the xml payload.
      */
-    private boolean validateSchema(MessageContext messageContext, BufferedInputStream bufferedInputStream)
+    private boolean validateSchema(MessageContext messageContext, InputStream inputStream)
             throws APIMThreatAnalyzerException {
-        String xsdURL;
-        Schema schema;
-        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        Object messageProperty = messageContext.getProperty(APIMgtGatewayConstants.XSD_URL);
+        if (messageProperty == null || String.valueOf(messageProperty).isEmpty()) {
+            return true;
+        }
+        String xsdURL = String.valueOf(messageProperty);
+        Object apiId = messageContext.getProperty(APIMgtGatewayConstants.API_UUID_PROPERTY);
+        if (apiId == null) {
+            apiId = messageContext.getProperty(ThreatProtectorConstants.API_CONTEXT);
+        }
+        XMLStreamReader reader = null;
         try {
-            Object messageProperty = messageContext.getProperty(APIMgtGatewayConstants.XSD_URL);
-            if (messageProperty == null) {
-                return true;
-            } else {
-                if (String.valueOf(messageProperty).isEmpty()) {
-                    return true;
-                } else {
-                    xsdURL = String.valueOf(messageProperty);
-                    URL schemaFile = new URL(xsdURL);
-                    schema = schemaFactory.newSchema(schemaFile);
-                    Source xmlFile = new StreamSource(bufferedInputStream);
-                    Validator validator = schema.newValidator();
-                    validator.validate(xmlFile);
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+            XMLSchemaRegistry.getInstance().validate(String.valueOf(apiId), xsdURL, new StAXSource(reader));
+        } catch (SAXException | IOException | XMLStreamException e) {
+            throw new APIMThreatAnalyzerException("Error occurred while parsing XML payload : " + e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    logger.debug("Error while closing the XML stream reader", e);
                 }
             }
-        } catch (SAXException | IOException e) {
-            throw new APIMThreatAnalyzerException("Error occurred while parsing XML payload : " + e);
         }
         return true;
     }
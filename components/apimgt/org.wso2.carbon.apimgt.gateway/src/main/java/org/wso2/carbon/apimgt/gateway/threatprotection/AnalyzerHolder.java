@@ -18,38 +18,25 @@
 
 package org.wso2.carbon.apimgt.gateway.threatprotection;
 
-import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.wso2.carbon.apimgt.gateway.threatprotection.analyzer.APIMThreatAnalyzer;
 import org.wso2.carbon.apimgt.gateway.threatprotection.analyzer.JSONAnalyzer;
 import org.wso2.carbon.apimgt.gateway.threatprotection.analyzer.XMLAnalyzer;
-import org.wso2.carbon.apimgt.gateway.threatprotection.pool.AnalyzerPool;
-import org.wso2.carbon.apimgt.gateway.threatprotection.pool.JSONAnalyzerFactory;
-import org.wso2.carbon.apimgt.gateway.threatprotection.pool.XMLAnalyzerFactory;
-import org.wso2.carbon.apimgt.gateway.threatprotection.utils.ThreatProtectorConstants;
+import org.wso2.carbon.apimgt.gateway.threatprotection.configuration.JSONConfig;
+import org.wso2.carbon.apimgt.gateway.threatprotection.configuration.XMLConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Holds the object pools for XML and JSON Analyzers
+ * Holds the XML and JSON Analyzers of the APIs. An analyzer is created for the configuration of an API, and is shared
+ * by the requests to the API until the configuration of the API changes. The analyzers are not reconfigured once
+ * created, so they are not borrowed and returned for each request.
  */
 public class AnalyzerHolder {
 
-    private static Logger log = LoggerFactory.getLogger(AnalyzerHolder.class);
     private static AnalyzerHolder instance = new AnalyzerHolder();
-    private static AnalyzerPool<XMLAnalyzer> xmlAnalyzerAnalyzerPool;
-    private static AnalyzerPool<JSONAnalyzer> jsonAnalyzerAnalyzerPool;
-    private static GenericObjectPoolConfig poolConfig;
-
-    static {
-        poolConfig = new GenericObjectPoolConfig();
-        poolConfig.setMaxTotal(200);
-
-        poolConfig.setBlockWhenExhausted(false);
-        poolConfig.setMaxWaitMillis(0);
-
-        xmlAnalyzerAnalyzerPool = new AnalyzerPool<>(new XMLAnalyzerFactory(), poolConfig);
-        jsonAnalyzerAnalyzerPool = new AnalyzerPool<>(new JSONAnalyzerFactory(), poolConfig);
-    }
+    private static final Map<String, XMLAnalyzer> xmlAnalyzers = new ConcurrentHashMap<>();
+    private static final Map<String, JSONAnalyzer> jsonAnalyzers = new ConcurrentHashMap<>();
 
     private AnalyzerHolder() {
     }
@@ -59,44 +46,46 @@ public class AnalyzerHolder {
     }
 
     /**
-     * Borrows an object from pools (xml or json) for threat analysis
+     * Returns the analyzer of an API for JSON payloads
+     *
+     * @param apiContext context of the API
+     * @param config     configuration of the API
+     * @return Instance of APIMThreatAnalyzer configured with the configuration
+     */
+    public static APIMThreatAnalyzer getAnalyzer(String apiContext, JSONConfig config) {
+        JSONAnalyzer analyzer = jsonAnalyzers.get(apiContext);
+        if (analyzer == null || !config.equals(analyzer.getConfig())) {
+            analyzer = new JSONAnalyzer(config);
+            jsonAnalyzers.put(apiContext, analyzer);
+        }
+        return analyzer;
+    }
+
+    /**
+     * Returns the analyzer of an API for XML payloads
      *
-     * @param contentType Content-Type of the payload
-     * @return Instance of APIMThreatAnalyzer based on content type
+     * @param apiContext context of the API
+     * @param config     configuration of the API
+     * @return Instance of APIMThreatAnalyzer configured with the configuration
      */
-    public static APIMThreatAnalyzer getAnalyzer(String contentType) {
-        APIMThreatAnalyzer analyzer = null;
-        if (ThreatProtectorConstants.TEXT_XML.equalsIgnoreCase(contentType) ||
-                ThreatProtectorConstants.APPLICATION_XML.equalsIgnoreCase(contentType)) {
-            try {
-                analyzer = xmlAnalyzerAnalyzerPool.borrowObject();
-            } catch (Exception e) {
-                // here apache.commons GenericObjectPool's borrow object method throws generic exception.
-                // here log the stacktrace along with the message.
-                log.error("Threat Protection: Error occurred while getting an object from the pool.", e);
-            }
-        } else if (ThreatProtectorConstants.TEXT_JSON.equalsIgnoreCase(contentType) ||
-                ThreatProtectorConstants.APPLICATION_JSON.equalsIgnoreCase(contentType)) {
-            try {
-                analyzer = jsonAnalyzerAnalyzerPool.borrowObject();
-            } catch (Exception e) {
-                log.error("Threat Protection: Error occurred while getting an object from the pool.", e);
-            }
+    public static APIMThreatAnalyzer getAnalyzer(String apiContext, XMLConfig config) {
+        XMLAnalyzer analyzer = xmlAnalyzers.get(apiContext);
+        if (analyzer == null || !config.equals(analyzer.getConfig())) {
+            analyzer = new XMLAnalyzer(config);
+            xmlAnalyzers.put(apiContext, analyzer);
         }
         return analyzer;
     }
 
     /**
-     * Returns objects back to the pool
+     * Removes the analyzers of an undeployed API
      *
-     * @param analyzer borrowed instance of {@link APIMThreatAnalyzer}
+     * @param apiContext context of the API
      */
-    public static void returnObject(APIMThreatAnalyzer analyzer) {
-        analyzer.clearConfiguration();
-        if (analyzer instanceof JSONAnalyzer) {
-            jsonAnalyzerAnalyzerPool.returnObject((JSONAnalyzer) analyzer);
-        } else if (analyzer instanceof XMLAnalyzer) {
-            xmlAnalyzerAnalyzerPool.returnObject((XMLAnalyzer) analyzer);
+    public static void removeAnalyzers(String apiContext) {
+        if (apiContext != null) {
+            jsonAnalyzers.remove(apiContext);
+            xmlAnalyzers.remove(apiContext);
         }
     }
 }
@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.gateway.threatprotection;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.re2j.Pattern;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Finds the threat key words of the regular expression protector in the requests. The key words are given as a case
+ * insensitive regular expression. When the expression is an alternation of literal key words, optionally surrounded
+ * by <code>.*</code>, such as <code>.*'.*|.*ALTER.*|.*DROP TABLE.*</code>, the key words are compiled into a single
+ * Aho-Corasick automaton, which scans the payload incrementally as it is read and stops at the first key word found.
+ * Other expressions are matched with RE2J.
+ * <p>
+ * The automaton folds the case of the payload the same way the case insensitive expression does, including the
+ * non-ASCII characters which fold to ASCII letters.
+ * <p>
+ * JSON, XML and form payloads are decoded before they are scanned, so that escaped key words such as
+ * <code>\u0027</code>, <code>&amp;#39;</code> or <code>%27</code> are found, and the markup of the payload, such as the
+ * XML declaration and the namespace declarations, is not scanned.
+ */
+public class ThreatPatternScanner {
+
+    private static final Log log = LogFactory.getLog(ThreatPatternScanner.class);
+    private static final int ALPHABET_SIZE = 128;
+    private static final int MAX_AUTOMATON_STATES = 8192;
+    private static final int BUFFER_SIZE = 8192;
+    private static final char LONG_S = '\u017F';
+    private static final char KELVIN_SIGN = '\u212A';
+    private static final char[] META_CHARACTERS = {'$', '(', ')', '*', '+', '.', '?', '[', ']', '^', '{', '|', '}'};
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    private final Pattern pattern;
+    private final int[][] transitions;
+    private final boolean[] matches;
+
+    /**
+     * @param regex case insensitive regular expression of the threat key words
+     */
+    public ThreatPatternScanner(String regex) {
+
+        this.pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        List<String> keywords = getLiteralKeywords(regex);
+        int stateCount = 1;
+        if (keywords != null) {
+            for (String keyword : keywords) {
+                stateCount += keyword.length();
+            }
+        }
+        if (keywords != null && stateCount <= MAX_AUTOMATON_STATES) {
+            this.transitions = new int[stateCount][];
+            this.matches = new boolean[stateCount];
+            buildAutomaton(keywords);
+        } else {
+            this.transitions = null;
+            this.matches = null;
+        }
+    }
+
+    /**
+     * @return true if the key words are matched by the automaton instead of the regular expression
+     */
+    public boolean isLiteral() {
+
+        return transitions != null;
+    }
+
+    /**
+     * @param value value to be scanned
+     * @return true if the value contains a threat key word
+     */
+    public boolean find(CharSequence value) {
+
+        if (transitions == null) {
+            return pattern.matcher(value).find();
+        }
+        int state = 0;
+        for (int i = 0; i < value.length(); i++) {
+            state = next(state, value.charAt(i));
+            if (matches[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scans a payload as it is read, until the first threat key word is found.
+     *
+     * @param inputStream payload to be scanned
+     * @param charset     charset of the payload
+     * @return true if the payload contains a threat key word
+     * @throws IOException if the payload could not be read
+     */
+    public boolean find(InputStream inputStream, Charset charset) throws IOException {
+
+        Reader reader = new InputStreamReader(inputStream, charset);
+        char[] buffer = new char[BUFFER_SIZE];
+        int length;
+        if (transitions == null) {
+            StringBuilder payload = new StringBuilder();
+            while ((length = reader.read(buffer)) > -1) {
+                payload.append(buffer, 0, length);
+            }
+            return pattern.matcher(payload).find();
+        }
+        int state = 0;
+        while ((length = reader.read(buffer)) > -1) {
+            for (int i = 0; i < length; i++) {
+                state = next(state, buffer[i]);
+                if (matches[state]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scans the decoded content of a payload. The names and values of JSON payloads, the names, attributes, text and
+     * comments of XML payloads and the names and values of form payloads are scanned separately. Payloads of other
+     * content types, and payloads which cannot be decoded, are scanned as they are.
+     *
+     * @param inputStream payload to be scanned
+     * @param contentType content type of the payload
+     * @param charset     charset of the payload
+     * @return true if the payload contains a threat key word
+     * @throws IOException if the payload could not be read
+     */
+    public boolean find(InputStream inputStream, String contentType, Charset charset) throws IOException {
+
+        String mediaType = contentType != null
+                ? contentType.split(";")[0].trim().toLowerCase(Locale.ENGLISH) : "";
+        boolean json = "application/json".equals(mediaType) || "text/json".equals(mediaType)
+                || mediaType.endsWith("+json");
+        boolean xml = "application/xml".equals(mediaType) || "text/xml".equals(mediaType)
+                || mediaType.endsWith("+xml");
+        if ("application/x-www-form-urlencoded".equals(mediaType)) {
+            return findInForm(IOUtils.toString(inputStream, charset), charset);
+        }
+        if (!json && !xml) {
+            return find(inputStream, charset);
+        }
+        InputStream payload = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        payload.mark(Integer.MAX_VALUE);
+        try {
+            return json ? findInJson(payload, charset) : findInXml(payload, charset);
+        } catch (IOException | XMLStreamException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Payload of content type " + contentType + " could not be decoded. The payload is "
+                        + "scanned as it is.", e);
+            }
+            payload.reset();
+            return find(payload, charset);
+        }
+    }
+
+    private boolean findInJson(InputStream inputStream, Charset charset) throws IOException {
+
+        try (JsonParser parser = JSON_FACTORY.createParser(new InputStreamReader(inputStream, charset))) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if ((token == JsonToken.FIELD_NAME || token.isScalarValue()) && find(parser.getText())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean findInXml(InputStream inputStream, Charset charset) throws XMLStreamException {
+
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream, charset.name());
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        if (find(reader.getLocalName())) {
+                            return true;
+                        }
+                        for (int i = 0; i < reader.getAttributeCount(); i++) {
+                            if (find(reader.getAttributeLocalName(i)) || find(reader.getAttributeValue(i))) {
+                                return true;
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.COMMENT:
+                        if (find(reader.getText())) {
+                            return true;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return false;
+    }
+
+    private boolean findInForm(String payload, Charset charset) throws UnsupportedEncodingException {
+
+        for (String parameter : payload.split("&")) {
+            String value;
+            try {
+                value = URLDecoder.decode(parameter, charset.name());
+            } catch (IllegalArgumentException e) {
+                // Malformed escapes are scanned as they are
+                value = parameter;
+            }
+            if (find(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+
+        return pattern.toString();
+    }
+
+    private int next(int state, char c) {
+
+        int foldedChar = fold(c);
+        return foldedChar < 0 ? 0 : transitions[state][foldedChar];
+    }
+
+    /**
+     * @return the lower case ASCII letter the character folds to, the character itself if it is any other ASCII
+     * character, or -1 if the character cannot be a part of a key word
+     */
+    private static int fold(char c) {
+
+        if (c < ALPHABET_SIZE) {
+            return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+        }
+        if (c == LONG_S) {
+            return 's';
+        }
+        if (c == KELVIN_SIGN) {
+            return 'k';
+        }
+        return -1;
+    }
+
+    private void buildAutomaton(List<String> keywords) {
+
+        int[][] children = new int[transitions.length][];
+        children[0] = new int[ALPHABET_SIZE];
+        int stateCount = 1;
+        for (String keyword : keywords) {
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int c = fold(keyword.charAt(i));
+                if (children[state][c] == 0) {
+                    children[stateCount] = new int[ALPHABET_SIZE];
+                    children[state][c] = stateCount++;
+                }
+                state = children[state][c];
+            }
+            matches[state] = true;
+        }
+        // Breadth first, so that the failure transitions of the shorter prefixes are known first
+        int[] failures = new int[stateCount];
+        Deque<Integer> states = new ArrayDeque<>();
+        transitions[0] = children[0];
+        for (int c = 0; c < ALPHABET_SIZE; c++) {
+            if (children[0][c] != 0) {
+                states.add(children[0][c]);
+            }
+        }
+        while (!states.isEmpty()) {
+            int state = states.poll();
+            matches[state] |= matches[failures[state]];
+            transitions[state] = new int[ALPHABET_SIZE];
+            for (int c = 0; c < ALPHABET_SIZE; c++) {
+                int child = children[state][c];
+                if (child != 0) {
+                    failures[child] = transitions[failures[state]][c];
+                    transitions[state][c] = child;
+                    states.add(child);
+                } else {
+                    transitions[state][c] = transitions[failures[state]][c];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the key words of the expression if it is an alternation of literal ASCII key words, optionally
+     * surrounded by <code>.*</code>, or null if it is not
+     */
+    static List<String> getLiteralKeywords(String regex) {
+
+        List<String> keywords = new ArrayList<>();
+        for (String alternative : splitAlternatives(regex)) {
+            if (alternative.startsWith(".*")) {
+                alternative = alternative.substring(2);
+            }
+            if (alternative.endsWith(".*") && !alternative.endsWith("\\.*")) {
+                alternative = alternative.substring(0, alternative.length() - 2);
+            }
+            String keyword = unescapeLiteral(alternative);
+            if (keyword == null || keyword.isEmpty()) {
+                return null;
+            }
+            keywords.add(keyword);
+        }
+        return keywords;
+    }
+
+    private static List<String> splitAlternatives(String regex) {
+
+        List<String> alternatives = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '|') {
+                alternatives.add(regex.substring(start, i));
+                start = i + 1;
+            }
+        }
+        alternatives.add(regex.substring(start));
+        return alternatives;
+    }
+
+    private static String unescapeLiteral(String alternative) {
+
+        StringBuilder keyword = new StringBuilder(alternative.length());
+        for (int i = 0; i < alternative.length(); i++) {
+            char c = alternative.charAt(i);
+            if (c == '\\') {
+                // Only escaped punctuation is literal, the other escapes are character classes or assertions
+                if (++i == alternative.length()) {
+                    return null;
+                }
+                c = alternative.charAt(i);
+                if (Character.isLetterOrDigit(c) || c >= ALPHABET_SIZE) {
+                    return null;
+                }
+            } else if (c >= ALPHABET_SIZE || Arrays.binarySearch(META_CHARACTERS, c) >= 0) {
+                return null;
+            }
+            keyword.append(c);
+        }
+        return keyword.toString();
+    }
+}
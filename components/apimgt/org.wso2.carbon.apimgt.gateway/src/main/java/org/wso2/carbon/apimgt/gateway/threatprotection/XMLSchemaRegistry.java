@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.gateway.threatprotection;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
+import org.wso2.carbon.apimgt.impl.APIManagerConfigurationService;
+import org.wso2.carbon.base.CarbonBaseUtils;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+/**
+ * Holds the compiled XSD schemas used to validate the XML payloads of the APIs, by the API and the URL of the XSD, so
+ * that a schema is downloaded and compiled once instead of for each request. Compiled schemas are thread-safe, while
+ * their validators are not, so each thread validates the payloads with its own validator of a schema.
+ * <p>
+ * Schemas are downloaded again in the background once the refresh interval has elapsed since they were loaded, and
+ * are only compiled again if they changed. The downloaded schemas are also kept in a local file cache, so that the
+ * schemas are not downloaded again when the gateway is restarted. Relative imports and includes of a schema are
+ * still resolved against the URL of the schema when it is compiled.
+ */
+public class XMLSchemaRegistry {
+
+    private static final Log log = LogFactory.getLog(XMLSchemaRegistry.class);
+    private static final long DEFAULT_REFRESH_INTERVAL = TimeUnit.MINUTES.toMillis(30);
+    private static final String SCHEMA_CACHE_DIRECTORY = "xml-schemas";
+    private static final String SCHEMA_FILE_EXTENSION = ".xsd";
+    private static final String KEY_SEPARATOR = " ";
+    private static volatile XMLSchemaRegistry instance;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Path cacheDirectory;
+    private final long refreshInterval;
+    private final Executor refreshExecutor;
+
+    /**
+     * @param cacheDirectory  directory of the local file cache, or null if the schemas are not cached in files
+     * @param refreshInterval time in milliseconds after which a loaded schema is downloaded again
+     * @param refreshExecutor executor which downloads the schemas to be refreshed
+     */
+    XMLSchemaRegistry(Path cacheDirectory, long refreshInterval, Executor refreshExecutor) {
+
+        this.cacheDirectory = cacheDirectory;
+        this.refreshInterval = refreshInterval;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public static XMLSchemaRegistry getInstance() {
+
+        if (instance == null) {
+            synchronized (XMLSchemaRegistry.class) {
+                if (instance == null) {
+                    instance = create();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static XMLSchemaRegistry create() {
+
+        long refreshInterval = DEFAULT_REFRESH_INTERVAL;
+        Path cacheDirectory = null;
+        if (CarbonBaseUtils.getCarbonHome() != null) {
+            cacheDirectory = Paths.get(CarbonBaseUtils.getCarbonHome(), "repository", "data",
+                    SCHEMA_CACHE_DIRECTORY);
+        }
+        APIManagerConfigurationService configurationService =
+                ServiceReferenceHolder.getInstance().getApiManagerConfigurationService();
+        if (configurationService != null && configurationService.getAPIManagerConfiguration() != null) {
+            APIManagerConfiguration configuration = configurationService.getAPIManagerConfiguration();
+            String refreshIntervalValue =
+                    configuration.getFirstProperty(APIConstants.XML_SCHEMA_CACHE_REFRESH_INTERVAL);
+            if (StringUtils.isNotEmpty(refreshIntervalValue)) {
+                try {
+                    refreshInterval = TimeUnit.SECONDS.toMillis(Long.parseLong(refreshIntervalValue.trim()));
+                } catch (NumberFormatException e) {
+                    log.warn("Invalid XML schema cache refresh interval " + refreshIntervalValue
+                            + ". Using the default refresh interval.");
+                }
+            }
+            String cacheDirectoryValue = configuration.getFirstProperty(APIConstants.XML_SCHEMA_CACHE_DIRECTORY);
+            if (StringUtils.isNotEmpty(cacheDirectoryValue)) {
+                cacheDirectory = Paths.get(cacheDirectoryValue.trim());
+            }
+        }
+        Executor refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "XMLSchemaRefresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new XMLSchemaRegistry(cacheDirectory, refreshInterval, refreshExecutor);
+    }
+
+    /**
+     * Validates an XML payload with the schema of an API, using the validator of the schema of the calling thread.
+     *
+     * @param apiId  UUID of the API
+     * @param xsdURL URL of the XSD
+     * @param source XML payload
+     * @throws SAXException if the payload is not valid, or the schema could not be compiled
+     * @throws IOException  if the schema could not be downloaded, or the payload could not be read
+     */
+    public void validate(String apiId, String xsdURL, Source source) throws SAXException, IOException {
+
+        Validator validator = getSchema(apiId, xsdURL).validators.get();
+        try {
+            validator.validate(source);
+        } finally {
+            validator.reset();
+        }
+    }
+
+    /**
+     * Removes the schemas of an API, so that they are compiled again for the revision of the API deployed next.
+     *
+     * @param apiId UUID of the API
+     */
+    public static void removeAPISchemas(String apiId) {
+
+        XMLSchemaRegistry registry = instance;
+        if (registry != null) {
+            registry.removeSchemas(apiId);
+        }
+    }
+
+    void removeSchemas(String apiId) {
+
+        String keyPrefix = apiId + KEY_SEPARATOR;
+        entries.keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    CompiledSchema getSchema(String apiId, String xsdURL) throws SAXException, IOException {
+
+        Entry entry = entries.computeIfAbsent(apiId + KEY_SEPARATOR + xsdURL, key -> new Entry(xsdURL));
+        CompiledSchema compiledSchema = entry.compiledSchema;
+        if (compiledSchema == null) {
+            synchronized (entry) {
+                if (entry.compiledSchema == null) {
+                    entry.compiledSchema = load(xsdURL);
+                }
+                compiledSchema = entry.compiledSchema;
+            }
+        } else if (System.currentTimeMillis() - compiledSchema.loadedTime >= refreshInterval
+                && entry.refreshing.compareAndSet(false, true)) {
+            refreshExecutor.execute(() -> refresh(entry));
+        }
+        return compiledSchema;
+    }
+
+    private CompiledSchema load(String xsdURL) throws SAXException, IOException {
+
+        Path cacheFile = getCacheFile(xsdURL);
+        if (cacheFile != null && Files.isRegularFile(cacheFile)) {
+            try {
+                return compile(xsdURL, Files.readAllBytes(cacheFile), Files.getLastModifiedTime(cacheFile).toMillis());
+            } catch (IOException | SAXException e) {
+                log.warn("Ignoring the cached XML schema " + cacheFile + " of " + xsdURL, e);
+            }
+        }
+        byte[] content = download(xsdURL);
+        CompiledSchema compiledSchema = compile(xsdURL, content, System.currentTimeMillis());
+        writeCacheFile(cacheFile, content);
+        return compiledSchema;
+    }
+
+    private void refresh(Entry entry) {
+
+        CompiledSchema compiledSchema = entry.compiledSchema;
+        Path cacheFile = getCacheFile(entry.xsdURL);
+        try {
+            byte[] content = download(entry.xsdURL);
+            if (Arrays.equals(DigestUtils.sha256(content), compiledSchema.digest)) {
+                compiledSchema.loadedTime = System.currentTimeMillis();
+                if (cacheFile != null && Files.isRegularFile(cacheFile)) {
+                    Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(compiledSchema.loadedTime));
+                }
+            } else {
+                entry.compiledSchema = compile(entry.xsdURL, content, System.currentTimeMillis());
+                writeCacheFile(cacheFile, content);
+                if (log.isDebugEnabled()) {
+                    log.debug("XML schema " + entry.xsdURL + " is changed and compiled again");
+                }
+            }
+        } catch (IOException | SAXException | RuntimeException e) {
+            // The schema which is already compiled is used until the next refresh
+            compiledSchema.loadedTime = System.currentTimeMillis();
+            log.warn("Error while refreshing the XML schema " + entry.xsdURL, e);
+        } finally {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private static CompiledSchema compile(String xsdURL, byte[] content, long loadedTime) throws SAXException {
+
+        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        Schema schema = schemaFactory.newSchema(new StreamSource(new ByteArrayInputStream(content), xsdURL));
+        return new CompiledSchema(schema, DigestUtils.sha256(content), loadedTime);
+    }
+
+    private static byte[] download(String xsdURL) throws IOException {
+
+        try (InputStream inputStream = new URL(xsdURL).openStream()) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    private Path getCacheFile(String xsdURL) {
+
+        if (cacheDirectory == null) {
+            return null;
+        }
+        return cacheDirectory.resolve(DigestUtils.sha256Hex(xsdURL) + SCHEMA_FILE_EXTENSION);
+    }
+
+    private static void writeCacheFile(Path cacheFile, byte[] content) {
+
+        if (cacheFile == null) {
+            return;
+        }
+        Path temporaryFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Files.write(temporaryFile, content);
+            Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Error while caching the XML schema in " + cacheFile, e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final String xsdURL;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile CompiledSchema compiledSchema;
+
+        private Entry(String xsdURL) {
+
+            this.xsdURL = xsdURL;
+        }
+    }
+
+    static final class CompiledSchema {
+
+        private final Schema schema;
+        private final byte[] digest;
+        private final ThreadLocal<Validator> validators;
+        private volatile long loadedTime;
+
+        private CompiledSchema(Schema schema, byte[] digest, long loadedTime) {
+
+            this.schema = schema;
+            this.digest = digest;
+            this.validators = ThreadLocal.withInitial(schema::newValidator);
+            this.loadedTime = loadedTime;
+        }
+
+        Schema getSchema() {
+
+            return schema;
+        }
+    }
+}
@@ -28,15 +28,19 @@ import org.wso2.carbon.apimgt.gateway.threatprotection.configuration.XMLConfig;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 
 /**
- * Implementation of APIMThreatAnalyzer for JSON Payloads
+ * Implementation of APIMThreatAnalyzer for JSON Payloads. The payload is parsed as bytes, with its encoding detected
+ * by the parser, and the lengths of the keys and string values are checked without creating strings of them.
+ * <p>
+ * An analyzer created with a configuration keeps no state between payloads, so it is shared by the threads analyzing
+ * the payloads of the APIs with that configuration.
  */
 public class JSONAnalyzer implements APIMThreatAnalyzer {
 
     private static final String JSON_THREAT_PROTECTION_MSG_PREFIX = "Threat Protection-JSON: ";
-    private JsonFactory factory;
+    private static final JsonFactory factory = new JsonFactory();
+    private JSONConfig config;
     private boolean enabled = true;
     private int maxFieldCount = 0;
     private int maxStringLength = 0;
@@ -45,13 +49,20 @@ public class JSONAnalyzer implements APIMThreatAnalyzer {
     private int maxJsonDepth = 0;
 
     public JSONAnalyzer() {
-        factory = new JsonFactory();
+    }
+
+    /**
+     * Create a JSONAnalyzer configured with the given configuration values
+     */
+    public JSONAnalyzer(JSONConfig config) {
+        configure(config);
     }
 
     /**
      * Create a JSONAnalyzer using default configuration values
      */
     public void configure(JSONConfig config) {
+        this.config = config;
         enabled = config.isEnabled();
         maxFieldCount = config.getMaxPropertyCount();
         maxStringLength = config.getMaxStringLength();
@@ -65,8 +76,16 @@ public class JSONAnalyzer implements APIMThreatAnalyzer {
         return enabled;
     }
 
+    /**
+     * @return the configuration the analyzer was configured with, or null if it is not configured
+     */
+    public JSONConfig getConfig() {
+        return config;
+    }
+
     @Override
     public void clearConfiguration() {
+        this.config = null;
         this.enabled = true;
         this.maxFieldCount = 0;
         this.maxStringLength = 0;
@@ -81,13 +100,14 @@ public class JSONAnalyzer implements APIMThreatAnalyzer {
     }
 
     /** Analyze the JSON payload against limitations.
-     * @param in input stream of the request payload.
+     * @param in input stream of the request payload. The stream is read by the parser through its own buffer, so it
+     *           does not need to be buffered.
      * @param apiContext request api context.
      * @throws APIMThreatAnalyzerException if defined limits for json payload exceeds
      */
     @Override
     public void analyze(InputStream in, String apiContext) throws APIMThreatAnalyzerException {
-        try (JsonParser parser = factory.createParser(new InputStreamReader(in))) {
+        try (JsonParser parser = factory.createParser(in)) {
             int currentDepth = 0;
             int currentFieldCount = 0;
             JsonToken token;
@@ -104,13 +124,11 @@ public class JSONAnalyzer implements APIMThreatAnalyzer {
 
                     case FIELD_NAME:
                         currentFieldCount += 1;
-                        String name = parser.getCurrentName();
-                        analyzeField(name, maxFieldCount, currentFieldCount, maxFieldLength);
+                        analyzeField(parser.getTextLength(), maxFieldCount, currentFieldCount, maxFieldLength);
                         break;
 
                     case VALUE_STRING:
-                        String value = parser.getText();
-                        analyzeString(value, maxStringLength);
+                        analyzeString(parser.getTextLength(), maxStringLength);
                         break;
 
                     case START_ARRAY:
@@ -141,18 +159,15 @@ public class JSONAnalyzer implements APIMThreatAnalyzer {
     /**
      * Analyzes json fields using defined limits
      *
-     * @param field             value of the json field
+     * @param fieldLength       length of the json field name
      * @param maxFieldCount     maximum number of fields allowed
      * @param currentFieldCount current field count
      * @param maxFieldLength    maximum field length allowed
      * @throws APIMThreatAnalyzerException if current values exceed maximum values
      */
-    private void analyzeField(String field, int maxFieldCount, int currentFieldCount, int maxFieldLength)
+    private void analyzeField(int fieldLength, int maxFieldCount, int currentFieldCount, int maxFieldLength)
             throws APIMThreatAnalyzerException {
-        if (field == null) {
-            return;
-        }
-        if (field.length() > maxFieldLength) {
+        if (fieldLength > maxFieldLength) {
             throw new APIMThreatAnalyzerException(" Max Key Length [" + maxFieldLength + "] Reached");
         }
         if (currentFieldCount > maxFieldCount) {
@@ -163,15 +178,12 @@ public class JSONAnalyzer implements APIMThreatAnalyzer {
     /**
      * Analyzes json string values using defined limits
      *
-     * @param value      value of the string
+     * @param length     length of the string, in characters
      * @param maxLength  maximum string length allowed
      * @throws APIMThreatAnalyzerException if string length is greater than maximum length provided
      */
-    private void analyzeString(String value, int maxLength) throws APIMThreatAnalyzerException {
-        if (value == null) {
-            return;
-        }
-        if (value.length() > maxLength) {
+    private void analyzeString(int length, int maxLength) throws APIMThreatAnalyzerException {
+        if (length > maxLength) {
             throw new APIMThreatAnalyzerException("Max String Length [" + maxLength + "] Reached");
         }
     }
@@ -192,8 +204,7 @@ public class JSONAnalyzer implements APIMThreatAnalyzer {
             while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
                 //analyzing string values inside the array
                 if (token == JsonToken.VALUE_STRING) {
-                    String value = parser.getText();
-                    analyzeString(value, maxStringLength);
+                    analyzeString(parser.getTextLength(), maxStringLength);
                 }
                 arrayElementCount += 1;
                 if (arrayElementCount > maxArrayElementCount) {
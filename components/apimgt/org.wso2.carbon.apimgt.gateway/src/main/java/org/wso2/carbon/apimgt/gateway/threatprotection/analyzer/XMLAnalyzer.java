@@ -36,23 +36,36 @@ import java.io.Reader;
 
 
 /**
- * Implementation of APIMThreatAnalyzer for XML Payloads
+ * Implementation of APIMThreatAnalyzer for XML Payloads.
+ * <p>
+ * An analyzer created with a configuration is not reconfigured, and its input factory is thread-safe once configured,
+ * so it is shared by the threads analyzing the payloads of the APIs with that configuration.
  */
 public class XMLAnalyzer implements APIMThreatAnalyzer {
 
     private Logger log = LoggerFactory.getLogger(XMLAnalyzer.class);
     private static final String XML_THREAT_PROTECTION_MSG_PREFIX = "Threat Protection-XML: ";
     private XMLInputFactory factory;
+    private XMLConfig config;
     private boolean enabled = true;
 
     public XMLAnalyzer() {
         factory = WstxInputFactory.newInstance();
     }
 
+    /**
+     * Create a XMLAnalyzer configured with the given configuration values
+     */
+    public XMLAnalyzer(XMLConfig config) {
+        this();
+        configure(config);
+    }
+
     /**
      * Create a XMLAnalyzer using default configuration values
      */
     public void configure(XMLConfig config) {
+        this.config = config;
         boolean dtdEnabled = config.isDtdEnabled();
         boolean externalEntitiesEnabled = config.isExternalEntitiesEnabled();
         Integer maxDepth = config.getMaxDepth();
@@ -79,8 +92,16 @@ public class XMLAnalyzer implements APIMThreatAnalyzer {
         return enabled;
     }
 
+    /**
+     * @return the configuration the analyzer was configured with, or null if it is not configured
+     */
+    public XMLConfig getConfig() {
+        return config;
+    }
+
     @Override
     public void clearConfiguration() {
+        config = null;
         factory = WstxInputFactory.newInstance();
     }
 
@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.apimgt.gateway.threatprotection.configuration;
 
+import java.util.Objects;
+
 /**
  * Configuration holding class for {@link org.wso2.carbon.apimgt.gateway.threatprotection.analyzer.JSONAnalyzer}
  */
@@ -77,4 +79,27 @@ public class JSONConfig {
     public void setMaxJsonDepth(int maxJsonDepth) {
         this.maxJsonDepth = maxJsonDepth;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        JSONConfig that = (JSONConfig) o;
+        return enabled == that.enabled &&
+                maxPropertyCount == that.maxPropertyCount &&
+                maxStringLength == that.maxStringLength &&
+                maxArrayElementCount == that.maxArrayElementCount &&
+                maxKeyLength == that.maxKeyLength &&
+                maxJsonDepth == that.maxJsonDepth;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, maxPropertyCount, maxStringLength, maxArrayElementCount, maxKeyLength,
+                maxJsonDepth);
+    }
 }
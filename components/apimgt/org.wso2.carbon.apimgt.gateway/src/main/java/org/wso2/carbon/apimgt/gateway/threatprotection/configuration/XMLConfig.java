@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.apimgt.gateway.threatprotection.configuration;
 
+import java.util.Objects;
+
 /**
  * Configuration holding class for {@link org.wso2.carbon.apimgt.gateway.threatprotection.analyzer.XMLAnalyzer}
  */
@@ -95,4 +97,29 @@ public class XMLConfig {
     public void setMaxChildrenPerElement(int maxChildrenPerElement) {
         this.maxChildrenPerElement = maxChildrenPerElement;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        XMLConfig that = (XMLConfig) o;
+        return dtdEnabled == that.dtdEnabled &&
+                externalEntitiesEnabled == that.externalEntitiesEnabled &&
+                maxDepth == that.maxDepth &&
+                maxElementCount == that.maxElementCount &&
+                maxAttributeCount == that.maxAttributeCount &&
+                maxAttributeLength == that.maxAttributeLength &&
+                entityExpansionLimit == that.entityExpansionLimit &&
+                maxChildrenPerElement == that.maxChildrenPerElement;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dtdEnabled, externalEntitiesEnabled, maxDepth, maxElementCount, maxAttributeCount,
+                maxAttributeLength, entityExpansionLimit, maxChildrenPerElement);
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import org.wso2.carbon.apimgt.gateway.dto.IPRange;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable lookup structure compiled from the IP blocking conditions of a tenant. Fixed IP conditions are kept in
+ * hash sets and IP range conditions are merged into a sorted array of disjoint ranges, so that a request is checked
+ * against all the conditions of the tenant with a hash lookup and a binary search.
+ * <p>
+ * As in the IP range conditions evaluated by the gateway so far, both ends of a range are excluded from the range.
+ */
+final class BlockedIpIndex {
+
+    private final Set<String> blockedIps = new HashSet<>();
+    private final Set<String> allowedIps = new HashSet<>();
+    private final BigInteger[] rangeStarts;
+    private final BigInteger[] rangeEnds;
+    private final boolean invertedRangesPresent;
+    private BigInteger invertedRangeStart;
+    private BigInteger invertedRangeEnd;
+
+    BlockedIpIndex(Collection<IPRange> ipRanges) {
+
+        List<BigInteger[]> ranges = new ArrayList<>();
+        boolean invertedRanges = false;
+        for (IPRange ipRange : ipRanges) {
+            if (APIConstants.BLOCKING_CONDITIONS_IP.equals(ipRange.getType())) {
+                if (ipRange.getFixedIp() == null) {
+                    continue;
+                }
+                if (ipRange.isInvert()) {
+                    allowedIps.add(ipRange.getFixedIp());
+                } else {
+                    blockedIps.add(ipRange.getFixedIp());
+                }
+            } else if (APIConstants.BLOCK_CONDITION_IP_RANGE.equals(ipRange.getType())) {
+                BigInteger start = ipRange.getStartingIpBigIntValue();
+                BigInteger end = ipRange.getEndingIpBigIntValue();
+                if (start == null || end == null) {
+                    continue;
+                }
+                if (ipRange.isInvert()) {
+                    // An IP is blocked unless it is within every inverted range, i.e. within their intersection.
+                    if (!invertedRanges || start.compareTo(invertedRangeStart) > 0) {
+                        invertedRangeStart = start;
+                    }
+                    if (!invertedRanges || end.compareTo(invertedRangeEnd) < 0) {
+                        invertedRangeEnd = end;
+                    }
+                    invertedRanges = true;
+                } else if (start.compareTo(end) < 0) {
+                    ranges.add(new BigInteger[]{start, end});
+                }
+            }
+        }
+        this.invertedRangesPresent = invertedRanges;
+
+        ranges.sort(Comparator.comparing(range -> range[0]));
+        List<BigInteger[]> mergedRanges = new ArrayList<>();
+        BigInteger[] current = null;
+        for (BigInteger[] range : ranges) {
+            if (current != null && range[0].compareTo(current[1]) < 0) {
+                if (range[1].compareTo(current[1]) > 0) {
+                    current[1] = range[1];
+                }
+            } else {
+                current = range;
+                mergedRanges.add(current);
+            }
+        }
+        rangeStarts = new BigInteger[mergedRanges.size()];
+        rangeEnds = new BigInteger[mergedRanges.size()];
+        for (int i = 0; i < mergedRanges.size(); i++) {
+            rangeStarts[i] = mergedRanges.get(i)[0];
+            rangeEnds[i] = mergedRanges.get(i)[1];
+        }
+    }
+
+    boolean isBlocked(String ip) {
+
+        if (ip == null) {
+            return false;
+        }
+        if (blockedIps.contains(ip)) {
+            return true;
+        }
+        // An IP different from the IP of an inverted condition is blocked.
+        if (allowedIps.size() > 1 || (allowedIps.size() == 1 && !allowedIps.contains(ip))) {
+            return true;
+        }
+        if (rangeStarts.length == 0 && !invertedRangesPresent) {
+            return false;
+        }
+        BigInteger ipValue = APIUtil.ipToBigInteger(ip);
+        if (invertedRangesPresent && !(ipValue.compareTo(invertedRangeStart) > 0
+                && ipValue.compareTo(invertedRangeEnd) < 0)) {
+            return true;
+        }
+        // Find the last range starting before the IP. Since the ranges are disjoint, only that range can contain it.
+        int index = Arrays.binarySearch(rangeStarts, ipValue);
+        index = index >= 0 ? index - 1 : -index - 2;
+        return index >= 0 && ipValue.compareTo(rangeEnds[index]) < 0;
+    }
+
+    boolean isEmpty() {
+
+        return blockedIps.isEmpty() && allowedIps.isEmpty() && rangeStarts.length == 0 && !invertedRangesPresent;
+    }
+}
@@ -29,7 +29,6 @@ import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.ConditionDto;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 
-import java.math.BigInteger;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -50,6 +49,7 @@ public class ThrottleDataHolder {
     private Map<String, String> blockedApplicationConditionsMap = new ConcurrentHashMap<String, String>();
     private Map<String, String> blockedUserConditionsMap = new ConcurrentHashMap<String, String>();
     private Map<String, Set<IPRange>> blockedIpConditionsMap = new ConcurrentHashMap<>();
+    private Map<String, BlockedIpIndex> blockedIpIndexMap = new ConcurrentHashMap<>();
     private Map<String, String> keyTemplateMap = new ConcurrentHashMap<String, String>();
     private boolean isBlockingConditionsPresent = true;
     private boolean isKeyTemplatesPresent = false;
@@ -153,7 +153,8 @@ public class ThrottleDataHolder {
         blockedUserConditionsMap.put(name, value);
     }
 
-    public void addIpBlockingCondition(String tenantDomain, int conditionId, String value, String type) {
+    public synchronized void addIpBlockingCondition(String tenantDomain, int conditionId, String value,
+                                                    String type) {
 
         Set<IPRange> ipRanges = blockedIpConditionsMap.get(tenantDomain);
         if (ipRanges == null){
@@ -162,6 +163,22 @@ public class ThrottleDataHolder {
 
         ipRanges.add(convertValueToIPRange(tenantDomain, conditionId, value, type));
         blockedIpConditionsMap.put(tenantDomain, ipRanges);
+        updateBlockedIpIndex(tenantDomain);
+    }
+
+    /**
+     * Recompiles the IP blocking conditions of the given tenant. Only the conditions of the tenant whose conditions
+     * changed are recompiled, and request threads keep using the previous index until the new one is published.
+     */
+    private void updateBlockedIpIndex(String tenantDomain) {
+
+        Set<IPRange> ipRanges = blockedIpConditionsMap.get(tenantDomain);
+        BlockedIpIndex blockedIpIndex = ipRanges != null ? new BlockedIpIndex(ipRanges) : null;
+        if (blockedIpIndex == null || blockedIpIndex.isEmpty()) {
+            blockedIpIndexMap.remove(tenantDomain);
+        } else {
+            blockedIpIndexMap.put(tenantDomain, blockedIpIndex);
+        }
     }
 
     private IPRange convertValueToIPRange(String tenantDomain, int conditionId, String value, String type) {
@@ -200,9 +217,12 @@ public class ThrottleDataHolder {
         }
     }
 
-    public void addIplockingConditionsFromMap(Map<String, Set<IPRange>> data) {
+    public synchronized void addIplockingConditionsFromMap(Map<String, Set<IPRange>> data) {
         if(data.size() > 0) {
             blockedIpConditionsMap.putAll(data);
+            for (String tenantDomain : data.keySet()) {
+                updateBlockedIpIndex(tenantDomain);
+            }
         }
     }
 
@@ -231,7 +251,7 @@ public class ThrottleDataHolder {
         blockedUserConditionsMap.remove(name);
     }
 
-    public void removeIpBlockingCondition(String tenantDomain, int conditionId) {
+    public synchronized void removeIpBlockingCondition(String tenantDomain, int conditionId) {
 
         Set<IPRange> ipRanges = blockedIpConditionsMap.get(tenantDomain);
         if (ipRanges != null) {
@@ -243,6 +263,7 @@ public class ThrottleDataHolder {
                     break;
                 }
             }
+            updateBlockedIpIndex(tenantDomain);
         }
     }
 
@@ -282,38 +303,12 @@ public class ThrottleDataHolder {
 
     private boolean isIpLevelBlocked(String apiTenantDomain, String ip) {
 
-        Set<IPRange> ipRanges = blockedIpConditionsMap.get(apiTenantDomain);
-        if (ipRanges != null && ipRanges.size() > 0) {
+        BlockedIpIndex blockedIpIndex = blockedIpIndexMap.get(apiTenantDomain);
+        if (blockedIpIndex != null) {
             log.debug("Tenant " + apiTenantDomain + " contains block conditions");
-            for (IPRange ipRange : ipRanges) {
-                if (APIConstants.BLOCKING_CONDITIONS_IP.equals(ipRange.getType())) {
-                    if (ip.equals(ipRange.getFixedIp())) {
-                        if (!ipRange.isInvert()) {
-                            log.debug("Block IP selected for Blocked");
-                            return true;
-                        }
-                    } else {
-                        if (ipRange.isInvert()) {
-                            log.debug("Block IP selected for Blocked");
-                            return true;
-                        }
-                    }
-                } else if (APIConstants.BLOCK_CONDITION_IP_RANGE.equals(ipRange.getType())) {
-                    BigInteger ipBigIntegerValue = APIUtil.ipToBigInteger(ip);
-
-                    if (((ipBigIntegerValue.compareTo(ipRange.getStartingIpBigIntValue()) > 0) &&
-                            (ipBigIntegerValue.compareTo(ipRange.getEndingIpBigIntValue()) < 0))) {
-                        if (!ipRange.isInvert()) {
-                            log.debug("Block IPRange selected for Blocked");
-                            return true;
-                        }
-                    } else {
-                        if (ipRange.isInvert()) {
-                            log.debug("Block IPRange selected for Blocked");
-                            return true;
-                        }
-                    }
-                }
+            if (blockedIpIndex.isBlocked(ip)) {
+                log.debug("Block IP selected for Blocked");
+                return true;
             }
         }
         return false;
@@ -10,10 +10,14 @@ import org.apache.synapse.MessageContext;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.transport.passthru.util.RelayUtils;
 import org.json.simple.JSONObject;
+import org.wso2.carbon.apimgt.api.dto.ConditionDTO;
+import org.wso2.carbon.apimgt.api.dto.ConditionGroupDTO;
+import org.wso2.carbon.apimgt.api.model.policy.PolicyConstants;
 import org.wso2.carbon.apimgt.common.gateway.util.JWTUtil;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
 import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
 import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
@@ -28,8 +32,8 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.xml.stream.XMLStreamException;
 
@@ -64,8 +68,13 @@ public class DataProcessAndPublishingAgent implements Runnable {
     String apiName;
     String appId;
     String ipAddress;
-    Map<String, String> headersMap;
-    Map<String, Object> customPropertyMap;
+    final Map<String, String> headersMap = new HashMap<>();
+    final Map<String, Object> customPropertyMap = new HashMap<>();
+    /**
+     * Condition groups of the throttle policy applied to the request. When set, only the headers, query parameters
+     * and JWT claims referred by these conditions are published. When null, all of them are published.
+     */
+    ConditionGroupDTO[] conditionGroups;
     private AuthenticationContext authenticationContext;
 
     private long messageSizeInBytes;
@@ -98,9 +107,10 @@ public class DataProcessAndPublishingAgent implements Runnable {
         this.appId = null;
         this.apiName = null;
         this.ipAddress = null;
-        this.headersMap = null;
+        this.headersMap.clear();
         this.messageSizeInBytes = 0;
-        this.customPropertyMap = Collections.emptyMap();
+        this.customPropertyMap.clear();
+        this.conditionGroups = null;
     }
 
     /**
@@ -113,6 +123,7 @@ public class DataProcessAndPublishingAgent implements Runnable {
                                  String authorizedUser, String apiContext, String apiVersion, String appTenant,
                                  String apiTenant, String appId, MessageContext messageContext,
                                  AuthenticationContext authenticationContext) {
+        String requestKey = resourceLevelThrottleKey;
         if (!StringUtils.isEmpty(apiLevelTier)) {
             resourceLevelTier = apiLevelTier;
             resourceLevelThrottleKey = apiLevelThrottleKey;
@@ -138,8 +149,11 @@ public class DataProcessAndPublishingAgent implements Runnable {
         ArrayList<VerbInfoDTO> list = (ArrayList<VerbInfoDTO>) messageContext.getProperty(APIConstants.VERB_INFO_DTO);
         boolean isVerbInfoContentAware = false;
         if (list != null && !list.isEmpty()) {
-            VerbInfoDTO verbInfoDTO = list.get(0);
-            isVerbInfoContentAware = verbInfoDTO.isContentAware();
+            isVerbInfoContentAware = list.get(0).isContentAware();
+            VerbInfoDTO verbInfoDTO = getPublishedVerbInfo(list, requestKey);
+            if (verbInfoDTO != null) {
+                this.conditionGroups = getPublishedConditionGroups(verbInfoDTO, apiLevelTier);
+            }
         }
         //Build the message if needed from here since it cannot be done from the run() method because content 
         //in axis2MessageContext is modified.
@@ -147,17 +161,30 @@ public class DataProcessAndPublishingAgent implements Runnable {
                 .getAxis2MessageContext();
         Map<String, String> transportHeaderMap = (Map<String, String>) axis2MessageContext
                 .getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
-        if (transportHeaderMap != null) {
-            this.headersMap = new HashMap<>(transportHeaderMap);
+        //Headers are copied here since the transport headers can be modified by the mediation flow.
+        if (transportHeaderMap != null && getThrottleProperties().isEnableHeaderConditions()) {
+            if (conditionGroups == null) {
+                this.headersMap.putAll(transportHeaderMap);
+            } else {
+                for (ConditionGroupDTO conditionGroup : conditionGroups) {
+                    if (conditionGroup.getConditions() == null) {
+                        continue;
+                    }
+                    for (ConditionDTO condition : conditionGroup.getConditions()) {
+                        if (PolicyConstants.HEADER_TYPE.equals(condition.getConditionType())) {
+                            String headerValue = transportHeaderMap.get(condition.getConditionName());
+                            if (headerValue != null) {
+                                this.headersMap.put(condition.getConditionName(), headerValue);
+                            }
+                        }
+                    }
+                }
+            }
         }
 
-        if (messageContext.getProperty(APIThrottleConstants.CUSTOM_PROPERTY) != null) {
-            HashMap<String, Object> propertyFromMsgCtx = (HashMap<String, Object>) messageContext.getProperty(
-                    APIThrottleConstants.CUSTOM_PROPERTY);
-
-            if (propertyFromMsgCtx != null) {
-                this.customPropertyMap = (Map<String, Object>) propertyFromMsgCtx.clone();
-            }
+        Object propertyFromMsgCtx = messageContext.getProperty(APIThrottleConstants.CUSTOM_PROPERTY);
+        if (propertyFromMsgCtx != null) {
+            this.customPropertyMap.putAll((Map<String, Object>) propertyFromMsgCtx);
         }
 
         this.ipAddress = GatewayUtils.getIp(axis2MessageContext);
@@ -194,6 +221,13 @@ public class DataProcessAndPublishingAgent implements Runnable {
     }
 
     public void run() {
+        dataPublisher.tryPublish(createEvent());
+    }
+
+    /**
+     * Creates the throttle event of the request referenced by this agent.
+     */
+    public org.wso2.carbon.databridge.commons.Event createEvent() {
         JSONObject jsonObMap = new JSONObject();
         org.apache.axis2.context.MessageContext axis2MessageContext = ((Axis2MessageContext) messageContext)
                 .getAxis2MessageContext();
@@ -221,31 +255,26 @@ public class DataProcessAndPublishingAgent implements Runnable {
         }
 
         //HeaderMap will only be set if the Header Publishing has been enabled.
-        if (getThrottleProperties().isEnableHeaderConditions()) {
-            if (this.headersMap != null) {
-                jsonObMap.putAll(this.headersMap);
-            }
-        }
+        jsonObMap.putAll(this.headersMap);
         //adding any custom property if available to stream's property map
-        if (this.customPropertyMap != null) {
-            jsonObMap.putAll(this.customPropertyMap);
-        }
+        jsonObMap.putAll(this.customPropertyMap);
 
         //Setting query parameters
-        if (getThrottleProperties().isEnableQueryParamConditions()) {
+        if (getThrottleProperties().isEnableQueryParamConditions()
+                && isConditionPresent(PolicyConstants.QUERY_PARAMETER_TYPE)) {
             Map<String, String> queryParams = GatewayUtils.getQueryParams(axis2MessageContext);
             if (queryParams != null) {
-                jsonObMap.putAll(queryParams);
+                putProperties(jsonObMap, queryParams, PolicyConstants.QUERY_PARAMETER_TYPE);
             }
 
         }
 
         //Publish jwt claims
-        if (getThrottleProperties().isEnableJwtConditions()) {
+        if (getThrottleProperties().isEnableJwtConditions() && isConditionPresent(PolicyConstants.JWT_CLAIMS_TYPE)) {
             if (authenticationContext.getCallerToken() != null) {
                 Map<String, String> assertions = JWTUtil.getJWTClaims(authenticationContext.getCallerToken());
                 if (assertions != null) {
-                    jsonObMap.putAll(assertions);
+                    putProperties(jsonObMap, assertions, PolicyConstants.JWT_CLAIMS_TYPE);
                 }
             }
         }
@@ -283,9 +312,93 @@ public class DataProcessAndPublishingAgent implements Runnable {
                                         this.resourceLevelThrottleKey, this.resourceLevelTier,
                                         this.authorizedUser, this.apiContext, this.apiVersion,
                                         this.appTenant, this.apiTenant, this.appId, this.apiName, jsonObMap.toString()};
-        org.wso2.carbon.databridge.commons.Event event = new org.wso2.carbon.databridge.commons.Event(streamID,
-                                                                                                      System.currentTimeMillis(), null, null, objects);
-        dataPublisher.tryPublish(event);
+        return new org.wso2.carbon.databridge.commons.Event(streamID, System.currentTimeMillis(), null, null,
+                                                            objects);
+    }
+
+    /**
+     * Returns the verb the event is published for. A GraphQL request with several operations carries a verb for each
+     * operation, and an event is published for each of them with the request key of the verb as the resource key.
+     * Returns null if the verb of the event cannot be identified.
+     */
+    private static VerbInfoDTO getPublishedVerbInfo(List<VerbInfoDTO> verbInfoDTOs, String requestKey) {
+
+        if (verbInfoDTOs.size() == 1) {
+            return verbInfoDTOs.get(0);
+        }
+        for (VerbInfoDTO verbInfoDTO : verbInfoDTOs) {
+            if (verbInfoDTO.getRequestKey() != null && verbInfoDTO.getRequestKey().equals(requestKey)) {
+                return verbInfoDTO;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the condition groups of the throttle policy applied to the request, if the properties published with
+     * the event can be limited to the ones referred by those conditions. Returns null if all properties have to be
+     * published, i.e. when the conditions of the applied policy are not known or custom throttle policies, which can
+     * refer any property, are deployed.
+     */
+    private ConditionGroupDTO[] getPublishedConditionGroups(VerbInfoDTO verbInfoDTO, String apiLevelTier) {
+
+        ConditionGroupDTO[] verbConditionGroups = verbInfoDTO.getConditionGroups();
+        if (verbConditionGroups == null) {
+            return null;
+        }
+        // Conditions of an API level policy other than the one of the resource are not known.
+        if (!StringUtils.isEmpty(apiLevelTier) && !APIConstants.UNLIMITED_TIER.equalsIgnoreCase(apiLevelTier)
+                && !apiLevelTier.equals(verbInfoDTO.getThrottling())) {
+            return null;
+        }
+        ThrottleDataHolder throttleDataHolder = getThrottleDataHolder();
+        if (throttleDataHolder == null || throttleDataHolder.isKeyTemplatesPresent()) {
+            return null;
+        }
+        return verbConditionGroups;
+    }
+
+    private boolean isConditionPresent(String conditionType) {
+
+        if (conditionGroups == null) {
+            return true;
+        }
+        for (ConditionGroupDTO conditionGroup : conditionGroups) {
+            if (conditionGroup.getConditions() == null) {
+                continue;
+            }
+            for (ConditionDTO condition : conditionGroup.getConditions()) {
+                if (conditionType.equals(condition.getConditionType())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the given properties to the property map of the event. If the conditions of the applied policy are known,
+     * only the properties referred by the conditions of the given type are added.
+     */
+    private void putProperties(JSONObject jsonObMap, Map<String, String> properties, String conditionType) {
+
+        if (conditionGroups == null) {
+            jsonObMap.putAll(properties);
+            return;
+        }
+        for (ConditionGroupDTO conditionGroup : conditionGroups) {
+            if (conditionGroup.getConditions() == null) {
+                continue;
+            }
+            for (ConditionDTO condition : conditionGroup.getConditions()) {
+                if (conditionType.equals(condition.getConditionType())) {
+                    String value = properties.get(condition.getConditionName());
+                    if (value != null) {
+                        jsonObMap.put(condition.getConditionName(), value);
+                    }
+                }
+            }
+        }
     }
 
     protected void buildMessage(org.apache.axis2.context.MessageContext axis2MessageContext) throws IOException,
@@ -299,4 +412,8 @@ public class DataProcessAndPublishingAgent implements Runnable {
     protected DataPublisher getDataPublisher() {
         return ThrottleDataPublisher.getDataPublisher();
     }
+
+    protected ThrottleDataHolder getThrottleDataHolder() {
+        return ServiceReferenceHolder.getInstance().getThrottleDataHolder();
+    }
 }
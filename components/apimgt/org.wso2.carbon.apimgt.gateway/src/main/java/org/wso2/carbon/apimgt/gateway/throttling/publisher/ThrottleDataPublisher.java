@@ -30,14 +30,13 @@ import org.wso2.carbon.databridge.agent.exception.DataEndpointAgentConfiguration
 import org.wso2.carbon.databridge.agent.exception.DataEndpointAuthenticationException;
 import org.wso2.carbon.databridge.agent.exception.DataEndpointConfigurationException;
 import org.wso2.carbon.databridge.agent.exception.DataEndpointException;
+import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.exception.TransportException;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
 /**
  * Throttle data publisher class is here to publish throttle data to global policy engine.
@@ -55,11 +54,11 @@ public class ThrottleDataPublisher {
 
     private static volatile DataPublisher dataPublisher = null;
 
-    Executor executor;
+    ThrottleEventPipeline<DataProcessAndPublishingAgent> eventPipeline;
 
     /**
-     * This method will initialize throttle data publisher. Inside this we will start executor and initialize data
-     * publisher which we used to publish throttle data.
+     * This method will initialize throttle data publisher. Inside this we will initialize data publisher which we
+     * used to publish throttle data and start the bounded event pipeline which feeds it.
      */
     public ThrottleDataPublisher() {
         ThrottleProperties throttleProperties = ServiceReferenceHolder.getInstance().getThrottleProperties();
@@ -72,17 +71,19 @@ public class ThrottleDataPublisher {
                         .getInstance().getThrottleProperties().getDataPublisherThreadPool();
 
                 try {
-                    executor = new DataPublisherThreadPoolExecutor(dataPublisherThreadPoolConfiguration.getCorePoolSize(),
-                            dataPublisherThreadPoolConfiguration.getMaximumPoolSize(), dataPublisherThreadPoolConfiguration
-                            .getKeepAliveTime(),
-                            TimeUnit
-                                    .SECONDS,
-                            new LinkedBlockingDeque<Runnable>() {
-                            });
                     dataPublisher = new DataPublisher(dataPublisherConfiguration.getType(), dataPublisherConfiguration
                             .getReceiverUrlGroup(), dataPublisherConfiguration.getAuthUrlGroup(), dataPublisherConfiguration
                             .getUsername(),
                             dataPublisherConfiguration.getPassword());
+                    eventPipeline = new ThrottleEventPipeline<>("ThrottleDataPublisher",
+                            dataPublisherThreadPoolConfiguration.getQueueSize(),
+                            ThrottleEventPipeline.OverflowPolicy.fromString(
+                                    dataPublisherThreadPoolConfiguration.getOverflowPolicy()),
+                            dataPublisherThreadPoolConfiguration.getSampleRate(),
+                            dataPublisherThreadPoolConfiguration.getConsumerCount(),
+                            dataPublisherThreadPoolConfiguration.getBatchSize(), this::publishBatch,
+                            this::releaseAgent);
+                    eventPipeline.registerMetrics();
 
                 } catch (DataEndpointAgentConfigurationException e) {
                     log.error("Error in initializing binary data-publisher to send requests to global throttling engine " +
@@ -118,7 +119,7 @@ public class ThrottleDataPublisher {
             String appId, MessageContext messageContext,
             AuthenticationContext authenticationContext) {
         try {
-            if (dataPublisherPool != null) {
+            if (dataPublisherPool != null && eventPipeline != null) {
                 DataProcessAndPublishingAgent agent = dataPublisherPool.get();
                 agent.setDataReference(applicationLevelThrottleKey, applicationLevelTier,
                         apiLevelThrottleKey, apiLevelTier,
@@ -131,7 +132,7 @@ public class ThrottleDataPublisher {
                             + " with ID: " + messageContext.getMessageID() + " started" + " at "
                             + new SimpleDateFormat("[yyyy.MM.dd HH:mm:ss,SSS zzz]").format(new Date()));
                 }
-                executor.execute(agent);
+                eventPipeline.publish(agent);
                 if (log.isDebugEnabled()) {
                     log.debug("Publishing throttle data from gateway to traffic-manager for: " + apiContext
                             + " with ID: " + messageContext.getMessageID() + " ended" + " at "
@@ -146,32 +147,39 @@ public class ThrottleDataPublisher {
     }
 
     /**
-     * This class will act as thread pool executor and after executing each thread it will return runnable
-     * object back to pool. This implementation specifically used to minimize number of objectes created during
-     * runtime. In this queuing strategy the submitted task will wait in the queue if the corePoolsize theads are
-     * busy and the task will be allocated if any of the threads become idle.Thus ThreadPool will always have number
-     * of threads running  as mentioned in the corePoolSize.
-     * LinkedBlockingQueue without the capacity can be used for this queuing strategy.If the corePoolsize of the
-     * threadpool is less and there are more number of time consuming task were submitted,there is more possibility
-     * that the task has to wait in the queue for more time before it is run by any of the ideal thread.
-     * So tuning core pool size is something we need to tune properly.
-     * Also no task will be rejected in Threadpool until the threadpool was shutdown.
+     * Creates the events of a batch of agents drained from the event pipeline and publishes them to the traffic
+     * manager. Agents are returned to the pool as soon as their event is created.
      */
-    private class DataPublisherThreadPoolExecutor extends ThreadPoolExecutor {
-        public DataPublisherThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime,
-                                               TimeUnit unit, LinkedBlockingDeque<Runnable> workQueue) {
-            super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue);
-        }
-
-        protected void afterExecute(java.lang.Runnable r, java.lang.Throwable t) {
+    private void publishBatch(List<DataProcessAndPublishingAgent> agents) {
+        List<Event> events = new ArrayList<>(agents.size());
+        for (DataProcessAndPublishingAgent agent : agents) {
             try {
-                DataProcessAndPublishingAgent agent = (DataProcessAndPublishingAgent) r;
-                //agent.setDataReference(null);
-                ThrottleDataPublisher.dataPublisherPool.release(agent);
+                events.add(agent.createEvent());
             } catch (Exception e) {
-                log.error("Error while returning Throttle data publishing agent back to pool" + e.getMessage());
+                log.error("Error while creating throttle event to publish to global policy server", e);
+            } finally {
+                releaseAgent(agent);
+            }
+        }
+        for (Event event : events) {
+            if (!dataPublisher.tryPublish(event) && log.isDebugEnabled()) {
+                log.debug("Throttle event " + event.getPayloadData()[0] + " was not accepted by the data publisher");
             }
         }
     }
-}
 
+    private void releaseAgent(DataProcessAndPublishingAgent agent) {
+        try {
+            ThrottleDataPublisher.dataPublisherPool.release(agent);
+        } catch (Exception e) {
+            log.error("Error while returning Throttle data publishing agent back to pool" + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the event pipeline of the publisher, which holds the queue depth, drop and publish latency counters.
+     */
+    public ThrottleEventPipeline<DataProcessAndPublishingAgent> getEventPipeline() {
+        return eventPipeline;
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.publisher;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.metrics.manager.Gauge;
+import org.wso2.carbon.metrics.manager.Level;
+import org.wso2.carbon.metrics.manager.MetricManager;
+import org.wso2.carbon.metrics.manager.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pipeline which hands the throttle events of the request threads over to a fixed set of consumer threads.
+ * Events are kept in a fixed size ring buffer, hence the memory held by the pipeline does not grow when the traffic
+ * manager slows down. When the buffer is full, events are shed according to the configured {@link OverflowPolicy}.
+ * Consumers drain the buffer in batches and hand each batch over to the {@link BatchHandler}.
+ * <p>
+ * Every policy sheds events, hence the traffic manager under-counts the requests served by the gateway while the
+ * buffer is full and throttle limits are enforced later than configured. Dropped events are counted in the
+ * DROPPED_EVENTS metric and reported by a rate limited warning, so that the buffer can be sized for the traffic.
+ *
+ * @param <T> type of the events
+ */
+public class ThrottleEventPipeline<T> {
+
+    private static final Log log = LogFactory.getLog(ThrottleEventPipeline.class);
+    private static final long DROP_WARN_INTERVAL_MILLIS = 60000;
+
+    /**
+     * Policy applied to an event published when the buffer is full. Every policy drops events, which are then not
+     * counted by the traffic manager.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drops the oldest buffered event to make room for the new event.
+         */
+        DROP_OLDEST,
+        /**
+         * Drops the new event. This is the default policy.
+         */
+        DROP_NEWEST,
+        /**
+         * Once the buffer is half full, only one in every sample rate events is buffered. New events are dropped when
+         * the buffer is full.
+         */
+        SAMPLE;
+
+        /**
+         * @param policy name of the policy
+         * @return the policy of the given name, or {@link #DROP_NEWEST} if the name is empty or unknown
+         */
+        public static OverflowPolicy fromString(String policy) {
+
+            if (policy == null || policy.trim().isEmpty()) {
+                return DROP_NEWEST;
+            }
+            try {
+                return OverflowPolicy.valueOf(policy.trim().toUpperCase(Locale.ENGLISH).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown throttle event overflow policy : " + policy + ". Using " + DROP_NEWEST);
+                return DROP_NEWEST;
+            }
+        }
+    }
+
+    /**
+     * Processes a batch of events drained from the pipeline.
+     */
+    public interface BatchHandler<T> {
+
+        void handle(List<T> batch);
+    }
+
+    /**
+     * Releases the resources of an event dropped by the pipeline.
+     */
+    public interface DropHandler<T> {
+
+        void dropped(T event);
+    }
+
+    private final ArrayBlockingQueue<T> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final int sampleThreshold;
+    private final int batchSize;
+    private final BatchHandler<T> batchHandler;
+    private final DropHandler<T> dropHandler;
+    private final String name;
+    private final Thread[] consumers;
+    private volatile boolean running = true;
+    private volatile Timer publishTimer;
+
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final LongAdder publishedEvents = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder publishedBatches = new LongAdder();
+    private final LongAdder totalPublishLatency = new LongAdder();
+    private final AtomicLong maxPublishLatency = new AtomicLong();
+    private final AtomicLong droppedSinceWarning = new AtomicLong();
+    private final AtomicLong lastDropWarningTime = new AtomicLong();
+
+    public ThrottleEventPipeline(String name, int capacity, OverflowPolicy overflowPolicy, int sampleRate,
+                                 int consumerCount, int batchSize, BatchHandler<T> batchHandler,
+                                 DropHandler<T> dropHandler) {
+
+        this.name = name;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.sampleThreshold = Math.max(1, capacity / 2);
+        this.batchSize = Math.max(1, batchSize);
+        this.batchHandler = batchHandler;
+        this.dropHandler = dropHandler;
+        this.consumers = new Thread[Math.max(1, consumerCount)];
+        for (int i = 0; i < consumers.length; i++) {
+            consumers[i] = new Thread(this::consume, name + "-" + i);
+            consumers[i].setDaemon(true);
+            consumers[i].start();
+        }
+    }
+
+    /**
+     * Adds an event to the pipeline without blocking the calling thread.
+     *
+     * @param event event to be published
+     * @return true if the event was buffered, false if it was dropped
+     */
+    public boolean publish(T event) {
+
+        if (!running) {
+            drop(event);
+            return false;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                while (!buffer.offer(event)) {
+                    T oldest = buffer.poll();
+                    if (oldest != null) {
+                        drop(oldest);
+                    }
+                }
+                return true;
+            case SAMPLE:
+                if (buffer.size() < sampleThreshold || sampleCounter.incrementAndGet() % sampleRate == 0) {
+                    if (buffer.offer(event)) {
+                        return true;
+                    }
+                }
+                break;
+            default:
+                if (buffer.offer(event)) {
+                    return true;
+                }
+                break;
+        }
+        drop(event);
+        return false;
+    }
+
+    /**
+     * Registers the counters of the pipeline with the gateway metrics.
+     */
+    public void registerMetrics() {
+
+        registerGauge("QUEUE_DEPTH", this::getQueueDepth);
+        registerGauge("PUBLISHED_EVENTS", this::getPublishedEventCount);
+        registerGauge("DROPPED_EVENTS", this::getDroppedEventCount);
+        registerGauge("PUBLISHED_BATCHES", this::getPublishedBatchCount);
+        publishTimer = MetricManager.timer(Level.INFO, MetricManager.name(APIConstants.METRICS_PREFIX, name,
+                "PUBLISH_LATENCY"));
+    }
+
+    private <V> void registerGauge(String metricName, Gauge<V> gauge) {
+
+        MetricManager.gauge(Level.INFO, MetricManager.name(APIConstants.METRICS_PREFIX, name, metricName), gauge);
+    }
+
+    /**
+     * Stops the consumers. Events buffered at the time of the shutdown are dropped.
+     */
+    public void shutdown() {
+
+        running = false;
+        for (Thread consumer : consumers) {
+            consumer.interrupt();
+        }
+        T event;
+        while ((event = buffer.poll()) != null) {
+            drop(event);
+        }
+    }
+
+    private void consume() {
+
+        List<T> batch = new ArrayList<>(batchSize);
+        while (running) {
+            boolean handedOver = false;
+            try {
+                T first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                if (!running) {
+                    // Events drained while the pipeline is shut down are released by the finally block
+                    break;
+                }
+                long startTime = System.nanoTime();
+                handedOver = true;
+                batchHandler.handle(batch);
+                long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+                publishedBatches.increment();
+                publishedEvents.add(batch.size());
+                totalPublishLatency.add(latency);
+                maxPublishLatency.accumulateAndGet(latency, Math::max);
+                Timer timer = publishTimer;
+                if (timer != null) {
+                    timer.update(latency, TimeUnit.MICROSECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Error while publishing batch of " + batch.size() + " throttle events", e);
+            } finally {
+                if (!handedOver) {
+                    for (T event : batch) {
+                        drop(event);
+                    }
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void drop(T event) {
+
+        droppedEvents.increment();
+        droppedSinceWarning.incrementAndGet();
+        long now = System.currentTimeMillis();
+        long lastWarningTime = lastDropWarningTime.get();
+        if (now - lastWarningTime >= DROP_WARN_INTERVAL_MILLIS
+                && lastDropWarningTime.compareAndSet(lastWarningTime, now)) {
+            log.warn(droppedSinceWarning.getAndSet(0) + " throttle events were dropped by " + name
+                    + " as the throttle event pipeline is full or shut down. Dropped events are not counted by the "
+                    + "traffic manager. Overflow policy : " + overflowPolicy + ", capacity : " + getCapacity());
+        }
+        try {
+            dropHandler.dropped(event);
+        } catch (RuntimeException e) {
+            log.error("Error while releasing dropped throttle event", e);
+        }
+    }
+
+    public int getQueueDepth() {
+
+        return buffer.size();
+    }
+
+    public int getCapacity() {
+
+        return buffer.size() + buffer.remainingCapacity();
+    }
+
+    public long getPublishedEventCount() {
+
+        return publishedEvents.sum();
+    }
+
+    public long getDroppedEventCount() {
+
+        return droppedEvents.sum();
+    }
+
+    public long getPublishedBatchCount() {
+
+        return publishedBatches.sum();
+    }
+
+    /**
+     * @return total time in microseconds spent by the consumers publishing batches
+     */
+    public long getTotalPublishLatency() {
+
+        return totalPublishLatency.sum();
+    }
+
+    /**
+     * @return maximum time in microseconds spent by a consumer publishing a batch
+     */
+    public long getMaxPublishLatency() {
+
+        return maxPublishLatency.get();
+    }
+}
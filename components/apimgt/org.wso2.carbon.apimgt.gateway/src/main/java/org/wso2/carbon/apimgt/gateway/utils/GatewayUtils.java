@@ -62,12 +62,14 @@ import org.wso2.carbon.apimgt.gateway.handlers.security.APIKeyValidator;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityConstants;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityException;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
+import org.wso2.carbon.apimgt.gateway.handlers.security.TokenValidationCoalescer;
 import org.wso2.carbon.apimgt.gateway.inbound.InboundMessageContext;
 import org.wso2.carbon.apimgt.gateway.internal.DataHolder;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.gateway.threatprotection.utils.ThreatProtectorConstants;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
+import org.wso2.carbon.apimgt.impl.caching.CacheProvider;
 import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
 import org.wso2.carbon.apimgt.impl.dto.GatewayArtifactSynchronizerProperties;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
@@ -108,6 +110,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -466,10 +469,12 @@ public class GatewayUtils {
                     byteArrayOutputStream.write(buffer, 0, length);
                 }
                 byteArrayOutputStream.flush();
-                inputStreamSchema = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
-                inputStreamXml = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
-                inputStreamOriginal = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
-                inputStreamJSON = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+                // The streams only read the payload, so they share a single copy of it
+                byte[] payload = byteArrayOutputStream.toByteArray();
+                inputStreamSchema = new ByteArrayInputStream(payload);
+                inputStreamXml = new ByteArrayInputStream(payload);
+                inputStreamOriginal = new ByteArrayInputStream(payload);
+                inputStreamJSON = new ByteArrayInputStream(payload);
             } else {
                 String payload;
                 if (ThreatProtectorConstants.APPLICATION_JSON.equals(contentType)) {
@@ -1086,6 +1091,42 @@ public class GatewayUtils {
         return true;
     }
 
+    /**
+     * Creates a coalescer for the validations of the tokens cached in the Gateway token cache, which refreshes the
+     * validations ahead of the cache expiry if it is enabled.
+     *
+     * @param name name under which the counters of the coalescer are registered with the gateway metrics
+     * @param <T>  type of the validation result
+     * @return the token validation coalescer
+     */
+    public static <T> TokenValidationCoalescer<T> createTokenValidationCoalescer(String name) {
+
+        TokenValidationCoalescer<T> coalescer = createTokenValidationCoalescer();
+        coalescer.registerMetrics(name);
+        return coalescer;
+    }
+
+    private static <T> TokenValidationCoalescer<T> createTokenValidationCoalescer() {
+
+        try {
+            APIManagerConfiguration config = ServiceReferenceHolder.getInstance().getAPIManagerConfiguration();
+            if (config != null
+                    && Boolean.parseBoolean(config.getFirstProperty(APIConstants.TOKEN_CACHE_REFRESH_AHEAD_ENABLED))) {
+                String cacheExpiry = config.getFirstProperty(APIConstants.TOKEN_CACHE_EXPIRY);
+                String refreshAheadTime = config.getFirstProperty(APIConstants.TOKEN_CACHE_REFRESH_AHEAD_TIME);
+                long cacheExpiryInSeconds = cacheExpiry != null ? Long.parseLong(cacheExpiry)
+                        : CacheProvider.getDefaultCacheTimeout();
+                long refreshAheadTimeInSeconds = refreshAheadTime != null ? Long.parseLong(refreshAheadTime)
+                        : APIConstants.DEFAULT_TOKEN_CACHE_REFRESH_AHEAD_TIME;
+                return new TokenValidationCoalescer<>(TimeUnit.SECONDS.toMillis(cacheExpiryInSeconds),
+                        TimeUnit.SECONDS.toMillis(refreshAheadTimeInSeconds), null);
+            }
+        } catch (Exception e) {
+            log.error("Did not find valid token cache refresh ahead configuration. Refresh ahead is disabled.", e);
+        }
+        return new TokenValidationCoalescer<>();
+    }
+
     public static boolean isAPIKeySubscriptionValidationEnabled() {
         try {
             APIManagerConfiguration config = ServiceReferenceHolder.getInstance().getAPIManagerConfiguration();
@@ -1694,6 +1735,10 @@ public class GatewayUtils {
         return DataHolder.getInstance().isAllGatewayPoliciesDeployed();
     }
 
+    public static String getAPIDeploymentProgress() {
+        return DataHolder.getInstance().getAPIDeploymentProgress().toString();
+    }
+
     public static List<String> getKeyManagers(org.apache.synapse.MessageContext messageContext) {
 
         API api = getAPI(messageContext);
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ArtifactDeploymentPipelineTest {
+
+    @Test
+    public void testArtifactsAreDeployedInRetrievalOrderOnCallingThread() {
+
+        Set<String> preparingThreads = ConcurrentHashMap.newKeySet();
+        List<String> deployedArtifacts = new ArrayList<>();
+        Thread callingThread = Thread.currentThread();
+        try (ArtifactDeploymentPipeline<String> pipeline = new ArtifactDeploymentPipeline<>(4, artifact -> {
+            preparingThreads.add(Thread.currentThread().getName());
+            // Artifacts which are retrieved earlier take longer to prepare
+            if (artifact.endsWith("0")) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "prepared-" + artifact;
+        }, preparedArtifact -> {
+            Assert.assertSame(callingThread, Thread.currentThread());
+            deployedArtifacts.add(preparedArtifact);
+        })) {
+            for (int i = 0; i < 100; i++) {
+                pipeline.accept("api-" + i);
+                Assert.assertTrue(pipeline.getPendingArtifactCount() <= 16);
+            }
+            pipeline.deployPendingArtifacts();
+            Assert.assertEquals(0, pipeline.getPendingArtifactCount());
+        }
+        Assert.assertEquals(100, deployedArtifacts.size());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals("prepared-api-" + i, deployedArtifacts.get(i));
+        }
+        Assert.assertFalse(preparingThreads.contains(callingThread.getName()));
+    }
+
+    @Test
+    public void testArtifactsArePreparedOnCallingThreadWithSingleThread() {
+
+        List<String> deployedArtifacts = new ArrayList<>();
+        try (ArtifactDeploymentPipeline<String> pipeline = new ArtifactDeploymentPipeline<>(1,
+                artifact -> Thread.currentThread().getName(), deployedArtifacts::add)) {
+            pipeline.accept("api");
+            Assert.assertEquals(0, pipeline.getPendingArtifactCount());
+        }
+        Assert.assertEquals(Collections.singletonList(Thread.currentThread().getName()), deployedArtifacts);
+    }
+
+    @Test
+    public void testPreparationFailureIsPropagated() {
+
+        List<String> deployedArtifacts = new ArrayList<>();
+        try (ArtifactDeploymentPipeline<String> pipeline = new ArtifactDeploymentPipeline<>(2, artifact -> {
+            if ("invalid".equals(artifact)) {
+                throw new IllegalArgumentException("Invalid artifact");
+            }
+            return artifact;
+        }, deployedArtifacts::add)) {
+            pipeline.accept("api");
+            pipeline.accept("invalid");
+            pipeline.deployPendingArtifacts();
+            Assert.fail("Preparation failure is not propagated");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Invalid artifact", e.getMessage());
+        }
+        Assert.assertEquals(Collections.singletonList("api"), deployedArtifacts);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class GatewayArtifactSnapshotTest {
+
+    private static final String TENANT = "carbon.super";
+    private static final String LABELS = "Default|External";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSnapshotIsRestoredFromFile() throws Exception {
+
+        Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("snapshots").resolve(TENANT + ".snapshot");
+        GatewayArtifactSnapshot snapshot = new GatewayArtifactSnapshot(TENANT, LABELS);
+        snapshot.add("api-1", "rev-1", "{\"name\":\"PizzaShack\",\"description\":\"\u00e9\u00e8\"}");
+        snapshot.add("api-2", "rev-1,rev-2", "{\"name\":\"Default\"}");
+        snapshot.add("api-2", "rev-1,rev-2", "{\"name\":\"External\"}");
+        snapshot.write(snapshotFile);
+
+        GatewayArtifactSnapshot restoredSnapshot = GatewayArtifactSnapshot.load(snapshotFile, TENANT, LABELS);
+        Assert.assertNotNull(restoredSnapshot);
+        Assert.assertEquals(2, restoredSnapshot.size());
+        Assert.assertEquals(snapshot.getCreatedTime(), restoredSnapshot.getCreatedTime());
+        Map<String, String> revisions = new HashMap<>();
+        revisions.put("api-1", "rev-1");
+        revisions.put("api-2", "rev-1,rev-2");
+        Assert.assertTrue(restoredSnapshot.getChangedAPIs(revisions).isEmpty());
+        Assert.assertEquals(sorted(snapshot.getUnchangedArtifacts(revisions)),
+                sorted(restoredSnapshot.getUnchangedArtifacts(revisions)));
+
+        // Snapshots taken for other tenants or labels are not used
+        Assert.assertNull(GatewayArtifactSnapshot.load(snapshotFile, "wso2.com", LABELS));
+        Assert.assertNull(GatewayArtifactSnapshot.load(snapshotFile, TENANT, "Default"));
+        Assert.assertNull(GatewayArtifactSnapshot.load(snapshotFile.resolveSibling("missing.snapshot"), TENANT,
+                LABELS));
+    }
+
+    @Test
+    public void testSnapshotFileIsOnlyAccessibleByOwner() throws Exception {
+
+        Path snapshotFile = temporaryFolder.getRoot().toPath().resolve(TENANT + ".snapshot");
+        Files.write(snapshotFile, new byte[0]);
+        GatewayArtifactSnapshot snapshot = new GatewayArtifactSnapshot(TENANT, LABELS);
+        snapshot.add("api-1", "rev-1", "{\"name\":\"PizzaShack\"}");
+        snapshot.write(snapshotFile);
+        if (snapshotFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Assert.assertEquals("rw-------",
+                    PosixFilePermissions.toString(Files.getPosixFilePermissions(snapshotFile)));
+        }
+        Assert.assertNotNull(GatewayArtifactSnapshot.load(snapshotFile, TENANT, LABELS));
+    }
+
+    @Test
+    public void testCorruptedSnapshotIsIgnored() throws Exception {
+
+        Path snapshotFile = temporaryFolder.getRoot().toPath().resolve(TENANT + ".snapshot");
+        GatewayArtifactSnapshot snapshot = new GatewayArtifactSnapshot(TENANT, LABELS);
+        snapshot.add("api-1", "rev-1", "{\"name\":\"PizzaShack\"}");
+        snapshot.write(snapshotFile);
+        byte[] content = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(content, content.length - 5));
+        Assert.assertNull(GatewayArtifactSnapshot.load(snapshotFile, TENANT, LABELS));
+
+        content[7] = (byte) (GatewayArtifactSnapshot.FORMAT_VERSION + 1);
+        Files.write(snapshotFile, content);
+        Assert.assertNull(GatewayArtifactSnapshot.load(snapshotFile, TENANT, LABELS));
+    }
+
+    @Test
+    public void testRestoredArtifactsMatchFullRetrieval() throws Exception {
+
+        // Artifacts in the control plane when the snapshot was taken
+        Map<String, String> previousRevisions = new HashMap<>();
+        Map<String, List<String>> previousArtifacts = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            addArtifact(previousRevisions, previousArtifacts, "api-" + i, "rev-1");
+        }
+        Path snapshotFile = temporaryFolder.getRoot().toPath().resolve(TENANT + ".snapshot");
+        GatewayArtifactSnapshot snapshot = new GatewayArtifactSnapshot(TENANT, LABELS);
+        previousArtifacts.forEach((apiId, artifacts) -> artifacts.forEach(
+                artifact -> snapshot.add(apiId, previousRevisions.get(apiId), artifact)));
+        snapshot.write(snapshotFile);
+
+        // APIs are redeployed, undeployed and deployed while the gateway is down
+        Map<String, String> revisions = new HashMap<>(previousRevisions);
+        Map<String, List<String>> artifacts = new HashMap<>(previousArtifacts);
+        for (int i = 0; i < 10; i++) {
+            addArtifact(revisions, artifacts, "api-" + i, "rev-2");
+        }
+        for (int i = 10; i < 15; i++) {
+            revisions.remove("api-" + i);
+            artifacts.remove("api-" + i);
+        }
+        for (int i = 100; i < 105; i++) {
+            addArtifact(revisions, artifacts, "api-" + i, "rev-1");
+        }
+        List<String> fullRetrieval = new ArrayList<>();
+        artifacts.values().forEach(fullRetrieval::addAll);
+
+        GatewayArtifactSnapshot restoredSnapshot = GatewayArtifactSnapshot.load(snapshotFile, TENANT, LABELS);
+        Assert.assertNotNull(restoredSnapshot);
+        Set<String> changedAPIs = restoredSnapshot.getChangedAPIs(revisions);
+        Assert.assertEquals(15, changedAPIs.size());
+        List<String> restoredArtifacts = new ArrayList<>(restoredSnapshot.getUnchangedArtifacts(revisions));
+        for (String apiId : changedAPIs) {
+            restoredArtifacts.addAll(artifacts.get(apiId));
+        }
+        Assert.assertEquals(sorted(fullRetrieval), sorted(restoredArtifacts));
+    }
+
+    private static void addArtifact(Map<String, String> revisions, Map<String, List<String>> artifacts, String apiId,
+                                    String revision) {
+
+        revisions.put(apiId, revision);
+        artifacts.put(apiId, Collections.singletonList("{\"apiId\":\"" + apiId + "\",\"revision\":\"" + revision
+                + "\"}"));
+    }
+
+    private static List<String> sorted(List<String> artifacts) {
+
+        List<String> sortedArtifacts = new ArrayList<>(artifacts);
+        Collections.sort(sortedArtifacts);
+        return sortedArtifacts;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway;
+
+import org.apache.synapse.commons.throttle.core.CallerConfiguration;
+import org.apache.synapse.commons.throttle.core.CallerContext;
+import org.apache.synapse.commons.throttle.core.RequestContext;
+import org.apache.synapse.commons.throttle.core.ThrottleContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.wso2.carbon.apimgt.impl.dto.RedisConfig;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class HybridThrottleProcessorTest {
+
+    private static final long UNIT_TIME = 60000L;
+
+    private HybridThrottleProcessor processor;
+    private CallerConfiguration configuration;
+    private ThrottleContext throttleContext;
+
+    @Before
+    public void setup() {
+
+        RedisConfig redisConfig = new RedisConfig();
+        redisConfig.setGatewayId("gateway-1");
+        redisConfig.setStripedLocalCountersEnabled(true);
+        // Hits are only kept in the striped local counters and never flushed to Redis by the tests
+        redisConfig.setLocalCounterFlushInterval(Long.MAX_VALUE);
+        redisConfig.setLocalCounterFlushThreshold(Long.MAX_VALUE);
+        processor = new HybridThrottleProcessor(null, redisConfig);
+        configuration = Mockito.mock(CallerConfiguration.class);
+        Mockito.when(configuration.getMaximumRequestPerUnitTime()).thenReturn(Integer.MAX_VALUE);
+        throttleContext = Mockito.mock(ThrottleContext.class);
+    }
+
+    private static CallerContext createCallerContext(String id, long nextTimeWindow) {
+
+        CallerContext callerContext = Mockito.mock(CallerContext.class, Mockito.withSettings().stubOnly());
+        Mockito.when(callerContext.getId()).thenReturn(id);
+        Mockito.when(callerContext.isThrottleParamSyncingModeSync()).thenReturn(true);
+        Mockito.when(callerContext.getNextTimeWindow()).thenReturn(nextTimeWindow);
+        return callerContext;
+    }
+
+    @Test
+    public void testLocalHitCountersOfExpiredWindowsAreRemoved() {
+
+        long requestTime = System.currentTimeMillis();
+        for (int i = 0; i < 1000; i++) {
+            CallerContext callerContext = createCallerContext("caller-" + i, requestTime + UNIT_TIME);
+            Assert.assertTrue(processor.canAccessIfUnitTimeNotOver(callerContext, configuration, throttleContext,
+                    new RequestContext(requestTime)));
+        }
+        CallerContext activeCallerContext = createCallerContext("active-caller", requestTime + 2 * UNIT_TIME);
+        processor.canAccessIfUnitTimeNotOver(activeCallerContext, configuration, throttleContext,
+                new RequestContext(requestTime));
+        Assert.assertEquals(1001, processor.getLocalHitCounterCount());
+        Assert.assertEquals(1, processor.getPendingLocalHits("caller-0"));
+
+        Assert.assertEquals(0, processor.evictExpiredLocalHitCounters(requestTime + UNIT_TIME));
+        Assert.assertEquals(1001, processor.getLocalHitCounterCount());
+        Assert.assertEquals(1000, processor.evictExpiredLocalHitCounters(requestTime + UNIT_TIME + 1));
+        Assert.assertEquals(1, processor.getLocalHitCounterCount());
+        Assert.assertEquals(1, processor.getPendingLocalHits("active-caller"));
+    }
+
+    @Test
+    public void testHitsRacingWithRemovalAreNotLost() throws Exception {
+
+        long requestTime = System.currentTimeMillis();
+        CallerContext callerContext = createCallerContext("caller", requestTime + UNIT_TIME);
+        int threads = 8;
+        int hitsPerThread = 5000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executorService.execute(() -> {
+                for (int i = 0; i < hitsPerThread; i++) {
+                    processor.canAccessIfUnitTimeNotOver(callerContext, configuration, throttleContext,
+                            new RequestContext(requestTime));
+                }
+                latch.countDown();
+            });
+        }
+        // Remove the counter of the caller over and over while the hits are counted
+        long discardedHits = 0;
+        boolean done = false;
+        while (!done) {
+            done = latch.await(1, TimeUnit.MILLISECONDS);
+            discardedHits += processor.evictExpiredLocalHitCounters(requestTime + UNIT_TIME + 1);
+        }
+        executorService.shutdown();
+        Assert.assertEquals((long) threads * hitsPerThread,
+                discardedHits + processor.getPendingLocalHits("caller"));
+    }
+}
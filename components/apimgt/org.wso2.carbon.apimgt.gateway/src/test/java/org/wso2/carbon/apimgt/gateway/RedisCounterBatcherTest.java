@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class RedisCounterBatcherTest {
+
+    private RedisCounterBatcher counterBatcher;
+
+    @After
+    public void tearDown() {
+
+        if (counterBatcher != null) {
+            counterBatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentUpdatesAreAppliedInBatches() throws Exception {
+
+        RedisStandIn redis = new RedisStandIn();
+        counterBatcher = new RedisCounterBatcher(new StandInPool(redis), 20, 500, 1000, 5000, 5000);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String key = "counter" + (i % 4);
+                results.add(executorService.submit(() -> counterBatcher.incrementBy(key, 2)));
+            }
+            long largest = 0;
+            for (Future<Long> result : results) {
+                largest = Math.max(largest, result.get(10, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(100, largest);
+        } finally {
+            executorService.shutdownNow();
+        }
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(Long.valueOf(100), redis.counters.get("counter" + i));
+        }
+        Assert.assertEquals(Long.valueOf(1), counterBatcher.expireAt("counter0", 1000L));
+        Assert.assertEquals(Long.valueOf(1000L), redis.expiries.get("counter0"));
+        Assert.assertEquals(Long.valueOf(0), counterBatcher.expireAt("missing", 1000L));
+
+        Assert.assertEquals(202, counterBatcher.getFlushedUpdateCount());
+        Assert.assertTrue(counterBatcher.getFlushedBatchCount() < 202);
+        Assert.assertTrue(counterBatcher.getLargestBatchSize() > 1);
+        Assert.assertEquals(counterBatcher.getFlushedBatchCount(), redis.scriptCalls);
+        Assert.assertEquals(0, redis.perKeyCalls);
+        Assert.assertEquals(0, counterBatcher.getDroppedUpdateCount());
+    }
+
+    @Test
+    public void testUpdatesAreAppliedPerKeyIfScriptFails() {
+
+        RedisStandIn redis = new RedisStandIn();
+        redis.scriptingDisabled = true;
+        counterBatcher = new RedisCounterBatcher(new StandInPool(redis), 0, 500, 1000, 5000, 5000);
+        Assert.assertEquals(Long.valueOf(5), counterBatcher.incrementBy("counter", 5));
+        Assert.assertEquals(Long.valueOf(8), counterBatcher.incrementBy("counter", 3));
+        Assert.assertEquals(Long.valueOf(1), counterBatcher.expireAt("counter", 1000L));
+        Assert.assertEquals(3, redis.perKeyCalls);
+        Assert.assertEquals(3, counterBatcher.getFallbackBatchCount());
+        Assert.assertEquals(0, counterBatcher.getDroppedUpdateCount());
+    }
+
+    @Test
+    public void testUpdatesInFlightAreDroppedOnConnectionFailure() {
+
+        RedisStandIn redis = new RedisStandIn();
+        redis.connectionBroken = true;
+        counterBatcher = new RedisCounterBatcher(new StandInPool(redis), 0, 500, 1000, 5000, 5000);
+        try {
+            counterBatcher.incrementBy("counter", 5);
+            Assert.fail("Connection failure is expected to be propagated");
+        } catch (JedisException e) {
+            Assert.assertTrue(e instanceof JedisConnectionException);
+        }
+        Assert.assertEquals(1, counterBatcher.getDroppedUpdateCount());
+        Assert.assertEquals(0, redis.perKeyCalls);
+    }
+
+    @Test
+    public void testUpdatesAreRejectedAfterShutdown() {
+
+        counterBatcher = new RedisCounterBatcher(new StandInPool(new RedisStandIn()), 0, 500, 1000, 5000, 5000);
+        counterBatcher.shutdown();
+        Assert.assertNull(counterBatcher.incrementBy("counter", 1));
+        Assert.assertEquals(1, counterBatcher.getRejectedUpdateCount());
+    }
+
+    @Test
+    public void testUpdatesAreBatchedPerSlotIfKeysSpanSlots() throws Exception {
+
+        RedisStandIn redis = new RedisStandIn();
+        redis.clusterMode = true;
+        counterBatcher = new RedisCounterBatcher(new StandInPool(redis), 20, 500, 1000, 5000, 5000);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String key = "{caller" + (i % 2) + "}counter" + (i % 4);
+                results.add(executorService.submit(() -> counterBatcher.incrementBy(key, 1)));
+            }
+            for (Future<Long> result : results) {
+                Assert.assertNotNull(result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(Long.valueOf(50), redis.counters.get("{caller" + (i % 2) + "}counter" + i));
+        }
+        Assert.assertTrue(counterBatcher.isSlotBatching());
+        Assert.assertEquals(0, redis.perKeyCalls);
+        Assert.assertEquals(0, counterBatcher.getFallbackBatchCount());
+        Assert.assertEquals(0, counterBatcher.getDroppedUpdateCount());
+    }
+
+    @Test
+    public void testCallerFailsIfBatchIsStalled() {
+
+        RedisStandIn redis = new RedisStandIn();
+        redis.stall = new CountDownLatch(1);
+        counterBatcher = new RedisCounterBatcher(new StandInPool(redis), 0, 500, 1000, 100, 200);
+        long startTime = System.currentTimeMillis();
+        try {
+            counterBatcher.incrementBy("counter", 1);
+            Assert.fail("Stalled batch is expected to fail the update");
+        } catch (JedisException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Timed out"));
+        } finally {
+            redis.stall.countDown();
+        }
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 5000);
+        Assert.assertEquals(1, counterBatcher.getDroppedUpdateCount());
+        Assert.assertEquals(0, redis.perKeyCalls);
+    }
+
+    /**
+     * In memory stand-in of the Redis commands used by the batcher.
+     */
+    private static class RedisStandIn extends Jedis {
+
+        private final Map<String, Long> counters = new HashMap<>();
+        private final Map<String, Long> expiries = new HashMap<>();
+        private volatile boolean scriptingDisabled;
+        private volatile boolean connectionBroken;
+        private volatile boolean clusterMode;
+        private volatile CountDownLatch stall;
+        private volatile int scriptCalls;
+        private volatile int perKeyCalls;
+
+        @Override
+        public synchronized String scriptLoad(String script) {
+
+            checkConnection();
+            if (scriptingDisabled) {
+                throw new JedisDataException("ERR unknown command 'SCRIPT'");
+            }
+            Assert.assertEquals(RedisCounterBatcher.BATCH_UPDATE_SCRIPT, script);
+            return "sha";
+        }
+
+        @Override
+        public Object evalsha(String sha1, List<String> keys, List<String> args) {
+
+            if (stall != null) {
+                try {
+                    stall.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return evalshaBatch(keys, args);
+        }
+
+        private synchronized Object evalshaBatch(List<String> keys, List<String> args) {
+
+            checkConnection();
+            if (clusterMode && keys.stream().map(JedisClusterCRC16::getSlot).distinct().count() > 1) {
+                throw new JedisDataException("CROSSSLOT Keys in request don't hash to the same slot");
+            }
+            scriptCalls++;
+            List<Object> results = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                long value = Long.parseLong(args.get(2 * i + 1));
+                if (RedisCounterBatcher.INCREMENT.equals(args.get(2 * i))) {
+                    results.add(increment(keys.get(i), value));
+                } else {
+                    results.add(expire(keys.get(i), value));
+                }
+            }
+            return results;
+        }
+
+        @Override
+        public synchronized Long incrBy(String key, long increment) {
+
+            checkConnection();
+            perKeyCalls++;
+            return increment(key, increment);
+        }
+
+        @Override
+        public synchronized Long pexpireAt(String key, long millisecondsTimestamp) {
+
+            checkConnection();
+            perKeyCalls++;
+            return expire(key, millisecondsTimestamp);
+        }
+
+        @Override
+        public void close() {
+
+        }
+
+        private long increment(String key, long value) {
+
+            return counters.merge(key, value, Long::sum);
+        }
+
+        private long expire(String key, long expiryTimeStamp) {
+
+            if (!counters.containsKey(key)) {
+                return 0;
+            }
+            expiries.put(key, expiryTimeStamp);
+            return 1;
+        }
+
+        private void checkConnection() {
+
+            if (connectionBroken) {
+                throw new JedisConnectionException("Unexpected end of stream.");
+            }
+        }
+    }
+
+    private static class StandInPool extends JedisPool {
+
+        private final Jedis jedis;
+
+        StandInPool(Jedis jedis) {
+
+            this.jedis = jedis;
+        }
+
+        @Override
+        public Jedis getResource() {
+
+            return jedis;
+        }
+    }
+}
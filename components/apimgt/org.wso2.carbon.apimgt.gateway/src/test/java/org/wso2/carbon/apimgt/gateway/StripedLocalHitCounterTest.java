@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class StripedLocalHitCounterTest {
+
+    @Test
+    public void testFlushIsTriggeredByIntervalOrThreshold() {
+
+        StripedLocalHitCounter counter = new StripedLocalHitCounter(1000L, Long.MAX_VALUE);
+        counter.increment();
+        Assert.assertFalse(counter.tryStartFlush(1050L, 100L, 10L));
+        Assert.assertTrue(counter.tryStartFlush(1100L, 100L, 10L));
+        // only one flusher at a time
+        Assert.assertFalse(counter.tryStartFlush(1200L, 100L, 10L));
+        Assert.assertEquals(1L, counter.drain());
+        counter.endFlush(1200L);
+
+        for (int i = 0; i < 10; i++) {
+            counter.increment();
+        }
+        Assert.assertEquals(10L, counter.getPendingHits());
+        Assert.assertTrue(counter.tryStartFlush(1201L, 100L, 10L));
+        Assert.assertEquals(10L, counter.drain());
+        Assert.assertEquals(0L, counter.getPendingHits());
+        counter.endFlush(1201L);
+    }
+
+    /**
+     * Serves one request per millisecond, round robin over the given number of gateways, and allows a request if the
+     * distributed counter does not exceed the limit, as HybridThrottleProcessor does in sync mode with striped local
+     * counters.
+     *
+     * @return number of allowed requests
+     */
+    private static long serveRequests(int gateways, long maxRequest, long requests, long flushInterval,
+                                      long flushThreshold) {
+
+        StripedLocalHitCounter[] counters = new StripedLocalHitCounter[gateways];
+        for (int i = 0; i < gateways; i++) {
+            counters[i] = new StripedLocalHitCounter(0L, Long.MAX_VALUE);
+        }
+        long globalCounter = 0;
+        long allowedRequests = 0;
+        for (long time = 1; time <= requests; time++) {
+            StripedLocalHitCounter counter = counters[(int) (time % gateways)];
+            counter.increment();
+            if (counter.tryStartFlush(time, flushInterval, flushThreshold)) {
+                globalCounter += counter.drain();
+                counter.endFlush(time);
+            }
+            if (globalCounter <= maxRequest) {
+                allowedRequests++;
+            }
+        }
+        return allowedRequests;
+    }
+
+    @Test
+    public void testOvershootStaysWithinOneDrainInterval() {
+
+        // Drained every 10 hits, hence fewer than 10 hits per gateway are missing from the distributed counter.
+        long overshoot = serveRequests(1, 1000L, 5000L, Long.MAX_VALUE, 10L) - 1000L;
+        Assert.assertTrue("overshoot " + overshoot, overshoot > 0 && overshoot < 10);
+        overshoot = serveRequests(4, 1000L, 5000L, Long.MAX_VALUE, 10L) - 1000L;
+        Assert.assertTrue("overshoot " + overshoot, overshoot > 0 && overshoot < 4 * 10);
+
+        // Drained every 100 ms at one request per millisecond, hence fewer than 100 hits are missing.
+        overshoot = serveRequests(1, 1000L, 5000L, 100L, Long.MAX_VALUE) - 1000L;
+        Assert.assertTrue("overshoot " + overshoot, overshoot > 0 && overshoot < 100);
+        overshoot = serveRequests(4, 1000L, 5000L, 100L, Long.MAX_VALUE) - 1000L;
+        Assert.assertTrue("overshoot " + overshoot, overshoot > 0 && overshoot < 100);
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreNotLost() throws Exception {
+
+        StripedLocalHitCounter counter = new StripedLocalHitCounter(0L, Long.MAX_VALUE);
+        int threads = 16;
+        int hitsPerThread = 10000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        long[] drained = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            executorService.execute(() -> {
+                for (int i = 0; i < hitsPerThread; i++) {
+                    counter.increment();
+                    if (counter.tryStartFlush(i, 0L, 100L)) {
+                        drained[index] += counter.drain();
+                        counter.endFlush(i);
+                    }
+                }
+                latch.countDown();
+            });
+        }
+        Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executorService.shutdown();
+        long total = counter.drain();
+        for (long value : drained) {
+            total += value;
+        }
+        Assert.assertEquals((long) threads * hitsPerThread, total);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.gateway.internal.DataHolder;
+import org.wso2.carbon.apimgt.impl.dto.APIInfoDTO;
+import org.wso2.carbon.apimgt.impl.dto.ResourceInfoDTO;
+import org.wso2.carbon.apimgt.impl.dto.VerbInfoDTO;
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class ResourceRouteIndexTest {
+
+    private static APIInfoDTO createAPIInfo(String... templates) {
+
+        APIInfoDTO apiInfoDTO = new APIInfoDTO();
+        apiInfoDTO.setContext("/pets");
+        apiInfoDTO.setVersion("1.0.0");
+        Map<String, ResourceInfoDTO> resources = new LinkedHashMap<>();
+        for (String template : templates) {
+            String[] methodAndTemplate = template.split(" ");
+            ResourceInfoDTO resourceInfoDTO = resources.computeIfAbsent(methodAndTemplate[1], urlPattern -> {
+                ResourceInfoDTO resource = new ResourceInfoDTO();
+                resource.setUrlPattern(urlPattern);
+                resource.setHttpVerbs(new LinkedHashSet<>());
+                return resource;
+            });
+            VerbInfoDTO verbInfoDTO = new VerbInfoDTO();
+            verbInfoDTO.setHttpVerb(methodAndTemplate[0]);
+            verbInfoDTO.setThrottling("Unlimited");
+            resourceInfoDTO.getHttpVerbs().add(verbInfoDTO);
+        }
+        apiInfoDTO.setResources(new LinkedHashSet<>(resources.values()));
+        return apiInfoDTO;
+    }
+
+    private static ResourceRouteIndex compile(String... templates) {
+
+        // The deployed Synapse API has a resource of every template
+        Set<String> resourceTemplates = new HashSet<>();
+        for (String template : templates) {
+            resourceTemplates.add(template.split(" ")[1]);
+        }
+        return ResourceRouteIndex.compile(createAPIInfo(templates), resourceTemplates);
+    }
+
+    @Test
+    public void testMatchLiteralAndPathParameterTemplates() {
+
+        ResourceRouteIndex index = compile("GET /pets", "GET /pets/{petId}", "GET /pets/{petId}/owner",
+                "POST /pets");
+        Assert.assertEquals("/pets", index.match("GET", "/pets").getUriTemplate());
+        Assert.assertEquals("/pets", index.match("GET", "/pets/?limit=10").getUriTemplate());
+        Assert.assertEquals("/pets/{petId}", index.match("GET", "/pets/10").getUriTemplate());
+        Assert.assertEquals("/pets", index.match("POST", "/pets").getUriTemplate());
+        Assert.assertNull(index.match("DELETE", "/pets"));
+        Assert.assertNull(index.match("GET", "/stores"));
+        Assert.assertEquals("/pets/1.0.0/pets/{petId}:GET", index.match("GET", "/pets/10").getRequestKey());
+        Assert.assertEquals("/pets/1.0.0/pets/{petId}:GET",
+                index.match("GET", "/pets/10").getVerbInfo().getRequestKey());
+    }
+
+    @Test
+    public void testAmbiguousMatchesAreLeftToSynapse() {
+
+        ResourceRouteIndex index = compile("GET /pets/{petId}", "GET /pets/{petId}/owner", "GET /pets/*",
+                "GET /stores/*");
+        // '/pets/{petId}' and '/pets/*' can both match
+        Assert.assertNull(index.match("GET", "/pets/10"));
+        // A trailing path parameter may span multiple segments in Synapse
+        Assert.assertNull(index.match("GET", "/pets/10/owner"));
+        Assert.assertEquals("/stores/*", index.match("GET", "/stores/10/items").getUriTemplate());
+        Assert.assertEquals("/stores/*", index.match("GET", "/stores").getUriTemplate());
+        Assert.assertNull(index.match("GET", "/storesfront"));
+        Assert.assertNull(index.match("GET", "/stores/%2F"));
+    }
+
+    @Test
+    public void testUnsupportedTemplatesDisablePathMatching() {
+
+        ResourceRouteIndex index = compile("GET /pets", "GET /pets/{+path}", "POST /pets");
+        Assert.assertNull(index.match("GET", "/pets"));
+        Assert.assertEquals("/pets", index.match("POST", "/pets").getUriTemplate());
+        Assert.assertEquals("/pets/{+path}", index.getRoute("GET", "/pets/{+path}").getUriTemplate());
+    }
+
+    @Test
+    public void testGetRouteOfElectedResource() {
+
+        ResourceRouteIndex index = compile("GET /pets/", "GET /stores/{storeId}");
+        Assert.assertEquals("/pets/", index.getRoute("GET", "/pets/").getUriTemplate());
+        Assert.assertEquals("/stores/{storeId}", index.getRoute("GET", "/stores/{storeId}").getUriTemplate());
+        // Elected resources which differ from the template are left to the resource cache based lookup, as their
+        // request key is built from the elected resource.
+        Assert.assertNull(index.getRoute("GET", "/pets"));
+        Assert.assertNull(index.getRoute("GET", "/PETS/"));
+        Assert.assertNull(index.getRoute("GET", " /stores/{storeId} "));
+        Assert.assertNull(index.getRoute("POST", "/pets/"));
+        Assert.assertNull(index.getRoute("GET", "/stores"));
+        Assert.assertEquals("/pets", index.getApiContext());
+        Assert.assertEquals("1.0.0", index.getApiVersion());
+    }
+
+    @Test
+    public void testTemplatesWhichSynapseDoesNotDispatchAreLeftToSynapse() {
+
+        // Synapse dispatches '/pets/{petId}' by the resource '/pets/{id}' of the deployed API
+        ResourceRouteIndex index = ResourceRouteIndex.compile(createAPIInfo("GET /pets", "GET /pets/{petId}",
+                "POST /pets"), new HashSet<>(Arrays.asList("/pets", "/pets/{id}")));
+        Assert.assertNull(index.match("GET", "/pets"));
+        Assert.assertNull(index.match("GET", "/pets/10"));
+        Assert.assertEquals("/pets", index.match("POST", "/pets").getUriTemplate());
+    }
+
+    @Test
+    public void testElectedResourceAndRequestKeyMatchResourceCacheBasedLookup() {
+
+        ResourceRouteIndex index = compile("GET /pets", "GET /pets/{petId}", "PUT /pets/{petId}");
+        String[][] requests = {{"GET", "/pets", "/pets"}, {"GET", "/pets/10", "/pets/{petId}"},
+                {"PUT", "/pets/10?force=true", "/pets/{petId}"}};
+        for (String[] request : requests) {
+            String httpMethod = request[0];
+            String electedResource = request[2];
+            // The resource cache based lookup elects the template of the Synapse resource and builds the request key
+            // from the context and version of the request and the elected resource.
+            String requestKey = APIUtil.getResourceInfoDTOCacheKey("/pets", "1.0.0", electedResource, httpMethod);
+            ResourceRouteIndex.Route route = index.match(httpMethod, request[1]);
+            Assert.assertEquals(electedResource, route.getUriTemplate());
+            Assert.assertEquals(requestKey, route.getRequestKey());
+            Assert.assertEquals(requestKey, route.getVerbInfo().getRequestKey());
+            Assert.assertSame(route, index.getRoute(httpMethod, electedResource));
+        }
+    }
+
+    @Test
+    public void testIndexCompiledBeforeRedeploymentIsNotKept() {
+
+        String apiUUID = "route-index-api";
+        ResourceRouteIndex index = compile("GET /pets");
+        long generation = DataHolder.getInstance().getResourceRouteIndexGeneration(apiUUID, "/pets", "1.0.0");
+        DataHolder.getInstance().removeResourceRouteIndex(apiUUID);
+        DataHolder.getInstance().addResourceRouteIndex(apiUUID, index, generation);
+        Assert.assertNull(DataHolder.getInstance().getResourceRouteIndex(apiUUID));
+
+        generation = DataHolder.getInstance().getResourceRouteIndexGeneration(apiUUID, "/pets", "1.0.0");
+        DataHolder.getInstance().removeResourceRouteIndex("/pets", "1.0.0");
+        DataHolder.getInstance().addResourceRouteIndex(apiUUID, index, generation);
+        Assert.assertNull(DataHolder.getInstance().getResourceRouteIndex(apiUUID));
+
+        generation = DataHolder.getInstance().getResourceRouteIndexGeneration(apiUUID, "/pets", "1.0.0");
+        DataHolder.getInstance().addResourceRouteIndex(apiUUID, index, generation);
+        Assert.assertSame(index, DataHolder.getInstance().getResourceRouteIndex(apiUUID));
+        DataHolder.getInstance().removeResourceRouteIndex(apiUUID);
+        Assert.assertNull(DataHolder.getInstance().getResourceRouteIndex(apiUUID));
+    }
+
+    @Test
+    public void testRedeploymentOfAnotherAPIKeepsIndex() {
+
+        String apiUUID = "route-index-kept-api";
+        ResourceRouteIndex index = compile("GET /pets");
+        long generation = DataHolder.getInstance().getResourceRouteIndexGeneration(apiUUID, "/pets", "1.0.0");
+        DataHolder.getInstance().removeResourceRouteIndex("route-index-other-api");
+        DataHolder.getInstance().removeResourceRouteIndex("/stores", "1.0.0");
+        DataHolder.getInstance().addResourceRouteIndex(apiUUID, index, generation);
+        Assert.assertSame(index, DataHolder.getInstance().getResourceRouteIndex(apiUUID));
+
+        generation = DataHolder.getInstance().getResourceRouteIndexGeneration(apiUUID, "/pets", "1.0.0");
+        DataHolder.getInstance().removeAllResourceRouteIndexes();
+        Assert.assertNull(DataHolder.getInstance().getResourceRouteIndex(apiUUID));
+        DataHolder.getInstance().addResourceRouteIndex(apiUUID, index, generation);
+        Assert.assertNull(DataHolder.getInstance().getResourceRouteIndex(apiUUID));
+    }
+}
@@ -290,6 +290,16 @@ public class TestSchemaValidator {
         assertBadRequest();
     }
 
+    @Test
+    public void testRequestBodyIsNotReadForOperationWithoutRequestBody() throws IOException, XMLStreamException {
+        // The operation does not define a request body, thus the message is not built to validate it
+        setMockedRequest("GET", "/user/logout", "/user/logout", "<jsonObject>" +
+                "<id>INVALID-INT</id>" +
+                "</jsonObject>");
+        assertValidRequest();
+        Mockito.verify(messageContext, Mockito.never()).getEnvelope();
+    }
+
     private void assertValidRequest() {
         Assert.assertTrue(schemaValidator.handleRequest(messageContext));
         Mockito.verify(messageContext, Mockito.times(0))
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TokenValidationCoalescerTest {
+
+    private static void awaitRelease(CountDownLatch latch) throws APISecurityException {
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new APISecurityException(APISecurityConstants.API_AUTH_GENERAL_ERROR, "Interrupted", e);
+        }
+    }
+
+    @Test
+    public void testConcurrentValidationsOfTokenAreCoalesced() throws Exception {
+
+        TokenValidationCoalescer<String> coalescer = new TokenValidationCoalescer<>();
+        AtomicInteger validations = new AtomicInteger();
+        CountDownLatch validationStarted = new CountDownLatch(1);
+        CountDownLatch releaseValidation = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            Future<String> leader = executorService.submit(() -> coalescer.validate("token", () -> {
+                validations.incrementAndGet();
+                validationStarted.countDown();
+                awaitRelease(releaseValidation);
+                return "valid";
+            }));
+            Assert.assertTrue(validationStarted.await(5, TimeUnit.SECONDS));
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(executorService.submit(() -> coalescer.validate("token", () -> {
+                    validations.incrementAndGet();
+                    return "revalidated";
+                })));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (coalescer.getCoalescedWaitCount() < 7 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            releaseValidation.countDown();
+            Assert.assertEquals("valid", leader.get());
+            for (Future<String> follower : followers) {
+                Assert.assertEquals("valid", follower.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertEquals(1, validations.get());
+        Assert.assertEquals(7, coalescer.getCoalescedWaitCount());
+        // Once the validation is completed, the token is validated again
+        Assert.assertEquals("revalidated", coalescer.validate("token", () -> "revalidated"));
+        Assert.assertEquals("other", coalescer.validate("other-token", () -> "other"));
+        Assert.assertEquals(3, coalescer.getValidationCount());
+    }
+
+    @Test
+    public void testValidationFailureIsSharedWithWaitingRequests() throws Exception {
+
+        TokenValidationCoalescer<String> coalescer = new TokenValidationCoalescer<>();
+        CountDownLatch validationStarted = new CountDownLatch(1);
+        CountDownLatch releaseValidation = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executorService.submit(() -> coalescer.validate("token", () -> {
+                validationStarted.countDown();
+                awaitRelease(releaseValidation);
+                throw new APISecurityException(APISecurityConstants.API_AUTH_GENERAL_ERROR,
+                        APISecurityConstants.API_AUTH_GENERAL_ERROR_MESSAGE);
+            }));
+            Assert.assertTrue(validationStarted.await(5, TimeUnit.SECONDS));
+            Future<Integer> follower = executorService.submit(() -> {
+                try {
+                    coalescer.validate("token", () -> "valid");
+                    return -1;
+                } catch (APISecurityException e) {
+                    return e.getErrorCode();
+                }
+            });
+            long deadline = System.currentTimeMillis() + 5000;
+            while (coalescer.getCoalescedWaitCount() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            releaseValidation.countDown();
+            try {
+                leader.get();
+                Assert.fail("Validation failure is not propagated");
+            } catch (Exception e) {
+                Assert.assertTrue(e.getCause() instanceof APISecurityException);
+            }
+            Assert.assertEquals(APISecurityConstants.API_AUTH_GENERAL_ERROR, (int) follower.get());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testValidationIsRefreshedAheadOfCacheExpiry() throws Exception {
+
+        // Validations are refreshed when used 100 ms after the validation
+        TokenValidationCoalescer<String> coalescer = new TokenValidationCoalescer<>(300, 200, Runnable::run);
+        Assert.assertTrue(coalescer.isRefreshAheadEnabled());
+        AtomicInteger validations = new AtomicInteger();
+        TokenValidationCoalescer.Validation<String> validation = () -> "valid-" + validations.incrementAndGet();
+        Assert.assertEquals("valid-1", coalescer.validate("token", validation));
+        coalescer.refreshAheadIfDue("token", validation);
+        // Tokens which were not validated through the coalescer are not refreshed
+        coalescer.refreshAheadIfDue("unknown-token", validation);
+        Assert.assertEquals(1, validations.get());
+        Thread.sleep(150);
+        coalescer.refreshAheadIfDue("token", validation);
+        Assert.assertEquals(2, validations.get());
+        Assert.assertEquals(1, coalescer.getRefreshAheadCount());
+        // The refreshed validation is not refreshed again until it is about to expire
+        coalescer.refreshAheadIfDue("token", validation);
+        Assert.assertEquals(2, validations.get());
+
+        TokenValidationCoalescer<String> failingCoalescer = new TokenValidationCoalescer<>(300, 200, Runnable::run);
+        failingCoalescer.validate("token", () -> "valid");
+        Thread.sleep(150);
+        failingCoalescer.refreshAheadIfDue("token", () -> {
+            throw new APISecurityException(APISecurityConstants.API_AUTH_GENERAL_ERROR,
+                    APISecurityConstants.API_AUTH_GENERAL_ERROR_MESSAGE);
+        });
+        Assert.assertEquals(1, failingCoalescer.getFailedRefreshAheadCount());
+        Assert.assertEquals("valid", failingCoalescer.validate("token", () -> "valid"));
+    }
+
+    @Test
+    public void testRefreshAheadIsDisabledByDefault() throws Exception {
+
+        Assert.assertFalse(new TokenValidationCoalescer<String>().isRefreshAheadEnabled());
+        Assert.assertFalse(new TokenValidationCoalescer<String>(300, 0, null).isRefreshAheadEnabled());
+        Assert.assertFalse(new TokenValidationCoalescer<String>(300, 300, null).isRefreshAheadEnabled());
+        TokenValidationCoalescer<String> coalescer = new TokenValidationCoalescer<>();
+        AtomicInteger validations = new AtomicInteger();
+        coalescer.validate("token", () -> "valid-" + validations.incrementAndGet());
+        coalescer.refreshAheadIfDue("token", () -> "valid-" + validations.incrementAndGet());
+        Assert.assertEquals(1, validations.get());
+    }
+}
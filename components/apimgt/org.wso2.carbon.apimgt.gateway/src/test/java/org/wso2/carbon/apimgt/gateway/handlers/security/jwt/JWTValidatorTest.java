@@ -61,6 +61,11 @@ import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.cache.Cache;
 import java.security.cert.X509Certificate;
 
@@ -799,6 +804,110 @@ public class JWTValidatorTest {
         testTamperedTokens(signedJWT, signedJWTTampered);
     }
 
+    @Test
+    public void testForgedTokenWithCopiedJtiIsNotCoalescedWithValidationOfToken() throws Exception {
+
+        Mockito.when(privilegedCarbonContext.getTenantDomain()).thenReturn("carbon.super");
+        String token = "eyJ0eXAiOiJKV1QiLCJhbGciOiJSUzI1NiIsIng1dCI6Ik5UZG1aak00WkRrM05qWTBZemM1T" +
+                "W1abU9EZ3dNVEUzTVdZd05ERTVNV1JsWkRnNE56YzRaQT09In0" +
+                ".eyJhdWQiOiJodHRwOlwvXC9vcmcud3NvMi5hcGltZ3RcL2dhdGV" +
+                "3YXkiLCJzdWIiOiJhZG1pbkBjYXJib24uc3VwZXIiLCJhcHBsaWNhdGlvbiI6eyJvd25lciI6ImFkbWluIiwidGllclF1b3RhVHlwZ" +
+                "SI6InJlcXVlc3RDb3VudCIsInRpZXIiOiJVbmxpbWl0ZWQiLCJuYW1lIjoiRGVmYXVsdEFwcGxpY2F0aW9uIiwiaWQiOjEsInV1aWQ" +
+                "iOm51bGx9LCJzY29wZSI6ImFtX2FwcGxpY2F0aW9uX3Njb3BlIGRlZmF1bHQiLCJpc3MiOiJodHRwczpcL1wvbG9jYWxob3N0Ojk0" +
+                "NDNcL29hdXRoMlwvdG9rZW4iLCJ0aWVySW5mbyI6e30sImtleXR5cGUiOiJQUk9EVUNUSU9OIiwic3Vic2NyaWJlZEFQSXMiOltdL" +
+                "CJjb25zdW1lcktleSI6IlhnTzM5NklIRks3ZUZZeWRycVFlNEhLR3oxa2EiLCJleHAiOjE1OTAzNDIzMTMsImlhdCI6MTU5MDMzO" +
+                "DcxMywianRpIjoiYjg5Mzg3NjgtMjNmZC00ZGVjLThiNzAtYmVkNDVlYjdjMzNkIn0" +
+                ".sBgeoqJn0log5EZflj_G7ADvm6B3KQ9bdfF" +
+                "CEFVQS1U3oY9" +
+                "-cqPwAPyOLLh95pdfjYjakkf1UtjPZjeIupwXnzg0SffIc704RoVlZocAx9Ns2XihjU6Imx2MbXq9ARmQxQkyGVkJ" +
+                "UMTwZ8" +
+                "-SfOnprfrhX2cMQQS8m2Lp7hcsvWFRGKxAKIeyUrbY4ihRIA5vOUrMBWYUx9Di1N7qdKA4S3e8O4KQX2VaZPBzN594c9TG" +
+                "riiH8AuuqnrftfvidSnlRLaFJmko8-QZo8jDepwacaFhtcaPVVJFG4uYP-_" +
+                "-N6sqfxLw3haazPN0_xU0T1zJLPRLC5HPfZMJDMGp" +
+                "EuSe9w";
+        // Shares the jti of the token, but carries a signature of its own
+        String forgedToken = token.substring(0, token.lastIndexOf('.') + 1) + "forgedSignature";
+        SignedJWT signedJWT = SignedJWT.parse(token);
+        SignedJWT forgedJWT = SignedJWT.parse(forgedToken);
+        Assert.assertEquals(signedJWT.getJWTClaimsSet().getJWTID(), forgedJWT.getJWTClaimsSet().getJWTID());
+        SignedJWTInfo signedJWTInfo = new SignedJWTInfo(token, signedJWT, signedJWT.getJWTClaimsSet());
+        SignedJWTInfo forgedJWTInfo = new SignedJWTInfo(forgedToken, forgedJWT, forgedJWT.getJWTClaimsSet());
+
+        JWTValidationInfo jwtValidationInfo = new JWTValidationInfo();
+        jwtValidationInfo.setValid(true);
+        jwtValidationInfo.setIssuer("https://localhost");
+        jwtValidationInfo.setRawPayload(token);
+        jwtValidationInfo.setJti(UUID.randomUUID().toString());
+        jwtValidationInfo.setIssuedTime(System.currentTimeMillis());
+        jwtValidationInfo.setExpiryTime(System.currentTimeMillis() + 5000000L);
+        jwtValidationInfo.setConsumerKey(UUID.randomUUID().toString());
+        jwtValidationInfo.setUser("user1");
+        jwtValidationInfo.setKeyManager("Default");
+        JWTValidationInfo invalidJWTValidationInfo = new JWTValidationInfo();
+        invalidJWTValidationInfo.setValid(false);
+        invalidJWTValidationInfo.setValidationCode(APISecurityConstants.API_AUTH_INVALID_CREDENTIALS);
+
+        CountDownLatch validationStarted = new CountDownLatch(1);
+        CountDownLatch releaseValidation = new CountDownLatch(1);
+        JWTValidationService jwtValidationService = Mockito.mock(JWTValidationService.class);
+        Mockito.when(jwtValidationService.validateJWTToken(signedJWTInfo)).thenAnswer(invocation -> {
+            validationStarted.countDown();
+            releaseValidation.await(5, TimeUnit.SECONDS);
+            return jwtValidationInfo;
+        });
+        Mockito.when(jwtValidationService.validateJWTToken(forgedJWTInfo)).thenReturn(invalidJWTValidationInfo);
+        APIKeyValidator apiKeyValidator = Mockito.mock(APIKeyValidator.class);
+        JWTValidatorWrapper jwtValidator = new JWTValidatorWrapper("Unlimited", true, apiKeyValidator, false, null,
+                new ExtendedJWTConfigurationDto(), jwtValidationService, Mockito.mock(Cache.class),
+                Mockito.mock(Cache.class), Mockito.mock(Cache.class), Mockito.mock(Cache.class));
+        MessageContext messageContext = Mockito.mock(Axis2MessageContext.class);
+        org.apache.axis2.context.MessageContext axis2MsgCntxt =
+                Mockito.mock(org.apache.axis2.context.MessageContext.class);
+        Mockito.when(axis2MsgCntxt.getProperty(Constants.Configuration.HTTP_METHOD)).thenReturn("GET");
+        Mockito.when(axis2MsgCntxt.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS))
+                .thenReturn(new HashMap<>());
+        Mockito.when(((Axis2MessageContext) messageContext).getAxis2MessageContext()).thenReturn(axis2MsgCntxt);
+        Mockito.when(messageContext.getProperty(RESTConstants.REST_API_CONTEXT)).thenReturn("/api1");
+        Mockito.when(messageContext.getProperty(RESTConstants.SYNAPSE_REST_API_VERSION)).thenReturn("1.0");
+        Mockito.when(messageContext.getProperty(APIConstants.API_ELECTED_RESOURCE)).thenReturn("/pet/findByStatus");
+        APIManagerConfiguration apiManagerConfiguration = Mockito.mock(APIManagerConfiguration.class);
+        Mockito.when(apiManagerConfiguration.getFirstProperty(APIConstants.JWT_AUTHENTICATION_SUBSCRIPTION_VALIDATION))
+                .thenReturn("true");
+        jwtValidator.setApiManagerConfiguration(apiManagerConfiguration);
+        APIKeyValidationInfoDTO apiKeyValidationInfoDTO = new APIKeyValidationInfoDTO();
+        apiKeyValidationInfoDTO.setApiName("api1");
+        apiKeyValidationInfoDTO.setApiPublisher("admin");
+        apiKeyValidationInfoDTO.setApiTier("Unlimited");
+        apiKeyValidationInfoDTO.setAuthorized(true);
+        Mockito.when(apiKeyValidator.validateScopes(Mockito.any(TokenValidationContext.class), Mockito.anyString()))
+                .thenReturn(true);
+        Mockito.when(apiKeyValidator.validateSubscription(Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyString(), Mockito.anyString(), Mockito.anyString())).thenReturn(apiKeyValidationInfoDTO);
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<AuthenticationContext> authentication =
+                    executorService.submit(() -> jwtValidator.authenticate(signedJWTInfo, messageContext));
+            Assert.assertTrue(validationStarted.await(5, TimeUnit.SECONDS));
+            // The forged token arrives while the token is validated, and must be validated on its own
+            try {
+                jwtValidator.authenticate(forgedJWTInfo, messageContext);
+                Assert.fail("Forged token was authenticated by the validation of the token it copied the jti of");
+            } catch (APISecurityException e) {
+                Assert.assertEquals(APISecurityConstants.API_AUTH_INVALID_CREDENTIALS, e.getErrorCode());
+            }
+            Assert.assertEquals(SignedJWTInfo.ValidationStatus.INVALID, forgedJWTInfo.getValidationStatus());
+            releaseValidation.countDown();
+            Assert.assertEquals("api1", authentication.get(5, TimeUnit.SECONDS).getApiName());
+            Assert.assertEquals(SignedJWTInfo.ValidationStatus.VALID, signedJWTInfo.getValidationStatus());
+        } finally {
+            releaseValidation.countDown();
+            executorService.shutdownNow();
+        }
+        Mockito.verify(jwtValidationService).validateJWTToken(signedJWTInfo);
+        Mockito.verify(jwtValidationService).validateJWTToken(forgedJWTInfo);
+    }
+
     private void testTamperedTokens(SignedJWT originalToken, SignedJWT tamperedToken) throws ParseException, APIManagementException, APISecurityException {
 
         ExtendedJWTConfigurationDto jwtConfigurationDto = new ExtendedJWTConfigurationDto();
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.handlers.streaming.sse.interceptors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class SseEventCounterTest {
+
+    private static final byte[] DELIMITER = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testDelimitersSpanningBuffersAreCounted() {
+
+        SseEventCounter counter = new SseEventCounter(DELIMITER, 100, 1000);
+        Assert.assertEquals(1, counter.count(wrap("data: 1\n\ndata: 2\n")));
+        Assert.assertEquals(1, counter.count(wrap("\ndata: 3\n")));
+        Assert.assertEquals(0, counter.count(wrap("")));
+        Assert.assertEquals(2, counter.count(wrap("\n\n\n\n")));
+    }
+
+    @Test
+    public void testCountMatchesDecodedStream() {
+
+        Random random = new Random(42);
+        String[] fragments = {"data: ", "\u00e9v\u00e9nement", "\n", "\n\n", "id: 1", ":", "\r\n"};
+        for (int i = 0; i < 200; i++) {
+            StringBuilder stream = new StringBuilder();
+            for (int j = random.nextInt(100); j > 0; j--) {
+                stream.append(fragments[random.nextInt(fragments.length)]);
+            }
+            byte[] bytes = stream.toString().getBytes(StandardCharsets.UTF_8);
+            SseEventCounter counter = new SseEventCounter(DELIMITER, 100, 1000);
+            int eventCount = 0;
+            for (int offset = 0; offset < bytes.length; ) {
+                int length = Math.min(bytes.length - offset, 1 + random.nextInt(16));
+                ByteBuffer buffer;
+                if (random.nextBoolean()) {
+                    buffer = ByteBuffer.allocateDirect(length);
+                    buffer.put(bytes, offset, length);
+                    buffer.flip();
+                } else {
+                    buffer = ByteBuffer.wrap(bytes, offset, length).slice();
+                }
+                eventCount += counter.count(buffer);
+                Assert.assertEquals(0, buffer.position());
+                offset += length;
+            }
+            Assert.assertEquals(StringUtils.countMatches(stream, "\n\n"), eventCount);
+        }
+    }
+
+    @Test
+    public void testEventsArePublishedOnThresholds() {
+
+        SseEventCounter counter = new SseEventCounter(DELIMITER, 10, 1000);
+        // Events of a new stream are published without waiting for the interval
+        Assert.assertEquals(2, counter.addEvents(2, 5000));
+        Assert.assertEquals(0, counter.addEvents(3, 5100));
+        Assert.assertEquals(0, counter.addEvents(6, 5200));
+        Assert.assertEquals(0, counter.drainElapsedEvents(5500));
+        Assert.assertTrue(counter.hasPendingEvents());
+        Assert.assertEquals(10, counter.addEvents(1, 5300));
+        Assert.assertEquals(0, counter.addEvents(4, 5400));
+        Assert.assertEquals(0, counter.drainElapsedEvents(6200));
+        Assert.assertEquals(4, counter.drainElapsedEvents(6300));
+        Assert.assertFalse(counter.hasPendingEvents());
+    }
+
+    private static ByteBuffer wrap(String text) {
+
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -38,6 +38,7 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.wso2.carbon.apimgt.common.gateway.constants.GraphQLConstants;
+import org.wso2.carbon.apimgt.common.gateway.graphql.QueryAnalyzer;
 import org.wso2.carbon.apimgt.api.gateway.GraphQLSchemaDTO;
 import org.wso2.carbon.apimgt.gateway.handlers.WebsocketUtil;
 import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityException;
@@ -47,11 +48,13 @@ import org.wso2.carbon.apimgt.gateway.inbound.InboundMessageContext;
 import org.wso2.carbon.apimgt.gateway.inbound.websocket.GraphQLProcessorResponseDTO;
 import org.wso2.carbon.apimgt.gateway.inbound.websocket.InboundProcessorResponseDTO;
 import org.wso2.carbon.apimgt.gateway.inbound.websocket.utils.InboundWebsocketProcessorUtil;
+import org.wso2.carbon.apimgt.gateway.internal.DataHolder;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
 import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
 import org.wso2.carbon.apimgt.impl.dto.VerbInfoDTO;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+import org.wso2.carbon.apimgt.keymgt.model.entity.API;
 
 import java.io.File;
 import java.util.HashMap;
@@ -100,6 +103,7 @@ public class GraphQLRequestProcessorTest {
         GraphQLSchema schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
         GraphQLSchemaDTO schemaDTO = new GraphQLSchemaDTO(schema, registry);
         inboundMessageContext.setGraphQLSchemaDTO(schemaDTO);
+        inboundMessageContext.setElectedAPI(getElectedAPI());
 
         PowerMockito.when(InboundWebsocketProcessorUtil
                 .validateScopes(inboundMessageContext, "liftStatusChange", "1")).thenReturn(responseDTO);
@@ -270,6 +274,7 @@ public class GraphQLRequestProcessorTest {
         GraphQLSchema schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
         GraphQLSchemaDTO schemaDTO = new GraphQLSchemaDTO(schema, registry);
         inboundMessageContext.setGraphQLSchemaDTO(schemaDTO);
+        inboundMessageContext.setElectedAPI(getElectedAPI());
         PowerMockito.when(WebsocketUtil.validateDenyPolicies(Mockito.anyObject())).thenReturn(responseDTO);
         GraphQLRequestProcessor graphQLRequestProcessor = new GraphQLRequestProcessor();
         InboundProcessorResponseDTO processorResponseDTO =
@@ -316,6 +321,7 @@ public class GraphQLRequestProcessorTest {
         GraphQLSchema schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
         GraphQLSchemaDTO schemaDTO = new GraphQLSchemaDTO(schema, registry);
         inboundMessageContext.setGraphQLSchemaDTO(schemaDTO);
+        inboundMessageContext.setElectedAPI(getElectedAPI());
 
         VerbInfoDTO verbInfoDTO = new VerbInfoDTO();
         verbInfoDTO.setHttpVerb("SUBSCRIPTION");
@@ -357,6 +363,36 @@ public class GraphQLRequestProcessorTest {
         Assert.assertFalse(processorResponseDTO.isCloseConnection());
     }
 
+    @Test
+    public void testQueryAnalyzerIsSharedUntilSchemaIsUpdated() throws Exception {
+
+        String schemaString = IOUtils.toString(getClass().getClassLoader()
+                .getResourceAsStream("graphQL" + File.separator + "schema_with_additional_props.graphql"));
+        TypeDefinitionRegistry registry = new SchemaParser().parse(schemaString);
+        GraphQLSchema schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
+        DataHolder dataHolder = DataHolder.getInstance();
+        QueryAnalyzer queryAnalyzer = dataHolder.getGraphQLQueryAnalyzerForAPI("graphql-api-uuid", schema);
+        Assert.assertSame(queryAnalyzer, dataHolder.getGraphQLQueryAnalyzerForAPI("graphql-api-uuid", schema));
+
+        GraphQLSchema updatedSchema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
+        QueryAnalyzer updatedQueryAnalyzer =
+                dataHolder.getGraphQLQueryAnalyzerForAPI("graphql-api-uuid", updatedSchema);
+        Assert.assertNotSame(queryAnalyzer, updatedQueryAnalyzer);
+        Assert.assertSame(updatedSchema, updatedQueryAnalyzer.getSchema());
+
+        dataHolder.removeGraphQLQueryAnalyzerForAPI("graphql-api-uuid");
+        Assert.assertNotSame(updatedQueryAnalyzer,
+                dataHolder.getGraphQLQueryAnalyzerForAPI("graphql-api-uuid", updatedSchema));
+        dataHolder.removeGraphQLQueryAnalyzerForAPI("graphql-api-uuid");
+    }
+
+    private API getElectedAPI() {
+
+        API api = Mockito.mock(API.class);
+        Mockito.when(api.getUuid()).thenReturn("graphql-api-uuid");
+        return api;
+    }
+
     private void setChannelAttributeMap(InboundMessageContext inboundMessageContext) {
         ChannelHandlerContext ctx = Mockito.mock(ChannelHandlerContext.class);
         inboundMessageContext.setCtx(ctx);
@@ -389,6 +425,7 @@ public class GraphQLRequestProcessorTest {
         GraphQLSchema schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
         GraphQLSchemaDTO schemaDTO = new GraphQLSchemaDTO(schema, registry);
         inboundMessageContext.setGraphQLSchemaDTO(schemaDTO);
+        inboundMessageContext.setElectedAPI(getElectedAPI());
 
         // VerbInfoDTO with security disabled
         VerbInfoDTO verbInfoDTO = new VerbInfoDTO();
@@ -444,6 +481,7 @@ public class GraphQLRequestProcessorTest {
         GraphQLSchema schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
         GraphQLSchemaDTO schemaDTO = new GraphQLSchemaDTO(schema, registry);
         inboundMessageContext.setGraphQLSchemaDTO(schemaDTO);
+        inboundMessageContext.setElectedAPI(getElectedAPI());
 
         PowerMockito.when(InboundWebsocketProcessorUtil
                 .validateScopes(inboundMessageContext, "liftStatusChange", "1")).thenReturn(responseDTO);
@@ -504,6 +542,7 @@ public class GraphQLRequestProcessorTest {
         GraphQLSchema schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
         GraphQLSchemaDTO schemaDTO = new GraphQLSchemaDTO(schema, registry);
         inboundMessageContext.setGraphQLSchemaDTO(schemaDTO);
+        inboundMessageContext.setElectedAPI(getElectedAPI());
 
         PowerMockito.when(InboundWebsocketProcessorUtil
                 .validateScopes(inboundMessageContext, "liftStatusChange", "1")).thenReturn(responseDTO);
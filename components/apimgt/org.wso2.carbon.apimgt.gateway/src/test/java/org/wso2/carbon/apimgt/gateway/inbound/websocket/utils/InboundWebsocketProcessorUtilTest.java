@@ -25,6 +25,7 @@ import org.json.simple.parser.ParseException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
@@ -55,11 +56,14 @@ import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.keymgt.model.entity.API;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.databridge.agent.DataPublisher;
+import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @RunWith(PowerMockRunner.class)
@@ -217,6 +221,45 @@ public class InboundWebsocketProcessorUtilTest {
                 String.valueOf(WebSocketApiConstants.FrameErrorConstants.THROTTLED_OUT_ERROR));
     }
 
+    @Test
+    public void testThrottleEventOfEveryFrameIsPublished() {
+
+        InboundMessageContext inboundMessageContext = new InboundMessageContext();
+        VerbInfoDTO verbInfoDTO = new VerbInfoDTO();
+        verbInfoDTO.setThrottling("Gold");
+        verbInfoDTO.setRequestKey("liftStatusChange");
+        APIKeyValidationInfoDTO apiKeyValidationInfoDTO = new APIKeyValidationInfoDTO();
+        apiKeyValidationInfoDTO.setApplicationTier(APIConstants.UNLIMITED_TIER);
+        apiKeyValidationInfoDTO.setTier(APIConstants.UNLIMITED_TIER);
+        apiKeyValidationInfoDTO.setSubscriberTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        apiKeyValidationInfoDTO.setSubscriber("admin");
+        apiKeyValidationInfoDTO.setApiName("GraphQLAPI");
+        apiKeyValidationInfoDTO.setApplicationId("12");
+        inboundMessageContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        inboundMessageContext.setApiContext("/graphql");
+        inboundMessageContext.setVersion("1.0.0");
+        inboundMessageContext.setUserIP("198.162.10.2");
+        inboundMessageContext.setInfoDTO(apiKeyValidationInfoDTO);
+        Mockito.when(dataPublisher.tryPublish(Mockito.anyObject())).thenReturn(true);
+
+        // The throttle keys are resolved once for the connection, and every frame is published as an event of its own
+        for (int i = 0; i < 10; i++) {
+            InboundProcessorResponseDTO inboundProcessorResponseDTO =
+                    InboundWebsocketProcessorUtil.doThrottleForGraphQL(100, verbInfoDTO, inboundMessageContext, "1");
+            Assert.assertFalse(inboundProcessorResponseDTO.isError());
+        }
+        ArgumentCaptor<Event> events = ArgumentCaptor.forClass(Event.class);
+        Mockito.verify(dataPublisher, Mockito.times(10)).tryPublish(events.capture());
+        Set<Object> messageIds = new HashSet<>();
+        for (Event event : events.getAllValues()) {
+            messageIds.add(event.getPayloadData()[0]);
+            Assert.assertEquals(event.getPayloadData()[7], "liftStatusChange");
+        }
+        Assert.assertEquals(messageIds.size(), 10);
+        Assert.assertNotNull(inboundMessageContext.getThrottleAccount());
+        Assert.assertSame(inboundMessageContext.getThrottleAccount().getInfoDTO(), apiKeyValidationInfoDTO);
+    }
+
     @Test
     public void isAuthenticatedJWTForOAuth() throws Exception {
         InboundMessageContext inboundMessageContext = createWebSocketApiMessageContext();
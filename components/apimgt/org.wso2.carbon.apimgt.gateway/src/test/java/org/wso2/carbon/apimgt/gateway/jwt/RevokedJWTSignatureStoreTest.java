@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jwt;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class RevokedJWTSignatureStoreTest {
+
+    @Test
+    public void testRevokedSignaturesAreFound() {
+
+        RevokedJWTSignatureStore store = new RevokedJWTSignatureStore();
+        Map<String, Long> revokedJWTs = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            revokedJWTs.put("signature-" + i, 1000L);
+        }
+        store.putAll(revokedJWTs);
+        for (int i = 5000; i < 10000; i++) {
+            store.put("signature-" + i, 2000L);
+        }
+        Assert.assertEquals(10000, store.size());
+        for (int i = 0; i < 10000; i++) {
+            Assert.assertTrue(store.contains("signature-" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (store.contains(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        Assert.assertEquals(0, falsePositives);
+    }
+
+    @Test
+    public void testExistingSignatureIsUpdated() {
+
+        RevokedJWTSignatureStore store = new RevokedJWTSignatureStore();
+        store.put("signature", 1000L);
+        store.put("signature", 3000L);
+        Assert.assertEquals(1, store.size());
+        Assert.assertEquals(0, store.removeExpired(2000L));
+        Assert.assertTrue(store.contains("signature"));
+    }
+
+    @Test
+    public void testExpiredSignaturesAreRemoved() {
+
+        RevokedJWTSignatureStore store = new RevokedJWTSignatureStore();
+        for (int i = 0; i < 3000; i++) {
+            store.put("signature-" + i, i % 2 == 0 ? 1000L : 3000L);
+        }
+        Assert.assertEquals(1500, store.removeExpired(2000L));
+        Assert.assertEquals(1500, store.size());
+        for (int i = 0; i < 3000; i++) {
+            Assert.assertEquals(i % 2 != 0, store.contains("signature-" + i));
+        }
+        // Tokens expiring at the given time are kept
+        Assert.assertEquals(0, store.removeExpired(3000L));
+        Assert.assertEquals(1500, store.removeExpired(3001L));
+        Assert.assertEquals(0, store.size());
+        Assert.assertFalse(store.contains("signature-1"));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.listeners;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.gateway.dto.APICondition;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ThrottleKeyParserTest {
+
+    private static final Pattern API_PATTERN = Pattern.compile("/.*/(.*):\\1_(condition_(\\d*)|default)");
+    private static final Pattern RESOURCE_PATTERN =
+            Pattern.compile("/.*/(.*)/\\1(.*)?:[A-Z]{0,7}_(condition_(\\d*)|default)");
+    private static final Pattern PRODUCT_RESOURCE_PATTERN =
+            Pattern.compile("/.*/(.*):[A-Z]{0,5}_(condition_(\\d*)|default)");
+    private static final Pattern PRODUCT_API_PATTERN = Pattern.compile("/.*:.*(condition_(\\d*)|default)");
+
+    @Test
+    public void testThrottleKeysAreParsed() {
+
+        assertCondition("/pizzashack/1.0.0/1.0.0/menu:GET", "condition_1",
+                ThrottleKeyParser.parse("/pizzashack/1.0.0/1.0.0/menu:GET_condition_1"));
+        assertCondition("/pizzashack/1.0.0/1.0.0/*:DELETE", "default",
+                ThrottleKeyParser.parse("/pizzashack/1.0.0/1.0.0/*:DELETE_default"));
+        assertCondition("/pizzashack/1.0.0:1.0.0", "condition_12",
+                ThrottleKeyParser.parse("/pizzashack/1.0.0:1.0.0_condition_12"));
+        assertCondition("/product/menu:GET", "default", ThrottleKeyParser.parse("/product/menu:GET_default"));
+        assertCondition("/product:1.0.0", "default", ThrottleKeyParser.parse("/product:1.0.0_default"));
+        Assert.assertNull(ThrottleKeyParser.parse("12:admin@carbon.super"));
+        Assert.assertNull(ThrottleKeyParser.parse("/pizzashack/1.0.0/1.0.0/menu:GET"));
+        Assert.assertNull(ThrottleKeyParser.parse("/pizzashack:1.0.0\n_default"));
+    }
+
+    @Test
+    public void testParserMatchesRegularExpressions() {
+
+        String[] tokens = {"/", "/", ":", "_", "GET", "POST", "A", "1.0.0", "1", "x", "condition_", "default",
+                "\n", "\u2028", "/api/1.0.0", "/1.0.0", ":1.0.0", "_default", "_condition_"};
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            StringBuilder throttleKey = new StringBuilder(random.nextBoolean() ? "/" : "");
+            for (int j = random.nextInt(10); j >= 0; j--) {
+                throttleKey.append(tokens[random.nextInt(tokens.length)]);
+            }
+            if (random.nextBoolean()) {
+                throttleKey.append(random.nextBoolean() ? "_default" : "_condition_" + random.nextInt(20));
+            }
+            String key = throttleKey.toString();
+            APICondition expected = extractWithRegularExpressions(key);
+            APICondition actual = ThrottleKeyParser.parse(key);
+            if (expected == null) {
+                Assert.assertNull(key, actual);
+            } else {
+                Assert.assertNotNull(key, actual);
+                Assert.assertEquals(key, expected.getResourceKey(), actual.getResourceKey());
+                Assert.assertEquals(key, expected.getName(), actual.getName());
+            }
+        }
+    }
+
+    private static void assertCondition(String resourceKey, String name, APICondition condition) {
+
+        Assert.assertNotNull(condition);
+        Assert.assertEquals(resourceKey, condition.getResourceKey());
+        Assert.assertEquals(name, condition.getName());
+    }
+
+    private static APICondition extractWithRegularExpressions(String throttleKey) {
+
+        try {
+            Matcher m = RESOURCE_PATTERN.matcher(throttleKey);
+            if (m.matches()) {
+                return toAPICondition(throttleKey, m.group(3));
+            }
+            m = API_PATTERN.matcher(throttleKey);
+            if (m.matches()) {
+                return toAPICondition(throttleKey, m.group(2));
+            }
+            m = PRODUCT_RESOURCE_PATTERN.matcher(throttleKey);
+            if (m.matches()) {
+                return toAPICondition(throttleKey, m.group(2));
+            }
+            m = PRODUCT_API_PATTERN.matcher(throttleKey);
+            if (m.matches()) {
+                return toAPICondition(throttleKey, m.group(1));
+            }
+        } catch (StringIndexOutOfBoundsException e) {
+            // The condition is not separated from the key
+            return null;
+        }
+        return null;
+    }
+
+    private static APICondition toAPICondition(String throttleKey, String condition) {
+
+        return new APICondition(throttleKey.substring(0, throttleKey.indexOf("_" + condition)), condition);
+    }
+}
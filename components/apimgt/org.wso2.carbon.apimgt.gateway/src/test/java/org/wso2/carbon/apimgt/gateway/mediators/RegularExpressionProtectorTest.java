@@ -20,6 +20,7 @@
 package org.wso2.carbon.apimgt.gateway.mediators;
 
 import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
 import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axiom.soap.SOAPFactory;
 import org.apache.axis2.AxisFault;
@@ -28,6 +29,8 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.http.HttpHeaders;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.transport.passthru.PassThroughConstants;
+import org.apache.synapse.transport.passthru.Pipe;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -35,9 +38,13 @@ import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.wso2.carbon.apimgt.gateway.APIMgtGatewayConstants;
+import org.wso2.carbon.apimgt.gateway.threatprotection.utils.ThreatProtectorConstants;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import javax.xml.namespace.QName;
 
 /**
  * This is the test case for {@link RegularExpressionProtector}
@@ -151,8 +158,78 @@ public class RegularExpressionProtectorTest {
                 (String.valueOf("false"));
         regularExpressionProtector = new RegularExpressionProtector();
         regularExpressionProtector.mediate(messageContext);
-        String enabledBuild = String.valueOf(regularExpressionProtector.isContentAware());
-        Assert.assertEquals(enabledStatus, enabledBuild);
+        // The request body is scanned from the raw payload, so the message is not built
+        Assert.assertFalse(regularExpressionProtector.isContentAware());
         log.info("Successfully completed testIsContentAware test case.");
     }
+
+    /**
+     * This is the test case to validate the decoded raw payload of a request against sql injection attack.
+     */
+    @Test
+    public void testSqlInjectionInEscapedPayload() {
+        log.info("Running the test case to validate the escaped request payload from sql injection attacks.");
+        mockRawPayload("{\"query\":\"\\u0044ROP users\"}", "application/json");
+        regularExpressionProtector = new RegularExpressionProtector();
+        regularExpressionProtector.mediate(messageContext);
+        Mockito.verify(messageContext).setProperty(APIMgtGatewayConstants.THREAT_FOUND, true);
+    }
+
+    /**
+     * This is the test case to check that the markup of an XML payload is not matched as a threat.
+     */
+    @Test
+    public void testXmlDeclarationIsNotMatched() {
+        log.info("Running the test case to check that the markup of an XML payload is not matched.");
+        mockRawPayload("<?xml version=\"1.0\" encoding='UTF-8'?><order xmlns=\"urn:orders\"><item>pizza</item></order>",
+                "application/xml; charset=UTF-8");
+        regularExpressionProtector = new RegularExpressionProtector();
+        regularExpressionProtector.mediate(messageContext);
+        Mockito.verify(messageContext, Mockito.never()).setProperty(APIMgtGatewayConstants.THREAT_FOUND, true);
+    }
+
+    /**
+     * This is the test case to validate the body of a request, whose message has already been built, against sql
+     * injection attack.
+     */
+    @Test
+    public void testSqlInjectionInBuiltMessage() {
+        log.info("Running the test case to validate the built request body from sql injection attacks.");
+        SOAPFactory fac = OMAbstractFactory.getSOAP12Factory();
+        SOAPEnvelope env = fac.createSOAPEnvelope();
+        fac.createSOAPBody(env);
+        OMElement query = fac.createOMElement(new QName("query"));
+        query.setText("DROP users");
+        env.getBody().addChild(query);
+        mockBodyCheck();
+        Mockito.when(axis2MsgContext.getProperty(ThreatProtectorConstants.CONTENT_TYPE))
+                .thenReturn("application/xml");
+        Mockito.doReturn(env).when(axis2MsgContext).getEnvelope();
+        regularExpressionProtector = new RegularExpressionProtector();
+        regularExpressionProtector.mediate(messageContext);
+        Mockito.verify(messageContext).setProperty(APIMgtGatewayConstants.THREAT_FOUND, true);
+    }
+
+    private void mockRawPayload(String payload, String contentType) {
+        mockBodyCheck();
+        Pipe pipe = Mockito.mock(Pipe.class);
+        Mockito.when(pipe.getInputStream())
+                .thenReturn(new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)));
+        Map<String, String> transportHeaders = new HashMap<>();
+        transportHeaders.put(HttpHeaders.CONTENT_TYPE, contentType);
+        Mockito.when(axis2MsgContext.getProperty(PassThroughConstants.PASS_THROUGH_PIPE)).thenReturn(pipe);
+        Mockito.when(axis2MsgContext.getProperty(ThreatProtectorConstants.CONTENT_TYPE)).thenReturn(contentType);
+        Mockito.when(axis2MsgContext.getProperty(APIMgtGatewayConstants.TRANSPORT_HEADERS))
+                .thenReturn(transportHeaders);
+    }
+
+    private void mockBodyCheck() {
+        Mockito.when(messageContext.getProperty(APIMgtGatewayConstants.ENABLED_CHECK_BODY)).thenReturn
+                (String.valueOf(enabledStatus));
+        Mockito.when(messageContext.getProperty(APIMgtGatewayConstants.ENABLED_CHECK_HEADERS)).thenReturn
+                (String.valueOf("false"));
+        Mockito.when(messageContext.getProperty(APIMgtGatewayConstants.ENABLED_CHECK_PATHPARAM)).thenReturn
+                (String.valueOf("false"));
+        Mockito.when(((Axis2MessageContext) messageContext).getAxis2MessageContext()).thenReturn(axis2MsgContext);
+    }
 }
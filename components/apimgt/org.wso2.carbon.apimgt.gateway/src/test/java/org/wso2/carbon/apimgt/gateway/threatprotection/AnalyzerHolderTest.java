@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.gateway.threatprotection;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.gateway.threatprotection.analyzer.APIMThreatAnalyzer;
+import org.wso2.carbon.apimgt.gateway.threatprotection.configuration.JSONConfig;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class AnalyzerHolderTest {
+
+    private static final String VALID_PAYLOAD = "{\"name\":\"abcde\",\"tags\":[\"a\",\"b\"]}";
+    private static final String INVALID_PAYLOAD = "{\"name\":\"abcdef\",\"tags\":[\"a\",\"b\"]}";
+
+    @Test
+    public void testAnalyzerIsSharedUntilConfigurationChanges() {
+
+        APIMThreatAnalyzer analyzer = AnalyzerHolder.getAnalyzer("/shared/1.0.0", getJSONConfig(5));
+        Assert.assertSame(analyzer, AnalyzerHolder.getAnalyzer("/shared/1.0.0", getJSONConfig(5)));
+        Assert.assertNotSame(analyzer, AnalyzerHolder.getAnalyzer("/other/1.0.0", getJSONConfig(5)));
+
+        APIMThreatAnalyzer reconfiguredAnalyzer = AnalyzerHolder.getAnalyzer("/shared/1.0.0", getJSONConfig(6));
+        Assert.assertNotSame(analyzer, reconfiguredAnalyzer);
+        Assert.assertSame(reconfiguredAnalyzer, AnalyzerHolder.getAnalyzer("/shared/1.0.0", getJSONConfig(6)));
+    }
+
+    @Test
+    public void testAnalyzersAreRemovedOnUndeployment() {
+
+        APIMThreatAnalyzer analyzer = AnalyzerHolder.getAnalyzer("/removed/1.0.0", getJSONConfig(5));
+        APIMThreatAnalyzer otherAnalyzer = AnalyzerHolder.getAnalyzer("/retained/1.0.0", getJSONConfig(5));
+        AnalyzerHolder.removeAnalyzers("/removed/1.0.0");
+        Assert.assertNotSame(analyzer, AnalyzerHolder.getAnalyzer("/removed/1.0.0", getJSONConfig(5)));
+        Assert.assertSame(otherAnalyzer, AnalyzerHolder.getAnalyzer("/retained/1.0.0", getJSONConfig(5)));
+        AnalyzerHolder.removeAnalyzers(null);
+    }
+
+    @Test
+    public void testSharedAnalyzerIsUsedConcurrently() throws Exception {
+
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int i = 0; i < 20000; i++) {
+                boolean valid = i % 2 == 0;
+                tasks.add(() -> {
+                    APIMThreatAnalyzer analyzer = AnalyzerHolder.getAnalyzer("/concurrent/1.0.0", getJSONConfig(5));
+                    try {
+                        analyzer.analyze(new ByteArrayInputStream((valid ? VALID_PAYLOAD : INVALID_PAYLOAD)
+                                .getBytes(StandardCharsets.UTF_8)), "/concurrent/1.0.0");
+                        return true;
+                    } catch (APIMThreatAnalyzerException e) {
+                        return false;
+                    }
+                });
+            }
+            List<Future<Boolean>> results = executorService.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(i % 2 == 0, results.get(i).get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static JSONConfig getJSONConfig(int maxStringLength) {
+
+        JSONConfig jsonConfig = new JSONConfig();
+        jsonConfig.setMaxPropertyCount(10);
+        jsonConfig.setMaxStringLength(maxStringLength);
+        jsonConfig.setMaxArrayElementCount(10);
+        jsonConfig.setMaxKeyLength(10);
+        jsonConfig.setMaxJsonDepth(5);
+        return jsonConfig;
+    }
+}
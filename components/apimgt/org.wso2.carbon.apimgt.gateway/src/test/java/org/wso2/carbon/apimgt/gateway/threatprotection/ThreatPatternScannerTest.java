@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.gateway.threatprotection;
+
+import com.google.re2j.Pattern;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+public class ThreatPatternScannerTest {
+
+    private static final String SQL_INJECTION_REGEX = ".*'.*|.*ALTER.*|.*ALTER TABLE.*|.*ALTER VIEW.*|"
+            + ".*CREATE DATABASE.*|.*CREATE PROCEDURE.*|.*CREATE SCHEMA.*|.*create table.*|.*CREATE VIEW.*|"
+            + ".*DELETE.*|.*DROP DATABASE.*|.*DROP PROCEDURE.*|.*DROP.*|.*SELECT.*";
+    private static final String XSS_REGEX = "<\\s*script\\b[^>]*>[^<]+<\\s*/\\s*script\\s*>";
+
+    @Test
+    public void testLiteralKeywordsAreScannedWithAutomaton() throws Exception {
+
+        ThreatPatternScanner scanner = new ThreatPatternScanner(SQL_INJECTION_REGEX);
+        Assert.assertTrue(scanner.isLiteral());
+        assertScan(scanner, SQL_INJECTION_REGEX, "{\"query\":\"1; drop table users\"}", true);
+        assertScan(scanner, SQL_INJECTION_REGEX, "<order><item>pizza</item></order>", false);
+        assertScan(scanner, SQL_INJECTION_REGEX, "name=O'Brien", true);
+        assertScan(scanner, SQL_INJECTION_REGEX, "dro\np", false);
+        // Non-ASCII characters which fold to ASCII letters
+        assertScan(scanner, SQL_INJECTION_REGEX, "\u017Felect", true);
+
+        // Key word split across the buffers of the scanner
+        char[] padding = new char[8190];
+        Arrays.fill(padding, 'x');
+        assertScan(scanner, SQL_INJECTION_REGEX, new String(padding) + "DELETE", true);
+    }
+
+    @Test
+    public void testOtherExpressionsAreMatchedWithRegex() throws Exception {
+
+        ThreatPatternScanner scanner = new ThreatPatternScanner(XSS_REGEX);
+        Assert.assertFalse(scanner.isLiteral());
+        assertScan(scanner, XSS_REGEX, "<p><script type=\"text/javascript\">alert(1)</script></p>", true);
+        assertScan(scanner, XSS_REGEX, "<p>script</p>", false);
+        Assert.assertFalse(new ThreatPatternScanner(".*DROP.*|.*").isLiteral());
+        Assert.assertFalse(new ThreatPatternScanner("(?i)DROP|ALTER").isLiteral());
+        Assert.assertFalse(new ThreatPatternScanner("DROP\\sTABLE").isLiteral());
+        Assert.assertTrue(new ThreatPatternScanner("DROP\\.TABLE|\\$where").isLiteral());
+    }
+
+    @Test
+    public void testAutomatonMatchesRegex() throws Exception {
+
+        Random random = new Random(42);
+        String alphabet = "abkAB'. \u017F\u212A";
+        for (int i = 0; i < 500; i++) {
+            StringBuilder regex = new StringBuilder();
+            int keywordCount = 1 + random.nextInt(4);
+            for (int j = 0; j < keywordCount; j++) {
+                if (j > 0) {
+                    regex.append('|');
+                }
+                regex.append(random.nextBoolean() ? ".*" : "");
+                int keywordLength = 1 + random.nextInt(4);
+                for (int k = 0; k < keywordLength; k++) {
+                    char c = "abABsK'".charAt(random.nextInt(7));
+                    regex.append(c);
+                }
+                regex.append(random.nextBoolean() ? ".*" : "");
+            }
+            ThreatPatternScanner scanner = new ThreatPatternScanner(regex.toString());
+            Assert.assertTrue(scanner.isLiteral());
+            for (int j = 0; j < 20; j++) {
+                StringBuilder value = new StringBuilder();
+                int length = random.nextInt(30);
+                for (int k = 0; k < length; k++) {
+                    value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                assertScan(scanner, regex.toString(), value.toString(),
+                        Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE).matcher(value).find());
+            }
+        }
+    }
+
+    @Test
+    public void testScanningStopsAtFirstKeyword() throws Exception {
+
+        byte[] payload = new byte[1024 * 1024];
+        Arrays.fill(payload, (byte) 'x');
+        System.arraycopy("DROP".getBytes(StandardCharsets.UTF_8), 0, payload, 100, 4);
+        CountingInputStream inputStream = new CountingInputStream(payload);
+        Assert.assertTrue(new ThreatPatternScanner(SQL_INJECTION_REGEX).find(inputStream, StandardCharsets.UTF_8));
+        Assert.assertTrue(inputStream.readCount < payload.length / 8);
+    }
+
+    @Test
+    public void testJsonPayloadIsDecoded() throws Exception {
+
+        ThreatPatternScanner scanner = new ThreatPatternScanner(SQL_INJECTION_REGEX);
+        Assert.assertTrue(scanDecoded(scanner, "{\"name\":\"O\\u0027Brien\"}", "application/json"));
+        Assert.assertTrue(scanDecoded(scanner, "{\"\\u0044ROP\":1}", "application/json; charset=UTF-8"));
+        Assert.assertTrue(scanDecoded(scanner, "{\"name\":\"O'Brien\"}", "application/merge-patch+json"));
+        Assert.assertFalse(scanDecoded(scanner, "{\"order\":[{\"item\":\"pizza\",\"count\":2}]}",
+                "application/json"));
+        // Malformed payloads are scanned as they are
+        Assert.assertTrue(scanDecoded(scanner, "{name: O'Brien}", "application/json"));
+    }
+
+    @Test
+    public void testXmlPayloadIsDecoded() throws Exception {
+
+        ThreatPatternScanner scanner = new ThreatPatternScanner(SQL_INJECTION_REGEX);
+        Assert.assertTrue(scanDecoded(scanner, "<name>O&#39;Brien</name>", "application/xml"));
+        Assert.assertTrue(scanDecoded(scanner, "<name>O&apos;Brien</name>", "text/xml"));
+        Assert.assertTrue(scanDecoded(scanner, "<name><![CDATA[1; drop table users]]></name>", "text/xml"));
+        Assert.assertTrue(scanDecoded(scanner, "<order item=\"O&#39;Brien\"/>", "application/xml"));
+        Assert.assertFalse(scanDecoded(scanner, "<?xml version='1.0' encoding='UTF-8'?>"
+                + "<soapenv:Envelope xmlns:soapenv='http://schemas.xmlsoap.org/soap/envelope/'>"
+                + "<soapenv:Body><order><item>pizza</item></order></soapenv:Body></soapenv:Envelope>",
+                "application/soap+xml; charset=UTF-8"));
+        // Malformed payloads are scanned as they are
+        Assert.assertTrue(scanDecoded(scanner, "<name>O'Brien</nam>", "application/xml"));
+    }
+
+    @Test
+    public void testFormPayloadIsDecoded() throws Exception {
+
+        ThreatPatternScanner scanner = new ThreatPatternScanner(SQL_INJECTION_REGEX);
+        Assert.assertTrue(scanDecoded(scanner, "name=O%27Brien&item=pizza", "application/x-www-form-urlencoded"));
+        Assert.assertTrue(scanDecoded(scanner, "query=1%3B+DR%4FP+table", "application/x-www-form-urlencoded"));
+        Assert.assertTrue(scanDecoded(scanner, "name=O'Brien%", "application/x-www-form-urlencoded"));
+        Assert.assertFalse(scanDecoded(scanner, "name=Brien&item=pizza", "application/x-www-form-urlencoded"));
+    }
+
+    @Test
+    public void testOtherPayloadsAreScannedAsTheyAre() throws Exception {
+
+        ThreatPatternScanner scanner = new ThreatPatternScanner(SQL_INJECTION_REGEX);
+        Assert.assertTrue(scanDecoded(scanner, "O'Brien", "text/plain"));
+        Assert.assertFalse(scanDecoded(scanner, "O%27Brien", "text/plain"));
+        Assert.assertTrue(scanDecoded(scanner, "O'Brien", null));
+    }
+
+    private static boolean scanDecoded(ThreatPatternScanner scanner, String payload, String contentType)
+            throws IOException {
+
+        return scanner.find(new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)), contentType,
+                StandardCharsets.UTF_8);
+    }
+
+    private static void assertScan(ThreatPatternScanner scanner, String regex, String value, boolean expected)
+            throws IOException {
+
+        String message = "Scanning " + value + " with " + regex;
+        Assert.assertEquals(message, expected, scanner.find(value));
+        Assert.assertEquals(message, expected, scanner.find(
+                new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+    }
+
+    private static final class CountingInputStream extends InputStream {
+
+        private final InputStream inputStream;
+        private int readCount;
+
+        private CountingInputStream(byte[] payload) {
+
+            this.inputStream = new ByteArrayInputStream(payload);
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            int value = inputStream.read();
+            if (value != -1) {
+                readCount++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+
+            int count = inputStream.read(buffer, offset, length);
+            if (count > 0) {
+                readCount += count;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.gateway.threatprotection;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xml.sax.SAXException;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.transform.stax.StAXSource;
+
+public class XMLSchemaRegistryTest {
+
+    private static final String API_ID = "api-1";
+    private static final String SCHEMA = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">"
+            + "<xs:element name=\"order\"><xs:complexType><xs:sequence>"
+            + "<xs:element name=\"item\" type=\"xs:string\" maxOccurs=\"%d\"/>"
+            + "</xs:sequence></xs:complexType></xs:element></xs:schema>";
+    private static final String PAYLOAD = "<order><item>pizza</item><item>pasta</item></order>";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSchemaIsCompiledOnceAndValidates() throws Exception {
+
+        Path xsdFile = writeSchema(2);
+        XMLSchemaRegistry registry = new XMLSchemaRegistry(null, Long.MAX_VALUE, Runnable::run);
+        String xsdURL = xsdFile.toUri().toString();
+        XMLSchemaRegistry.CompiledSchema compiledSchema = registry.getSchema(API_ID, xsdURL);
+        registry.validate(API_ID, xsdURL, toSource(PAYLOAD));
+        assertInvalid(registry, xsdURL, "<order><item>pizza</item><item>pasta</item><item>salad</item></order>");
+        registry.validate(API_ID, xsdURL, toSource(PAYLOAD));
+        Assert.assertSame(compiledSchema, registry.getSchema(API_ID, xsdURL));
+
+        registry.removeSchemas(API_ID);
+        Assert.assertNotSame(compiledSchema, registry.getSchema(API_ID, xsdURL));
+    }
+
+    @Test
+    public void testSchemaIsRestoredFromCacheFile() throws Exception {
+
+        Path cacheDirectory = temporaryFolder.getRoot().toPath().resolve("xml-schemas");
+        Path xsdFile = writeSchema(2);
+        String xsdURL = xsdFile.toUri().toString();
+        new XMLSchemaRegistry(cacheDirectory, Long.MAX_VALUE, Runnable::run).getSchema(API_ID, xsdURL);
+
+        // The schema is not downloaded again by a restarted gateway
+        Files.delete(xsdFile);
+        XMLSchemaRegistry registry = new XMLSchemaRegistry(cacheDirectory, Long.MAX_VALUE, Runnable::run);
+        registry.validate(API_ID, xsdURL, toSource(PAYLOAD));
+        assertInvalid(registry, xsdURL, "<order><product>pizza</product></order>");
+    }
+
+    @Test
+    public void testSchemaIsRefreshedWhenChanged() throws Exception {
+
+        Path xsdFile = writeSchema(2);
+        String xsdURL = xsdFile.toUri().toString();
+        XMLSchemaRegistry registry = new XMLSchemaRegistry(temporaryFolder.newFolder().toPath(), 0, Runnable::run);
+        XMLSchemaRegistry.CompiledSchema compiledSchema = registry.getSchema(API_ID, xsdURL);
+
+        // An unchanged schema is not compiled again
+        registry.getSchema(API_ID, xsdURL);
+        Assert.assertSame(compiledSchema, registry.getSchema(API_ID, xsdURL));
+
+        Files.write(xsdFile, String.format(SCHEMA, 1).getBytes(StandardCharsets.UTF_8));
+        registry.getSchema(API_ID, xsdURL);
+        Assert.assertNotSame(compiledSchema, registry.getSchema(API_ID, xsdURL));
+        assertInvalid(registry, xsdURL, PAYLOAD);
+
+        // The compiled schema is used until the next refresh if the schema could not be downloaded
+        compiledSchema = registry.getSchema(API_ID, xsdURL);
+        Files.delete(xsdFile);
+        Assert.assertSame(compiledSchema, registry.getSchema(API_ID, xsdURL));
+    }
+
+    private Path writeSchema(int maxItems) throws Exception {
+
+        Path xsdFile = temporaryFolder.newFile().toPath();
+        Files.write(xsdFile, String.format(SCHEMA, maxItems).getBytes(StandardCharsets.UTF_8));
+        return xsdFile;
+    }
+
+    private static StAXSource toSource(String payload) throws Exception {
+
+        return new StAXSource(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(payload)));
+    }
+
+    private static void assertInvalid(XMLSchemaRegistry registry, String xsdURL, String payload) throws Exception {
+
+        try {
+            registry.validate(API_ID, xsdURL, toSource(payload));
+            Assert.fail("Invalid payload is validated");
+        } catch (SAXException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.gateway.threatprotection.analyzer;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.gateway.threatprotection.APIMThreatAnalyzerException;
+import org.wso2.carbon.apimgt.gateway.threatprotection.configuration.JSONConfig;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+public class JSONAnalyzerTest {
+
+    private static final String API_CONTEXT = "/pizzashack/1.0.0";
+
+    private JSONAnalyzer jsonAnalyzer;
+
+    @Before
+    public void init() {
+
+        JSONConfig jsonConfig = new JSONConfig();
+        jsonConfig.setMaxPropertyCount(5);
+        jsonConfig.setMaxStringLength(5);
+        jsonConfig.setMaxArrayElementCount(3);
+        jsonConfig.setMaxKeyLength(4);
+        jsonConfig.setMaxJsonDepth(2);
+        jsonAnalyzer = new JSONAnalyzer();
+        jsonAnalyzer.configure(jsonConfig);
+    }
+
+    @Test
+    public void testPayloadWithinLimitsIsAccepted() throws Exception {
+
+        analyze("{\"name\":\"abcde\",\"tags\":[\"a\",\"bb\",\"ccc\"],\"size\":{\"w\":1}}", StandardCharsets.UTF_8);
+        // Lengths are checked in characters, regardless of the encoding and escaping of the payload
+        analyze("{\"näme\":\"ééééé\",\"esc\":\"\\u00e9\\\"\\n\\t\\\\\"}", StandardCharsets.UTF_8);
+        analyze("{\"näme\":\"ééééé\"}", StandardCharsets.UTF_16BE);
+        analyze("{\"name\":\"🍕🍕\"}", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testPayloadExceedingLimitsIsRejected() {
+
+        assertRejected("{\"name\":\"abcdef\"}", "Max String Length [5] Reached");
+        assertRejected("{\"name\":\"ééééé\\u00e9\"}", "Max String Length [5] Reached");
+        assertRejected("{\"names\":1}", "Max Key Length [4] Reached");
+        assertRejected("{\"a\":1,\"b\":2,\"c\":3,\"d\":4,\"e\":5,\"f\":6}", "Max Property Count [5] Reached");
+        assertRejected("{\"a\":{\"b\":{\"c\":1}}}", "Depth Limit [2] Reached");
+        assertRejected("{\"tags\":[1,2,3,4]}", "Max Array Length [3] Reached");
+        assertRejected("{\"tags\":[\"a\",\"abcdef\"]}", "Max String Length [5] Reached");
+    }
+
+    @Test
+    public void testMalformedPayloadIsRejected() {
+
+        try {
+            analyze("{\"name\":\"abc", StandardCharsets.UTF_8);
+            Assert.fail("Malformed payload is not rejected");
+        } catch (APIMThreatAnalyzerException e) {
+            Assert.assertNotNull(e.getCause());
+        }
+    }
+
+    private void assertRejected(String payload, String message) {
+
+        try {
+            analyze(payload, StandardCharsets.UTF_8);
+            Assert.fail("Payload is not rejected: " + payload);
+        } catch (APIMThreatAnalyzerException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+
+    private void analyze(String payload, Charset charset) throws APIMThreatAnalyzerException {
+
+        jsonAnalyzer.analyze(new ByteArrayInputStream(payload.getBytes(charset)), API_CONTEXT);
+    }
+}
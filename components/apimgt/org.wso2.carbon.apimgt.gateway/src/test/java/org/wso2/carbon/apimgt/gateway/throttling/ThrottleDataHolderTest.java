@@ -18,10 +18,17 @@
 
 package org.wso2.carbon.apimgt.gateway.throttling;
 
+import org.junit.Assert;
 import org.junit.Test;
+import org.wso2.carbon.apimgt.gateway.dto.IPRange;
+import org.wso2.carbon.apimgt.impl.APIConstants;
 
+import java.math.BigInteger;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 
 
 public class ThrottleDataHolderTest {
@@ -74,6 +81,22 @@ public class ThrottleDataHolderTest {
 
     @Test
     public void addIplockingConditionsFromMap() throws Exception {
+        Set<IPRange> ipRanges = new HashSet<>();
+        ipRanges.add(getIPRange(1, "10.0.0.0", "10.0.0.255", false));
+        ipRanges.add(getIPRange(2, "10.0.0.200", "10.0.1.10", false));
+        ipRanges.add(getFixedIp(3, "192.168.1.1", false));
+        Map<String, Set<IPRange>> data = new HashMap<>();
+        data.put("carbon.super", ipRanges);
+        ThrottleDataHolder throttleDataHolder = new ThrottleDataHolder();
+        throttleDataHolder.addIplockingConditionsFromMap(data);
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.0.1"));
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.1.1"));
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "carbon.super", "192.168.1.1"));
+        // Range ends are not part of the range
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.0.0"));
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.1.10"));
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.2.1"));
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "abc.com", "10.0.0.1"));
     }
 
     @Test
@@ -98,6 +121,46 @@ public class ThrottleDataHolderTest {
 
     @Test
     public void removeIpBlockingCondition() throws Exception {
+        ThrottleDataHolder throttleDataHolder = new ThrottleDataHolder();
+        throttleDataHolder.addIpBlockingCondition("carbon.super", 1,
+                "{\"startingIp\":\"10.0.0.0\",\"endingIp\":\"10.0.0.255\",\"invert\":true}",
+                APIConstants.BLOCK_CONDITION_IP_RANGE);
+        throttleDataHolder.addIpBlockingCondition("carbon.super", 2, "{\"fixedIp\":\"10.0.0.5\",\"invert\":false}",
+                APIConstants.BLOCKING_CONDITIONS_IP);
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.1.1"));
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.0.5"));
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.0.6"));
+        throttleDataHolder.removeIpBlockingCondition("carbon.super", 1);
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.1.1"));
+        Assert.assertTrue(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.0.5"));
+        throttleDataHolder.removeIpBlockingCondition("carbon.super", 2);
+        Assert.assertFalse(isIpBlocked(throttleDataHolder, "carbon.super", "10.0.0.5"));
+    }
+
+    @Test
+    public void ipLevelBlockingMatchesConditionByConditionEvaluation() throws Exception {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            Set<IPRange> ipRanges = new HashSet<>();
+            for (int i = 0; i < 1 + random.nextInt(50); i++) {
+                boolean invert = random.nextInt(10) == 0;
+                if (random.nextInt(4) == 0) {
+                    ipRanges.add(getFixedIp(i, "10.0." + random.nextInt(4) + "." + random.nextInt(256), invert));
+                } else {
+                    int start = random.nextInt(1024);
+                    int end = start + random.nextInt(64);
+                    ipRanges.add(getIPRange(i, toIp(start), toIp(end), invert));
+                }
+            }
+            Map<String, Set<IPRange>> data = new HashMap<>();
+            data.put("carbon.super", ipRanges);
+            ThrottleDataHolder throttleDataHolder = new ThrottleDataHolder();
+            throttleDataHolder.addIplockingConditionsFromMap(data);
+            for (int ip = 0; ip < 1100; ip++) {
+                Assert.assertEquals(isBlockedByAnyCondition(ipRanges, toIp(ip)),
+                        isIpBlocked(throttleDataHolder, "carbon.super", toIp(ip)));
+            }
+        }
     }
 
     @Test
@@ -140,4 +203,60 @@ public class ThrottleDataHolderTest {
     public void setKeyTemplatesPresent() throws Exception {
     }
 
-}
\ No newline at end of file
+    private static boolean isIpBlocked(ThrottleDataHolder throttleDataHolder, String tenantDomain, String ip) {
+        return throttleDataHolder.isRequestBlocked("", "", "", ip, tenantDomain, "");
+    }
+
+    private static String toIp(int value) {
+        return "10.0." + (value / 256) + "." + (value % 256);
+    }
+
+    private static IPRange getIPRange(int id, String startingIp, String endingIp, boolean invert) {
+        IPRange ipRange = new IPRange();
+        ipRange.setId(id);
+        ipRange.setType(APIConstants.BLOCK_CONDITION_IP_RANGE);
+        ipRange.setStartingIP(startingIp);
+        ipRange.setStartingIpBigIntValue(toBigInteger(startingIp));
+        ipRange.setEndingIp(endingIp);
+        ipRange.setEndingIpBigIntValue(toBigInteger(endingIp));
+        ipRange.setInvert(invert);
+        return ipRange;
+    }
+
+    private static IPRange getFixedIp(int id, String ip, boolean invert) {
+        IPRange ipRange = new IPRange();
+        ipRange.setId(id);
+        ipRange.setType(APIConstants.BLOCKING_CONDITIONS_IP);
+        ipRange.setFixedIp(ip);
+        ipRange.setInvert(invert);
+        return ipRange;
+    }
+
+    private static BigInteger toBigInteger(String ip) {
+        BigInteger value = BigInteger.ZERO;
+        for (String octet : ip.split("\\.")) {
+            value = value.shiftLeft(8).add(BigInteger.valueOf(Integer.parseInt(octet)));
+        }
+        return value;
+    }
+
+    /**
+     * Evaluates the conditions one by one, as the gateway used to do for each request.
+     */
+    private static boolean isBlockedByAnyCondition(Set<IPRange> ipRanges, String ip) {
+        BigInteger ipValue = toBigInteger(ip);
+        for (IPRange ipRange : ipRanges) {
+            boolean matches;
+            if (APIConstants.BLOCKING_CONDITIONS_IP.equals(ipRange.getType())) {
+                matches = ip.equals(ipRange.getFixedIp());
+            } else {
+                matches = ipValue.compareTo(ipRange.getStartingIpBigIntValue()) > 0
+                        && ipValue.compareTo(ipRange.getEndingIpBigIntValue()) < 0;
+            }
+            if (matches != ipRange.isInvert()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -24,12 +24,19 @@ import org.apache.synapse.MessageContext;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.rest.RESTConstants;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.wso2.carbon.apimgt.api.dto.ConditionDTO;
+import org.wso2.carbon.apimgt.api.dto.ConditionGroupDTO;
+import org.wso2.carbon.apimgt.api.model.policy.PolicyConstants;
 import org.wso2.carbon.apimgt.gateway.APIMgtGatewayConstants;
 import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
 import org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
 import org.wso2.carbon.apimgt.impl.dto.VerbInfoDTO;
@@ -448,4 +455,110 @@ public class DataProcessAndPublishingAgentTest {
         dataProcessAndPublishingAgent.run();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testOnlyPropertiesOfPolicyConditionsArePublished() throws Exception {
+        JSONObject properties = publishWithConditions(new ThrottleDataHolder());
+        Assert.assertEquals("v1", properties.get("h1"));
+        Assert.assertFalse(properties.containsKey("h2"));
+        Assert.assertEquals("1", properties.get("a"));
+        Assert.assertFalse(properties.containsKey("b"));
+    }
+
+    @Test
+    public void testAllPropertiesArePublishedWhenKeyTemplatesArePresent() throws Exception {
+        ThrottleDataHolder throttleDataHolder = new ThrottleDataHolder();
+        throttleDataHolder.setKeyTemplatesPresent(true);
+        JSONObject properties = publishWithConditions(throttleDataHolder);
+        Assert.assertEquals("v1", properties.get("h1"));
+        Assert.assertEquals("v2", properties.get("h2"));
+        Assert.assertEquals("1", properties.get("a"));
+        Assert.assertEquals("2", properties.get("b"));
+    }
+
+    @Test
+    public void testPropertiesOfConditionsOfPublishedVerbArePublishedForMultipleVerbs() throws Exception {
+        // A GraphQL request with two operations publishes an event for each operation
+        ArrayList<VerbInfoDTO> list = new ArrayList<VerbInfoDTO>();
+        list.add(createVerbInfo("/abc/1.0.0/first:QUERY", createCondition(PolicyConstants.HEADER_TYPE, "h1", "v1")));
+        list.add(createVerbInfo("/abc/1.0.0/second:QUERY", createCondition(PolicyConstants.HEADER_TYPE, "h2", "v2"),
+                createCondition(PolicyConstants.QUERY_PARAMETER_TYPE, "b", "2")));
+        JSONObject properties = publishWithConditions(new ThrottleDataHolder(), list, "/abc/1.0.0/second:QUERY");
+        Assert.assertFalse(properties.containsKey("h1"));
+        Assert.assertEquals("v2", properties.get("h2"));
+        Assert.assertFalse(properties.containsKey("a"));
+        Assert.assertEquals("2", properties.get("b"));
+        properties = publishWithConditions(new ThrottleDataHolder(), list, "/abc/1.0.0/first:QUERY");
+        Assert.assertEquals("v1", properties.get("h1"));
+        Assert.assertFalse(properties.containsKey("h2"));
+
+        // All properties are published if the verb of the event is not known
+        properties = publishWithConditions(new ThrottleDataHolder(), list, resourceLevelThrottleKey);
+        Assert.assertEquals("v1", properties.get("h1"));
+        Assert.assertEquals("v2", properties.get("h2"));
+        Assert.assertEquals("1", properties.get("a"));
+        Assert.assertEquals("2", properties.get("b"));
+    }
+
+    private JSONObject publishWithConditions(ThrottleDataHolder throttleDataHolder) throws Exception {
+        ArrayList<VerbInfoDTO> list = new ArrayList<VerbInfoDTO>();
+        list.add(createVerbInfo(resourceLevelThrottleKey, createCondition(PolicyConstants.HEADER_TYPE, "h1", "v1"),
+                createCondition(PolicyConstants.QUERY_PARAMETER_TYPE, "a", "1")));
+        return publishWithConditions(throttleDataHolder, list, resourceLevelThrottleKey);
+    }
+
+    private ConditionDTO createCondition(String conditionType, String conditionName, String conditionValue) {
+        ConditionDTO condition = new ConditionDTO();
+        condition.setConditionType(conditionType);
+        condition.setConditionName(conditionName);
+        condition.setConditionValue(conditionValue);
+        return condition;
+    }
+
+    private VerbInfoDTO createVerbInfo(String requestKey, ConditionDTO... conditions) {
+        ConditionGroupDTO conditionGroup = new ConditionGroupDTO();
+        conditionGroup.setConditionGroupId("condition_1");
+        conditionGroup.setConditions(conditions);
+        ConditionGroupDTO defaultGroup = new ConditionGroupDTO();
+        defaultGroup.setConditionGroupId(APIConstants.THROTTLE_POLICY_DEFAULT);
+        VerbInfoDTO verbInfoDTO = new VerbInfoDTO();
+        verbInfoDTO.setContentAware(false);
+        verbInfoDTO.setRequestKey(requestKey);
+        verbInfoDTO.setThrottling(resourceLevelTier);
+        verbInfoDTO.setConditionGroups(new ConditionGroupDTO[]{conditionGroup, defaultGroup});
+        return verbInfoDTO;
+    }
+
+    private JSONObject publishWithConditions(ThrottleDataHolder throttleDataHolder, ArrayList<VerbInfoDTO> list,
+                                             String resourceLevelThrottleKey) throws Exception {
+        ThrottleProperties throttleProperties = new ThrottleProperties();
+        throttleProperties.setEnableHeaderConditions(true);
+        throttleProperties.setEnableQueryParamConditions(true);
+        DataProcessAndPublishingAgent dataProcessAndPublishingAgent = new DataProcessAndPublishingAgentWrapper
+                (throttleProperties, throttleDataHolder);
+        AuthenticationContext authenticationContext = new AuthenticationContext();
+        MessageContext messageContext = Mockito.mock(Axis2MessageContext.class);
+        org.apache.axis2.context.MessageContext axis2MsgCntxt = Mockito.mock(org.apache.axis2.context.MessageContext
+                .class);
+        Mockito.when(((Axis2MessageContext) messageContext).getAxis2MessageContext()).thenReturn(axis2MsgCntxt);
+        Mockito.when(axis2MsgCntxt.getProperty(NhttpConstants.REST_URL_POSTFIX)).thenReturn("?a=1&b=2");
+        TreeMap headers = new TreeMap();
+        headers.put("h1", "v1");
+        headers.put("h2", "v2");
+        Mockito.when(axis2MsgCntxt.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS))
+                .thenReturn(headers);
+        API api = new API();
+        api.setUuid(UUID.randomUUID().toString());
+        api.setApiName(apiName);
+        api.setApiVersion(apiVersion);
+        api.setApiProvider("admin");
+        Mockito.when(messageContext.getProperty(APIMgtGatewayConstants.API_OBJECT)).thenReturn(api);
+        Mockito.when(messageContext.getProperty(APIConstants.VERB_INFO_DTO)).thenReturn(list);
+        dataProcessAndPublishingAgent.setDataReference(applicationLevelThrottleKey, applicationLevelTier,
+                apiLevelThrottleKey, null, subscriptionLevelThrottleKey, subscriptionLevelTier,
+                resourceLevelThrottleKey, resourceLevelTier, authorizedUser, apiContext, apiVersion, appTenant,
+                apiTenant, appId, messageContext, authenticationContext);
+        Event event = dataProcessAndPublishingAgent.createEvent();
+        Object[] payload = event.getPayloadData();
+        return (JSONObject) new JSONParser().parse((String) payload[payload.length - 1]);
+    }
+}
@@ -21,6 +21,7 @@ package org.wso2.carbon.apimgt.gateway.throttling.publisher;
 
 import org.apache.axis2.context.MessageContext;
 import org.mockito.Mockito;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
 import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
 import org.wso2.carbon.databridge.agent.DataPublisher;
 
@@ -29,11 +30,18 @@ import javax.xml.stream.XMLStreamException;
 
 public class DataProcessAndPublishingAgentWrapper extends DataProcessAndPublishingAgent {
     private ThrottleProperties throttleProperties;
+    private ThrottleDataHolder throttleDataHolder = new ThrottleDataHolder();
 
     public DataProcessAndPublishingAgentWrapper(ThrottleProperties throttleProperties) {
         this.throttleProperties = throttleProperties;
     }
 
+    public DataProcessAndPublishingAgentWrapper(ThrottleProperties throttleProperties,
+                                                ThrottleDataHolder throttleDataHolder) {
+        this.throttleProperties = throttleProperties;
+        this.throttleDataHolder = throttleDataHolder;
+    }
+
 
 
     @Override
@@ -46,6 +54,11 @@ public class DataProcessAndPublishingAgentWrapper extends DataProcessAndPublishi
         return Mockito.mock(DataPublisher.class);
     }
 
+    @Override
+    protected ThrottleDataHolder getThrottleDataHolder() {
+        return throttleDataHolder;
+    }
+
     @Override
     protected void buildMessage(MessageContext axis2MessageContext) throws IOException, XMLStreamException {
     }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.publisher;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ThrottleEventPipelineTest {
+
+    private final List<Integer> published = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> dropped = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch consumerBlocked = new CountDownLatch(1);
+    private final CountDownLatch releaseConsumer = new CountDownLatch(1);
+    private ThrottleEventPipeline<Integer> pipeline;
+
+    @After
+    public void tearDown() {
+
+        releaseConsumer.countDown();
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    private ThrottleEventPipeline<Integer> createPipeline(ThrottleEventPipeline.OverflowPolicy overflowPolicy,
+                                                         int capacity, int batchSize) throws InterruptedException {
+
+        pipeline = new ThrottleEventPipeline<>("ThrottleEventPipelineTest", capacity, overflowPolicy, 2, 1,
+                batchSize, batch -> {
+            consumerBlocked.countDown();
+            try {
+                releaseConsumer.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batchSizes.add(batch.size());
+            published.addAll(batch);
+        }, dropped::add);
+        // Keep the only consumer busy with the first event, so that the following events stay in the buffer.
+        pipeline.publish(0);
+        Assert.assertTrue(consumerBlocked.await(10, TimeUnit.SECONDS));
+        return pipeline;
+    }
+
+    private void awaitPublished(int count) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (pipeline.getPublishedEventCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(count, pipeline.getPublishedEventCount());
+    }
+
+    @Test
+    public void testDropNewest() throws InterruptedException {
+
+        createPipeline(ThrottleEventPipeline.OverflowPolicy.DROP_NEWEST, 3, 10);
+        for (int i = 1; i <= 5; i++) {
+            Assert.assertEquals(i <= 3, pipeline.publish(i));
+        }
+        Assert.assertEquals(3, pipeline.getQueueDepth());
+        Assert.assertEquals(2, pipeline.getDroppedEventCount());
+        Assert.assertEquals(Arrays.asList(4, 5), dropped);
+        releaseConsumer.countDown();
+        awaitPublished(4);
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), published);
+        // The buffered events are published as a single batch
+        Assert.assertEquals(Arrays.asList(1, 3), batchSizes);
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+
+        createPipeline(ThrottleEventPipeline.OverflowPolicy.DROP_OLDEST, 3, 2);
+        for (int i = 1; i <= 5; i++) {
+            Assert.assertTrue(pipeline.publish(i));
+        }
+        Assert.assertEquals(Arrays.asList(1, 2), dropped);
+        releaseConsumer.countDown();
+        awaitPublished(4);
+        Assert.assertEquals(Arrays.asList(0, 3, 4, 5), published);
+        Assert.assertEquals(Arrays.asList(1, 2, 1), batchSizes);
+    }
+
+    @Test
+    public void testSample() throws InterruptedException {
+
+        createPipeline(ThrottleEventPipeline.OverflowPolicy.SAMPLE, 4, 10);
+        for (int i = 1; i <= 8; i++) {
+            pipeline.publish(i);
+        }
+        // Events are buffered until half of the capacity, then one in every two events is buffered until it is full.
+        Assert.assertEquals(Arrays.asList(3, 5, 7, 8), dropped);
+        Assert.assertEquals(4, pipeline.getQueueDepth());
+        releaseConsumer.countDown();
+        awaitPublished(5);
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 4, 6), published);
+    }
+
+    @Test
+    public void testEventsAreDroppedAfterShutdown() throws InterruptedException {
+
+        createPipeline(ThrottleEventPipeline.OverflowPolicy.DROP_NEWEST, 3, 10);
+        pipeline.publish(1);
+        pipeline.shutdown();
+        Assert.assertFalse(pipeline.publish(2));
+        Assert.assertEquals(Arrays.asList(1, 2), dropped);
+        Assert.assertEquals(0, pipeline.getQueueDepth());
+    }
+
+    @Test
+    public void testOverflowPolicyFromString() {
+
+        Assert.assertEquals(ThrottleEventPipeline.OverflowPolicy.DROP_NEWEST,
+                ThrottleEventPipeline.OverflowPolicy.fromString(null));
+        Assert.assertEquals(ThrottleEventPipeline.OverflowPolicy.DROP_OLDEST,
+                ThrottleEventPipeline.OverflowPolicy.fromString("drop_oldest"));
+        Assert.assertEquals(ThrottleEventPipeline.OverflowPolicy.DROP_NEWEST,
+                ThrottleEventPipeline.OverflowPolicy.fromString("drop-newest"));
+        Assert.assertEquals(ThrottleEventPipeline.OverflowPolicy.SAMPLE,
+                ThrottleEventPipeline.OverflowPolicy.fromString(" sample "));
+        Assert.assertEquals(ThrottleEventPipeline.OverflowPolicy.DROP_NEWEST,
+                ThrottleEventPipeline.OverflowPolicy.fromString("drop_all"));
+    }
+}
@@ -459,6 +459,7 @@ public final class APIConstants {
     public static final String CONSUMER_DIALECT_URI = "ConsumerDialectURI";
     public static final String JWT_SIGNATURE_ALGORITHM = "SignatureAlgorithm";
     public static final String USE_SHA256_HASH = "UseSHA256Hash";
+    public static final String ENABLE_SIGNED_TOKEN_CACHE = "EnableSignedTokenCache";
 
     public static final String X5T_PARAMETER = "x5t";
     public static final String X5T256_PARAMETER = "x5t#S256";
@@ -769,6 +770,14 @@ public final class APIConstants {
     public static final String ENABLED_JWT_CLAIM_CACHE = CACHE_CONFIGS + "EnableJWTClaimCache";
     public static final String KEY_MANAGER_TOKEN_CACHE = CACHE_CONFIGS + "EnableKeyManagerTokenCache";
     public static final String TOKEN_CACHE_EXPIRY = CACHE_CONFIGS + "TokenCacheExpiry";
+    public static final String TOKEN_CACHE_REFRESH_AHEAD_ENABLED = CACHE_CONFIGS + "EnableTokenCacheRefreshAhead";
+    public static final String TOKEN_CACHE_REFRESH_AHEAD_TIME = CACHE_CONFIGS + "TokenCacheRefreshAheadTime";
+    public static final long DEFAULT_TOKEN_CACHE_REFRESH_AHEAD_TIME = 60;
+    public static final String NEAR_CACHE_ENABLED = CACHE_CONFIGS + "NearCache.Enabled";
+    public static final String NEAR_CACHE_MAX_ENTRIES = CACHE_CONFIGS + "NearCache.MaxEntries";
+    public static final String NEAR_CACHE_EXPIRY_TIME = CACHE_CONFIGS + "NearCache.ExpiryTime";
+    public static final int DEFAULT_NEAR_CACHE_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_NEAR_CACHE_EXPIRY_TIME = 30;
     public static final String REST_API_TOKEN_CACHE_ENABLED = CACHE_CONFIGS + "EnableRESTAPITokenCache";
     public static final String REST_API_TOKEN_CACHE_EXPIRY = CACHE_CONFIGS + "RESTAPITokenCacheExpiry";
     public static final String REST_API_CACHE_CONTROL_HEADERS_ENABLED = CACHE_CONFIGS
@@ -1225,6 +1234,7 @@ public final class APIConstants {
         public static final String APIS = "/apis";
         public static final String APPLICATIONS = "/applications";
         public static final String SUBSCRIPTIONS = "/subscriptions";
+        public static final String SUBSCRIPTION_REVISIONS = "/subscriptions/revisions";
         public static final String SUBSCRIBERS = "/subscribers";
         public static final String APPLICATION_KEY_MAPPINGS = "/application-key-mappings";
         public static final String APPLICATION_POLICIES = "/application-policies";
@@ -1484,6 +1494,14 @@ public final class APIConstants {
     public static final String CONFIG_REDIS_MIN_GATEWAY_COUNT = "MinGatewayCount";
 
     public static final String CONFIG_REDIS_KEY_LOCK_RETRIEVAL_TIMEOUT = "KeyLockRetrievalTimeout";
+    public static final String CONFIG_REDIS_STRIPED_LOCAL_COUNTERS_ENABLED = "StripedLocalCountersEnabled";
+    public static final String CONFIG_REDIS_LOCAL_COUNTER_FLUSH_INTERVAL = "LocalCounterFlushInterval";
+    public static final String CONFIG_REDIS_LOCAL_COUNTER_FLUSH_THRESHOLD = "LocalCounterFlushThreshold";
+    public static final String CONFIG_REDIS_COUNTER_BATCHING_ENABLED = "CounterBatchingEnabled";
+    public static final String CONFIG_REDIS_COUNTER_BATCH_WINDOW = "CounterBatchWindow";
+    public static final String CONFIG_REDIS_COUNTER_MAX_BATCH_SIZE = "CounterMaxBatchSize";
+    public static final String CONFIG_REDIS_COUNTER_MAX_PENDING_UPDATES = "CounterMaxPendingUpdates";
+    public static final String CONFIG_REDIS_COUNTER_BATCH_TIMEOUT = "CounterBatchTimeout";
     public static final String HYBRID_THROTTLE_PROCESSOR_TYPE_START_TIME_BASED = "start_time_based";
 
     // Primary/Secondary Login configuration
@@ -1511,6 +1529,9 @@ public final class APIConstants {
     public static final String NON_PROXY_HOSTS = "ProxyConfig.NonProxyHosts";
     public static final String PROXY_PROTOCOL = "ProxyConfig.Protocol";
 
+    public static final String XML_SCHEMA_CACHE_REFRESH_INTERVAL = "XMLSchemaValidation.SchemaCacheRefreshInterval";
+    public static final String XML_SCHEMA_CACHE_DIRECTORY = "XMLSchemaValidation.SchemaCacheDirectory";
+
     public static final String KEYMANAGER_HOSTNAME = "keyManagerHostname";
     public static final String KEYMANAGER_PORT = "keyManagerPort";
     public static final String KEYMANAGER_SERVERURL = API_KEY_VALIDATOR + "ServerURL";
@@ -2041,6 +2062,11 @@ public final class APIConstants {
         public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_CORE_POOL_SIZE = "CorePoolSize";
         public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_MAXMIMUM_POOL_SIZE = "MaxmimumPoolSize";
         public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_KEEP_ALIVE_TIME = "KeepAliveTime";
+        public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_QUEUE_SIZE = "QueueSize";
+        public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_OVERFLOW_POLICY = "OverflowPolicy";
+        public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_SAMPLE_RATE = "SampleRate";
+        public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_BATCH_SIZE = "BatchSize";
+        public static final String DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_CONSUMER_COUNT = "ConsumerCount";
         public static final String BLOCK_CONDITION_RETRIEVER_INIT_DELAY = "InitDelay";
         public static final String BLOCK_CONDITION_RETRIEVER_PERIOD = "Period";
         public static final String ENABLE_SUBSCRIPTION_SPIKE_ARREST = "EnableSubscriptionSpikeArrest";
@@ -2816,6 +2842,7 @@ public final class APIConstants {
         public static final String SYNAPSE_ATTRIBUTES = "/synapse-attributes";
         public static final String GATEAY_SYNAPSE_ARTIFACTS = "/runtime-artifacts";
         public static final String GATEWAY_POLICY_SYNAPSE_ARTIFACTS = "/gateway-policy-artifacts";
+        public static final String GATEWAY_RUNTIME_METADATA = "/runtime-metadata";
         public static final String DATA_SOURCE_NAME = "DataSourceName";
         public static final String DATA_RETRIEVAL_MODE = "DataRetrievalMode";
         public static final String GATEWAY_STARTUP_SYNC = "sync";
@@ -2824,6 +2851,9 @@ public final class APIConstants {
         public static final String LABEL = "label";
         public static final String LABELS = "labels";
         public static final String EnableOnDemandLoadingAPIS = "EnableOnDemandLoadingAPIS";
+        public static final String DEPLOYMENT_THREAD_COUNT = "DeploymentThreadCount";
+        public static final String ENABLE_ARTIFACT_SNAPSHOT = "EnableArtifactSnapshot";
+        public static final String ARTIFACT_SNAPSHOT_DIRECTORY = "ArtifactSnapshotDirectory";
 
     }
 
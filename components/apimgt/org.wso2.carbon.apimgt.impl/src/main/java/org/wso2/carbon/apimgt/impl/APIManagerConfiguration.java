@@ -423,6 +423,22 @@ public class APIManagerConfiguration {
                         new QName(APIConstants.CONFIG_REDIS_MIN_GATEWAY_COUNT));
                 OMElement keyLockRetrievalTimeout = element.getFirstChildWithName(
                         new QName(APIConstants.CONFIG_REDIS_KEY_LOCK_RETRIEVAL_TIMEOUT));
+                OMElement stripedLocalCountersEnabled = element.getFirstChildWithName(
+                        new QName(APIConstants.CONFIG_REDIS_STRIPED_LOCAL_COUNTERS_ENABLED));
+                OMElement localCounterFlushInterval = element.getFirstChildWithName(
+                        new QName(APIConstants.CONFIG_REDIS_LOCAL_COUNTER_FLUSH_INTERVAL));
+                OMElement localCounterFlushThreshold = element.getFirstChildWithName(
+                        new QName(APIConstants.CONFIG_REDIS_LOCAL_COUNTER_FLUSH_THRESHOLD));
+                OMElement counterBatchingEnabled = element.getFirstChildWithName(
+                        new QName(APIConstants.CONFIG_REDIS_COUNTER_BATCHING_ENABLED));
+                OMElement counterBatchWindow = element.getFirstChildWithName(
+                        new QName(APIConstants.CONFIG_REDIS_COUNTER_BATCH_WINDOW));
+                OMElement counterMaxBatchSize = element.getFirstChildWithName(
+                        new QName(APIConstants.CONFIG_REDIS_COUNTER_MAX_BATCH_SIZE));
+                OMElement counterMaxPendingUpdates = element.getFirstChildWithName(
+                        new QName(APIConstants.CONFIG_REDIS_COUNTER_MAX_PENDING_UPDATES));
+                OMElement counterBatchTimeout = element.getFirstChildWithName(
+                        new QName(APIConstants.CONFIG_REDIS_COUNTER_BATCH_TIMEOUT));
                 redisConfig.setRedisEnabled(true);
                 redisConfig.setHost(redisHost.getText());
                 redisConfig.setPort(Integer.parseInt(redisPort.getText()));
@@ -438,6 +454,31 @@ public class APIManagerConfiguration {
                 if (keyLockRetrievalTimeout != null) {
                     redisConfig.setKeyLockRetrievalTimeout(Integer.parseInt(keyLockRetrievalTimeout.getText()));
                 }
+                if (stripedLocalCountersEnabled != null) {
+                    redisConfig.setStripedLocalCountersEnabled(
+                            Boolean.parseBoolean(stripedLocalCountersEnabled.getText()));
+                }
+                if (localCounterFlushInterval != null) {
+                    redisConfig.setLocalCounterFlushInterval(Long.parseLong(localCounterFlushInterval.getText()));
+                }
+                if (localCounterFlushThreshold != null) {
+                    redisConfig.setLocalCounterFlushThreshold(Long.parseLong(localCounterFlushThreshold.getText()));
+                }
+                if (counterBatchingEnabled != null) {
+                    redisConfig.setCounterBatchingEnabled(Boolean.parseBoolean(counterBatchingEnabled.getText()));
+                }
+                if (counterBatchWindow != null) {
+                    redisConfig.setCounterBatchWindow(Long.parseLong(counterBatchWindow.getText()));
+                }
+                if (counterMaxBatchSize != null) {
+                    redisConfig.setCounterMaxBatchSize(Integer.parseInt(counterMaxBatchSize.getText()));
+                }
+                if (counterMaxPendingUpdates != null) {
+                    redisConfig.setCounterMaxPendingUpdates(Integer.parseInt(counterMaxPendingUpdates.getText()));
+                }
+                if (counterBatchTimeout != null) {
+                    redisConfig.setCounterBatchTimeout(Long.parseLong(counterBatchTimeout.getText()));
+                }
                 if (redisUser != null) {
                     redisConfig.setUser(redisUser.getText());
                 }
@@ -1337,6 +1378,36 @@ public class APIManagerConfiguration {
                         if (keepAliveTimeElement != null) {
                             dataPublisherThreadPool.setKeepAliveTime(Long.parseLong(keepAliveTimeElement.getText()));
                         }
+                        OMElement queueSizeElement = dataPublisherThreadPoolConfigurationElement
+                                .getFirstChildWithName(new QName(APIConstants.AdvancedThrottleConstants
+                                        .DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_QUEUE_SIZE));
+                        if (queueSizeElement != null) {
+                            dataPublisherThreadPool.setQueueSize(Integer.parseInt(queueSizeElement.getText()));
+                        }
+                        OMElement overflowPolicyElement = dataPublisherThreadPoolConfigurationElement
+                                .getFirstChildWithName(new QName(APIConstants.AdvancedThrottleConstants
+                                        .DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_OVERFLOW_POLICY));
+                        if (overflowPolicyElement != null) {
+                            dataPublisherThreadPool.setOverflowPolicy(overflowPolicyElement.getText());
+                        }
+                        OMElement sampleRateElement = dataPublisherThreadPoolConfigurationElement
+                                .getFirstChildWithName(new QName(APIConstants.AdvancedThrottleConstants
+                                        .DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_SAMPLE_RATE));
+                        if (sampleRateElement != null) {
+                            dataPublisherThreadPool.setSampleRate(Integer.parseInt(sampleRateElement.getText()));
+                        }
+                        OMElement batchSizeElement = dataPublisherThreadPoolConfigurationElement
+                                .getFirstChildWithName(new QName(APIConstants.AdvancedThrottleConstants
+                                        .DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_BATCH_SIZE));
+                        if (batchSizeElement != null) {
+                            dataPublisherThreadPool.setBatchSize(Integer.parseInt(batchSizeElement.getText()));
+                        }
+                        OMElement consumerCountElement = dataPublisherThreadPoolConfigurationElement
+                                .getFirstChildWithName(new QName(APIConstants.AdvancedThrottleConstants
+                                        .DATA_PUBLISHER_THREAD_POOL_CONFIGURATION_CONSUMER_COUNT));
+                        if (consumerCountElement != null) {
+                            dataPublisherThreadPool.setConsumerCount(Integer.parseInt(consumerCountElement.getText()));
+                        }
                     }
                     throttleProperties.setDataPublisherThreadPool(dataPublisherThreadPool);
                 }
@@ -1657,6 +1728,12 @@ public class APIManagerConfiguration {
             if (useSHA256HashElement != null) {
                 jwtConfigurationDto.setUseSHA256Hash(Boolean.parseBoolean(useSHA256HashElement.getText()));
             }
+            OMElement signedTokenCacheElement =
+                    omElement.getFirstChildWithName(new QName(APIConstants.ENABLE_SIGNED_TOKEN_CACHE));
+            if (signedTokenCacheElement != null) {
+                jwtConfigurationDto.setSignedTokenCacheEnabled(
+                        Boolean.parseBoolean(signedTokenCacheElement.getText()));
+            }
             OMElement claimRetrieverImplElement =
                     omElement.getFirstChildWithName(new QName(APIConstants.CLAIMS_RETRIEVER_CLASS));
             if (claimRetrieverImplElement != null) {
@@ -2297,6 +2374,27 @@ public class APIManagerConfiguration {
         if (enableEagerLoading != null){
             gatewayArtifactSynchronizerProperties.setOnDemandLoading(Boolean.parseBoolean(enableEagerLoading.getText()));
         }
+        OMElement deploymentThreadCountElement = omElement.getFirstChildWithName(
+                new QName(APIConstants.GatewayArtifactSynchronizer.DEPLOYMENT_THREAD_COUNT));
+        if (deploymentThreadCountElement != null) {
+            int deploymentThreadCount = Integer.parseInt(deploymentThreadCountElement.getText());
+            gatewayArtifactSynchronizerProperties.setDeploymentThreadCount(deploymentThreadCount);
+        } else {
+            log.debug("Deployment thread count is not set. Set to the number of available processors");
+        }
+        OMElement enableArtifactSnapshotElement = omElement.getFirstChildWithName(
+                new QName(APIConstants.GatewayArtifactSynchronizer.ENABLE_ARTIFACT_SNAPSHOT));
+        if (enableArtifactSnapshotElement != null) {
+            gatewayArtifactSynchronizerProperties.setArtifactSnapshotEnabled(
+                    JavaUtils.isTrueExplicitly(enableArtifactSnapshotElement.getText()));
+        }
+        OMElement artifactSnapshotDirectoryElement = omElement.getFirstChildWithName(
+                new QName(APIConstants.GatewayArtifactSynchronizer.ARTIFACT_SNAPSHOT_DIRECTORY));
+        if (artifactSnapshotDirectoryElement != null
+                && StringUtils.isNotEmpty(artifactSnapshotDirectoryElement.getText())) {
+            gatewayArtifactSynchronizerProperties.setArtifactSnapshotDirectory(
+                    artifactSnapshotDirectoryElement.getText().trim());
+        }
     }
 
     public GatewayArtifactSynchronizerProperties getGatewayArtifactSynchronizerProperties() {
@@ -18,11 +18,19 @@
 
 package org.wso2.carbon.apimgt.impl.caching;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
+import org.wso2.carbon.apimgt.impl.APIManagerConfigurationService;
 import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.base.ServerConfiguration;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.cache.Cache;
 import javax.cache.Caching;
@@ -32,11 +40,17 @@ import javax.cache.Caching;
  */
 public class CacheProvider {
 
+    private static final Log log = LogFactory.getLog(CacheProvider.class);
+
+    private static final Map<String, NearCache> nearCaches = new ConcurrentHashMap<>();
+    private static final Map<String, Cache> nearCachedCaches = new ConcurrentHashMap<>();
+    private static volatile Boolean nearCacheEnabled;
+
     /**
      * @return gateway key cache
      */
     public static Cache getGatewayKeyCache() {
-        return getCache(APIConstants.GATEWAY_KEY_CACHE_NAME);
+        return getNearCachedCache(APIConstants.GATEWAY_KEY_CACHE_NAME);
     }
 
     /**
@@ -50,14 +64,14 @@ public class CacheProvider {
      * @return gateway token cache
      */
     public static Cache getGatewayTokenCache() {
-        return getCache(APIConstants.GATEWAY_TOKEN_CACHE_NAME);
+        return getNearCachedCache(APIConstants.GATEWAY_TOKEN_CACHE_NAME);
     }
 
     /**
      * @return invalid token cache
      */
     public static Cache getInvalidTokenCache() {
-        return getCache(APIConstants.GATEWAY_INVALID_TOKEN_CACHE_NAME);
+        return getNearCachedCache(APIConstants.GATEWAY_INVALID_TOKEN_CACHE_NAME);
     }
 
     /**
@@ -209,6 +223,63 @@ public class CacheProvider {
         return APIUtil.getCache(APIConstants.API_MANAGER_CACHE_MANAGER, cacheName);
     }
 
+    /**
+     * Returns the cache with the given name, served through a near cache if near caching is enabled.
+     *
+     * @param cacheName name of the requested cache
+     * @return cache
+     */
+    private static Cache getNearCachedCache(final String cacheName) {
+        if (!isNearCacheEnabled()) {
+            return getCache(cacheName);
+        }
+        return nearCachedCaches.computeIfAbsent(cacheName, name -> NearCachedCacheHandler.newCache(
+                nearCaches.computeIfAbsent(name, CacheProvider::createNearCache), () -> getCache(name)));
+    }
+
+    /**
+     * @param cacheName name of the cache
+     * @return the near cache kept in front of the cache, or null if the cache does not have a near cache
+     */
+    public static NearCache getNearCache(String cacheName) {
+        return nearCaches.get(cacheName);
+    }
+
+    private static boolean isNearCacheEnabled() {
+        if (nearCacheEnabled != null) {
+            return nearCacheEnabled;
+        }
+        ServiceReferenceHolder serviceReferenceHolder = ServiceReferenceHolder.getInstance();
+        APIManagerConfigurationService configurationService = serviceReferenceHolder != null
+                ? serviceReferenceHolder.getAPIManagerConfigurationService() : null;
+        if (configurationService == null || configurationService.getAPIManagerConfiguration() == null) {
+            // Decide once the configuration is available
+            return false;
+        }
+        nearCacheEnabled = Boolean.parseBoolean(configurationService.getAPIManagerConfiguration()
+                .getFirstProperty(APIConstants.NEAR_CACHE_ENABLED));
+        return nearCacheEnabled;
+    }
+
+    private static NearCache createNearCache(String cacheName) {
+        APIManagerConfiguration config = getApiManagerConfiguration();
+        int maxEntries = APIConstants.DEFAULT_NEAR_CACHE_MAX_ENTRIES;
+        long expiryTime = APIConstants.DEFAULT_NEAR_CACHE_EXPIRY_TIME;
+        try {
+            String maxEntriesConfig = config.getFirstProperty(APIConstants.NEAR_CACHE_MAX_ENTRIES);
+            if (maxEntriesConfig != null) {
+                maxEntries = Integer.parseInt(maxEntriesConfig);
+            }
+            String expiryTimeConfig = config.getFirstProperty(APIConstants.NEAR_CACHE_EXPIRY_TIME);
+            if (expiryTimeConfig != null) {
+                expiryTime = Long.parseLong(expiryTimeConfig);
+            }
+        } catch (NumberFormatException e) {
+            log.error("Invalid near cache configuration. Using the default configuration.", e);
+        }
+        return new NearCache(cacheName, maxEntries, TimeUnit.SECONDS.toMillis(expiryTime));
+    }
+
     /**
      * @return default cache timeout value
      */
@@ -567,6 +638,10 @@ public class CacheProvider {
      * remove caches
      */
     public static void removeAllCaches() {
+        String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        for (NearCache nearCache : nearCaches.values()) {
+            nearCache.clear(tenantDomain != null ? tenantDomain : "");
+        }
         Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER).removeCache(CacheProvider.getGatewayKeyCache().
                 getName());
         Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER).removeCache(CacheProvider.getResourceCache().
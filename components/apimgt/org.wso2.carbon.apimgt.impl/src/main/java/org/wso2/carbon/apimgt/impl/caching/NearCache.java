@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.caching;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In memory first level cache kept in front of a JCache. Entries are kept separately for each tenant, and each
+ * tenant keeps at most the configured number of entries for at most the configured expiry time.
+ * <p>
+ * Lookups do not take locks. When a tenant exceeds the maximum number of entries, entries are evicted in the CLOCK
+ * (second chance) order, which approximates the least recently used order without reordering entries on lookups.
+ */
+public class NearCache {
+
+    private final String name;
+    private final int maxEntries;
+    private final long expiryTime;
+    private final Map<String, TenantEntries> tenantEntries = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param name       name of the cache
+     * @param maxEntries maximum number of entries kept for a tenant
+     * @param expiryTime time in milliseconds for which an entry is kept after it is put
+     */
+    public NearCache(String name, int maxEntries, long expiryTime) {
+
+        this.name = name;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.expiryTime = expiryTime;
+    }
+
+    /**
+     * @return the cached value, or null if the key is not cached for the tenant or its entry is expired
+     */
+    public Object get(String tenantDomain, Object key) {
+
+        TenantEntries entries = tenantEntries.get(tenantDomain);
+        Entry entry = entries != null && key != null ? entries.map.get(key) : null;
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiryTime) {
+            entries.remove(key, entry);
+            missCount.increment();
+            return null;
+        }
+        entry.referenced = true;
+        hitCount.increment();
+        return entry.value;
+    }
+
+    /**
+     * Returns the number of invalidations of the entries of the tenant. A value loaded from the JCache should be put
+     * with {@link #putIfNotInvalidated} together with the invalidation count read before loading it, so that a value
+     * invalidated while it was loaded is not cached.
+     */
+    public long getInvalidationCount(String tenantDomain) {
+
+        TenantEntries entries = tenantEntries.get(tenantDomain);
+        return entries != null ? entries.invalidationCount.get() : 0;
+    }
+
+    /**
+     * Puts the value loaded from the JCache, unless an entry of the tenant was invalidated after the given
+     * invalidation count was read.
+     */
+    public void putIfNotInvalidated(String tenantDomain, Object key, Object value, long invalidationCount) {
+
+        TenantEntries entries = tenantEntries.computeIfAbsent(tenantDomain, domain -> new TenantEntries());
+        if (entries.invalidationCount.get() == invalidationCount) {
+            put(entries, key, value);
+            // Drop the value if it was invalidated while being put
+            if (entries.invalidationCount.get() != invalidationCount) {
+                remove(tenantDomain, key);
+            }
+        }
+    }
+
+    public void put(String tenantDomain, Object key, Object value) {
+
+        put(tenantEntries.computeIfAbsent(tenantDomain, domain -> new TenantEntries()), key, value);
+    }
+
+    private void put(TenantEntries entries, Object key, Object value) {
+
+        if (key == null || value == null) {
+            return;
+        }
+        Entry entry = new Entry(key, value, System.currentTimeMillis() + expiryTime);
+        Entry previous = entries.map.put(key, entry);
+        if (previous == null) {
+            entries.size.incrementAndGet();
+        }
+        entries.clock.offer(entry);
+        entries.queuedCount.incrementAndGet();
+        entries.evict();
+    }
+
+    public void remove(String tenantDomain, Object key) {
+
+        TenantEntries entries = tenantEntries.get(tenantDomain);
+        if (entries != null && key != null) {
+            entries.invalidationCount.incrementAndGet();
+            Entry entry = entries.map.get(key);
+            if (entry != null) {
+                entries.remove(key, entry);
+            }
+        }
+    }
+
+    public void removeAll(String tenantDomain, Collection<?> keys) {
+
+        for (Object key : keys) {
+            remove(tenantDomain, key);
+        }
+    }
+
+    public void clear(String tenantDomain) {
+
+        TenantEntries entries = tenantEntries.get(tenantDomain);
+        if (entries != null) {
+            entries.clear();
+        }
+    }
+
+    public void clear() {
+
+        for (TenantEntries entries : tenantEntries.values()) {
+            entries.clear();
+        }
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    /**
+     * @return number of entries cached for the tenant, including the expired entries not removed yet
+     */
+    public int size(String tenantDomain) {
+
+        TenantEntries entries = tenantEntries.get(tenantDomain);
+        return entries != null ? entries.size.get() : 0;
+    }
+
+    public long getHitCount() {
+
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+
+        return evictionCount.sum();
+    }
+
+    private static final class Entry {
+
+        private final Object key;
+        private final Object value;
+        private final long expiryTime;
+        private volatile boolean referenced;
+
+        private Entry(Object key, Object value, long expiryTime) {
+
+            this.key = key;
+            this.value = value;
+            this.expiryTime = expiryTime;
+        }
+    }
+
+    private final class TenantEntries {
+
+        private final Map<Object, Entry> map = new ConcurrentHashMap<>();
+        // Entries in the insertion order. Replaced and removed entries are dropped when they reach the head.
+        private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicInteger queuedCount = new AtomicInteger();
+        private final AtomicLong invalidationCount = new AtomicLong();
+
+        private void clear() {
+
+            invalidationCount.incrementAndGet();
+            for (Map.Entry<Object, Entry> entry : map.entrySet()) {
+                remove(entry.getKey(), entry.getValue());
+            }
+        }
+
+        private void remove(Object key, Entry entry) {
+
+            if (map.remove(key, entry)) {
+                size.decrementAndGet();
+            }
+        }
+
+        private void evict() {
+
+            // Replaced and removed entries are also dropped once they outnumber the live entries, so that the queue
+            // does not grow with keys which are put repeatedly.
+            long currentTime = System.currentTimeMillis();
+            for (int i = 0; i < 4 * maxEntries; i++) {
+                boolean oversized = size.get() > maxEntries;
+                if (!oversized && queuedCount.get() <= 2 * maxEntries) {
+                    return;
+                }
+                Entry entry = clock.poll();
+                if (entry == null) {
+                    return;
+                }
+                queuedCount.decrementAndGet();
+                if (map.get(entry.key) != entry) {
+                    continue;
+                }
+                if (currentTime >= entry.expiryTime) {
+                    remove(entry.key, entry);
+                } else if (oversized && !entry.referenced) {
+                    if (map.remove(entry.key, entry)) {
+                        size.decrementAndGet();
+                        evictionCount.increment();
+                    }
+                } else {
+                    // Give a recently used entry a second chance
+                    if (oversized) {
+                        entry.referenced = false;
+                    }
+                    clock.offer(entry);
+                    queuedCount.incrementAndGet();
+                }
+            }
+        }
+    }
+}
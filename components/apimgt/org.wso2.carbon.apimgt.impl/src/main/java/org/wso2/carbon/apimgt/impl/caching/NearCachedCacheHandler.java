@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.caching;
+
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.cache.Cache;
+
+/**
+ * Serves a JCache through a {@link NearCache}. Lookups are answered from the near cache when possible, and loaded
+ * from the JCache otherwise. Puts are written to both caches, while every other modification of the JCache
+ * invalidates the affected keys of the near cache, so that invalidations done through the cache reach both levels.
+ * <p>
+ * The JCache and the entries of the near cache are resolved for the tenant of the thread at the time of each call,
+ * so the JCache is only resolved on near cache misses and modifications.
+ */
+class NearCachedCacheHandler implements InvocationHandler {
+
+    // Methods which do not modify the cache, delegated to the JCache as they are
+    private static final Set<String> READ_ONLY_METHODS = new HashSet<>(Arrays.asList("getAll", "getName",
+            "getCacheManager", "getConfiguration", "getStatistics", "getMBean", "getStatus", "unwrap", "iterator",
+            "toString", "hashCode", "registerCacheEntryListener", "unregisterCacheEntryListener", "start"));
+
+    private final NearCache nearCache;
+    private final Supplier<Cache> jCacheSupplier;
+
+    private NearCachedCacheHandler(NearCache nearCache, Supplier<Cache> jCacheSupplier) {
+
+        this.nearCache = nearCache;
+        this.jCacheSupplier = jCacheSupplier;
+    }
+
+    /**
+     * @param nearCache      near cache to keep in front of the JCache
+     * @param jCacheSupplier resolves the JCache of the tenant of the current thread
+     * @return a cache which serves the JCache through the near cache
+     */
+    static Cache newCache(NearCache nearCache, Supplier<Cache> jCacheSupplier) {
+
+        return (Cache) Proxy.newProxyInstance(NearCachedCacheHandler.class.getClassLoader(),
+                new Class[]{Cache.class}, new NearCachedCacheHandler(nearCache, jCacheSupplier));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        String methodName = method.getName();
+        int argumentCount = args != null ? args.length : 0;
+        if ("equals".equals(methodName) && argumentCount == 1) {
+            return proxy == args[0];
+        }
+        String tenantDomain = getTenantDomain();
+        if (("get".equals(methodName) || "containsKey".equals(methodName)) && argumentCount == 1) {
+            Object value = nearCache.get(tenantDomain, args[0]);
+            if (value != null) {
+                return "get".equals(methodName) ? value : Boolean.TRUE;
+            }
+            if ("containsKey".equals(methodName)) {
+                return delegate(method, args);
+            }
+            long invalidationCount = nearCache.getInvalidationCount(tenantDomain);
+            value = delegate(method, args);
+            nearCache.putIfNotInvalidated(tenantDomain, args[0], value, invalidationCount);
+            return value;
+        }
+        if (READ_ONLY_METHODS.contains(methodName)) {
+            return delegate(method, args);
+        }
+        if ("put".equals(methodName) && argumentCount == 2) {
+            // Invalidate the key first, so that a concurrent lookup does not cache the value being replaced
+            nearCache.remove(tenantDomain, args[0]);
+            Object result = delegate(method, args);
+            nearCache.put(tenantDomain, args[0], args[1]);
+            return result;
+        }
+        if (argumentCount == 0) {
+            if (methodName.startsWith("remove") || methodName.startsWith("clear")) {
+                nearCache.clear(tenantDomain);
+            }
+        } else if (args[0] instanceof Map) {
+            nearCache.removeAll(tenantDomain, ((Map<?, ?>) args[0]).keySet());
+        } else if (args[0] instanceof Collection) {
+            nearCache.removeAll(tenantDomain, (Collection<?>) args[0]);
+        } else {
+            nearCache.remove(tenantDomain, args[0]);
+        }
+        return delegate(method, args);
+    }
+
+    private Object delegate(Method method, Object[] args) throws Throwable {
+
+        try {
+            return method.invoke(jCacheSupplier.get(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String getTenantDomain() {
+
+        String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        return tenantDomain != null ? tenantDomain : "";
+    }
+}
@@ -40,6 +40,7 @@ import org.wso2.carbon.apimgt.api.model.subscription.GlobalPolicy;
 import org.wso2.carbon.apimgt.api.model.subscription.Policy;
 import org.wso2.carbon.apimgt.api.model.subscription.Subscription;
 import org.wso2.carbon.apimgt.api.model.subscription.SubscriptionPolicy;
+import org.wso2.carbon.apimgt.api.model.subscription.SubscriptionRevision;
 import org.wso2.carbon.apimgt.api.model.subscription.URLMapping;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
@@ -49,6 +50,7 @@ import org.wso2.carbon.apimgt.impl.dao.constants.SubscriptionValidationSQLConsta
 import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.utils.APIMgtDBUtil;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+import org.wso2.carbon.apimgt.impl.utils.SubscriptionRevisionDigest;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
@@ -482,6 +484,113 @@ public class SubscriptionValidationDAO {
         return subscriptions;
     }
 
+    /*
+     * This method can be used to retrieve a page of the Subscriptions of a given organization, in the order of their
+     * IDs
+     *
+     * @param organization : organization Id
+     * @param after : ID of the last subscription of the previous page
+     * @param limit : maximum number of subscriptions to retrieve
+     * @return {@link List<Subscription>}
+     * */
+    public List<Subscription> getSubscriptionsByOrganization(String organization, int after, int limit)
+            throws APIManagementException {
+
+        return getSubscriptionsPage(SubscriptionValidationSQLConstants.GET_ORGANIZATION_SUBSCRIPTIONS_PAGE_SQL,
+                organization, after, limit);
+    }
+
+    /*
+     * This method can be used to retrieve a page of the Subscriptions of a given tenant, in the order of their IDs
+     *
+     * @param tenantDomain : tenant domain
+     * @param after : ID of the last subscription of the previous page
+     * @param limit : maximum number of subscriptions to retrieve
+     * @return {@link List<Subscription>}
+     * */
+    public List<Subscription> getSubscriptions(String tenantDomain, int after, int limit)
+            throws APIManagementException {
+
+        return getSubscriptionsPage(SubscriptionValidationSQLConstants.GET_TENANT_SUBSCRIPTIONS_PAGE_SQL,
+                APIUtil.getTenantIdFromTenantDomain(tenantDomain), after, limit);
+    }
+
+    /*
+     * This method can be used to retrieve the revisions of the pages of the Subscriptions of a given organization
+     *
+     * @param organization : organization Id
+     * @param pageSize : number of subscriptions in a page
+     * @return {@link List<SubscriptionRevision>}
+     * */
+    public List<SubscriptionRevision> getSubscriptionRevisionsByOrganization(String organization, int pageSize)
+            throws APIManagementException {
+
+        return getSubscriptionRevisions(SubscriptionValidationSQLConstants.GET_ORGANIZATION_SUBSCRIPTIONS_PAGE_SQL,
+                organization, pageSize);
+    }
+
+    /*
+     * This method can be used to retrieve the revisions of the pages of the Subscriptions of a given tenant
+     *
+     * @param tenantDomain : tenant domain
+     * @param pageSize : number of subscriptions in a page
+     * @return {@link List<SubscriptionRevision>}
+     * */
+    public List<SubscriptionRevision> getSubscriptionRevisions(String tenantDomain, int pageSize)
+            throws APIManagementException {
+
+        return getSubscriptionRevisions(SubscriptionValidationSQLConstants.GET_TENANT_SUBSCRIPTIONS_PAGE_SQL,
+                APIUtil.getTenantIdFromTenantDomain(tenantDomain), pageSize);
+    }
+
+    private List<Subscription> getSubscriptionsPage(String sql, Object owner, int after, int limit)
+            throws APIManagementException {
+
+        List<Subscription> subscriptions = new ArrayList<>();
+        try (Connection conn = APIMgtDBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, owner);
+            ps.setInt(2, after);
+            ps.setMaxRows(limit);
+            try (ResultSet resultSet = ps.executeQuery()) {
+                populateSubscriptionsList(subscriptions, resultSet);
+            }
+        } catch (SQLException e) {
+            throw new APIManagementException("Error in loading Subscriptions of : " + owner + " after : " + after, e);
+        }
+        return subscriptions;
+    }
+
+    private List<SubscriptionRevision> getSubscriptionRevisions(String sql, Object owner, int pageSize)
+            throws APIManagementException {
+
+        List<SubscriptionRevision> revisions = new ArrayList<>();
+        try (Connection conn = APIMgtDBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, owner);
+            ps.setInt(2, 0);
+            try (ResultSet resultSet = ps.executeQuery()) {
+                SubscriptionRevisionDigest digest = new SubscriptionRevisionDigest();
+                int after = 0;
+                while (resultSet.next()) {
+                    int subscriptionId = resultSet.getInt("SUB_ID");
+                    digest.update(Integer.toString(subscriptionId), resultSet.getInt("API_ID"),
+                            resultSet.getInt("APP_ID"), resultSet.getString("TIER"), resultSet.getString("STATUS"));
+                    if (digest.getCount() == pageSize) {
+                        revisions.add(new SubscriptionRevision(after, subscriptionId, pageSize, digest.getRevision()));
+                        after = subscriptionId;
+                    }
+                }
+                // The last page is open ended, so that it also covers the subscriptions added afterwards
+                int count = digest.getCount();
+                revisions.add(new SubscriptionRevision(after, Integer.MAX_VALUE, count, digest.getRevision()));
+            }
+        } catch (SQLException e) {
+            throw new APIManagementException("Error in loading Subscription revisions of : " + owner, e);
+        }
+        return revisions;
+    }
+
     private void populateSubscriptionsList(List<Subscription> subscriptions, ResultSet resultSet) throws SQLException {
 
         if (resultSet != null && subscriptions != null) {
@@ -132,6 +132,10 @@ public class SubscriptionValidationSQLConstants {
                     "   SUBS.APPLICATION_ID = APP.APPLICATION_ID AND " +
                     "   APP.SUBSCRIBER_ID = SUB.SUBSCRIBER_ID AND " +
                     "   APP.ORGANIZATION = ? ";
+    public static final String GET_ORGANIZATION_SUBSCRIPTIONS_PAGE_SQL =
+            GET_ORGANIZATION_SUBSCRIPTIONS_SQL +
+                    " AND SUBS.SUBSCRIPTION_ID > ? " +
+                    " ORDER BY SUBS.SUBSCRIPTION_ID";
     public static final String GET_ALL_SUBSCRIPTIONS_SQL =
             "SELECT " +
                     "   SUBS.UUID AS SUBSCRIPTION_UUID," +
@@ -303,6 +307,11 @@ public class SubscriptionValidationSQLConstants {
                     "   APP.SUBSCRIBER_ID = SUB.SUBSCRIBER_ID AND " +
                     "   SUB.TENANT_ID = ? ";
 
+    public static final String GET_TENANT_SUBSCRIPTIONS_PAGE_SQL =
+            GET_TENANT_SUBSCRIPTIONS_SQL +
+                    " AND SUBS.SUBSCRIPTION_ID > ? " +
+                    " ORDER BY SUBS.SUBSCRIPTION_ID";
+
     public static final String GET_TENANT_SUBSCRIPTION_POLICIES_SQL =
             "SELECT " +
                     "   APS.POLICY_ID AS POLICY_ID," +
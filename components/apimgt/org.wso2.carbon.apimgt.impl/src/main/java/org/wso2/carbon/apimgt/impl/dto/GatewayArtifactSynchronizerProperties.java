@@ -19,6 +19,9 @@ public class GatewayArtifactSynchronizerProperties {
     private String gatewayStartup = "sync";
     private long eventWaitingTime = 1;
     private boolean onDemandLoading;
+    private int deploymentThreadCount = Runtime.getRuntime().availableProcessors();
+    private boolean artifactSnapshotEnabled;
+    private String artifactSnapshotDirectory;
 
 
     public String getSaverName() {
@@ -148,4 +151,40 @@ public class GatewayArtifactSynchronizerProperties {
     public boolean isOnDemandLoading() {
         return onDemandLoading;
     }
+
+    /**
+     * @return number of threads used to prepare the retrieved API artifacts for deployment
+     */
+    public int getDeploymentThreadCount() {
+
+        return deploymentThreadCount;
+    }
+
+    public void setDeploymentThreadCount(int deploymentThreadCount) {
+
+        this.deploymentThreadCount = deploymentThreadCount;
+    }
+
+    public boolean isArtifactSnapshotEnabled() {
+
+        return artifactSnapshotEnabled;
+    }
+
+    public void setArtifactSnapshotEnabled(boolean artifactSnapshotEnabled) {
+
+        this.artifactSnapshotEnabled = artifactSnapshotEnabled;
+    }
+
+    /**
+     * @return directory to keep the snapshots of the deployed artifacts in, or null to use the default directory
+     */
+    public String getArtifactSnapshotDirectory() {
+
+        return artifactSnapshotDirectory;
+    }
+
+    public void setArtifactSnapshotDirectory(String artifactSnapshotDirectory) {
+
+        this.artifactSnapshotDirectory = artifactSnapshotDirectory;
+    }
 }
@@ -45,6 +45,14 @@ public class RedisConfig {
     private int minGatewayCount;
     private long keyLockRetrievalTimeout;
     private String hybridThrottleProcessorType;
+    private boolean isStripedLocalCountersEnabled = false;
+    private long localCounterFlushInterval = 100L;
+    private long localCounterFlushThreshold = 100L;
+    private boolean isCounterBatchingEnabled = false;
+    private long counterBatchWindow = 0L;
+    private int counterMaxBatchSize = 500;
+    private int counterMaxPendingUpdates = 10000;
+    private long counterBatchTimeout = 1000L;
     public int getMaxTotal() {
 
         return maxTotal;
@@ -262,4 +270,68 @@ public class RedisConfig {
     public String getHybridThrottleProcessorType() {
         return hybridThrottleProcessorType;
     }
+
+    public boolean isStripedLocalCountersEnabled() {
+        return isStripedLocalCountersEnabled;
+    }
+
+    public void setStripedLocalCountersEnabled(boolean isStripedLocalCountersEnabled) {
+        this.isStripedLocalCountersEnabled = isStripedLocalCountersEnabled;
+    }
+
+    public long getLocalCounterFlushInterval() {
+        return localCounterFlushInterval;
+    }
+
+    public void setLocalCounterFlushInterval(long localCounterFlushInterval) {
+        this.localCounterFlushInterval = localCounterFlushInterval;
+    }
+
+    public long getLocalCounterFlushThreshold() {
+        return localCounterFlushThreshold;
+    }
+
+    public void setLocalCounterFlushThreshold(long localCounterFlushThreshold) {
+        this.localCounterFlushThreshold = localCounterFlushThreshold;
+    }
+
+    public boolean isCounterBatchingEnabled() {
+        return isCounterBatchingEnabled;
+    }
+
+    public void setCounterBatchingEnabled(boolean isCounterBatchingEnabled) {
+        this.isCounterBatchingEnabled = isCounterBatchingEnabled;
+    }
+
+    public long getCounterBatchWindow() {
+        return counterBatchWindow;
+    }
+
+    public void setCounterBatchWindow(long counterBatchWindow) {
+        this.counterBatchWindow = counterBatchWindow;
+    }
+
+    public int getCounterMaxBatchSize() {
+        return counterMaxBatchSize;
+    }
+
+    public void setCounterMaxBatchSize(int counterMaxBatchSize) {
+        this.counterMaxBatchSize = counterMaxBatchSize;
+    }
+
+    public int getCounterMaxPendingUpdates() {
+        return counterMaxPendingUpdates;
+    }
+
+    public void setCounterMaxPendingUpdates(int counterMaxPendingUpdates) {
+        this.counterMaxPendingUpdates = counterMaxPendingUpdates;
+    }
+
+    public long getCounterBatchTimeout() {
+        return counterBatchTimeout;
+    }
+
+    public void setCounterBatchTimeout(long counterBatchTimeout) {
+        this.counterBatchTimeout = counterBatchTimeout;
+    }
 }
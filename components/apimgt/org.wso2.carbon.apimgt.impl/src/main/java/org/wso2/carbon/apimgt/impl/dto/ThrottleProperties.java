@@ -576,10 +576,20 @@ public class ThrottleProperties {
         }
     }
 
+    /**
+     * Configuration of the event pipeline which publishes the throttle events to the traffic manager. The events are
+     * published by a fixed number of consumer threads, hence the thread pool sizes and the keep alive time no longer
+     * apply.
+     */
     public static class DataPublisherThreadPool {
         private int corePoolSize = 200;
         private int maximumPoolSize = 500;
         private long keepAliveTime = 100;
+        private int queueSize = 10000;
+        private String overflowPolicy = "drop_newest";
+        private int sampleRate = 10;
+        private int batchSize = 100;
+        private int consumerCount = 2;
 
         public int getCorePoolSize() {
 
@@ -605,6 +615,46 @@ public class ThrottleProperties {
         public void setKeepAliveTime(long keepAliveTime) {
             this.keepAliveTime = keepAliveTime;
         }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public String getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(String overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(int sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getConsumerCount() {
+            return consumerCount;
+        }
+
+        public void setConsumerCount(int consumerCount) {
+            this.consumerCount = consumerCount;
+        }
     }
 
     public String[] getSkipRedeployingPolicies() {
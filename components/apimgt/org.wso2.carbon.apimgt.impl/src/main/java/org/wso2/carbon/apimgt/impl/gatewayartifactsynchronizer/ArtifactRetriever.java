@@ -22,6 +22,7 @@ import org.wso2.carbon.apimgt.impl.gatewayartifactsynchronizer.exception.Artifac
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * This is a Artifact Retriever type. this interface let users to retriever API artifacts from a storage.
@@ -67,6 +68,60 @@ public interface ArtifactRetriever {
      */
      List<String> retrieveAllArtifacts(String gatewayLabel, String tenantDomain) throws ArtifactSynchronizerException;
 
+    /**
+     * This method is used to retrieve data from the storage, passing each artifact to the consumer as soon as it is
+     * retrieved instead of collecting all the artifacts first. Retrievers which can read the artifacts incrementally
+     * should override this method. By default, the artifacts are retrieved as a list and passed one by one.
+     *
+     * @param gatewayLabel     - Label subscribed by the gateway
+     * @param tenantDomain     Tenant Domain
+     * @param artifactConsumer consumer of the information about each API and its gateway artifacts
+     * @throws ArtifactSynchronizerException if there are any errors when retrieving the Artifacts
+     */
+    default void retrieveAllArtifacts(String gatewayLabel, String tenantDomain, Consumer<String> artifactConsumer)
+            throws ArtifactSynchronizerException {
+
+        for (String artifact : retrieveAllArtifacts(gatewayLabel, tenantDomain)) {
+            artifactConsumer.accept(artifact);
+        }
+    }
+
+    /**
+     * This method is used to retrieve the artifacts of an API in all the labels, when the API is already deployed in
+     * the storage, hence without waiting for a deployment event to be processed. Retrievers which can retrieve the
+     * artifacts of more than one label should override this method. By default, the artifact is retrieved with
+     * {@link #retrieveArtifact(String, String)}.
+     *
+     * @param apiId            UUID of the API
+     * @param gatewayLabel     - Labels subscribed by the gateway
+     * @param artifactConsumer consumer of the gateway artifacts of the API
+     * @throws ArtifactSynchronizerException if there are any errors when retrieving the Artifacts
+     */
+    default void retrieveDeployedArtifacts(String apiId, String gatewayLabel, Consumer<String> artifactConsumer)
+            throws ArtifactSynchronizerException {
+
+        String artifact = retrieveArtifact(apiId, gatewayLabel);
+        if (artifact != null) {
+            artifactConsumer.accept(artifact);
+        }
+    }
+
+    /**
+     * This method is used to retrieve the revisions of the APIs deployed in the labels, without retrieving their
+     * artifacts, so that the artifacts of the APIs which were not changed can be reused.
+     *
+     * @param gatewayLabel - Label subscribed by the gateway
+     * @param tenantDomain Tenant Domain
+     * @return the revisions deployed for each API by the UUID of the API, or null if the retriever can not retrieve
+     * the revisions
+     * @throws ArtifactSynchronizerException if there are any errors when retrieving the revisions
+     */
+    default Map<String, String> retrieveArtifactRevisions(String gatewayLabel, String tenantDomain)
+            throws ArtifactSynchronizerException {
+
+        return null;
+    }
+
     /**
      * Will be called after all publishing is done or if init fails
      */
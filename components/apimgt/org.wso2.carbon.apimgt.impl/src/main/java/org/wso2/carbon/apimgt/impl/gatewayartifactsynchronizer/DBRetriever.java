@@ -19,7 +19,9 @@
 package org.wso2.carbon.apimgt.impl.gatewayartifactsynchronizer;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -28,6 +30,7 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.util.EntityUtils;
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.ExceptionCodes;
@@ -40,6 +43,7 @@ import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.util.ArrayList;
@@ -48,10 +52,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
 public class DBRetriever implements ArtifactRetriever {
 
     private static final Log log = LogFactory.getLog(DBRetriever.class);
+    private static final int UUID_LENGTH = 36;
     protected EventHubConfigurationDto eventHubConfigurationDto = ServiceReferenceHolder.getInstance()
             .getAPIManagerConfigurationService().getAPIManagerConfiguration().getEventHubConfigurationDto();
     protected GatewayArtifactSynchronizerProperties gatewayArtifactSynchronizerProperties =
@@ -76,6 +83,29 @@ public class DBRetriever implements ArtifactRetriever {
                 log.error("Error occurred while waiting to retrieve artifacts from event hub");
             }
         }
+        JSONArray jsonArray = retrieveArtifacts(apiId, gatewayLabel, tenantDomain);
+        if (jsonArray != null && jsonArray.length() > 0) {
+            return jsonArray.getString(0);
+        }
+        return null;
+    }
+
+    @Override
+    public void retrieveDeployedArtifacts(String apiId, String gatewayLabel, Consumer<String> artifactConsumer)
+            throws ArtifactSynchronizerException {
+
+        String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        JSONArray jsonArray = retrieveArtifacts(apiId, gatewayLabel, tenantDomain);
+        if (jsonArray != null) {
+            for (int i = 0; i < jsonArray.length(); i++) {
+                artifactConsumer.accept(jsonArray.getString(i));
+            }
+        }
+    }
+
+    private JSONArray retrieveArtifacts(String apiId, String gatewayLabel, String tenantDomain)
+            throws ArtifactSynchronizerException {
+
         try {
             String encodedGatewayLabel = URLEncoder.encode(gatewayLabel, APIConstants.DigestAuthConstants.CHARSET);
             encodedGatewayLabel = encodedGatewayLabel.replace("\\+", "%20");
@@ -83,17 +113,13 @@ public class DBRetriever implements ArtifactRetriever {
                     "&gatewayLabel=" + encodedGatewayLabel + "&type=Synapse";
             String endpoint = baseURL + path;
             try (CloseableHttpResponse httpResponse = invokeService(endpoint, tenantDomain)) {
-                JSONArray jsonArray = retrieveArtifact(httpResponse);
-                if (jsonArray != null && jsonArray.length() > 0) {
-                    return jsonArray.getString(0);
-                }
+                return retrieveArtifact(httpResponse);
             }
         } catch (IOException e) {
             String msg = "Error while executing the http client";
             log.error(msg, e);
             throw new ArtifactSynchronizerException(msg, e);
         }
-        return null;
     }
 
     private JSONArray retrieveArtifact(CloseableHttpResponse httpResponse)
@@ -123,21 +149,21 @@ public class DBRetriever implements ArtifactRetriever {
     @Override
     public List<String> retrieveAllArtifacts(String label, String tenantDomain) throws ArtifactSynchronizerException {
         List<String> gatewayRuntimeArtifactsArray = new ArrayList<>();
+        retrieveAllArtifacts(label, tenantDomain, gatewayRuntimeArtifactsArray::add);
+        return gatewayRuntimeArtifactsArray;
+    }
+
+    @Override
+    public void retrieveAllArtifacts(String label, String tenantDomain, Consumer<String> artifactConsumer)
+            throws ArtifactSynchronizerException {
         try {
             String endcodedgatewayLabel = URLEncoder.encode(label, APIConstants.DigestAuthConstants.CHARSET);
             String path = APIConstants.GatewayArtifactSynchronizer.GATEAY_SYNAPSE_ARTIFACTS
                     + "?gatewayLabel=" + endcodedgatewayLabel + "&type=Synapse";
             String endpoint = baseURL + path;
             try (CloseableHttpResponse httpResponse = invokeService(endpoint,tenantDomain)) {
-                JSONArray jsonArray = retrieveArtifact(httpResponse);
-                if (jsonArray != null) {
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        gatewayRuntimeArtifactsArray.add(jsonArray.getString(i));
-                    }
-                }
-
+                retrieveArtifacts(httpResponse, artifactConsumer);
             }
-            return gatewayRuntimeArtifactsArray;
         } catch (IOException e) {
             String msg = "Error while executing the http client";
             log.error(msg, e);
@@ -149,6 +175,102 @@ public class DBRetriever implements ArtifactRetriever {
         }
     }
 
+    @Override
+    public Map<String, String> retrieveArtifactRevisions(String label, String tenantDomain)
+            throws ArtifactSynchronizerException {
+        try {
+            String endcodedgatewayLabel = URLEncoder.encode(label, APIConstants.DigestAuthConstants.CHARSET);
+            String path = APIConstants.GatewayArtifactSynchronizer.GATEWAY_RUNTIME_METADATA
+                    + "?gatewayLabel=" + endcodedgatewayLabel;
+            String endpoint = baseURL + path;
+            try (CloseableHttpResponse httpResponse = invokeService(endpoint, tenantDomain)) {
+                int statusCode = httpResponse.getStatusLine().getStatusCode();
+                if (statusCode == 404) {
+                    return new HashMap<>();
+                }
+                if (statusCode != 200 || httpResponse.getEntity() == null) {
+                    throw new ArtifactSynchronizerException("Unable to retrieve the deployed revisions. Event-Hub "
+                            + "status code is : " + statusCode);
+                }
+                String deploymentDescriptor = EntityUtils.toString(httpResponse.getEntity(),
+                        APIConstants.DigestAuthConstants.CHARSET);
+                try {
+                    return getArtifactRevisions(new JSONObject(deploymentDescriptor));
+                } catch (JSONException e) {
+                    log.warn("Unexpected deployment descriptor received from the storage", e);
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            String msg = "Error while executing the http client";
+            log.error(msg, e);
+            throw new ArtifactSynchronizerException(msg, e, ExceptionCodes.ARTIFACT_SYNC_HTTP_REQUEST_FAILED);
+        }
+    }
+
+    /**
+     * Reads the revisions of the APIs from the deployment descriptor of the runtime metadata. Each deployment is
+     * named with the UUID of the API followed by the UUID of the revision.
+     *
+     * @return the deployed revisions by the UUIDs of the APIs, or null if a deployment could not be read
+     */
+    private Map<String, String> getArtifactRevisions(JSONObject deploymentDescriptor) {
+
+        JSONObject data = deploymentDescriptor.optJSONObject("data");
+        JSONArray deployments = data != null ? data.optJSONArray("deployments") : null;
+        if (deployments == null) {
+            return null;
+        }
+        Map<String, Set<String>> revisions = new HashMap<>();
+        for (int i = 0; i < deployments.length(); i++) {
+            JSONObject deployment = deployments.optJSONObject(i);
+            String apiFile = deployment != null ? deployment.optString("apiFile", null) : null;
+            if (apiFile == null || apiFile.length() <= UUID_LENGTH + 1 || apiFile.charAt(UUID_LENGTH) != '-') {
+                log.debug("Unable to read the revision of deployment " + apiFile);
+                return null;
+            }
+            revisions.computeIfAbsent(apiFile.substring(0, UUID_LENGTH), apiId -> new TreeSet<>())
+                    .add(apiFile.substring(UUID_LENGTH + 1));
+        }
+        Map<String, String> artifactRevisions = new HashMap<>();
+        revisions.forEach((apiId, apiRevisions) -> artifactRevisions.put(apiId, String.join(",", apiRevisions)));
+        return artifactRevisions;
+    }
+
+    /**
+     * Reads the artifacts in the list of the response one at a time, so that each artifact can be passed to the
+     * consumer while the rest of the response is still being received, without holding the whole response in memory.
+     */
+    private void retrieveArtifacts(CloseableHttpResponse httpResponse, Consumer<String> artifactConsumer)
+            throws IOException, ArtifactSynchronizerException {
+
+        if (httpResponse.getStatusLine().getStatusCode() != 200 || httpResponse.getEntity() == null) {
+            JSONArray jsonArray = retrieveArtifact(httpResponse);
+            for (int i = 0; i < jsonArray.length(); i++) {
+                artifactConsumer.accept(jsonArray.getString(i));
+            }
+            return;
+        }
+        try (JsonReader jsonReader = new JsonReader(new InputStreamReader(httpResponse.getEntity().getContent(),
+                APIConstants.DigestAuthConstants.CHARSET))) {
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                if ("list".equals(jsonReader.nextName())) {
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext()) {
+                        artifactConsumer.accept(jsonReader.nextString());
+                    }
+                    jsonReader.endArray();
+                } else {
+                    jsonReader.skipValue();
+                }
+            }
+            jsonReader.endObject();
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new ArtifactSynchronizerException("Unexpected response received from the storage", e);
+        }
+    }
+
     @Override
     public Map<String, String> retrieveAttributes(String apiName, String version, String tenantDomain)
             throws ArtifactSynchronizerException {
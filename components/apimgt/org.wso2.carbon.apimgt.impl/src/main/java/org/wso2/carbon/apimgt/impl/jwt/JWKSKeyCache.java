@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keys of the JWKS endpoint of a token issuer, held as signature verifiers indexed by key id.
+ * <p>
+ * The JWKS document is fetched once when the first token is validated. Afterwards it is refreshed in the background
+ * once the keys get older than the refresh interval, while the current keys keep being served. If a refresh fails,
+ * the current keys are served until a later refresh succeeds. A token signed with a key id which is not known
+ * triggers a refresh, but such refreshes are rate limited so that tokens with unknown key ids cannot flood the
+ * JWKS endpoint. Concurrent requests never fetch the document more than once at a time.
+ */
+class JWKSKeyCache {
+
+    private static final Log log = LogFactory.getLog(JWKSKeyCache.class);
+
+    static final long DEFAULT_REFRESH_INTERVAL = 15 * 60 * 1000L;
+    static final long DEFAULT_UNKNOWN_KEY_REFRESH_INTERVAL = 10 * 1000L;
+
+    private static final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "JWKSKeyRefresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Retrieves the JWKS document of the token issuer.
+     */
+    interface JWKSRetriever {
+
+        /**
+         * @return the JWKS document, or null if the endpoint did not return it
+         */
+        String retrieve() throws IOException;
+    }
+
+    private final JWKSRetriever jwksRetriever;
+    private final long refreshInterval;
+    private final long unknownKeyRefreshInterval;
+    private final Object fetchLock = new Object();
+    private final AtomicBoolean backgroundRefreshScheduled = new AtomicBoolean();
+    // Key id to verifier. Keys of unsupported types are mapped to null.
+    private volatile Map<String, JWSVerifier> verifiers;
+    private volatile long lastRefreshTime;
+    private volatile long lastFetchTime;
+
+    JWKSKeyCache(JWKSRetriever jwksRetriever, long refreshInterval, long unknownKeyRefreshInterval) {
+
+        this.jwksRetriever = jwksRetriever;
+        this.refreshInterval = refreshInterval;
+        this.unknownKeyRefreshInterval = unknownKeyRefreshInterval;
+    }
+
+    /**
+     * Returns the verifier of the key with the given key id.
+     *
+     * @param keyId key id of the token header
+     * @return the verifier, or null if the issuer does not have an RSA key with the given key id
+     * @throws IOException            if the keys could not be loaded for the first time due to a connection failure
+     * @throws ParseException         if the JWKS document loaded for the first time could not be parsed
+     * @throws APIManagementException if the JWKS endpoint did not return the document when loading the keys for
+     *                                the first time
+     */
+    JWSVerifier getVerifier(String keyId) throws IOException, ParseException, APIManagementException {
+
+        Map<String, JWSVerifier> currentVerifiers = verifiers;
+        if (currentVerifiers == null) {
+            synchronized (fetchLock) {
+                if (verifiers == null) {
+                    fetch();
+                }
+                currentVerifiers = verifiers;
+            }
+        }
+        long currentTime = System.currentTimeMillis();
+        if (!currentVerifiers.containsKey(keyId)) {
+            return getVerifierOfUnknownKey(keyId);
+        }
+        if (currentTime - lastRefreshTime >= refreshInterval) {
+            scheduleBackgroundRefresh();
+        }
+        return currentVerifiers.get(keyId);
+    }
+
+    private JWSVerifier getVerifierOfUnknownKey(String keyId) {
+
+        synchronized (fetchLock) {
+            // The keys may have been refreshed while waiting for the lock
+            if (!verifiers.containsKey(keyId)) {
+                if (System.currentTimeMillis() - lastFetchTime < unknownKeyRefreshInterval) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Key id " + keyId + " is not available in the JWKS. Keys were refreshed recently, "
+                                + "hence they are not refreshed again.");
+                    }
+                    return null;
+                }
+                try {
+                    fetch();
+                } catch (IOException | ParseException | APIManagementException e) {
+                    log.error("Error while refreshing JWKS to find the key id " + keyId
+                            + ". Continuing with the existing keys.", e);
+                }
+            }
+            return verifiers.get(keyId);
+        }
+    }
+
+    private void scheduleBackgroundRefresh() {
+
+        if (!backgroundRefreshScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    synchronized (fetchLock) {
+                        if (System.currentTimeMillis() - lastRefreshTime >= refreshInterval) {
+                            fetch();
+                        }
+                    }
+                } catch (IOException | ParseException | APIManagementException | RuntimeException e) {
+                    log.error("Error while refreshing JWKS. Continuing with the existing keys.", e);
+                } finally {
+                    backgroundRefreshScheduled.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            backgroundRefreshScheduled.set(false);
+            log.error("Error while scheduling JWKS refresh", e);
+        }
+    }
+
+    /**
+     * Fetches the JWKS document and replaces the verifiers. Should be called holding the fetch lock.
+     */
+    private void fetch() throws IOException, ParseException, APIManagementException {
+
+        // A failed fetch also counts towards the rate limit, so that an unavailable endpoint is not retried for
+        // every token with an unknown key id, and failed background refreshes are retried after the interval.
+        lastFetchTime = System.currentTimeMillis();
+        if (verifiers != null) {
+            lastRefreshTime = lastFetchTime;
+        }
+        String jwksInfo = jwksRetriever.retrieve();
+        if (jwksInfo == null) {
+            throw new APIManagementException("Invalid JWKS endpoint.");
+        }
+        JWKSet jwkSet = JWKSet.parse(jwksInfo);
+        Map<String, JWSVerifier> newVerifiers = new HashMap<>();
+        for (JWK jwk : jwkSet.getKeys()) {
+            if (jwk.getKeyID() == null) {
+                continue;
+            }
+            JWSVerifier verifier = null;
+            if (jwk instanceof RSAKey) {
+                try {
+                    verifier = new RSASSAVerifier((RSAKey) jwk);
+                } catch (JOSEException e) {
+                    log.error("Error while loading key " + jwk.getKeyID() + " of the JWKS", e);
+                }
+            }
+            newVerifiers.put(jwk.getKeyID(), verifier);
+        }
+        verifiers = newVerifiers;
+        lastRefreshTime = System.currentTimeMillis();
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded " + newVerifiers.size() + " keys from the JWKS");
+        }
+    }
+}
@@ -18,9 +18,7 @@
 
 package org.wso2.carbon.apimgt.impl.jwt;
 
-import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.jwt.util.DateUtils;
@@ -50,7 +48,7 @@ public class JWTValidatorImpl implements JWTValidator {
     TokenIssuerDto tokenIssuer;
     private Log log = LogFactory.getLog(JWTValidatorImpl.class);
     JWTTransformer jwtTransformer;
-    private JWKSet jwkSet;
+    private JWKSKeyCache jwksKeyCache;
 
     @Override
     public JWTValidationInfo validateToken(SignedJWTInfo signedJWTInfo) throws APIManagementException {
@@ -139,22 +137,13 @@ public class JWTValidatorImpl implements JWTValidator {
             if (StringUtils.isNotEmpty(keyID)) {
                 if (tokenIssuer.getJwksConfigurationDTO().isEnabled() &&
                         StringUtils.isNotEmpty(tokenIssuer.getJwksConfigurationDTO().getUrl())) {
-                    // Check JWKSet Available in Cache
-                    if (jwkSet == null) {
-                        jwkSet = retrieveJWKSet();
-                    }
-                    if (jwkSet.getKeyByKeyId(keyID) == null) {
-                        jwkSet = retrieveJWKSet();
-                    }
-                    if (jwkSet.getKeyByKeyId(keyID) instanceof RSAKey) {
-                        RSAKey keyByKeyId = (RSAKey) jwkSet.getKeyByKeyId(keyID);
-                        RSAPublicKey rsaPublicKey = keyByKeyId.toRSAPublicKey();
-                        if (rsaPublicKey != null) {
-                            return JWTUtil.verifyTokenSignature(signedJWT, rsaPublicKey);
-                        }
+                    // Check the key available in the JWKS key cache
+                    JWSVerifier jwsVerifier = getJWKSKeyCache().getVerifier(keyID);
+                    if (jwsVerifier != null) {
+                        return JWTUtil.verifyTokenSignature(signedJWT, jwsVerifier);
                     } else {
                         if (log.isDebugEnabled()) {
-                            log.debug("Key Algorithm not supported");
+                            log.debug("Key " + keyID + " not found in JWKS or Key Algorithm not supported");
                         }
                         return false; // return false to produce 401 unauthenticated response
                     }
@@ -170,9 +159,6 @@ public class JWTValidatorImpl implements JWTValidator {
         } catch (ParseException e) {
             log.error("Error while parsing JWKS information", e);
             throw new APIManagementException("Error while parsing JWT", e);
-        } catch (JOSEException e) {
-            log.error("Error while verifying token signature", e);
-            throw new APIManagementException("Error while parsing JWT", e);
         } catch (IOException e) {
             log.error("Error while connecting to JWKS endpoint", e);
             throw new APIManagementException("Error while parsing JWT", e);
@@ -229,15 +215,13 @@ public class JWTValidatorImpl implements JWTValidator {
         jwtValidationInfo.setJti(jwtClaimsSet.getJWTID());
     }
 
-    private JWKSet retrieveJWKSet() throws IOException, ParseException, APIManagementException {
+    private synchronized JWKSKeyCache getJWKSKeyCache() {
 
-        String jwksInfo = JWTUtil
-                .retrieveJWKSConfiguration(tokenIssuer.getJwksConfigurationDTO().getUrl());
-        if (jwksInfo != null) {
-            jwkSet = JWKSet.parse(jwksInfo);
-        } else {
-            throw new APIManagementException("Invalid JWKS endpoint.");
+        if (jwksKeyCache == null) {
+            String jwksEndpoint = tokenIssuer.getJwksConfigurationDTO().getUrl();
+            jwksKeyCache = new JWKSKeyCache(() -> JWTUtil.retrieveJWKSConfiguration(jwksEndpoint),
+                    JWKSKeyCache.DEFAULT_REFRESH_INTERVAL, JWKSKeyCache.DEFAULT_UNKNOWN_KEY_REFRESH_INTERVAL);
         }
-        return jwkSet;
+        return jwksKeyCache;
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.impl.utils;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Computes the revision of a page of subscriptions, from the fields of the subscriptions which are used in subscription
+ * validation. The control plane and the gateways compute the revisions of the same subscriptions, added in the order of
+ * their IDs, in the same way, so that the gateways can find the pages of subscriptions which changed.
+ */
+public class SubscriptionRevisionDigest {
+
+    private final MessageDigest messageDigest = DigestUtils.getSha256Digest();
+    private int count;
+
+    public void update(String subscriptionId, Integer apiId, Integer appId, String policyId,
+                       String subscriptionState) {
+
+        String subscription = subscriptionId + ':' + apiId + ':' + appId + ':' + policyId + ':' + subscriptionState
+                + '\n';
+        messageDigest.update(subscription.getBytes(StandardCharsets.UTF_8));
+        count++;
+    }
+
+    /**
+     * @return number of subscriptions added since the last revision
+     */
+    public int getCount() {
+
+        return count;
+    }
+
+    /**
+     * Returns the revision of the subscriptions added since the last revision, and starts a new revision.
+     *
+     * @return revision of the subscriptions
+     */
+    public String getRevision() {
+
+        count = 0;
+        return Hex.encodeHexString(messageDigest.digest());
+    }
+}
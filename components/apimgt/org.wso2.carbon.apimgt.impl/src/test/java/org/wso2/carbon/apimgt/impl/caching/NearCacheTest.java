@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.caching;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class NearCacheTest {
+
+    private static final String TENANT = "carbon.super";
+
+    @Test
+    public void testEntriesAreKeptPerTenant() {
+
+        NearCache nearCache = new NearCache("gatewayKeyCache", 100, 60000);
+        nearCache.put(TENANT, "token", "carbon.super");
+        nearCache.put("wso2.com", "token", "wso2.com");
+        Assert.assertEquals("carbon.super", nearCache.get(TENANT, "token"));
+        Assert.assertEquals("wso2.com", nearCache.get("wso2.com", "token"));
+        Assert.assertNull(nearCache.get("abc.com", "token"));
+        Assert.assertNull(nearCache.get(TENANT, null));
+        Assert.assertEquals(2, nearCache.getHitCount());
+        Assert.assertEquals(2, nearCache.getMissCount());
+
+        nearCache.remove(TENANT, "token");
+        Assert.assertNull(nearCache.get(TENANT, "token"));
+        Assert.assertEquals("wso2.com", nearCache.get("wso2.com", "token"));
+        nearCache.clear("wso2.com");
+        Assert.assertNull(nearCache.get("wso2.com", "token"));
+        Assert.assertEquals(0, nearCache.size("wso2.com"));
+    }
+
+    @Test
+    public void testEntriesExpire() throws Exception {
+
+        NearCache nearCache = new NearCache("gatewayTokenCache", 100, 50);
+        nearCache.put(TENANT, "token", "carbon.super");
+        Assert.assertEquals("carbon.super", nearCache.get(TENANT, "token"));
+        Thread.sleep(100);
+        Assert.assertNull(nearCache.get(TENANT, "token"));
+        Assert.assertEquals(0, nearCache.size(TENANT));
+    }
+
+    @Test
+    public void testRecentlyUsedEntriesAreNotEvicted() {
+
+        NearCache nearCache = new NearCache("gatewayKeyCache", 100, 60000);
+        for (int i = 0; i < 100; i++) {
+            nearCache.put(TENANT, "token-" + i, i);
+        }
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(i, nearCache.get(TENANT, "token-" + i));
+        }
+        for (int i = 100; i < 150; i++) {
+            nearCache.put(TENANT, "token-" + i, i);
+        }
+        Assert.assertEquals(100, nearCache.size(TENANT));
+        Assert.assertEquals(50, nearCache.getEvictionCount());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(i, nearCache.get(TENANT, "token-" + i));
+        }
+        Assert.assertNull(nearCache.get(TENANT, "token-10"));
+        Assert.assertEquals(149, nearCache.get(TENANT, "token-149"));
+    }
+
+    @Test
+    public void testRepeatedPutsDoNotGrowTheCache() {
+
+        NearCache nearCache = new NearCache("gatewayKeyCache", 10, 60000);
+        for (int i = 0; i < 10000; i++) {
+            nearCache.put(TENANT, "token-" + (i % 5), i);
+        }
+        Assert.assertEquals(5, nearCache.size(TENANT));
+        Assert.assertEquals(0, nearCache.getEvictionCount());
+        Assert.assertEquals(9999, nearCache.get(TENANT, "token-4"));
+        nearCache.removeAll(TENANT, Arrays.asList("token-0", "token-1"));
+        Assert.assertEquals(3, nearCache.size(TENANT));
+    }
+
+    @Test
+    public void testInvalidatedValueIsNotCached() {
+
+        NearCache nearCache = new NearCache("gatewayTokenCache", 100, 60000);
+        long invalidationCount = nearCache.getInvalidationCount(TENANT);
+        // The token is revoked while its value is being loaded from the JCache
+        nearCache.put(TENANT, "other-token", "carbon.super");
+        nearCache.remove(TENANT, "token");
+        nearCache.putIfNotInvalidated(TENANT, "token", "carbon.super", invalidationCount);
+        Assert.assertNull(nearCache.get(TENANT, "token"));
+
+        invalidationCount = nearCache.getInvalidationCount(TENANT);
+        nearCache.putIfNotInvalidated(TENANT, "token", "carbon.super", invalidationCount);
+        Assert.assertEquals("carbon.super", nearCache.get(TENANT, "token"));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.impl.jwt;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JWKSKeyCacheTest {
+
+    private final AtomicInteger fetchCount = new AtomicInteger();
+    private volatile String jwks;
+    private volatile boolean endpointDown;
+
+    private final JWKSKeyCache.JWKSRetriever jwksRetriever = () -> {
+        fetchCount.incrementAndGet();
+        if (endpointDown) {
+            throw new IOException("Connection refused");
+        }
+        return jwks;
+    };
+
+    private static String createJWKS(String... keyIds) throws Exception {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        List<com.nimbusds.jose.jwk.JWK> keys = new ArrayList<>();
+        for (String keyId : keyIds) {
+            RSAPublicKey publicKey = (RSAPublicKey) keyPairGenerator.generateKeyPair().getPublic();
+            keys.add(new RSAKey.Builder(publicKey).keyID(keyId).build());
+        }
+        return new JWKSet(keys).toString();
+    }
+
+    @Test
+    public void testKeysAreFetchedOnceByConcurrentRequests() throws Exception {
+
+        jwks = createJWKS("key1", "key2");
+        JWKSKeyCache jwksKeyCache = new JWKSKeyCache(jwksRetriever, 60000, 60000);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                results.add(executorService.submit((Callable<Object>) () -> jwksKeyCache.getVerifier("key1")));
+            }
+            for (Future<Object> result : results) {
+                Assert.assertNotNull(result.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertNotNull(jwksKeyCache.getVerifier("key2"));
+        Assert.assertEquals(1, fetchCount.get());
+    }
+
+    @Test
+    public void testUnknownKeyRefreshIsRateLimited() throws Exception {
+
+        String rotatedJWKS = createJWKS("key1", "key2");
+        jwks = createJWKS("key1");
+        JWKSKeyCache jwksKeyCache = new JWKSKeyCache(jwksRetriever, 60000, 200);
+        Assert.assertNotNull(jwksKeyCache.getVerifier("key1"));
+        jwks = rotatedJWKS;
+        // The keys were fetched right now, hence an unknown key does not trigger a refresh
+        Assert.assertNull(jwksKeyCache.getVerifier("key2"));
+        Assert.assertNull(jwksKeyCache.getVerifier("unknown"));
+        Assert.assertEquals(1, fetchCount.get());
+        Thread.sleep(300);
+        Assert.assertNotNull(jwksKeyCache.getVerifier("key2"));
+        Assert.assertEquals(2, fetchCount.get());
+        Assert.assertNull(jwksKeyCache.getVerifier("unknown"));
+        Assert.assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    public void testKeysAreServedWhileEndpointIsDown() throws Exception {
+
+        jwks = createJWKS("key1");
+        JWKSKeyCache jwksKeyCache = new JWKSKeyCache(jwksRetriever, 0, 0);
+        Assert.assertNotNull(jwksKeyCache.getVerifier("key1"));
+        endpointDown = true;
+        for (int i = 0; i < 5; i++) {
+            Assert.assertNotNull(jwksKeyCache.getVerifier("key1"));
+            Assert.assertNull(jwksKeyCache.getVerifier("key2"));
+        }
+        Assert.assertTrue(fetchCount.get() > 1);
+    }
+
+    @Test
+    public void testKeysAreRefreshedInBackground() throws Exception {
+
+        jwks = createJWKS("key1");
+        JWKSKeyCache jwksKeyCache = new JWKSKeyCache(jwksRetriever, 100, 60000);
+        Object verifier = jwksKeyCache.getVerifier("key1");
+        jwks = createJWKS("key1");
+        Thread.sleep(150);
+        // The current key is served while the keys are refreshed
+        Assert.assertSame(verifier, jwksKeyCache.getVerifier("key1"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (fetchCount.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(2, fetchCount.get());
+        deadline = System.currentTimeMillis() + 5000;
+        while (jwksKeyCache.getVerifier("key1") == verifier && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertNotSame(verifier, jwksKeyCache.getVerifier("key1"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailureOfFirstFetchIsPropagated() throws Exception {
+
+        endpointDown = true;
+        new JWKSKeyCache(jwksRetriever, 60000, 60000).getVerifier("key1");
+    }
+}
@@ -2,6 +2,7 @@ package org.wso2.carbon.apimgt.internal.service;
 
 import org.wso2.carbon.apimgt.internal.service.dto.ErrorDTO;
 import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionListDTO;
+import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionRevisionListDTO;
 import org.wso2.carbon.apimgt.internal.service.SubscriptionsApiService;
 import org.wso2.carbon.apimgt.internal.service.impl.SubscriptionsApiServiceImpl;
 import org.wso2.carbon.apimgt.api.APIManagementException;
@@ -44,7 +45,19 @@ SubscriptionsApiService delegate = new SubscriptionsApiServiceImpl();
     @ApiResponses(value = { 
         @ApiResponse(code = 200, message = "An array of subscriptions in the database", response = SubscriptionListDTO.class),
         @ApiResponse(code = 200, message = "Unexpected error", response = ErrorDTO.class) })
-    public Response subscriptionsGet(@ApiParam(value = "This is used to specify the tenant domain, where the resource need to be   retrieved from. " ,required=true)@HeaderParam("xWSO2Tenant") String xWSO2Tenant,  @ApiParam(value = "**Search condition**.   Api ID  of the subscription ")  @QueryParam("apiId") Integer apiId,  @ApiParam(value = "**Search condition**.   Application ID  of the subscription ")  @QueryParam("appId") Integer appId,  @ApiParam(value = "**Search condition**.   Api UUID  of the subscription ")  @QueryParam("apiUUID") String apiUUID,  @ApiParam(value = "**Search condition**.   Application UUID  of the subscription ")  @QueryParam("applicationUUID") String applicationUUID) throws APIManagementException{
-        return delegate.subscriptionsGet(xWSO2Tenant, apiId, appId, apiUUID, applicationUUID, securityContext);
+    public Response subscriptionsGet(@ApiParam(value = "This is used to specify the tenant domain, where the resource need to be   retrieved from. " ,required=true)@HeaderParam("xWSO2Tenant") String xWSO2Tenant,  @ApiParam(value = "**Search condition**.   Api ID  of the subscription ")  @QueryParam("apiId") Integer apiId,  @ApiParam(value = "**Search condition**.   Application ID  of the subscription ")  @QueryParam("appId") Integer appId,  @ApiParam(value = "**Search condition**.   Api UUID  of the subscription ")  @QueryParam("apiUUID") String apiUUID,  @ApiParam(value = "**Search condition**.   Application UUID  of the subscription ")  @QueryParam("applicationUUID") String applicationUUID,  @ApiParam(value = "ID of the last subscription of the previous page. Subscriptions are returned in the order of their IDs when a limit is given. ", defaultValue="0") @DefaultValue("0") @QueryParam("after") Integer after,  @ApiParam(value = "Maximum number of subscriptions to return. ")  @QueryParam("limit") Integer limit) throws APIManagementException{
+        return delegate.subscriptionsGet(xWSO2Tenant, apiId, appId, apiUUID, applicationUUID, after, limit, securityContext);
+    }
+
+    @GET
+    @Path("/revisions")
+    
+    @Produces({ "application/json" })
+    @ApiOperation(value = "Get the revisions of the subscriptions", notes = "This will provide the revisions of the pages of the subscriptions in database, ordered by the IDs of the subscriptions. The last page covers all the subscriptions with IDs greater than those of the previous page. ", response = SubscriptionRevisionListDTO.class, tags={ "Subscription Validation" })
+    @ApiResponses(value = { 
+        @ApiResponse(code = 200, message = "An array of the revisions of the pages of the subscriptions in the database", response = SubscriptionRevisionListDTO.class),
+        @ApiResponse(code = 200, message = "Unexpected error", response = ErrorDTO.class) })
+    public Response subscriptionsRevisionsGet(@ApiParam(value = "This is used to specify the tenant domain, where the resource need to be   retrieved from. " ,required=true)@HeaderParam("xWSO2Tenant") String xWSO2Tenant,  @ApiParam(value = "Number of subscriptions in a page. ", defaultValue="1000") @DefaultValue("1000") @QueryParam("limit") Integer limit) throws APIManagementException{
+        return delegate.subscriptionsRevisionsGet(xWSO2Tenant, limit, securityContext);
     }
 }
@@ -11,6 +11,7 @@ import org.wso2.carbon.apimgt.api.APIManagementException;
 
 import org.wso2.carbon.apimgt.internal.service.dto.ErrorDTO;
 import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionListDTO;
+import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionRevisionListDTO;
 
 import java.util.List;
 
@@ -21,5 +22,6 @@ import javax.ws.rs.core.SecurityContext;
 
 
 public interface SubscriptionsApiService {
-      public Response subscriptionsGet(String xWSO2Tenant, Integer apiId, Integer appId, String apiUUID, String applicationUUID, MessageContext messageContext) throws APIManagementException;
+      public Response subscriptionsGet(String xWSO2Tenant, Integer apiId, Integer appId, String apiUUID, String applicationUUID, Integer after, Integer limit, MessageContext messageContext) throws APIManagementException;
+      public Response subscriptionsRevisionsGet(String xWSO2Tenant, Integer limit, MessageContext messageContext) throws APIManagementException;
 }
@@ -0,0 +1,139 @@
+package org.wso2.carbon.apimgt.internal.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import javax.validation.constraints.*;
+
+
+import io.swagger.annotations.*;
+import java.util.Objects;
+
+import javax.xml.bind.annotation.*;
+import org.wso2.carbon.apimgt.rest.api.common.annotations.Scope;
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+
+
+public class SubscriptionRevisionDTO   {
+  
+    private Integer after = null;
+    private Integer last = null;
+    private Integer count = null;
+    private String revision = null;
+  /**
+   * ID of the last subscription of the previous page.
+   **/
+  public SubscriptionRevisionDTO after(Integer after) {
+    this.after = after;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "ID of the last subscription of the previous page.")
+  @JsonProperty("after")
+  public Integer getAfter() {
+    return after;
+  }
+  public void setAfter(Integer after) {
+    this.after = after;
+  }
+
+  /**
+   * ID of the last subscription of the page.
+   **/
+  public SubscriptionRevisionDTO last(Integer last) {
+    this.last = last;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "ID of the last subscription of the page.")
+  @JsonProperty("last")
+  public Integer getLast() {
+    return last;
+  }
+  public void setLast(Integer last) {
+    this.last = last;
+  }
+
+  /**
+   * Number of subscriptions in the page.
+   **/
+  public SubscriptionRevisionDTO count(Integer count) {
+    this.count = count;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Number of subscriptions in the page.")
+  @JsonProperty("count")
+  public Integer getCount() {
+    return count;
+  }
+  public void setCount(Integer count) {
+    this.count = count;
+  }
+
+  /**
+   * Revision of the subscriptions in the page.
+   **/
+  public SubscriptionRevisionDTO revision(String revision) {
+    this.revision = revision;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Revision of the subscriptions in the page.")
+  @JsonProperty("revision")
+  public String getRevision() {
+    return revision;
+  }
+  public void setRevision(String revision) {
+    this.revision = revision;
+  }
+
+
+  @Override
+  public boolean equals(java.lang.Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SubscriptionRevisionDTO subscriptionRevision = (SubscriptionRevisionDTO) o;
+    return Objects.equals(after, subscriptionRevision.after) &&
+        Objects.equals(last, subscriptionRevision.last) &&
+        Objects.equals(count, subscriptionRevision.count) &&
+        Objects.equals(revision, subscriptionRevision.revision);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(after, last, count, revision);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class SubscriptionRevisionDTO {\n");
+    
+    sb.append("    after: ").append(toIndentedString(after)).append("\n");
+    sb.append("    last: ").append(toIndentedString(last)).append("\n");
+    sb.append("    count: ").append(toIndentedString(count)).append("\n");
+    sb.append("    revision: ").append(toIndentedString(revision)).append("\n");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Convert the given object to string with each line indented by 4 spaces
+   * (except the first line).
+   */
+  private String toIndentedString(java.lang.Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return o.toString().replace("\n", "\n    ");
+  }
+}
@@ -22,9 +22,12 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.cxf.jaxrs.ext.MessageContext;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.model.subscription.Subscription;
+import org.wso2.carbon.apimgt.api.model.subscription.SubscriptionRevision;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dao.SubscriptionValidationDAO;
 import org.wso2.carbon.apimgt.internal.service.SubscriptionsApiService;
+import org.wso2.carbon.apimgt.internal.service.dto.PaginationDTO;
+import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionListDTO;
 import org.wso2.carbon.apimgt.internal.service.utils.SubscriptionValidationDataUtil;
 import org.wso2.carbon.apimgt.rest.api.util.utils.RestApiUtil;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
@@ -35,10 +38,12 @@ import javax.ws.rs.core.Response;
 
 public class SubscriptionsApiServiceImpl implements SubscriptionsApiService {
 
+    private static final String SUBSCRIPTIONS_PAGE_URL = "/subscriptions?after=%d&limit=%d";
+
     @Override
     public Response subscriptionsGet(String xWSO2Tenant, Integer apiId, Integer appId, String apiUUID,
-                                     String applicationUUID, MessageContext messageContext) throws
-            APIManagementException {
+                                     String applicationUUID, Integer after, Integer limit,
+                                     MessageContext messageContext) throws APIManagementException {
 
         Response result;
 
@@ -60,8 +65,32 @@ public class SubscriptionsApiServiceImpl implements SubscriptionsApiService {
             }
             result = Response.ok().entity(
                     SubscriptionValidationDataUtil.fromSubscriptionToSubscriptionListDTO(subscriptionList)).build();
-        } else if (StringUtils.isNotEmpty(organization) &&
-                !organization.equalsIgnoreCase(APIConstants.ORG_ALL_QUERY_PARAM)) {
+        } else if (limit != null) {
+            if (limit < 1) {
+                return Response.status(Response.Status.BAD_REQUEST.getStatusCode(),
+                        "Limit should be greater than zero.").build();
+            }
+            int afterSubscriptionId = after != null ? after : 0;
+            List<Subscription> subscriptions;
+            if (isOrganizationSpecific(organization)) {
+                subscriptions = subscriptionValidationDAO.getSubscriptionsByOrganization(organization,
+                        afterSubscriptionId, limit);
+            } else {
+                subscriptions = subscriptionValidationDAO.getSubscriptions(xWSO2Tenant, afterSubscriptionId, limit);
+            }
+            SubscriptionListDTO subscriptionListDTO =
+                    SubscriptionValidationDataUtil.fromSubscriptionToSubscriptionListDTO(subscriptions);
+            PaginationDTO paginationDTO = new PaginationDTO();
+            paginationDTO.setLimit(limit);
+            if (subscriptions.size() == limit) {
+                paginationDTO.setNext(String.format(SUBSCRIPTIONS_PAGE_URL,
+                        subscriptions.get(subscriptions.size() - 1).getSubscriptionId(), limit));
+            } else {
+                paginationDTO.setNext("");
+            }
+            subscriptionListDTO.setPagination(paginationDTO);
+            result = Response.ok().entity(subscriptionListDTO).build();
+        } else if (isOrganizationSpecific(organization)) {
             result = Response.ok().entity(SubscriptionValidationDataUtil.fromSubscriptionToSubscriptionListDTO(
                     subscriptionValidationDAO.getAllSubscriptionsByOrganization(organization))).build();
         } else if (StringUtils.isNotEmpty(organization) && organization.equalsIgnoreCase(APIConstants.ORG_ALL_QUERY_PARAM) &&
@@ -78,4 +107,36 @@ public class SubscriptionsApiServiceImpl implements SubscriptionsApiService {
 
         return result;
     }
+
+    @Override
+    public Response subscriptionsRevisionsGet(String xWSO2Tenant, Integer limit, MessageContext messageContext)
+            throws APIManagementException {
+
+        if (limit == null || limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST.getStatusCode(),
+                    "Limit should be greater than zero.").build();
+        }
+        SubscriptionValidationDAO subscriptionValidationDAO = new SubscriptionValidationDAO();
+        xWSO2Tenant = SubscriptionValidationDataUtil.validateTenantDomain(xWSO2Tenant, messageContext);
+        String organization = RestApiUtil.getOrganization(messageContext);
+        List<SubscriptionRevision> revisions;
+        if (isOrganizationSpecific(organization)) {
+            revisions = subscriptionValidationDAO.getSubscriptionRevisionsByOrganization(organization, limit);
+        } else {
+            revisions = subscriptionValidationDAO.getSubscriptionRevisions(xWSO2Tenant, limit);
+        }
+        return Response.ok().entity(
+                SubscriptionValidationDataUtil.fromSubscriptionRevisionToSubscriptionRevisionListDTO(revisions))
+                .build();
+    }
+
+    /**
+     * Pages and revisions of the subscriptions are taken for the organization, unless the subscriptions of all the
+     * organizations are requested, in which case they are taken for the tenant.
+     */
+    private static boolean isOrganizationSpecific(String organization) {
+
+        return StringUtils.isNotEmpty(organization) &&
+                !organization.equalsIgnoreCase(APIConstants.ORG_ALL_QUERY_PARAM);
+    }
 }
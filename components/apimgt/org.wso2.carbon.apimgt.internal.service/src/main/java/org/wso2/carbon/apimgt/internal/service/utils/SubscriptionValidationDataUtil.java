@@ -40,6 +40,7 @@ import org.wso2.carbon.apimgt.api.model.subscription.GlobalPolicy;
 import org.wso2.carbon.apimgt.api.model.subscription.Policy;
 import org.wso2.carbon.apimgt.api.model.subscription.Subscription;
 import org.wso2.carbon.apimgt.api.model.subscription.SubscriptionPolicy;
+import org.wso2.carbon.apimgt.api.model.subscription.SubscriptionRevision;
 import org.wso2.carbon.apimgt.api.model.subscription.URLMapping;
 import org.wso2.carbon.apimgt.internal.service.dto.APIDTO;
 import org.wso2.carbon.apimgt.internal.service.dto.APIListDTO;
@@ -66,6 +67,8 @@ import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionDTO;
 import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionListDTO;
 import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionPolicyDTO;
 import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionPolicyListDTO;
+import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionRevisionDTO;
+import org.wso2.carbon.apimgt.internal.service.dto.SubscriptionRevisionListDTO;
 import org.wso2.carbon.apimgt.internal.service.dto.ThrottleLimitDTO;
 import org.wso2.carbon.apimgt.internal.service.dto.URLMappingDTO;
 import org.wso2.carbon.apimgt.rest.api.common.RestApiCommonUtil;
@@ -277,6 +280,22 @@ public class SubscriptionValidationDataUtil {
         return subscriptionListDTO;
     }
 
+    public static SubscriptionRevisionListDTO fromSubscriptionRevisionToSubscriptionRevisionListDTO(
+            List<SubscriptionRevision> model) {
+
+        SubscriptionRevisionListDTO subscriptionRevisionListDTO = new SubscriptionRevisionListDTO();
+        for (SubscriptionRevision revisionModel : model) {
+            SubscriptionRevisionDTO subscriptionRevisionDTO = new SubscriptionRevisionDTO();
+            subscriptionRevisionDTO.setAfter(revisionModel.getAfter());
+            subscriptionRevisionDTO.setLast(revisionModel.getLast());
+            subscriptionRevisionDTO.setCount(revisionModel.getCount());
+            subscriptionRevisionDTO.setRevision(revisionModel.getRevision());
+            subscriptionRevisionListDTO.getList().add(subscriptionRevisionDTO);
+        }
+        subscriptionRevisionListDTO.setCount(model.size());
+        return subscriptionRevisionListDTO;
+    }
+
     public static SubscriptionPolicyListDTO fromSubscriptionPolicyToSubscriptionPolicyListDTO(
             List<SubscriptionPolicy> model) {
 
@@ -85,8 +85,8 @@ public class SubscriptionDataHolder {
 
     public void refreshSubscriptionStore() {
         subscriptionStore.keySet().forEach(tenant -> {
-            // Cleaning the existing SubscriptionDataStore instance before re-population
-            subscriptionStore.put(tenant, new SubscriptionDataStoreImpl(tenant));
+            // The existing SubscriptionDataStore instance is re-populated in place, so that its entries remain
+            // available, and only the subscriptions which changed are loaded again
             if (log.isDebugEnabled()) {
                 log.debug("Refreshing subscription data store for tenant: " + tenant);
             }
@@ -26,6 +26,7 @@ import org.wso2.carbon.apimgt.keymgt.model.entity.ApplicationPolicy;
 import org.wso2.carbon.apimgt.keymgt.model.entity.Scope;
 import org.wso2.carbon.apimgt.keymgt.model.entity.Subscription;
 import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionPolicy;
+import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionRevision;
 import org.wso2.carbon.apimgt.keymgt.model.exception.DataLoadingException;
 
 import java.util.List;
@@ -45,6 +46,30 @@ public interface SubscriptionDataLoader {
      */
     public List<Subscription> loadAllSubscriptions(String tenantDomain) throws DataLoadingException;
 
+    /**
+     * Loads a page of the subscriptions of a tenant, in the order of their IDs.
+     *
+     * @param tenantDomain tenant domain
+     * @param after        ID of the last subscription of the previous page
+     * @param limit        maximum number of subscriptions to load
+     * @return A list of {@link Subscription} objects with IDs greater than the given ID.
+     * @throws DataLoadingException If any error
+     */
+    public List<Subscription> loadSubscriptions(String tenantDomain, int after, int limit)
+            throws DataLoadingException;
+
+    /**
+     * Loads the revisions of the pages of the subscriptions of a tenant, so that only the pages which changed have to
+     * be loaded.
+     *
+     * @param tenantDomain tenant domain
+     * @param pageSize     number of subscriptions in a page
+     * @return A list of {@link SubscriptionRevision}s, or null if the revisions are not available.
+     * @throws DataLoadingException If any error
+     */
+    public List<SubscriptionRevision> loadSubscriptionRevisions(String tenantDomain, int pageSize)
+            throws DataLoadingException;
+
     /**
      * Load all Applications from the Database belonging to all Tenants
      *
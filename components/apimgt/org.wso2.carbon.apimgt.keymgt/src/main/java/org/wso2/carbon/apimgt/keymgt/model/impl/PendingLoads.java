@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.keymgt.model.impl;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Loads of entities which are not yet in the subscription data store, by the keys of the entities. A caller which
+ * requests an entity while it is being loaded by another caller waits for that load and gets the same result, so
+ * that an entity is loaded only once at a time without locking on the key.
+ *
+ * @param <K> type of the keys of the entities
+ * @param <V> type of the entities
+ */
+class PendingLoads<K, V> {
+
+    private final Map<K, CompletableFuture<V>> pendingLoads = new ConcurrentHashMap<>();
+
+    /**
+     * Loads an entity, or waits for the entity to be loaded if it is already being loaded.
+     *
+     * @param key    key of the entity
+     * @param loader loads the entity, and adds it to the store
+     * @return the loaded entity, which is null if the entity was not found
+     */
+    V load(K key, Supplier<V> loader) {
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> pendingLoad = pendingLoads.putIfAbsent(key, load);
+        if (pendingLoad != null) {
+            try {
+                return pendingLoad.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            V value = loader.get();
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingLoads.remove(key, load);
+        }
+    }
+
+    int size() {
+
+        return pendingLoads.size();
+    }
+}
@@ -18,9 +18,11 @@
 package org.wso2.carbon.apimgt.keymgt.model.impl;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -48,9 +50,13 @@ import org.wso2.carbon.apimgt.keymgt.model.entity.Subscription;
 import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionList;
 import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionPolicy;
 import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionPolicyList;
+import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionRevision;
+import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionRevisionList;
 import org.wso2.carbon.apimgt.keymgt.model.exception.DataLoadingException;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLEncoder;
@@ -81,35 +87,75 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
 
         String subscriptionsEP = APIConstants.SubscriptionValidationResources.SUBSCRIPTIONS;
         List<Subscription> subscriptions = new ArrayList<>();
-        String responseString = null;
+        SubscriptionList subscriptionList;
         try {
-            responseString = invokeService(subscriptionsEP, tenantDomain);
+            subscriptionList = invokeService(subscriptionsEP, tenantDomain, SubscriptionList.class, true);
         } catch (IOException e) {
             String msg = "Error while executing the http client " + subscriptionsEP;
             log.error(msg, e);
             throw new DataLoadingException(msg, e);
         }
-        if (responseString != null && !responseString.isEmpty()) {
-            subscriptions = (new Gson().fromJson(responseString, SubscriptionList.class)).getList();
+        if (subscriptionList != null && subscriptionList.getList() != null) {
+            subscriptions = subscriptionList.getList();
         }
         return subscriptions;
     }
 
+    @Override
+    public List<Subscription> loadSubscriptions(String tenantDomain, int after, int limit)
+            throws DataLoadingException {
+
+        String subscriptionsEP = APIConstants.SubscriptionValidationResources.SUBSCRIPTIONS + "?after=" + after
+                + "&limit=" + limit;
+        List<Subscription> subscriptions = new ArrayList<>();
+        SubscriptionList subscriptionList;
+        try {
+            subscriptionList = invokeService(subscriptionsEP, tenantDomain, SubscriptionList.class, true);
+        } catch (IOException e) {
+            String msg = "Error while executing the http client " + subscriptionsEP;
+            log.error(msg, e);
+            throw new DataLoadingException(msg, e);
+        }
+        if (subscriptionList != null && subscriptionList.getList() != null) {
+            subscriptions = subscriptionList.getList();
+        }
+        return subscriptions;
+    }
+
+    @Override
+    public List<SubscriptionRevision> loadSubscriptionRevisions(String tenantDomain, int pageSize)
+            throws DataLoadingException {
+
+        String subscriptionRevisionsEP = APIConstants.SubscriptionValidationResources.SUBSCRIPTION_REVISIONS
+                + "?limit=" + pageSize;
+        SubscriptionRevisionList subscriptionRevisionList;
+        try {
+            subscriptionRevisionList =
+                    invokeService(subscriptionRevisionsEP, tenantDomain, SubscriptionRevisionList.class, false);
+        } catch (IOException e) {
+            String msg = "Error while executing the http client " + subscriptionRevisionsEP;
+            log.error(msg, e);
+            throw new DataLoadingException(msg, e);
+        }
+        // Control planes which do not provide the revisions respond with not found, which is not retried
+        return subscriptionRevisionList != null ? subscriptionRevisionList.getList() : null;
+    }
+
     @Override
     public List<Application> loadAllApplications(String tenantDomain) throws DataLoadingException {
 
         String applicationsEP = APIConstants.SubscriptionValidationResources.APPLICATIONS;
         List<Application> applications = new ArrayList<>();
-        String responseString = null;
+        ApplicationList applicationList;
         try {
-            responseString = invokeService(applicationsEP, tenantDomain);
+            applicationList = invokeService(applicationsEP, tenantDomain, ApplicationList.class, true);
         } catch (IOException e) {
             String msg = "Error while executing the http client " + applicationsEP;
             log.error(msg, e);
             throw new DataLoadingException(msg, e);
         }
-        if (responseString != null && !responseString.isEmpty()) {
-            applications = (new Gson().fromJson(responseString, ApplicationList.class)).getList();
+        if (applicationList != null && applicationList.getList() != null) {
+            applications = applicationList.getList();
         }
         return applications;
     }
@@ -119,16 +165,17 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
 
         String applicationsEP = APIConstants.SubscriptionValidationResources.APPLICATION_KEY_MAPPINGS;
         List<ApplicationKeyMapping> applicationKeyMappings = new ArrayList<>();
-        String responseString = null;
+        ApplicationKeyMappingList applicationKeyMappingList;
         try {
-            responseString = invokeService(applicationsEP, tenantDomain);
+            applicationKeyMappingList =
+                    invokeService(applicationsEP, tenantDomain, ApplicationKeyMappingList.class, true);
         } catch (IOException e) {
             String msg = "Error while executing the http client " + applicationsEP;
             log.error(msg, e);
             throw new DataLoadingException(msg, e);
         }
-        if (responseString != null && !responseString.isEmpty()) {
-            applicationKeyMappings = (new Gson().fromJson(responseString, ApplicationKeyMappingList.class)).getList();
+        if (applicationKeyMappingList != null && applicationKeyMappingList.getList() != null) {
+            applicationKeyMappings = applicationKeyMappingList.getList();
         }
         return applicationKeyMappings;
     }
@@ -142,16 +189,15 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
             for (String gatewayLabel : gatewayLabels) {
                 String apisEP =
                         APIConstants.SubscriptionValidationResources.APIS + "?gatewayLabel=" + getEncodedLabel(gatewayLabel);
-                String responseString = null;
+                APIList apiList;
                 try {
-                    responseString = invokeService(apisEP, tenantDomain);
+                    apiList = invokeService(apisEP, tenantDomain, APIList.class, true);
                 } catch (IOException e) {
                     String msg = "Error while executing the http client " + apisEP;
                     log.error(msg, e);
                     throw new DataLoadingException(msg, e);
                 }
-                if (responseString != null && !responseString.isEmpty()) {
-                    APIList apiList = new Gson().fromJson(responseString, APIList.class);
+                if (apiList != null && apiList.getList() != null) {
                     apis.addAll(apiList.getList());
                 }
                 if (log.isDebugEnabled()) {
@@ -452,31 +498,70 @@ public class SubscriptionDataLoaderImpl implements SubscriptionDataLoader {
 
     private String invokeService(String path, String tenantDomain) throws DataLoadingException, IOException {
 
-        String serviceURLStr = getEventHubConfigurationDto.getServiceUrl().concat(APIConstants.INTERNAL_WEB_APP_EP);
-        HttpGet method = new HttpGet(serviceURLStr + path);
+        String responseString;
+        try (CloseableHttpResponse httpResponse = executeServiceRequest(path, tenantDomain, true)) {
+            responseString = EntityUtils.toString(httpResponse.getEntity(), UTF8);
+        }
 
-            URL serviceURL = new URL(serviceURLStr + path);
-            byte[] credentials = getServiceCredentials(getEventHubConfigurationDto);
-            int servicePort = serviceURL.getPort();
-            String serviceProtocol = serviceURL.getProtocol();
-            method.setHeader(APIConstants.AUTHORIZATION_HEADER_DEFAULT,
-                    APIConstants.AUTHORIZATION_BASIC +
-                            new String(credentials, StandardCharsets.UTF_8));
-            if (tenantDomain != null) {
-                method.setHeader(APIConstants.HEADER_TENANT, tenantDomain);
+        if (log.isDebugEnabled()) {
+            log.debug("Response : " + responseString);
+        }
+        return responseString;
+    }
+
+    /**
+     * Invokes the service and parses the response while it is read, instead of reading the whole response into a
+     * string first, as the responses listing all the entities of a tenant can be large.
+     *
+     * @param retry whether the request is retried until it succeeds
+     * @return the parsed response, or null if the resource is not found
+     */
+    private <T> T invokeService(String path, String tenantDomain, Class<T> responseType, boolean retry)
+            throws DataLoadingException, IOException {
+
+        try (CloseableHttpResponse httpResponse = executeServiceRequest(path, tenantDomain, retry)) {
+            int statusCode = httpResponse.getStatusLine().getStatusCode();
+            if (statusCode == HttpStatus.SC_NOT_FOUND) {
+                return null;
             }
-            HttpClient httpClient = APIUtil.getHttpClient(servicePort, serviceProtocol);
-            String responseString;
-            try (CloseableHttpResponse httpResponse = APIUtil.executeHTTPRequestWithRetries(method, httpClient)) {
-                responseString = EntityUtils.toString(httpResponse.getEntity(), UTF8);
-            } catch (APIManagementException e) {
-                throw new DataLoadingException("Error while retrieving subscriptions", e);
+            if (statusCode != HttpStatus.SC_OK || httpResponse.getEntity() == null) {
+                throw new DataLoadingException("Error while retrieving " + path + ". Received response with status "
+                        + "code " + statusCode);
             }
-
-            if (log.isDebugEnabled()) {
-                log.debug("Response : " + responseString);
+            try (Reader reader = new InputStreamReader(httpResponse.getEntity().getContent(),
+                    StandardCharsets.UTF_8)) {
+                return new Gson().fromJson(reader, responseType);
+            } catch (JsonParseException e) {
+                throw new DataLoadingException("Error while parsing the response of " + path, e);
             }
-            return responseString;
+        }
+    }
+
+    private CloseableHttpResponse executeServiceRequest(String path, String tenantDomain, boolean retry)
+            throws DataLoadingException, IOException {
+
+        String serviceURLStr = getEventHubConfigurationDto.getServiceUrl().concat(APIConstants.INTERNAL_WEB_APP_EP);
+        HttpGet method = new HttpGet(serviceURLStr + path);
+
+        URL serviceURL = new URL(serviceURLStr + path);
+        byte[] credentials = getServiceCredentials(getEventHubConfigurationDto);
+        int servicePort = serviceURL.getPort();
+        String serviceProtocol = serviceURL.getProtocol();
+        method.setHeader(APIConstants.AUTHORIZATION_HEADER_DEFAULT,
+                APIConstants.AUTHORIZATION_BASIC +
+                        new String(credentials, StandardCharsets.UTF_8));
+        if (tenantDomain != null) {
+            method.setHeader(APIConstants.HEADER_TENANT, tenantDomain);
+        }
+        HttpClient httpClient = APIUtil.getHttpClient(servicePort, serviceProtocol);
+        if (!retry) {
+            return (CloseableHttpResponse) httpClient.execute(method);
+        }
+        try {
+            return APIUtil.executeHTTPRequestWithRetries(method, httpClient);
+        } catch (APIManagementException e) {
+            throw new DataLoadingException("Error while retrieving subscriptions", e);
+        }
     }
 
     private byte[] getServiceCredentials(EventHubConfigurationDto eventHubConfigurationDto) {
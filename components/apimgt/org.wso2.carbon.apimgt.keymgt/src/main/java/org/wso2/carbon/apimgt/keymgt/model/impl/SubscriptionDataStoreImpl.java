@@ -69,11 +69,18 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
     private Map<String, ApiPolicy> apiPolicyMap;
     private Map<String, SubscriptionPolicy> subscriptionPolicyMap;
     private Map<String, ApplicationPolicy> appPolicyMap;
-    private Map<String, Subscription> subscriptionMap;
+    private SubscriptionMap subscriptionMap;
     private Map<String, Scope> scopesMap;
     private boolean apisInitialized;
     private boolean apiPoliciesInitialized;
+    private volatile boolean subscriptionsInitialized;
     private String tenantDomain;
+    // Loads of entities which are not yet in the maps, so that concurrent lookups of an entity load it only once
+    private final PendingLoads<Integer, Application> pendingApplicationLoads = new PendingLoads<>();
+    private final PendingLoads<ApplicationKeyMappingCacheKey, ApplicationKeyMapping> pendingKeyMappingLoads =
+            new PendingLoads<>();
+    private final PendingLoads<String, API> pendingApiLoads = new PendingLoads<>();
+    private final PendingLoads<Long, Subscription> pendingSubscriptionLoads = new PendingLoads<>();
     private ScheduledExecutorService executorService = Executors.newScheduledThreadPool(LOADING_POOL_SIZE);
 
     public SubscriptionDataStoreImpl(String tenantDomain) {
@@ -93,7 +100,7 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
         this.subscriptionPolicyMap = new ConcurrentHashMap<>();
         this.appPolicyMap = new ConcurrentHashMap<>();
         this.apiPolicyMap = new ConcurrentHashMap<>();
-        this.subscriptionMap = new ConcurrentHashMap<>();
+        this.subscriptionMap = new SubscriptionMap();
         this.scopesMap = new ConcurrentHashMap<>();
         this.apiNameVersionMap = new ConcurrentHashMap<>();
     }
@@ -106,27 +113,9 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
     @Override
     public Application getApplicationById(int appId) {
 
-        String synchronizeKey = "SubscriptionDataStoreImpl-Application-" + appId;
         Application application = applicationMap.get(appId);
         if (application == null) {
-            synchronized (synchronizeKey.intern()) {
-                application = applicationMap.get(appId);
-                if (application != null) {
-                    return application;
-                }
-            }
-            try {
-                application = new SubscriptionDataLoaderImpl().getApplicationById(appId);
-            } catch (DataLoadingException e) {
-                log.error("Error while Retrieving Application Metadata From Internal API.", e);
-            }
-            if (application != null && application.getId() != null && application.getId() != 0) {
-                // load to the memory
-                log.debug("Loading Application to the in-memory datastore. applicationId = " + application.getId());
-                addOrUpdateApplication(application);
-            } else {
-                log.debug("Application not found. applicationId = " + appId);
-            }
+            application = pendingApplicationLoads.load(appId, () -> loadApplication(appId));
         }
 
         if (log.isDebugEnabled()) {
@@ -140,32 +129,36 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
         return application;
     }
 
+    private Application loadApplication(int appId) {
+
+        Application application = applicationMap.get(appId);
+        if (application != null) {
+            return application;
+        }
+        try {
+            application = new SubscriptionDataLoaderImpl().getApplicationById(appId);
+        } catch (DataLoadingException e) {
+            log.error("Error while Retrieving Application Metadata From Internal API.", e);
+        }
+        if (application != null && application.getId() != null && application.getId() != 0) {
+            // load to the memory
+            log.debug("Loading Application to the in-memory datastore. applicationId = " + application.getId());
+            addOrUpdateApplication(application);
+        } else {
+            log.debug("Application not found. applicationId = " + appId);
+        }
+        return application;
+    }
+
     @Override
     public ApplicationKeyMapping getKeyMappingByKeyAndKeyManager(String key, String keyManager) {
 
         ApplicationKeyMappingCacheKey applicationKeyMappingCacheKey = new ApplicationKeyMappingCacheKey(key,
                 keyManager);
-        String synchronizeKey = "SubscriptionDataStoreImpl-KeyMapping-" + applicationKeyMappingCacheKey;
-
         ApplicationKeyMapping applicationKeyMapping = applicationKeyMappingMap.get(applicationKeyMappingCacheKey);
         if (applicationKeyMapping == null) {
-            synchronized (synchronizeKey.intern()) {
-                applicationKeyMapping = applicationKeyMappingMap.get(applicationKeyMappingCacheKey);
-                if (applicationKeyMapping != null) {
-                    return applicationKeyMapping;
-                }
-                try {
-                    applicationKeyMapping = new SubscriptionDataLoaderImpl()
-                            .getKeyMapping(key, keyManager, tenantDomain);
-                } catch (DataLoadingException e) {
-                    log.error("Error while Loading KeyMapping Information from Internal API.", e);
-                }
-                if (applicationKeyMapping != null && !StringUtils.isEmpty(applicationKeyMapping.getConsumerKey())) {
-                    // load to the memory
-                    log.debug("Loading Keymapping to the in-memory datastore.");
-                    addOrUpdateApplicationKeyMapping(applicationKeyMapping);
-                }
-            }
+            applicationKeyMapping = pendingKeyMappingLoads.load(applicationKeyMappingCacheKey,
+                    () -> loadKeyMapping(applicationKeyMappingCacheKey, key, keyManager));
         }
 
         if (log.isDebugEnabled()) {
@@ -179,6 +172,26 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
         return applicationKeyMapping;
     }
 
+    private ApplicationKeyMapping loadKeyMapping(ApplicationKeyMappingCacheKey applicationKeyMappingCacheKey,
+                                                 String key, String keyManager) {
+
+        ApplicationKeyMapping applicationKeyMapping = applicationKeyMappingMap.get(applicationKeyMappingCacheKey);
+        if (applicationKeyMapping != null) {
+            return applicationKeyMapping;
+        }
+        try {
+            applicationKeyMapping = new SubscriptionDataLoaderImpl().getKeyMapping(key, keyManager, tenantDomain);
+        } catch (DataLoadingException e) {
+            log.error("Error while Loading KeyMapping Information from Internal API.", e);
+        }
+        if (applicationKeyMapping != null && !StringUtils.isEmpty(applicationKeyMapping.getConsumerKey())) {
+            // load to the memory
+            log.debug("Loading Keymapping to the in-memory datastore.");
+            addOrUpdateApplicationKeyMapping(applicationKeyMapping);
+        }
+        return applicationKeyMapping;
+    }
+
     @Override
     public API getApiByContextAndVersion(String context, String version) {
 
@@ -189,25 +202,9 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
             return null;
         }
         String key = context + DELEM_PERIOD + version;
-        String synchronizeKey = "SubscriptionDataStoreImpl-API-" + key;
         API api = apiMap.get(key);
         if (api == null) {
-            synchronized (synchronizeKey.intern()) {
-                api = apiMap.get(key);
-                if (api != null) {
-                    return api;
-                }
-                try {
-                    api = new SubscriptionDataLoaderImpl().getApi(context, version);
-                } catch (DataLoadingException e) {
-                    log.error("Error while Retrieving Data From Internal Rest API", e);
-                }
-                if (api != null && api.getApiId() != 0) {
-                    // load to the memory
-                    log.debug("Loading API to the in-memory datastore.");
-                    addOrUpdateAPI(api);
-                }
-            }
+            api = pendingApiLoads.load(key, () -> loadApi(key, context, version));
         }
         if (log.isDebugEnabled()) {
             log.debug("Retrieving API information with Context " + context + " and Version : " + version);
@@ -222,6 +219,25 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
         return api;
     }
 
+    private API loadApi(String key, String context, String version) {
+
+        API api = apiMap.get(key);
+        if (api != null) {
+            return api;
+        }
+        try {
+            api = new SubscriptionDataLoaderImpl().getApi(context, version);
+        } catch (DataLoadingException e) {
+            log.error("Error while Retrieving Data From Internal Rest API", e);
+        }
+        if (api != null && api.getApiId() != 0) {
+            // load to the memory
+            log.debug("Loading API to the in-memory datastore.");
+            addOrUpdateAPI(api);
+        }
+        return api;
+    }
+
     @Override
     public API getApiByNameAndVersion(String name, String version) {
 
@@ -254,27 +270,10 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
     @Override
     public Subscription getSubscriptionById(int appId, int apiId) {
 
-        String subscriptionCacheKey = SubscriptionDataStoreUtil.getSubscriptionCacheKey(appId, apiId);
-        String synchronizeKey = "SubscriptionDataStoreImpl-Subscription-" + subscriptionCacheKey;
-        Subscription subscription = subscriptionMap.get(subscriptionCacheKey);
+        Subscription subscription = subscriptionMap.get(appId, apiId);
         if (subscription == null) {
-            synchronized (synchronizeKey.intern()) {
-                subscription = subscriptionMap.get(subscriptionCacheKey);
-                if (subscription != null) {
-                    return subscription;
-                }
-                try {
-                    subscription = new SubscriptionDataLoaderImpl().getSubscriptionById(Integer.toString(apiId),
-                            Integer.toString(appId));
-                } catch (DataLoadingException e) {
-                    log.error("Error while Retrieving Subscription Data From Internal API", e);
-                }
-                if (subscription != null && !StringUtils.isEmpty(subscription.getSubscriptionId())) {
-                    // load to the memory
-                    log.debug("Loading Subscription to the in-memory datastore.");
-                    subscriptionMap.put(subscription.getCacheKey(), subscription);
-                }
-            }
+            subscription = pendingSubscriptionLoads.load(SubscriptionMap.getKey(appId, apiId),
+                    () -> loadSubscription(appId, apiId));
         }
         if (log.isDebugEnabled()) {
             log.debug("Retrieving API Subscription with Application " + appId + " and APIId : " + apiId);
@@ -289,6 +288,26 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
         return subscription;
     }
 
+    private Subscription loadSubscription(int appId, int apiId) {
+
+        Subscription subscription = subscriptionMap.get(appId, apiId);
+        if (subscription != null) {
+            return subscription;
+        }
+        try {
+            subscription = new SubscriptionDataLoaderImpl().getSubscriptionById(Integer.toString(apiId),
+                    Integer.toString(appId));
+        } catch (DataLoadingException e) {
+            log.error("Error while Retrieving Subscription Data From Internal API", e);
+        }
+        if (subscription != null && !StringUtils.isEmpty(subscription.getSubscriptionId())) {
+            // load to the memory
+            log.debug("Loading Subscription to the in-memory datastore.");
+            subscriptionMap.put(subscription);
+        }
+        return subscription;
+    }
+
     @Override
     public ApiPolicy getApiPolicyByName(String policyName, int tenantId) {
 
@@ -305,6 +324,7 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
                         log.debug("Calling loadAllApis. ");
                         List<API> apiList = new SubscriptionDataLoaderImpl().loadAllApis(tenantDomain);
                         apiByUUIDMap.clear();
+                        apiNameVersionMap.clear();
                         for (API api : apiList) {
                             apiByUUIDMap.put(api.getUuid(), api);
                             String key = api.getApiName().concat(":").concat(api.getApiVersion());
@@ -320,16 +340,35 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
 
         executorService.schedule(apiTask, eventHubConfiguration.getInitDelay(), TimeUnit.MILLISECONDS);
 
-        Runnable subscriptionLoadingTask = new PopulateTask<>(subscriptionMap,
-                () -> {
-                    try {
-                        log.debug("Calling loadAllSubscriptions.");
-                        return new SubscriptionDataLoaderImpl().loadAllSubscriptions(tenantDomain);
-                    } catch (APIManagementException e) {
-                        log.error("Exception while loading Subscriptions " + e);
+        Runnable subscriptionPopulateTask = () -> {
+            try {
+                log.debug("Calling loadAllSubscriptions.");
+                List<Subscription> subscriptionList =
+                        new SubscriptionDataLoaderImpl().loadAllSubscriptions(tenantDomain);
+                if (subscriptionList != null && !subscriptionList.isEmpty()) {
+                    subscriptionMap.replaceAll(subscriptionList);
+                }
+                subscriptionsInitialized = true;
+            } catch (APIManagementException e) {
+                log.error("Exception while loading Subscriptions " + e);
+            }
+        };
+        Runnable subscriptionLoadingTask = subscriptionPopulateTask;
+        if (subscriptionsInitialized) {
+            // When the store is populated again, only the subscriptions which changed are loaded
+            subscriptionLoadingTask = () -> {
+                try {
+                    log.debug("Synchronizing Subscriptions.");
+                    if (new SubscriptionSynchronizer(new SubscriptionDataLoaderImpl(), tenantDomain)
+                            .synchronize(subscriptionMap)) {
+                        return;
                     }
-                    return null;
-                });
+                } catch (APIManagementException e) {
+                    log.warn("Unable to synchronize Subscriptions. All the Subscriptions will be loaded. " + e);
+                }
+                subscriptionPopulateTask.run();
+            };
+        }
 
         executorService.schedule(subscriptionLoadingTask, eventHubConfiguration.getInitDelay(), TimeUnit.MILLISECONDS);
 
@@ -434,43 +473,40 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
 
     @Override
     public void addOrUpdateSubscription(Subscription subscription) {
-        String synchronizeKey = "SubscriptionDataStoreImpl-API-" + subscription.getCacheKey();
 
-        synchronized (synchronizeKey.intern()) {
-            Subscription retrievedSubscription = subscriptionMap.get(subscription.getCacheKey());
-            if (retrievedSubscription == null) {
-                subscriptionMap.put(subscription.getCacheKey(), subscription);
-            } else {
-                if (log.isDebugEnabled()) {
-                    log.debug("Retrieved Subscription from Map :" + retrievedSubscription.toString());
-                }
-                if (subscription.getTimeStamp() < retrievedSubscription.getTimeStamp()) {
+        Subscription updatedSubscription = subscriptionMap.compute(subscription.getAppId(), subscription.getApiId(),
+                retrievedSubscription -> {
+                    if (retrievedSubscription == null) {
+                        return subscription;
+                    }
                     if (log.isDebugEnabled()) {
-                        log.debug("Drop the Event " + subscription.toString() + " since the event timestamp was old");
+                        log.debug("Retrieved Subscription from Map :" + retrievedSubscription.toString());
                     }
-                } else {
-                    if (!APIConstants.SubscriptionStatus.ON_HOLD.equals(subscription.getSubscriptionState())) {
-                        subscriptionMap.put(subscription.getCacheKey(), subscription);
-                    } else {
+                    if (subscription.getTimeStamp() < retrievedSubscription.getTimeStamp()) {
                         if (log.isDebugEnabled()) {
-                            log.debug("Drop the Event " + subscription.toString() + " since the event was marked as " +
-                                    "ON_HOLD");
+                            log.debug("Drop the Event " + subscription.toString() + " since the event timestamp was "
+                                    + "old");
                         }
+                        return retrievedSubscription;
                     }
-                }
-            }
-            if (log.isDebugEnabled()) {
-                Subscription updatedSubscription = subscriptionMap.get(subscription.getCacheKey());
-                log.debug("Updated Subscription From map :" + updatedSubscription.toString());
-            }
-
+                    if (APIConstants.SubscriptionStatus.ON_HOLD.equals(subscription.getSubscriptionState())) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Drop the Event " + subscription.toString() + " since the event was marked as "
+                                    + "ON_HOLD");
+                        }
+                        return retrievedSubscription;
+                    }
+                    return subscription;
+                });
+        if (log.isDebugEnabled()) {
+            log.debug("Updated Subscription From map :" + updatedSubscription.toString());
         }
     }
 
     @Override
     public void removeSubscription(Subscription subscription) {
 
-        subscriptionMap.remove(subscription.getCacheKey());
+        subscriptionMap.remove(subscription.getAppId(), subscription.getApiId());
     }
 
     @Override
@@ -558,8 +594,7 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
     public void removeApplication(Application application) {
 
         applicationMap.remove(application.getId());
-        subscriptionMap.values().removeIf(subscription ->
-                subscription != null && application.getUUID().equals(subscription.getApplicationUUID()));
+        subscriptionMap.removeIf(subscription -> application.getUUID().equals(subscription.getApplicationUUID()));
     }
 
     @Override
@@ -604,12 +639,7 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
     @Override
     public Subscription getSubscriptionBySubscriptionUUID(String subscriptionUUID) {
 
-        for (Subscription subscription : subscriptionMap.values()) {
-            if (subscriptionUUID.equals(subscription.getSubscriptionUUId())) {
-                return subscription;
-            }
-        }
-        return null;
+        return subscriptionMap.find(subscription -> subscriptionUUID.equals(subscription.getSubscriptionUUId()));
     }
 
     @Override
@@ -642,15 +672,7 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
     @Override
     public List<Subscription> getSubscriptionsByAPIId(int apiId) {
 
-        List<Subscription> subscriptionList = new ArrayList<>();
-        if (subscriptionMap != null) {
-            for (Subscription subscription : subscriptionMap.values()) {
-                if (subscription.getApiId() == apiId) {
-                    subscriptionList.add(subscription);
-                }
-            }
-        }
-        return subscriptionList;
+        return subscriptionMap.findAll(subscription -> subscription.getApiId() == apiId);
     }
 
     @Override
@@ -662,14 +684,8 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
     @Override
     public Subscription getSubscriptionByUUID(String apiUUID, String appUUID) {
 
-        if (subscriptionMap != null) {
-            for (Subscription subscription : subscriptionMap.values()) {
-                if (subscription.getApiUUID().equals(apiUUID) && subscription.getApplicationUUID().equals(appUUID)) {
-                    return subscription;
-                }
-            }
-        }
-        return null;
+        return subscriptionMap.find(subscription ->
+                subscription.getApiUUID().equals(apiUUID) && subscription.getApplicationUUID().equals(appUUID));
     }
 
     @Override
@@ -794,11 +810,12 @@ public class SubscriptionDataStoreImpl implements SubscriptionDataStore {
                     if (log.isDebugEnabled()) {
                         log.debug(String.format("Adding entry Key : %s Value : %s", v.getCacheKey(), v));
                     }
-
-                    if (!tempMap.isEmpty()) {
-                        entityMap.clear();
-                        entityMap.putAll(tempMap);
-                    }
+                }
+                if (!tempMap.isEmpty()) {
+                    // Entries are replaced before the stale entries are removed, so that the entries which are
+                    // still valid remain available while the map is populated again
+                    entityMap.putAll(tempMap);
+                    entityMap.keySet().retainAll(tempMap.keySet());
                 }
 
             } else {
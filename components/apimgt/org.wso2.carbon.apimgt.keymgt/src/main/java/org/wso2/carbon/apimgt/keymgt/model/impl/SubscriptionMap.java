@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.keymgt.model.impl;
+
+import org.wso2.carbon.apimgt.keymgt.model.entity.Subscription;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compact map of the subscriptions of a tenant, keyed by the application and API IDs packed into a primitive long
+ * instead of a concatenated string. The subscriptions are held in segments of open addressed arrays, each guarded by
+ * a {@link StampedLock}, so that lookups do not allocate and are mostly served by optimistic reads without locking.
+ * <p>
+ * The throttling tiers, states, API and application identifiers repeated across the subscriptions are replaced by
+ * shared instances from a dictionary when the subscriptions are added. The dictionary holds its values weakly, so
+ * that the values of the removed subscriptions are dropped from it.
+ */
+class SubscriptionMap {
+
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENT_COUNT = 1 << SEGMENT_BITS;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final Map<String, WeakReference<String>> dictionary = new WeakHashMap<>();
+
+    SubscriptionMap() {
+
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    static long getKey(int appId, int apiId) {
+
+        return ((long) appId << 32) | (apiId & 0xFFFFFFFFL);
+    }
+
+    static long getKey(Subscription subscription) {
+
+        return getKey(subscription.getAppId(), subscription.getApiId());
+    }
+
+    Subscription get(int appId, int apiId) {
+
+        long key = getKey(appId, apiId);
+        long hash = hash(key);
+        return getSegment(hash).get(key, hash);
+    }
+
+    /**
+     * Adds a subscription, replacing the subscription of the same application and API.
+     *
+     * @return the replaced subscription, or null if there was none
+     */
+    Subscription put(Subscription subscription) {
+
+        long key = getKey(subscription);
+        long hash = hash(key);
+        return getSegment(hash).put(key, hash, compact(subscription));
+    }
+
+    /**
+     * Atomically replaces the subscription of an application and API with the subscription returned by the given
+     * function, which is called with the current subscription, or null if there is none. The subscription is removed
+     * if the function returns null.
+     *
+     * @return the subscription held after the update
+     */
+    Subscription compute(int appId, int apiId, UnaryOperator<Subscription> remappingFunction) {
+
+        long key = getKey(appId, apiId);
+        long hash = hash(key);
+        return getSegment(hash).compute(key, hash, value -> {
+            Subscription newValue = remappingFunction.apply(value);
+            return newValue != null && newValue != value ? compact(newValue) : newValue;
+        });
+    }
+
+    Subscription remove(int appId, int apiId) {
+
+        long key = getKey(appId, apiId);
+        long hash = hash(key);
+        return getSegment(hash).remove(key, hash, null);
+    }
+
+    /**
+     * Removes the given subscription, only if it is still held for its application and API.
+     *
+     * @return true if the subscription was removed
+     */
+    boolean remove(Subscription subscription) {
+
+        long key = getKey(subscription);
+        long hash = hash(key);
+        return getSegment(hash).remove(key, hash, subscription) != null;
+    }
+
+    /**
+     * Replaces the subscriptions with the given subscriptions. The subscriptions are added before the subscriptions
+     * which are no longer present are removed, so that the subscriptions remain available while being replaced.
+     */
+    void replaceAll(Collection<Subscription> subscriptions) {
+
+        long[] keys = new long[subscriptions.size()];
+        int i = 0;
+        for (Subscription subscription : subscriptions) {
+            put(subscription);
+            keys[i++] = getKey(subscription);
+        }
+        Arrays.sort(keys);
+        removeIf(subscription -> Arrays.binarySearch(keys, getKey(subscription)) < 0);
+    }
+
+    int removeIf(Predicate<Subscription> filter) {
+
+        int removedCount = 0;
+        for (Segment segment : segments) {
+            removedCount += segment.removeIf(filter);
+        }
+        return removedCount;
+    }
+
+    /**
+     * @return the first subscription found which matches the filter, or null if none matches
+     */
+    Subscription find(Predicate<Subscription> filter) {
+
+        for (Segment segment : segments) {
+            Subscription subscription = segment.find(filter);
+            if (subscription != null) {
+                return subscription;
+            }
+        }
+        return null;
+    }
+
+    List<Subscription> findAll(Predicate<Subscription> filter) {
+
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.findAll(filter, subscriptions);
+        }
+        return subscriptions;
+    }
+
+    List<Subscription> values() {
+
+        return findAll(subscription -> true);
+    }
+
+    int size() {
+
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Subscription compact(Subscription subscription) {
+
+        subscription.setPolicyId(getSharedInstance(subscription.getPolicyId()));
+        subscription.setSubscriptionState(getSharedInstance(subscription.getSubscriptionState()));
+        subscription.setApiUUID(getSharedInstance(subscription.getApiUUID()));
+        subscription.setApiName(getSharedInstance(subscription.getApiName()));
+        subscription.setApiVersion(getSharedInstance(subscription.getApiVersion()));
+        subscription.setApplicationUUID(getSharedInstance(subscription.getApplicationUUID()));
+        return subscription;
+    }
+
+    private String getSharedInstance(String value) {
+
+        if (value == null) {
+            return null;
+        }
+        synchronized (dictionary) {
+            WeakReference<String> reference = dictionary.get(value);
+            String sharedInstance = reference != null ? reference.get() : null;
+            if (sharedInstance == null) {
+                dictionary.put(value, new WeakReference<>(value));
+                return value;
+            }
+            return sharedInstance;
+        }
+    }
+
+    int getDictionarySize() {
+
+        synchronized (dictionary) {
+            return dictionary.size();
+        }
+    }
+
+    private Segment getSegment(long hash) {
+
+        return segments[(int) (hash >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    private static long hash(long key) {
+
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    /**
+     * Linear probing hash table, in which a null value marks an empty slot.
+     */
+    private static final class Table {
+
+        private final long[] keys;
+        private final Subscription[] values;
+        private final int mask;
+
+        private Table(int capacity) {
+
+            this.keys = new long[capacity];
+            this.values = new Subscription[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private int indexOf(long key, long hash) {
+
+            for (int i = (int) hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                if (values[i] == null) {
+                    return -1;
+                }
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private Table table = new Table(INITIAL_SEGMENT_CAPACITY);
+        private int size;
+
+        private Subscription get(long key, long hash) {
+
+            long stamp = lock.tryOptimisticRead();
+            Subscription value = get(table, key, hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    value = get(table, key, hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return value;
+        }
+
+        private static Subscription get(Table table, long key, long hash) {
+
+            int index = table.indexOf(key, hash);
+            return index >= 0 ? table.values[index] : null;
+        }
+
+        private Subscription put(long key, long hash, Subscription value) {
+
+            long stamp = lock.writeLock();
+            try {
+                return putLocked(key, hash, value);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private Subscription compute(long key, long hash, UnaryOperator<Subscription> remappingFunction) {
+
+            long stamp = lock.writeLock();
+            try {
+                Subscription value = get(table, key, hash);
+                Subscription newValue = remappingFunction.apply(value);
+                if (newValue == null) {
+                    if (value != null) {
+                        removeLocked(key, hash, null);
+                    }
+                } else if (newValue != value) {
+                    putLocked(key, hash, newValue);
+                }
+                return newValue;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private Subscription remove(long key, long hash, Subscription expectedValue) {
+
+            long stamp = lock.writeLock();
+            try {
+                return removeLocked(key, hash, expectedValue);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private int removeIf(Predicate<Subscription> filter) {
+
+            long stamp = lock.writeLock();
+            try {
+                int removedCount = 0;
+                Table table = this.table;
+                int i = 0;
+                while (i < table.values.length) {
+                    Subscription value = table.values[i];
+                    // Removing an entry can move a following entry into the slot, which is then checked again
+                    if (value != null && filter.test(value)) {
+                        removeLocked(table.keys[i], hash(table.keys[i]), null);
+                        removedCount++;
+                    } else {
+                        i++;
+                    }
+                }
+                return removedCount;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private Subscription find(Predicate<Subscription> filter) {
+
+            long stamp = lock.readLock();
+            try {
+                for (Subscription value : table.values) {
+                    if (value != null && filter.test(value)) {
+                        return value;
+                    }
+                }
+                return null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private void findAll(Predicate<Subscription> filter, List<Subscription> matches) {
+
+            long stamp = lock.readLock();
+            try {
+                for (Subscription value : table.values) {
+                    if (value != null && filter.test(value)) {
+                        matches.add(value);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private int size() {
+
+            long stamp = lock.tryOptimisticRead();
+            int size = this.size;
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    size = this.size;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return size;
+        }
+
+        private Subscription putLocked(long key, long hash, Subscription value) {
+
+            Table table = this.table;
+            for (int i = (int) hash & table.mask; ; i = (i + 1) & table.mask) {
+                Subscription existingValue = table.values[i];
+                if (existingValue == null) {
+                    if ((size + 1) * 4 > table.values.length * 3) {
+                        resize();
+                        return putLocked(key, hash, value);
+                    }
+                    table.keys[i] = key;
+                    table.values[i] = value;
+                    size++;
+                    return null;
+                }
+                if (table.keys[i] == key) {
+                    table.values[i] = value;
+                    return existingValue;
+                }
+            }
+        }
+
+        private Subscription removeLocked(long key, long hash, Subscription expectedValue) {
+
+            Table table = this.table;
+            int index = table.indexOf(key, hash);
+            if (index < 0 || (expectedValue != null && table.values[index] != expectedValue)) {
+                return null;
+            }
+            Subscription value = table.values[index];
+            // Entries following the removed entry are shifted back, so that no entry is placed after an empty slot
+            // in its probe sequence
+            int gap = index;
+            for (int i = (index + 1) & table.mask; table.values[i] != null; i = (i + 1) & table.mask) {
+                int home = (int) hash(table.keys[i]) & table.mask;
+                if (((i - home) & table.mask) >= ((i - gap) & table.mask)) {
+                    table.keys[gap] = table.keys[i];
+                    table.values[gap] = table.values[i];
+                    gap = i;
+                }
+            }
+            table.keys[gap] = 0;
+            table.values[gap] = null;
+            size--;
+            return value;
+        }
+
+        private void resize() {
+
+            Table table = this.table;
+            Table resizedTable = new Table(table.values.length * 2);
+            for (int i = 0; i < table.values.length; i++) {
+                if (table.values[i] != null) {
+                    int j = (int) hash(table.keys[i]) & resizedTable.mask;
+                    while (resizedTable.values[j] != null) {
+                        j = (j + 1) & resizedTable.mask;
+                    }
+                    resizedTable.keys[j] = table.keys[i];
+                    resizedTable.values[j] = table.values[i];
+                }
+            }
+            this.table = resizedTable;
+        }
+    }
+}
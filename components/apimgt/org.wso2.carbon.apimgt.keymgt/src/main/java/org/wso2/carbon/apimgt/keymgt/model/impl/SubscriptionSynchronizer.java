@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.keymgt.model.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.impl.utils.SubscriptionRevisionDigest;
+import org.wso2.carbon.apimgt.keymgt.model.SubscriptionDataLoader;
+import org.wso2.carbon.apimgt.keymgt.model.entity.Subscription;
+import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionRevision;
+import org.wso2.carbon.apimgt.keymgt.model.exception.DataLoadingException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Synchronizes the subscriptions held by a subscription data store with the control plane, by loading only the pages
+ * of subscriptions whose revisions differ from the revisions of the subscriptions held in the store. The subscriptions
+ * are updated in place, so that they remain available while being synchronized.
+ */
+class SubscriptionSynchronizer {
+
+    private static final Log log = LogFactory.getLog(SubscriptionSynchronizer.class);
+
+    static final int PAGE_SIZE = 1000;
+
+    private final SubscriptionDataLoader subscriptionDataLoader;
+    private final String tenantDomain;
+
+    SubscriptionSynchronizer(SubscriptionDataLoader subscriptionDataLoader, String tenantDomain) {
+
+        this.subscriptionDataLoader = subscriptionDataLoader;
+        this.tenantDomain = tenantDomain;
+    }
+
+    /**
+     * Synchronizes the subscriptions with the control plane.
+     *
+     * @param subscriptionMap subscriptions held by the store
+     * @return false if the control plane does not provide the revisions of the subscriptions, in which case all the
+     * subscriptions have to be loaded
+     * @throws DataLoadingException if the subscriptions could not be loaded
+     */
+    boolean synchronize(SubscriptionMap subscriptionMap) throws DataLoadingException {
+
+        List<SubscriptionRevision> revisions =
+                subscriptionDataLoader.loadSubscriptionRevisions(tenantDomain, PAGE_SIZE);
+        if (revisions == null || revisions.isEmpty()) {
+            return false;
+        }
+        NavigableMap<Integer, Subscription> subscriptions = new TreeMap<>();
+        for (Subscription subscription : subscriptionMap.values()) {
+            Integer subscriptionId = getSubscriptionId(subscription);
+            if (subscriptionId != null) {
+                subscriptions.put(subscriptionId, subscription);
+            } else {
+                // Subscriptions which cannot be compared are loaded again when they are looked up
+                subscriptionMap.remove(subscription);
+            }
+        }
+        int changedPageCount = 0;
+        int loadedSubscriptionCount = 0;
+        for (SubscriptionRevision revision : revisions) {
+            NavigableMap<Integer, Subscription> pageSubscriptions =
+                    subscriptions.subMap(revision.getAfter(), false, revision.getLast(), true);
+            if (revision.getRevision() != null && revision.getRevision().equals(getRevision(pageSubscriptions))) {
+                continue;
+            }
+            List<Subscription> loadedSubscriptions = loadSubscriptions(revision.getAfter(), revision.getLast());
+            Set<Long> loadedKeys = new HashSet<>();
+            for (Subscription subscription : loadedSubscriptions) {
+                loadedKeys.add(SubscriptionMap.getKey(subscription));
+            }
+            for (Subscription subscription : pageSubscriptions.values()) {
+                if (!loadedKeys.contains(SubscriptionMap.getKey(subscription))) {
+                    subscriptionMap.remove(subscription);
+                }
+            }
+            for (Subscription subscription : loadedSubscriptions) {
+                subscriptionMap.put(subscription);
+            }
+            changedPageCount++;
+            loadedSubscriptionCount += loadedSubscriptions.size();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Synchronized the subscriptions of tenant " + tenantDomain + " by loading "
+                    + loadedSubscriptionCount + " subscriptions of " + changedPageCount + " changed pages out of "
+                    + revisions.size() + " pages");
+        }
+        return true;
+    }
+
+    /**
+     * Loads the subscriptions with IDs greater than the given ID and not greater than the given last ID.
+     */
+    private List<Subscription> loadSubscriptions(int after, int last) throws DataLoadingException {
+
+        List<Subscription> subscriptions = new ArrayList<>();
+        while (true) {
+            List<Subscription> page = subscriptionDataLoader.loadSubscriptions(tenantDomain, after, PAGE_SIZE);
+            int pageLast = after;
+            for (Subscription subscription : page) {
+                Integer subscriptionId = getSubscriptionId(subscription);
+                if (subscriptionId == null || subscriptionId <= after) {
+                    continue;
+                }
+                if (subscriptionId > last) {
+                    return subscriptions;
+                }
+                subscriptions.add(subscription);
+                pageLast = Math.max(pageLast, subscriptionId);
+            }
+            if (page.size() < PAGE_SIZE || pageLast == after || pageLast >= last) {
+                return subscriptions;
+            }
+            after = pageLast;
+        }
+    }
+
+    private static String getRevision(NavigableMap<Integer, Subscription> subscriptions) {
+
+        SubscriptionRevisionDigest digest = new SubscriptionRevisionDigest();
+        for (Subscription subscription : subscriptions.values()) {
+            digest.update(subscription.getSubscriptionId(), subscription.getApiId(), subscription.getAppId(),
+                    subscription.getPolicyId(), subscription.getSubscriptionState());
+        }
+        return digest.getRevision();
+    }
+
+    private static Integer getSubscriptionId(Subscription subscription) {
+
+        try {
+            return Integer.valueOf(subscription.getSubscriptionId());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.keymgt.model.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PendingLoadsTest {
+
+    @Test
+    public void testConcurrentLoadsOfAnEntityAreCoalesced() throws Exception {
+
+        PendingLoads<Integer, String> pendingLoads = new PendingLoads<>();
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch loadReleased = new CountDownLatch(1);
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> results.add(pendingLoads.load(1, () -> {
+                loadCount.incrementAndGet();
+                loadStarted.countDown();
+                try {
+                    loadReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "application-1";
+            })));
+            threads.add(thread);
+            thread.start();
+            if (i == 0) {
+                Assert.assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+            }
+        }
+        // Every thread waits, either for the release of the load or for the pending load
+        long deadline = System.currentTimeMillis() + 10000;
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+        // Loads of other entities are not blocked by the pending load
+        Assert.assertEquals("application-2", pendingLoads.load(2, () -> "application-2"));
+        loadReleased.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertEquals(Collections.nCopies(4, "application-1"), results);
+        Assert.assertEquals(0, pendingLoads.size());
+    }
+
+    @Test
+    public void testLoadFailureIsPropagated() {
+
+        PendingLoads<Integer, String> pendingLoads = new PendingLoads<>();
+        try {
+            pendingLoads.load(1, () -> {
+                throw new IllegalStateException("Internal API is not available");
+            });
+            Assert.fail("Load failure is not propagated");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("Internal API is not available", e.getMessage());
+        }
+        Assert.assertEquals(0, pendingLoads.size());
+        Assert.assertEquals("application-1", pendingLoads.load(1, () -> "application-1"));
+    }
+}
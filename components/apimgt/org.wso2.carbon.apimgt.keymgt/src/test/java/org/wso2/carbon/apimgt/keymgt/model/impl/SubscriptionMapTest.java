@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.keymgt.model.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.apimgt.keymgt.model.entity.Subscription;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SubscriptionMapTest {
+
+    @Test
+    public void testSubscriptionsMatchReferenceMap() {
+
+        SubscriptionMap subscriptionMap = new SubscriptionMap();
+        Map<String, Subscription> referenceMap = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            // Negative and colliding IDs are included, to cover the packing of the IDs and the removal of entries
+            int appId = random.nextInt(500) - 10;
+            int apiId = random.nextInt(500) - 10;
+            String key = appId + ":" + apiId;
+            if (random.nextInt(3) == 0) {
+                Assert.assertSame(referenceMap.remove(key), subscriptionMap.remove(appId, apiId));
+            } else {
+                Subscription subscription = getSubscription(i, appId, apiId, "Gold");
+                Assert.assertSame(referenceMap.put(key, subscription), subscriptionMap.put(subscription));
+            }
+        }
+        Assert.assertEquals(referenceMap.size(), subscriptionMap.size());
+        for (int appId = -10; appId < 490; appId++) {
+            for (int apiId = -10; apiId < 490; apiId++) {
+                Assert.assertSame(referenceMap.get(appId + ":" + apiId), subscriptionMap.get(appId, apiId));
+            }
+        }
+        Assert.assertEquals(referenceMap.size(), subscriptionMap.values().size());
+    }
+
+    @Test
+    public void testSubscriptionsAreReplaced() {
+
+        SubscriptionMap subscriptionMap = new SubscriptionMap();
+        for (int i = 0; i < 1000; i++) {
+            subscriptionMap.put(getSubscription(i, i, i, "Gold"));
+        }
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (int i = 500; i < 1500; i++) {
+            subscriptions.add(getSubscription(i, i, i, new String("Silver")));
+        }
+        subscriptionMap.replaceAll(subscriptions);
+
+        Assert.assertEquals(1000, subscriptionMap.size());
+        Assert.assertNull(subscriptionMap.get(499, 499));
+        Assert.assertSame(subscriptions.get(0), subscriptionMap.get(500, 500));
+        Assert.assertNotNull(subscriptionMap.get(1499, 1499));
+        // Repeated values are shared by the subscriptions
+        Assert.assertSame(subscriptionMap.get(500, 500).getPolicyId(), subscriptionMap.get(1499, 1499).getPolicyId());
+        Assert.assertSame(subscriptionMap.get(500, 500).getSubscriptionState(),
+                subscriptionMap.get(1499, 1499).getSubscriptionState());
+    }
+
+    @Test
+    public void testSubscriptionsAreUpdatedAtomically() {
+
+        SubscriptionMap subscriptionMap = new SubscriptionMap();
+        Subscription subscription = getSubscription(1, 1, 2, "Gold");
+        Assert.assertSame(subscription, subscriptionMap.compute(1, 2, existing -> existing == null ? subscription :
+                null));
+        Assert.assertSame(subscription, subscriptionMap.compute(1, 2, existing -> existing));
+        Assert.assertNull(subscriptionMap.compute(1, 2, existing -> null));
+        Assert.assertNull(subscriptionMap.get(1, 2));
+
+        subscriptionMap.put(subscription);
+        // A subscription is only removed if it was not replaced
+        Assert.assertFalse(subscriptionMap.remove(getSubscription(1, 1, 2, "Gold")));
+        Assert.assertTrue(subscriptionMap.remove(subscription));
+        Assert.assertEquals(0, subscriptionMap.size());
+    }
+
+    @Test
+    public void testSubscriptionsAreFiltered() {
+
+        SubscriptionMap subscriptionMap = new SubscriptionMap();
+        for (int i = 0; i < 1000; i++) {
+            Subscription subscription = getSubscription(i, i % 10, i / 10, "Gold");
+            subscription.setApplicationUUID("app-" + (i % 10));
+            subscriptionMap.put(subscription);
+        }
+        Assert.assertEquals(100, subscriptionMap.findAll(subscription -> subscription.getAppId() == 7).size());
+        Assert.assertEquals("123", subscriptionMap.find(subscription ->
+                "123".equals(subscription.getSubscriptionId())).getSubscriptionId());
+        Assert.assertNull(subscriptionMap.find(subscription -> "1000".equals(subscription.getSubscriptionId())));
+        Assert.assertEquals(100, subscriptionMap.removeIf(subscription ->
+                "app-3".equals(subscription.getApplicationUUID())));
+        Assert.assertEquals(900, subscriptionMap.size());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i % 10 != 3, subscriptionMap.get(i % 10, i / 10) != null);
+        }
+    }
+
+    @Test
+    public void testSubscriptionsAreReadWhileUpdated() throws Exception {
+
+        SubscriptionMap subscriptionMap = new SubscriptionMap();
+        for (int i = 0; i < 1000; i++) {
+            subscriptionMap.put(getSubscription(i, i, 0, "Gold"));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger missingCount = new AtomicInteger();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread reader = new Thread(() -> {
+                while (running.get()) {
+                    for (int appId = 0; appId < 1000; appId++) {
+                        if (subscriptionMap.get(appId, 0) == null) {
+                            missingCount.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        // Subscriptions which are added, resized and removed around the subscriptions being read
+        for (int i = 0; i < 20; i++) {
+            for (int appId = 0; appId < 5000; appId++) {
+                subscriptionMap.put(getSubscription(appId, appId, 1, "Gold"));
+            }
+            for (int appId = 0; appId < 5000; appId++) {
+                subscriptionMap.remove(appId, 1);
+            }
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        Assert.assertEquals(0, missingCount.get());
+        Assert.assertEquals(1000, subscriptionMap.size());
+    }
+
+    @Test
+    public void testValuesOfRemovedSubscriptionsAreDroppedFromDictionary() throws InterruptedException {
+
+        SubscriptionMap subscriptionMap = new SubscriptionMap();
+        for (int i = 0; i < 1000; i++) {
+            Subscription subscription = getSubscription(i, i, i, "Gold");
+            subscription.setApiUUID("api-" + i);
+            subscriptionMap.put(subscription);
+        }
+        Assert.assertTrue(subscriptionMap.getDictionarySize() > 1000);
+        Assert.assertEquals(1000, subscriptionMap.removeIf(subscription -> true));
+        for (int i = 0; i < 50 && subscriptionMap.getDictionarySize() > 2; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        // Only the tier and state shared by the test remain reachable
+        Assert.assertTrue(subscriptionMap.getDictionarySize() <= 2);
+    }
+
+    private static Subscription getSubscription(int subscriptionId, int appId, int apiId, String policyId) {
+
+        Subscription subscription = new Subscription();
+        subscription.setSubscriptionId(Integer.toString(subscriptionId));
+        subscription.setAppId(appId);
+        subscription.setApiId(apiId);
+        subscription.setPolicyId(policyId);
+        subscription.setSubscriptionState(new String("UNBLOCKED"));
+        return subscription;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.apimgt.keymgt.model.impl;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.wso2.carbon.apimgt.impl.utils.SubscriptionRevisionDigest;
+import org.wso2.carbon.apimgt.keymgt.model.SubscriptionDataLoader;
+import org.wso2.carbon.apimgt.keymgt.model.entity.Subscription;
+import org.wso2.carbon.apimgt.keymgt.model.entity.SubscriptionRevision;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class SubscriptionSynchronizerTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+
+    private final TreeMap<Integer, Subscription> controlPlaneSubscriptions = new TreeMap<>();
+    private SubscriptionDataLoader subscriptionDataLoader;
+
+    @Before
+    public void init() throws Exception {
+
+        subscriptionDataLoader = Mockito.mock(SubscriptionDataLoader.class);
+        Mockito.when(subscriptionDataLoader.loadSubscriptionRevisions(Mockito.eq(TENANT_DOMAIN), Mockito.anyInt()))
+                .thenAnswer(invocation -> getRevisions(invocation.getArgument(1)));
+        Mockito.when(subscriptionDataLoader.loadSubscriptions(Mockito.eq(TENANT_DOMAIN), Mockito.anyInt(),
+                Mockito.anyInt())).thenAnswer(invocation -> getSubscriptions(invocation.getArgument(1),
+                invocation.getArgument(2)));
+        for (int i = 1; i <= 5000; i++) {
+            addSubscription(i, i % 100, i / 100, "Gold", "UNBLOCKED");
+        }
+    }
+
+    @Test
+    public void testOnlyChangedPagesAreLoaded() throws Exception {
+
+        SubscriptionMap subscriptionMap = getSubscriptionMap();
+        // Subscriptions are updated, removed and added in two of the pages while the gateway was disconnected
+        addSubscription(10, 10, 0, "Gold", "BLOCKED");
+        controlPlaneSubscriptions.remove(20);
+        controlPlaneSubscriptions.remove(4999);
+        addSubscription(5001, 20, 0, "Silver", "UNBLOCKED");
+        addSubscription(5002, 99, 99, "Bronze", "UNBLOCKED");
+
+        Assert.assertTrue(new SubscriptionSynchronizer(subscriptionDataLoader, TENANT_DOMAIN)
+                .synchronize(subscriptionMap));
+        Assert.assertEquals(getSubscriptionIds(getSubscriptionMap()), getSubscriptionIds(subscriptionMap));
+        Assert.assertEquals("BLOCKED", subscriptionMap.get(0, 10).getSubscriptionState());
+        Assert.assertEquals("5001", subscriptionMap.get(0, 20).getSubscriptionId());
+        Assert.assertEquals("Silver", subscriptionMap.get(0, 20).getPolicyId());
+        // Only the first and the last pages are changed, as the pages are compared within the ranges of the control plane
+        Mockito.verify(subscriptionDataLoader).loadSubscriptions(TENANT_DOMAIN, 0, SubscriptionSynchronizer.PAGE_SIZE);
+        Mockito.verify(subscriptionDataLoader).loadSubscriptions(TENANT_DOMAIN, 4001,
+                SubscriptionSynchronizer.PAGE_SIZE);
+        Mockito.verify(subscriptionDataLoader, Mockito.times(2)).loadSubscriptions(Mockito.eq(TENANT_DOMAIN),
+                Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    public void testUnchangedSubscriptionsAreNotLoaded() throws Exception {
+
+        SubscriptionMap subscriptionMap = getSubscriptionMap();
+        Assert.assertTrue(new SubscriptionSynchronizer(subscriptionDataLoader, TENANT_DOMAIN)
+                .synchronize(subscriptionMap));
+        Assert.assertEquals(5000, subscriptionMap.size());
+        Mockito.verify(subscriptionDataLoader, Mockito.never()).loadSubscriptions(Mockito.anyString(),
+                Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    public void testSubscriptionsAreNotSynchronizedWithoutRevisions() throws Exception {
+
+        Mockito.when(subscriptionDataLoader.loadSubscriptionRevisions(Mockito.eq(TENANT_DOMAIN), Mockito.anyInt()))
+                .thenReturn(null);
+        SubscriptionMap subscriptionMap = new SubscriptionMap();
+        Assert.assertFalse(new SubscriptionSynchronizer(subscriptionDataLoader, TENANT_DOMAIN)
+                .synchronize(subscriptionMap));
+        Assert.assertEquals(0, subscriptionMap.size());
+    }
+
+    private void addSubscription(int subscriptionId, int apiId, int appId, String policyId, String state) {
+
+        Subscription subscription = new Subscription();
+        subscription.setSubscriptionId(Integer.toString(subscriptionId));
+        subscription.setApiId(apiId);
+        subscription.setAppId(appId);
+        subscription.setPolicyId(policyId);
+        subscription.setSubscriptionState(state);
+        controlPlaneSubscriptions.put(subscriptionId, subscription);
+    }
+
+    private List<Subscription> getSubscriptions(int after, int limit) {
+
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (Subscription subscription : controlPlaneSubscriptions.tailMap(after, false).values()) {
+            if (subscriptions.size() == limit) {
+                break;
+            }
+            subscriptions.add(subscription);
+        }
+        return subscriptions;
+    }
+
+    private SubscriptionMap getSubscriptionMap() {
+
+        SubscriptionMap subscriptionMap = new SubscriptionMap();
+        for (Subscription subscription : controlPlaneSubscriptions.values()) {
+            subscriptionMap.put(subscription);
+        }
+        return subscriptionMap;
+    }
+
+    private static Set<String> getSubscriptionIds(SubscriptionMap subscriptionMap) {
+
+        Set<String> subscriptionIds = new HashSet<>();
+        for (Subscription subscription : subscriptionMap.values()) {
+            subscriptionIds.add(subscription.getSubscriptionId());
+        }
+        return subscriptionIds;
+    }
+
+    /**
+     * Computes the revisions of the subscriptions in the same way as the control plane.
+     */
+    private List<SubscriptionRevision> getRevisions(int pageSize) {
+
+        List<SubscriptionRevision> revisions = new ArrayList<>();
+        SubscriptionRevisionDigest digest = new SubscriptionRevisionDigest();
+        int after = 0;
+        for (Map.Entry<Integer, Subscription> entry : controlPlaneSubscriptions.entrySet()) {
+            Subscription subscription = entry.getValue();
+            digest.update(subscription.getSubscriptionId(), subscription.getApiId(), subscription.getAppId(),
+                    subscription.getPolicyId(), subscription.getSubscriptionState());
+            if (digest.getCount() == pageSize) {
+                revisions.add(getRevision(after, entry.getKey(), pageSize, digest.getRevision()));
+                after = entry.getKey();
+            }
+        }
+        int count = digest.getCount();
+        revisions.add(getRevision(after, Integer.MAX_VALUE, count, digest.getRevision()));
+        return revisions;
+    }
+
+    private static SubscriptionRevision getRevision(int after, int last, int count, String revision) {
+
+        SubscriptionRevision subscriptionRevision = new SubscriptionRevision();
+        subscriptionRevision.setAfter(after);
+        subscriptionRevision.setLast(last);
+        subscriptionRevision.setCount(count);
+        subscriptionRevision.setRevision(revision);
+        return subscriptionRevision;
+    }
+}
@@ -33,6 +33,10 @@ public class ServerStartupHealthcheckApiServiceImpl implements ServerStartupHeal
         if (isAllApisDeployed && isAllGatewayPoliciesDeployed) {
             return Response.status(Response.Status.OK).build();
         }
+        if (!isAllApisDeployed) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(GatewayUtils.getAPIDeploymentProgress()).build();
+        }
         return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
     }
 }